@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+import com.cm.projects.spring.resource.chasis.annotations.ReadModel;
+import com.cm.projects.spring.resource.chasis.readmodel.ReadModels;
+import com.cm.projects.spring.resource.chasis.search.SearchFields;
+import com.cm.projects.spring.resource.chasis.search.SearchProvider;
+import com.cm.projects.spring.resource.chasis.search.SearchProviders;
+import com.cm.projects.spring.resource.chasis.utils.EntityWrites;
+import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+
+/**
+ * Administration endpoints rebuilding data derived from the entity tables i.e. the search index, the shadow fields
+ * of prefix search and the @{@link ReadModel}. Entities are
+ * identified by their JPA entity name (the simple class name unless set using <code>@Entity(name = ...)</code>).
+ * <h4>Note</h4>
+ * <ul>
+ * <li>The endpoints run over whole tables hence are not exposed by default. Declare the resource as a bean to expose
+ * them:
+ * <pre>
+ * &#64;Bean
+ * public ChasisAdminResource chasisAdminResource(EntityManager entityManager) {
+ *     return new ChasisAdminResource(entityManager);
+ * }
+ * </pre>
+ * </li>
+ * <li>Endpoints are mapped under chasis.admin.path (default <code>/chasis-admin</code>), restrict the path to
+ * administrators e.g. using Spring Security</li>
+ * </ul>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+@RequestMapping("${chasis.admin.path:/chasis-admin}")
+@ResponseBody
+public class ChasisAdminResource {
+
+    /**
+     * Entity manager used to resolve entities and read the records
+     */
+    protected final EntityManager entityManager;
+
+    /**
+     * @param entityManager {@link EntityManager} for database queries
+     */
+    public ChasisAdminResource(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Used to rebuild the search index of the entity from the database
+     *
+     * @param entity JPA entity name
+     * @return {@link ResponseEntity} with the number of indexed records or status 404 if the entity doesn't exist or a
+     * {@link SearchProvider} isn't configured for the entity
+     */
+    @PostMapping("/{entity}/search-index")
+    @Operation(summary = "Rebuild Search Index")
+    @Parameter(name = "entity", in = ParameterIn.PATH, required = true, description = "JPA entity name")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ResponseWrapper<Long>> rebuildSearchIndex(@PathVariable("entity") String entity) {
+        Class<?> entityClass = this.resolveEntity(entity);
+        if (entityClass == null) {
+            return this.notFound("Unknown entity " + entity);
+        }
+        SearchProvider provider = SearchProviders.forClass(entityClass);
+        if (provider == null) {
+            return this.notFound("Search index is not configured for " + entity);
+        }
+        ResponseWrapper<Long> response = new ResponseWrapper<>();
+        response.setData(provider.rebuild(this.entityManager, entityClass));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Used to populate the shadow fields of {@link com.cm.projects.spring.resource.chasis.annotations.Searchable.Mode#PREFIX}
+     * fields for existing records e.g. after a shadow field is added to a table that has records (see
+     * {@link SearchFields#populateShadows(EntityManager, Class)})
+     *
+     * @param entity JPA entity name
+     * @return {@link ResponseEntity} with the number of updated records or status 404 if the entity doesn't exist or
+     * doesn't have shadow fields
+     */
+    @PostMapping("/{entity}/search-shadows")
+    @Operation(summary = "Populate Search Shadow Fields")
+    @Parameter(name = "entity", in = ParameterIn.PATH, required = true, description = "JPA entity name")
+    @Transactional
+    public ResponseEntity<ResponseWrapper<Long>> populateSearchShadows(@PathVariable("entity") String entity) {
+        Class<?> entityClass = this.resolveEntity(entity);
+        if (entityClass == null) {
+            return this.notFound("Unknown entity " + entity);
+        }
+        long count = SearchFields.populateShadows(this.entityManager, entityClass);
+        if (count < 0) {
+            return this.notFound("Search shadow fields are not configured for " + entity);
+        }
+        if (count > 0) {
+            EntityWrites.record(entityClass);
+        }
+        ResponseWrapper<Long> response = new ResponseWrapper<>();
+        response.setData(count);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Used to rebuild the @{@link ReadModel} of the entity from the entity table e.g. after bulk updates that bypass
+     * Hibernate or when a read model is added to an existing table. Cached counts, coalesced reads and versions of
+     * the entity are invalidated as after a write through the resources (see {@link EntityWrites})
+     *
+     * @param entity JPA entity name
+     * @return {@link ResponseEntity} with the number of read model records or status 404 if the entity doesn't exist
+     * or doesn't have a read model
+     */
+    @PostMapping("/{entity}/read-model")
+    @Operation(summary = "Rebuild Read Model")
+    @Parameter(name = "entity", in = ParameterIn.PATH, required = true, description = "JPA entity name")
+    @Transactional
+    public ResponseEntity<ResponseWrapper<Long>> rebuildReadModel(@PathVariable("entity") String entity) {
+        Class<?> entityClass = this.resolveEntity(entity);
+        if (entityClass == null) {
+            return this.notFound("Unknown entity " + entity);
+        }
+        long count = ReadModels.rebuild(this.entityManager, entityClass);
+        if (count < 0) {
+            return this.notFound("Read model is not configured for " + entity);
+        }
+        EntityWrites.record(entityClass);
+        ResponseWrapper<Long> response = new ResponseWrapper<>();
+        response.setData(count);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Used to resolve an entity class from its JPA entity name
+     *
+     * @param entity JPA entity name
+     * @return entity class or null if there is no entity with the name
+     */
+    protected Class<?> resolveEntity(String entity) {
+        for (EntityType<?> type : this.entityManager.getMetamodel().getEntities()) {
+            if (type.getName().equals(entity)) {
+                return type.getJavaType();
+            }
+        }
+        return null;
+    }
+
+    private ResponseEntity<ResponseWrapper<Long>> notFound(String message) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ResponseWrapper<>(HttpStatus.NOT_FOUND, message));
+    }
+}
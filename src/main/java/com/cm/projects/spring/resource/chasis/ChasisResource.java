@@ -6,17 +6,34 @@
 package com.cm.projects.spring.resource.chasis;
 
 import com.cm.projects.spring.resource.chasis.annotations.*;
+import com.cm.projects.spring.resource.chasis.config.ChasisMetadataBuilderInitializer;
+import com.cm.projects.spring.resource.chasis.config.ReplicaRouting;
 import com.cm.projects.spring.resource.chasis.exceptions.ExpectationFailed;
 import com.cm.projects.spring.resource.chasis.exceptions.GeneralBadRequest;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.metadata.FastBeanWrapper;
+import com.cm.projects.spring.resource.chasis.readmodel.ReadModelMapping;
+import com.cm.projects.spring.resource.chasis.readmodel.ReadModels;
+import com.cm.projects.spring.resource.chasis.repository.FetchGraphs;
 import com.cm.projects.spring.resource.chasis.repository.SupportRepository;
+import com.cm.projects.spring.resource.chasis.search.SearchProvider;
+import com.cm.projects.spring.resource.chasis.search.SearchProviders;
 import com.cm.projects.spring.resource.chasis.service.ChasisService;
 import com.cm.projects.spring.resource.chasis.service.templates.ChasisServiceTemplate;
 import com.cm.projects.spring.resource.chasis.utils.*;
 import com.cm.projects.spring.resource.chasis.utils.export.CsvFlexView;
 import com.cm.projects.spring.resource.chasis.wrappers.ActionWrapper;
+import com.cm.projects.spring.resource.chasis.wrappers.BatchResult;
+import com.cm.projects.spring.resource.chasis.wrappers.ChangeEvent;
+import com.cm.projects.spring.resource.chasis.wrappers.ChasisPage;
+import com.cm.projects.spring.resource.chasis.wrappers.FacetValue;
+import com.cm.projects.spring.resource.chasis.wrappers.ResourceVersion;
 import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
 import com.cm.projects.spring.resource.chasis.wrappers.Status;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Parameters;
@@ -25,33 +42,55 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.hibernate.jpa.QueryHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.*;
-import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
-import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * Exposes the following resource actions;
@@ -72,9 +111,42 @@ import java.util.*;
  */
 public class ChasisResource<T, E extends Serializable, R> {
 
+    /**
+     * Keyset pagination cursor request parameter
+     */
+    public static final String AFTER_PARAM = "after";
+    /**
+     * Count mode request parameter (see {@link CountMode})
+     */
+    public static final String COUNT_PARAM = "count";
+    /**
+     * Comma separated fields to select (see {@link Projection})
+     */
+    public static final String FIELDS_PARAM = "fields";
+    /**
+     * Comma separated ids to fetch (see {@link #getEntities(List, HttpServletRequest)})
+     */
+    public static final String IDS_PARAM = "ids";
+    /**
+     * Comma separated @{@link Filter} fields to count (see {@link #findFacets(HttpServletRequest)})
+     */
+    public static final String FACETS_PARAM = "facets";
+    /**
+     * Aggregate metric request parameter e.g. sum:amount (see {@link Aggregation})
+     */
+    public static final String METRIC_PARAM = "metric";
+    /**
+     * Comma separated aggregate group by fields (see {@link Aggregation})
+     */
+    public static final String GROUP_BY_PARAM = "groupBy";
+
     protected final List<Class> genericClasses;
     protected final String recordName;
     protected final ChasisService chasisService;
+    /**
+     * Entity metadata (id, intrash, filter, searchable fields e.t.c) computed once on initialization
+     */
+    protected final EntityMetadata<T> metadata;
     /**
      * Used to handling logging requests
      */
@@ -91,12 +163,131 @@ public class ChasisResource<T, E extends Serializable, R> {
      * Events logs handler
      */
     protected Logger log = LoggerFactory.getLogger(this.getClass());
+    /**
+     * Default strategy used to count records when fetching a page (chasis.count.mode property)
+     */
+    protected CountMode countMode = CountMode.EXACT;
+    /**
+     * Maximum number of records counted by {@link CountMode#CAPPED} (chasis.count.cap property)
+     */
+    protected int countCap = 1000;
+    /**
+     * Fetch the page and the exact total in a single query where supported (chasis.count.single-query property)
+     */
+    protected boolean singleQueryCount = true;
+    /**
+     * Whether the database supports {@link ChasisMetadataBuilderInitializer#TOTAL_COUNT_FUNCTION}. Resolved on first use
+     */
+    private volatile Boolean totalCountSupported;
+    /**
+     * Fetch plan applied when loading entities. Resolved on first use (see {@link #createFetchGraph()})
+     */
+    private volatile Optional<EntityGraph<T>> fetchGraph;
+    /**
+     * Respond with 304 to conditional requests of unchanged records (chasis.conditional-get property)
+     */
+    protected boolean conditionalGet = true;
+    /**
+     * Include the in memory modification counter of the entity (see {@link EntityVersions}) in versions
+     * (chasis.conditional-get.counter property). Only correct when the records are only written through the resources
+     * of a single instance
+     */
+    protected boolean counterVersions = false;
+    /**
+     * Cache of exact record counts shared by resources of the same entity. Invalidated on writes
+     */
+    protected final CountCache countCache;
+    /**
+     * Maximum number of values returned per facet (chasis.facets.limit property)
+     */
+    protected int facetLimit = 100;
+    /**
+     * Maximum number of groups returned by {@link #aggregate(Pageable, HttpServletRequest)} (chasis.aggregate.limit property)
+     */
+    protected int aggregateLimit = 1000;
+    /**
+     * Compiled filter parameters of the entity (see {@link FilterPlan})
+     */
+    protected final FilterPlan<T> filterPlan;
+    /**
+     * Maximum page size of {@link #findAll(Pageable, HttpServletRequest)} (chasis.max-page-size property, 0 for no
+     * limit which is the default so that existing clients requesting large or unpaged lists keep working)
+     */
+    protected int maxPageSize = 0;
+    /**
+     * Maximum number of exported records (chasis.export.max-size property, 0 for no limit)
+     */
+    protected int maxExportSize = 0;
+    /**
+     * Timeout in seconds of list, count, facet and aggregate queries (chasis.query.timeout property, 0 for no timeout)
+     */
+    protected int queryTimeout = 30;
+    /**
+     * Timeout in seconds of export queries (chasis.export.timeout property, 0 for no timeout)
+     */
+    protected int exportTimeout = 300;
+    /**
+     * Only allow sorting by @{@link Sortable} fields and the id even if the entity has no @{@link Sortable} fields
+     * (chasis.sort.sortable-only property)
+     */
+    protected boolean sortableOnly = false;
+    /**
+     * Maximum number of ids fetched by {@link #getEntities(List, HttpServletRequest)} (chasis.batch.max-size property)
+     */
+    protected int maxBatchSize = 1000;
+    /**
+     * Number of ids per IN query of {@link #getEntities(List, HttpServletRequest)} (chasis.batch.chunk-size property)
+     */
+    protected int batchChunkSize = 500;
+    /**
+     * Number of rows written by {@link #streamAll(Pageable, HttpServletRequest)} before the persistence context is
+     * cleared, also used as the JDBC fetch size (chasis.stream.chunk-size property)
+     */
+    protected int streamChunkSize = 100;
+    /**
+     * Serve {@link #findAll(Pageable, HttpServletRequest)} from the @{@link ReadModel} of the entity if it has one
+     * (chasis.read-model.enabled property)
+     */
+    protected boolean readModelEnabled = true;
+    /**
+     * Feed of committed changes pushed to {@link #subscribeEvents()} subscribers
+     */
+    protected final ChangeFeed changeFeed;
+    /**
+     * Coalesces identical concurrent {@link #findAll(Pageable, HttpServletRequest)} and
+     * {@link #getEntity(Serializable, HttpServletRequest)} requests
+     */
+    protected final SingleFlight singleFlight;
+    /**
+     * Used to run {@link #streamAll(Pageable, HttpServletRequest)} in a read only transaction on the streaming thread
+     * and reads after they have been coalesced (see {@link #singleFlight})
+     */
+    private PlatformTransactionManager transactionManager;
+    /**
+     * Used to write {@link #streamAll(Pageable, HttpServletRequest)} responses. Resolved from {@link #handlerAdapter} on
+     * first use unless set
+     */
+    private volatile ObjectMapper objectMapper;
+    /**
+     * Handler adapter whose Jackson message converter writes the other responses
+     */
+    private RequestMappingHandlerAdapter handlerAdapter;
+    /**
+     * True if the JDBC driver only streams rows using the {@link Integer#MIN_VALUE} fetch size (MySQL without cursor
+     * fetch). Resolved on first use
+     */
+    private volatile Boolean rowStreaming;
+    /**
+     * Writes {@link #streamAll(Pageable, HttpServletRequest)} responses using {@link #objectMapper}. Created on first use
+     */
+    private volatile PageStream pageStream;
 
     /**
      * Used to initialize:
      * <ul>
      *     <li>Record name from entity nickname. Refer to {@link NickName}</li>
      *     <li>Initialize generic classes {@link ChasisResource#genericClasses}</li>
+     *     <li>Entity metadata {@link ChasisResource#metadata}</li>
      * </ul>
      * @param loggerService {@link LoggerService} bean
      * @param entityManager {@link EntityManager} for database queries
@@ -107,9 +298,13 @@ public class ChasisResource<T, E extends Serializable, R> {
         this.entityManager = entityManager;
         this.genericClasses = SharedMethods.getGenericClasses(this.getClass());
         this.chasisService = chasisService;
+        this.metadata = EntityMetadataRegistry.forClass(this.genericClasses.get(0));
         this.supportRepo = new SupportRepository(entityManager, this.genericClasses.get(0), this.genericClasses.get(2));
-        NickName nickName = AnnotationUtils.findAnnotation(this.genericClasses.get(0), NickName.class);
-        this.recordName = (nickName == null) ? "Record" : nickName.name();
+        this.recordName = this.metadata.getRecordName();
+        this.countCache = CountCache.forClass(this.genericClasses.get(0));
+        this.changeFeed = ChangeFeed.forClass(this.genericClasses.get(0));
+        this.singleFlight = SingleFlight.forClass(this.genericClasses.get(0));
+        this.filterPlan = FilterPlan.forClass(this.metadata.getEntityClass());
     }
 
     /**
@@ -121,6 +316,272 @@ public class ChasisResource<T, E extends Serializable, R> {
         this(loggerService, entityManager, new ChasisServiceTemplate(entityManager));
     }
 
+    /**
+     * Set the default strategy used to count records when fetching a page
+     *
+     * @param countMode {@link CountMode}
+     */
+    @Value("${chasis.count.mode:EXACT}")
+    public void setCountMode(CountMode countMode) {
+        this.countMode = countMode;
+    }
+
+    /**
+     * Set the maximum number of records counted by {@link CountMode#CAPPED}
+     *
+     * @param countCap count limit
+     */
+    @Value("${chasis.count.cap:1000}")
+    public void setCountCap(int countCap) {
+        this.countCap = countCap;
+    }
+
+    /**
+     * Enable or disable fetching the page and the exact total in a single query
+     *
+     * @param singleQueryCount true to use a <code>count(*) over()</code> window where supported
+     */
+    @Value("${chasis.count.single-query:true}")
+    public void setSingleQueryCount(boolean singleQueryCount) {
+        this.singleQueryCount = singleQueryCount;
+    }
+
+    /**
+     * Enable or disable conditional requests (ETag / Last-Modified) on {@link #findAll(Pageable, HttpServletRequest)}
+     * and {@link #getEntity(Serializable, HttpServletRequest)}
+     *
+     * @param conditionalGet true to return 304 when the client already has the current version
+     */
+    @Value("${chasis.conditional-get:true}")
+    public void setConditionalGet(boolean conditionalGet) {
+        this.conditionalGet = conditionalGet;
+    }
+
+    /**
+     * Enable or disable versions based on the in memory modification counter of the entity (see
+     * {@link EntityVersions}). Without the counter only entities with a @{@link javax.persistence.Version} or last
+     * modified field are versioned
+     *
+     * @param counterVersions true if a single instance writes the records and only through the resources
+     */
+    @Value("${chasis.conditional-get.counter:false}")
+    public void setCounterVersions(boolean counterVersions) {
+        this.counterVersions = counterVersions;
+    }
+
+    /**
+     * Set the maximum number of exact counts cached per entity
+     *
+     * @param size maximum number of cached counts (0 disables the cache)
+     */
+    @Value("${chasis.count.cache.size:" + CountCache.DEFAULT_MAX_SIZE + "}")
+    public void setCountCacheSize(int size) {
+        this.countCache.setMaxSize(size);
+    }
+
+    /**
+     * Set how long exact counts are cached
+     *
+     * @param ttl time to live in seconds (0 disables the cache)
+     */
+    @Value("${chasis.count.cache.ttl:60}")
+    public void setCountCacheTtl(long ttl) {
+        this.countCache.setTtlMillis(ttl * 1000);
+    }
+
+    /**
+     * Set the maximum number of values returned per facet
+     *
+     * @param facetLimit maximum number of values (the most frequent values are returned)
+     */
+    @Value("${chasis.facets.limit:100}")
+    public void setFacetLimit(int facetLimit) {
+        this.facetLimit = facetLimit;
+    }
+
+    /**
+     * Set the maximum number of groups returned when aggregating records
+     *
+     * @param aggregateLimit maximum number of groups
+     */
+    @Value("${chasis.aggregate.limit:1000}")
+    public void setAggregateLimit(int aggregateLimit) {
+        this.aggregateLimit = aggregateLimit;
+    }
+
+    /**
+     * Set the maximum page size
+     *
+     * @param maxPageSize maximum page size (0 for no limit)
+     */
+    @Value("${chasis.max-page-size:0}")
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Set the maximum number of exported records
+     *
+     * @param maxExportSize maximum number of records (0 for no limit)
+     */
+    @Value("${chasis.export.max-size:0}")
+    public void setMaxExportSize(int maxExportSize) {
+        this.maxExportSize = maxExportSize;
+    }
+
+    /**
+     * Set the timeout of list, count, facet and aggregate queries
+     *
+     * @param queryTimeout timeout in seconds (0 for no timeout)
+     */
+    @Value("${chasis.query.timeout:30}")
+    public void setQueryTimeout(int queryTimeout) {
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Set the timeout of export queries
+     *
+     * @param exportTimeout timeout in seconds (0 for no timeout)
+     */
+    @Value("${chasis.export.timeout:300}")
+    public void setExportTimeout(int exportTimeout) {
+        this.exportTimeout = exportTimeout;
+    }
+
+    /**
+     * Set whether sorting is restricted to @{@link Sortable} fields for entities without @{@link Sortable} fields
+     *
+     * @param sortableOnly true to only allow sorting by the id of entities without @{@link Sortable} fields
+     */
+    @Value("${chasis.sort.sortable-only:false}")
+    public void setSortableOnly(boolean sortableOnly) {
+        this.sortableOnly = sortableOnly;
+    }
+
+    /**
+     * Set the maximum number of ids fetched in a single request
+     *
+     * @param maxBatchSize maximum number of ids
+     */
+    @Value("${chasis.batch.max-size:1000}")
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Set the number of ids per query when fetching records by id
+     *
+     * @param batchChunkSize number of ids per IN list
+     */
+    @Value("${chasis.batch.chunk-size:500}")
+    public void setBatchChunkSize(int batchChunkSize) {
+        this.batchChunkSize = Math.max(batchChunkSize, 1);
+    }
+
+    /**
+     * Set the number of rows streamed between clearing the persistence context
+     *
+     * @param streamChunkSize number of rows (also used as the JDBC fetch size)
+     */
+    @Value("${chasis.stream.chunk-size:100}")
+    public void setStreamChunkSize(int streamChunkSize) {
+        this.streamChunkSize = Math.max(streamChunkSize, 1);
+    }
+
+    /**
+     * Enable or disable serving record lists from read models
+     *
+     * @param readModelEnabled false to always query the entity table
+     */
+    @Value("${chasis.read-model.enabled:true}")
+    public void setReadModelEnabled(boolean readModelEnabled) {
+        this.readModelEnabled = readModelEnabled;
+    }
+
+    /**
+     * Set the number of change events buffered per subscriber before the oldest are dropped
+     *
+     * @param size number of events
+     */
+    @Value("${chasis.events.buffer-size:" + ChangeFeed.DEFAULT_BUFFER_SIZE + "}")
+    public void setEventBufferSize(int size) {
+        this.changeFeed.setBufferSize(size);
+    }
+
+    /**
+     * Set how long a change feed subscription lasts before the client has to reconnect
+     *
+     * @param timeout timeout in seconds (0 for no timeout)
+     */
+    @Value("${chasis.events.timeout:1800}")
+    public void setEventTimeout(long timeout) {
+        this.changeFeed.setTimeoutMillis(timeout * 1000);
+    }
+
+    /**
+     * Set how long sending a change event can take before the subscriber is removed (e.g. a client that stopped
+     * reading)
+     *
+     * @param timeout timeout in seconds
+     */
+    @Value("${chasis.events.send-timeout:10}")
+    public void setEventSendTimeout(long timeout) {
+        this.changeFeed.setSendTimeoutMillis(timeout * 1000);
+    }
+
+    /**
+     * Set the maximum number of subscribers to the change feed, further subscriptions are rejected with status 503
+     *
+     * @param maxSubscribers maximum subscribers (0 for no limit)
+     */
+    @Value("${chasis.events.max-subscribers:1000}")
+    public void setEventMaxSubscribers(int maxSubscribers) {
+        this.changeFeed.setMaxSubscribers(maxSubscribers);
+    }
+
+    /**
+     * Set how long a request waits for an identical request in flight before querying the database itself
+     *
+     * @param maxWait maximum wait in seconds (0 disables coalescing)
+     */
+    @Value("${chasis.coalesce.max-wait:30}")
+    public void setCoalesceMaxWait(long maxWait) {
+        this.singleFlight.setMaxWaitMillis(maxWait * 1000);
+    }
+
+    /**
+     * Set the transaction manager used by {@link #streamAll(Pageable, HttpServletRequest)} (required to stream) and to
+     * read in a read only transaction after coalescing
+     * @param transactionManager {@link PlatformTransactionManager} bean
+     */
+    @Autowired(required = false)
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Set the handler adapter whose Jackson message converter's object mapper is used by
+     * {@link #streamAll(Pageable, HttpServletRequest)} so that streamed records are written like the other responses
+     *
+     * @param handlerAdapter {@link RequestMappingHandlerAdapter} bean
+     */
+    @Autowired(required = false)
+    public void setHandlerAdapter(RequestMappingHandlerAdapter handlerAdapter) {
+        this.handlerAdapter = handlerAdapter;
+    }
+
+    /**
+     * Set the object mapper used by {@link #streamAll(Pageable, HttpServletRequest)} instead of the object mapper of
+     * the Jackson message converter
+     *
+     * @param objectMapper {@link ObjectMapper}
+     */
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.pageStream = null;
+    }
+
     /**
      * Used to persist new entities to the database. The following validations
      * are carried out before an entity is persisted:
@@ -148,7 +609,7 @@ public class ChasisResource<T, E extends Serializable, R> {
     public ResponseEntity<ResponseWrapper<E>> create(@Valid @RequestBody T t) {
 
         ResponseWrapper<E> response = new ResponseWrapper<>();
-        BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+        BeanWrapper accessor = FastBeanWrapper.forBean(t);
 
         try {
             //check if relational entities exists
@@ -183,6 +644,8 @@ public class ChasisResource<T, E extends Serializable, R> {
         this.loggerService.log("Created " + recordName + " successfully",
                 t.getClass().getSimpleName(), SharedMethods.getEntityIdValue(t),
                 AppConstants.ACTIVITY_CREATE, AppConstants.STATUS_ID_COMPLETED, "");
+        this.markModified();
+        this.publishChange(SharedMethods.getEntityIdValue(t), AppConstants.ACTIVITY_CREATE);
 
         response.setData((E) this.chasisService.getEntityId(t));
         response.setStatus(201);
@@ -190,20 +653,128 @@ public class ChasisResource<T, E extends Serializable, R> {
     }
 
     /**
-     * Used to fetch entity by id
+     * Used to fetch entity by id. If the fields parameter is present only the specified fields are fetched
+     * (see {@link Projection})
      *
-     * @param id Entity id
+     * @param id      Entity id
+     * @param request HTTP Request used to get the fields parameter
      * @return {@link ResponseEntity} with data field containing the entity
      * (data is null when entity could not be found) and status 200:
      */
     @RequestMapping(value = "/{id}", method = RequestMethod.GET)
     @Operation(summary = "Fetch single record using record id")
-    public ResponseEntity<ResponseWrapper<T>> getEntity(@PathVariable("id") E id) {
-        ResponseWrapper<T> response = new ResponseWrapper<>();
-        response.setData(this.fetchEntity(id));
+    @Parameter(name = "fields", in = ParameterIn.QUERY, required = false, description = "Comma separated fields to "
+            + "return e.g. name,status. All fields are returned by default")
+    public ResponseEntity<ResponseWrapper<T>> getEntity(@PathVariable("id") E id,
+                                                        @Parameter(hidden = true) HttpServletRequest request) {
+        return this.coalesce(this.coalesceKey("getEntity/" + id, request), () -> this.fetchRecord(id, request));
+    }
+
+    /**
+     * Used to fetch the record returned by {@link #getEntity(Serializable, HttpServletRequest)} in a read only
+     * transaction
+     *
+     * @param id      Entity id
+     * @param request HTTP Request used to get the fields parameter
+     * @return {@link ResponseEntity} with data field containing the entity (null when it could not be found)
+     */
+    protected ResponseEntity<ResponseWrapper<T>> fetchRecord(E id, HttpServletRequest request) {
+        ResourceVersion version = this.conditionalGet ? this.resolveEntityVersion(id, request) : null;
+        ResponseEntity<ResponseWrapper<T>> notModified = ConditionalRequests.notModified(request, version);
+        if (notModified != null) {
+            return notModified;
+        }
+        ResponseWrapper response = new ResponseWrapper<>();
+        Projection<T> projection = this.resolveProjection(request);
+        if (projection == null) {
+            response.setData(this.fetchEntity(id));
+            return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+        }
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(this.metadata.getEntityClass());
+        this.select(criteriaQuery, root, projection);
+        Predicate predicate = criteriaBuilder.equal(root.get(this.metadata.requireIdFieldName()), id);
+        if (this.metadata.hasIntrash()) {
+            predicate = criteriaBuilder.and(predicate,
+                    criteriaBuilder.equal(root.get(this.metadata.getIntrashFieldName()), AppConstants.NO));
+        }
+        criteriaQuery.where(predicate);
+        List<Object> rows = this.readRows(this.entityManager.createQuery(criteriaQuery).getResultList(), projection);
+        response.setData(rows.isEmpty() ? null : rows.get(0));
+        return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+    }
+
+    /**
+     * Used to fetch several entities by id (in place of calling {@link #getEntity(Serializable, HttpServletRequest)}
+     * for each id). If the fields parameter is present only the specified fields are fetched (see {@link Projection})
+     *
+     * @param ids     entity ids
+     * @param request HTTP Request used to get the fields parameter
+     * @return {@link ResponseEntity} with data field containing {@link BatchResult} (see
+     * {@link #fetchEntities(List, Projection)}) and status 200
+     * @throws RunTimeBadRequest if no ids are sent, more than {@link #maxBatchSize} ids are sent or an id is not valid
+     */
+    @GetMapping("/batch")
+    @Operation(summary = "Fetch records using a list of record ids")
+    @Transactional(readOnly = true)
+    @Parameters({
+            @Parameter(name = "ids", in = ParameterIn.QUERY, required = true, description = "Comma separated record ids"),
+            @Parameter(name = "fields", in = ParameterIn.QUERY, required = false, description = "Comma separated fields "
+                    + "to return e.g. name,status. All fields are returned by default")
+    })
+    public ResponseEntity<ResponseWrapper<BatchResult<Object, E>>> getEntities(@RequestParam(IDS_PARAM) List<E> ids,
+                                                                            @Parameter(hidden = true) HttpServletRequest request) {
+        ResponseWrapper<BatchResult<Object, E>> response = new ResponseWrapper<>();
+        response.setData(this.fetchEntities(ids, this.resolveProjection(request)));
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Used to fetch several entities by id when the ids don't fit in a URL. Same as
+     * {@link #getEntities(List, HttpServletRequest)} with the ids sent as a JSON array
+     *
+     * @param ids     entity ids
+     * @param request HTTP Request used to get the fields parameter
+     * @return {@link ResponseEntity} with data field containing {@link BatchResult} and status 200
+     * @throws RunTimeBadRequest if no ids are sent, more than {@link #maxBatchSize} ids are sent or an id is not valid
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Fetch records using a list of record ids sent in the request body")
+    @Transactional(readOnly = true)
+    @Parameter(name = "fields", in = ParameterIn.QUERY, required = false, description = "Comma separated fields to "
+            + "return e.g. name,status. All fields are returned by default")
+    public ResponseEntity<ResponseWrapper<BatchResult<Object, E>>> postEntities(@RequestBody List<E> ids,
+                                                                             @Parameter(hidden = true) HttpServletRequest request) {
+        return this.getEntities(ids, request);
+    }
+
+    /**
+     * Used to fetch entities using IN queries of at most {@link #batchChunkSize} ids. Records in trash are treated as
+     * missing like in {@link #fetchEntity(Serializable)}.
+     *
+     * @param ids        entity ids (duplicates are fetched once)
+     * @param projection selected fields or null to fetch entities
+     * @return {@link BatchResult} with records in the order of the ids and the ids that weren't found
+     * @throws RunTimeBadRequest             if no ids are sent, more than {@link #maxBatchSize} ids are sent or an id
+     *                                       is not valid
+     * @throws UnsupportedOperationException if the entity doesn't have an @{@link javax.persistence.Id} field
+     *                                       (e.g. @{@link javax.persistence.EmbeddedId} or an id mapped on the getter)
+     */
+    protected BatchResult<Object, E> fetchEntities(List<E> ids, Projection<T> projection) {
+        if (this.metadata.getIdField() == null) {
+            throw new UnsupportedOperationException("Fetching " + recordName + " records by ids requires an @Id field");
+        }
+        return this.batchFetch().fetch(ids, this.maxBatchSize, projection, this.getFetchGraph());
+    }
+
+    /**
+     * @return {@link BatchFetch} loading records using IN queries of at most {@link #batchChunkSize} ids
+     */
+    private BatchFetch<T> batchFetch() {
+        return new BatchFetch<>(this.entityManager, this.metadata, this.batchChunkSize, this.queryTimeout);
+    }
+
     /**
      * Used to set status field
      *
@@ -232,23 +803,31 @@ public class ChasisResource<T, E extends Serializable, R> {
      */
     private Short getStatusId(PropertyAccessor accessor) throws org.springframework.beans.InvalidPropertyException {
         try {
-            Object status = accessor.getPropertyValue("status");
-            if (status instanceof Number) {
-                return Short.valueOf(status + "");
-            } else {
-                for (Field f : Objects.requireNonNull(status).getClass().getDeclaredFields()) {
-                    if (f.isAnnotationPresent(Id.class)) {
-                        PropertyAccessor sAccessor = PropertyAccessorFactory.forBeanPropertyAccess(status);
-                        return Short.valueOf(sAccessor.getPropertyValue(f.getName()) + "");
-                    }
-                }
-            }
+            return this.toStatusId(Objects.requireNonNull(accessor.getPropertyValue("status")));
         } catch (NullPointerException ex) {
             log.error("Failed to retrieve status field from entity ", ex);
         }
         return null;
     }
 
+    /**
+     * Used to convert status field value to status id
+     *
+     * @param status status field value either the id or the status entity
+     * @return {@link Short} status id or null if the status entity doesn't have an id field
+     */
+    private Short toStatusId(Object status) {
+        if (status instanceof Number) {
+            return Short.valueOf(status + "");
+        }
+        Field idField = EntityMetadataRegistry.forEntity(status).getIdField();
+        if (idField == null) {
+            return null;
+        }
+        PropertyAccessor sAccessor = FastBeanWrapper.forBean(status);
+        return Short.valueOf(sAccessor.getPropertyValue(idField.getName()) + "");
+    }
+
     /**
      * Used to update entities by saving new changes to the edited record
      * entity. For edited record to work The following annotation must be
@@ -323,7 +902,7 @@ public class ChasisResource<T, E extends Serializable, R> {
         try {
             log.info("Validating relational entities on entity {}", t);
             //check if relational entities exists
-            BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+            BeanWrapper accessor = FastBeanWrapper.forBean(t);
             this.chasisService.validateRelEntities(t, accessor);
             log.info("Validating unique entities on entity {}", t);
             //validate unique fields
@@ -338,22 +917,12 @@ public class ChasisResource<T, E extends Serializable, R> {
             return ResponseEntity.status(ex.getHttpStatus()).body(response);
         }
 
-        PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(dbT);
+        PropertyAccessor accessor = FastBeanWrapper.forBean(dbT);
         Object status;
         Short statusId = null;
         try {
             status = accessor.getPropertyValue("status");
-            if (status instanceof Number) {
-                statusId = Short.valueOf(status + "");
-            } else {
-                for (Field f : Objects.requireNonNull(status).getClass().getDeclaredFields()) {
-                    if (f.isAnnotationPresent(Id.class)) {
-                        PropertyAccessor sAccessor = PropertyAccessorFactory.forBeanPropertyAccess(status);
-                        statusId = Short.valueOf(sAccessor.getPropertyValue(f.getName()) + "");
-                        break;
-                    }
-                }
-            }
+            statusId = this.toStatusId(Objects.requireNonNull(status));
             if (statusId != null) {
                 if ((!statusId.equals(AppConstants.STATUS_ID_NEW)) && (!statusId.equals(AppConstants.STATUS_ID_ACTIVE))) {
                     loggerService.log("Updating " + recordName + " failed due to record has unapproved actions",
@@ -370,6 +939,7 @@ public class ChasisResource<T, E extends Serializable, R> {
         } catch (org.springframework.beans.InvalidPropertyException ex) {
             log.debug("Field status on entity {} updating entity directly", this.genericClasses.get(0));
             this.supportRepo.updateEdit(t, dbT);
+            this.markModified();
             return ResponseEntity.ok(response);
         }
 
@@ -392,6 +962,8 @@ public class ChasisResource<T, E extends Serializable, R> {
                         + String.join(",", changes),
                 t.getClass().getSimpleName(), SharedMethods.getEntityIdValue(t),
                 AppConstants.ACTIVITY_UPDATE, AppConstants.STATUS_ID_COMPLETED, "");
+        this.markModified();
+        this.publishChange(SharedMethods.getEntityIdValue(t), AppConstants.ACTIVITY_UPDATE);
         response.setData(changes);
         return ResponseEntity.ok(response);
 
@@ -430,7 +1002,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                 continue;
             }
 
-            PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+            PropertyAccessor accessor = FastBeanWrapper.forBean(t);
             try {
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null || !statusId.equals(AppConstants.STATUS_ID_ACTIVE)) {
@@ -445,6 +1017,8 @@ public class ChasisResource<T, E extends Serializable, R> {
 //                    this.entityManager.persist(t);
                     loggerService.log("Deleted " + recordName + " successfully", this.genericClasses.get(0).getSimpleName(),
                             id, AppConstants.ACTIVITY_DELETE, AppConstants.STATUS_ID_COMPLETED, "");
+                    this.markModified();
+                    this.publishChange(id, AppConstants.ACTIVITY_DELETE);
                 }
             } catch (org.springframework.beans.NotWritablePropertyException | org.springframework.beans.NotReadablePropertyException e) {
                 log.debug("Failed to find action and action status failed skipping "
@@ -456,6 +1030,8 @@ public class ChasisResource<T, E extends Serializable, R> {
                     this.entityManager.remove(t);
                     this.entityManager.flush();
                 }
+                this.markModified();
+                this.publishChange(id, AppConstants.ACTIVITY_DELETE);
             }
         }
 
@@ -507,7 +1083,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                     continue;
                 }
 
-                BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+                BeanWrapper accessor = FastBeanWrapper.forBean(t);
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null) {
                     throw new ExpectationFailed("Sorry entity does not contain status field or is null");
@@ -540,9 +1116,12 @@ public class ChasisResource<T, E extends Serializable, R> {
                     loggerService.log("Failed to approve " + recordName + ". Record doesn't have approve actions",
                             this.genericClasses.get(0).getSimpleName(), id, AppConstants.ACTIVITY_APPROVE, AppConstants.STATUS_ID_FAILED, actions.getNotes());
                     errors.add(recordName + " with id " + id + " doesn't have approve actions");
+                    continue;
                 }
                 log.debug("Persisting current entity {} ", t);
                 this.entityManager.merge(t);
+                this.markModified();
+                this.publishChange(id, AppConstants.ACTIVITY_APPROVE);
             } catch (ExpectationFailed ex) {
                 errors.add(ex.getMessage());
             }
@@ -716,7 +1295,7 @@ public class ChasisResource<T, E extends Serializable, R> {
     public ResponseEntity<ResponseWrapper> declineActions(@RequestBody @Valid ActionWrapper<E> actions) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
         ResponseWrapper response = new ResponseWrapper();
 
-        Class clazz = SharedMethods.getGenericClasses(this.getClass()).get(0);
+        Class clazz = this.genericClasses.get(0);
         List<String> errors = new ErrorList<>();
 
         for (E id : actions.getIds()) {
@@ -729,7 +1308,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                     continue;
                 }
 
-                BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+                BeanWrapper accessor = FastBeanWrapper.forBean(t);
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null) {
                     throw new ExpectationFailed("Sorry entity does not contain status field or is null");
@@ -766,8 +1345,11 @@ public class ChasisResource<T, E extends Serializable, R> {
                     loggerService.log("Failed to decline " + recordName + ". Record doesn't have approve actions",
                             clazz.getSimpleName(), id, AppConstants.ACTIVITY_APPROVE, AppConstants.STATUS_ID_FAILED, actions.getNotes());
                     errors.add("Record doesn't have approve actions");
+                    continue;
                 }
                 this.entityManager.merge(t);
+                this.markModified();
+                this.publishChange(id, AppConstants.ACTIVITY_DECLINE);
             } catch (ExpectationFailed ex) {
                 errors.add(ex.getMessage());
             }
@@ -942,6 +1524,7 @@ public class ChasisResource<T, E extends Serializable, R> {
      */
     @RequestMapping(method = RequestMethod.GET, value = "/{id}/changes")
     @Operation(summary = "Fetch Record Changes")
+    @Transactional(readOnly = true)
     public ResponseEntity<ResponseWrapper<List<String>>> fetchChanges(@PathVariable("id") E id) throws IllegalAccessException, IOException {
         ResponseWrapper<List<String>> response = new ResponseWrapper<>();
         response.setData(supportRepo.fetchChanges(id, this.fetchEntity(id)));
@@ -955,34 +1538,20 @@ public class ChasisResource<T, E extends Serializable, R> {
      * @return
      */
     public T fetchEntity(Serializable id) {
-        Class clazz = this.genericClasses.get(0);//Shar.getGenericClasses(this.getClass()).get(0);
-        //get id field name
-        String fieldId = null;
-        boolean hasIntrash = false;
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                fieldId = field.getName();
-            }
-            if (field.getName().equalsIgnoreCase("intrash")) {
-                hasIntrash = true;
-            }
-        }
-
-        if (fieldId == null) {
-            throw new RuntimeException("Entity doesn't have an id field");
-        }
+        Class<T> clazz = this.metadata.getEntityClass();
+        String fieldId = this.metadata.requireIdFieldName();
 
         CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
         CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(clazz);
         Root<T> root = criteriaQuery.from(clazz);
-        if (hasIntrash) {
+        if (this.metadata.hasIntrash()) {
             criteriaQuery.where(criteriaBuilder.and(criteriaBuilder.equal(root.get(fieldId), id),
-                    criteriaBuilder.equal(root.get("intrash"), AppConstants.NO)));
+                    criteriaBuilder.equal(root.get(this.metadata.getIntrashFieldName()), AppConstants.NO)));
         } else {
             criteriaQuery.where(criteriaBuilder.equal(root.get(fieldId), id));
         }
         try {
-            return this.entityManager.createQuery(criteriaQuery).getSingleResult();
+            return FetchGraphs.apply(this.entityManager.createQuery(criteriaQuery), this.getFetchGraph()).getSingleResult();
         } catch (javax.persistence.NoResultException ex) {
             return null;
         }
@@ -1000,6 +1569,14 @@ public class ChasisResource<T, E extends Serializable, R> {
      * <pre>@Filter private String name;</pre> expects the request name
      * parameter to be name. To filter by date range you need to provide to and
      * from request parameters with a valid String date (dd/MM/yyyy, dd/MM/yyyy HH:mm:ss.SSS, dd/MM/yyyy HH:mm:ss)</li>
+     * <li>If after parameter is present records are fetched using keyset pagination
+     * (see {@link #findAllAfter(Pageable, HttpServletRequest, String)})</li>
+     * <li>Total records are counted using the count parameter if present otherwise the default {@link CountMode}
+     * (see {@link #createPage(List, Pageable, long, boolean, String, HttpServletRequest)})</li>
+     * <li>Exact totals are fetched together with the page where the database supports window functions
+     * (see {@link #findAllWithTotal(Pageable, HttpServletRequest)})</li>
+     * <li>If fields parameter is present only the specified fields are fetched (see {@link Projection})</li>
+     * <li>Identical concurrent requests share a single execution (see {@link #coalesceKey(String, HttpServletRequest)})</li>
      * </ul>
      *
      * @param pg      used to sort and limit the result
@@ -1012,133 +1589,1185 @@ public class ChasisResource<T, E extends Serializable, R> {
             @Parameter(name = "size", in = ParameterIn.QUERY, required = false, description = "Page size default is 20"),
             @Parameter(name = "page", in = ParameterIn.QUERY, required = false, description = "Page number default is 0"),
             @Parameter(name = "sort", in = ParameterIn.QUERY, required = false, description = "Field name e.g status,asc/desc",
-                    examples = @ExampleObject(value = "'property': 'status,asc/desc'"))
+                    examples = @ExampleObject(value = "'property': 'status,asc/desc'")),
+            @Parameter(name = "after", in = ParameterIn.QUERY, required = false, description = "Keyset cursor. Send an empty "
+                    + "value for the first page and the previous page nextCursor for the following pages"),
+            @Parameter(name = "count", in = ParameterIn.QUERY, required = false, description = "Total count strategy "
+                    + "i.e. exact, none, capped or estimated"),
+            @Parameter(name = "fields", in = ParameterIn.QUERY, required = false, description = "Comma separated fields "
+                    + "to return e.g. name,status. All fields are returned by default")
     })
     @GetMapping
     public ResponseEntity<ResponseWrapper<Page<T>>> findAll(@Parameter(hidden = true) Pageable pg,
                                                             @Parameter(hidden = true) HttpServletRequest request) throws ParseException {
+        return this.coalesce(this.coalesceKey("findAll", request), () -> this.fetchPage(pg, request));
+    }
 
-        ResponseWrapper response = new ResponseWrapper();
+    /**
+     * Used to fetch the page returned by {@link #findAll(Pageable, HttpServletRequest)} in a read only transaction
+     *
+     * @param pg      used to sort and limit the result
+     * @param request HTTP Request used to get filter and search parameters.
+     * @return {@link ResponseEntity} with data field containing {@link ChasisPage}
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected ResponseEntity<ResponseWrapper<Page<T>>> fetchPage(Pageable pg, HttpServletRequest request) throws ParseException {
+        this.validatePageable(pg, this.maxPageSize);
+        ResourceVersion version = this.conditionalGet ? this.resolveListVersion(request) : null;
+        ResponseEntity<ResponseWrapper<Page<T>>> notModified = ConditionalRequests.notModified(request, version);
+        if (notModified != null) {
+            return notModified;
+        }
+        ResponseWrapper response = new ResponseWrapper();
+        String after = request.getParameter(AFTER_PARAM);
+        if (after != null) {
+            response.setData(this.findAllAfter(pg, request, after));
+            return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+        }
+        ReadModelMapping<T, ?> readModel = this.getReadModel(pg, request);
+        if (readModel != null) {
+            response.setData(this.findAllFromReadModel(pg, request, readModel));
+            return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+        }
+
+        if (this.resolveCountMode(request) == CountMode.EXACT && this.isSingleQueryCountSupported()
+                && !this.countCache.contains(this.countCacheKey(request))) {
+            response.setData(this.findAllWithTotal(pg, request));
+            return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+        }
+
+        Projection<T> projection = this.resolveProjection(request);
         CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
-        CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(this.genericClasses.get(0));
-        CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
-        Root<T> root = criteriaQuery.from(this.genericClasses.get(0));
-        ArrayList<Predicate> searchPreds = new ArrayList<>();
-        ArrayList<Predicate> filterPreds = new ArrayList<>();
-        List<Order> ords = new ArrayList<>();
-        SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy");
-        Calendar cal = Calendar.getInstance();
-
-        //retrieve filter and search params
-        for (Field field : this.genericClasses.get(0).getDeclaredFields()) {
-            if (field.isAnnotationPresent(Searchable.class) && request.getParameter("needle") != null) { //process search attributes
-                searchPreds.add(criteriaBuilder.like(criteriaBuilder.upper(root.get(field.getName())),
-                        "%" + request.getParameter("needle").toUpperCase() + "%"));
-            }
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(this.metadata.getEntityClass());
+        this.select(criteriaQuery, root, projection);
+        criteriaQuery.where(this.buildPredicate(criteriaBuilder, root, request));
+        criteriaQuery.orderBy(this.buildOrders(criteriaBuilder, root, pg.getSort()));
+        List<Object> content = this.readRows(this.fetchPlan(this.entityManager
+                .createQuery(criteriaQuery), projection)
+                .setFirstResult((pg.getPageNumber() * pg.getPageSize()))
+                .setMaxResults(pg.getPageSize() + 1)
+                .getResultList(), projection);
 
-            if (field.isAnnotationPresent(Filter.class)) {//process filter attributes
-                if (field.getAnnotation(Filter.class).isDateRange() && request.getParameter("to") != null
-                        && request.getParameter("from") != null) {//filter date range
+        boolean hasNext = content.size() > pg.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, pg.getPageSize()));
+        }
+        response.setData(this.createPage(content, pg, pg.getOffset(), hasNext, null, request));
+        return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+    }
 
-                    Date from = this.chasisService.tryParse(request.getParameter("from"));
-                    if (from == null) {
-                        throw new ParseException("Failed to parse " + request.getParameter("from") + " to date", 0);
+    /**
+     * Used to retrieve a page of records without holding the page in memory. Accepts the same parameters as
+     * {@link #findAll(Pageable, HttpServletRequest)} (except after) and returns the same response. The
+     * {@link ResponseWrapper} envelope is written first then each record as it is read from the database followed by
+     * the page properties.
+     * <h4>Note</h4>
+     * <ul>
+     * <li>Records are written on a separate thread after this method returns, in a read only transaction (and from the
+     * replica if one is configured, see {@link ReplicaRouting}). A {@link PlatformTransactionManager} is required</li>
+     * <li>The persistence context is cleared every {@link #streamChunkSize} records, see
+     * {@link #streamFetchSize(Projection)} for the JDBC fetch size</li>
+     * <li>Records are written using the object mapper of the Jackson message converter as in
+     * {@link #findAll(Pageable, HttpServletRequest)}</li>
+     * <li>Page size is limited by chasis.export.max-size and the query by chasis.export.timeout</li>
+     * <li>Errors after the first byte has been written can't change the response status, the response is truncated
+     * instead</li>
+     * </ul>
+     *
+     * @param pg      used to sort and limit the result
+     * @param request HTTP Request used to get filter and search parameters
+     * @return {@link StreamingResponseBody} writing {@link ResponseWrapper} of {@link ChasisPage}
+     * @throws ParseException                if request param date cannot be casted to {@link Date}
+     * @throws UnsupportedOperationException if there is no {@link PlatformTransactionManager}
+     */
+    @Operation(summary = "Stream Records", description = "Same response as fetch all records written as records "
+            + "are read from the database. Use for large pages")
+    @Parameters({
+            @Parameter(name = "size", in = ParameterIn.QUERY, required = false, description = "Page size default is 20"),
+            @Parameter(name = "page", in = ParameterIn.QUERY, required = false, description = "Page number default is 0"),
+            @Parameter(name = "sort", in = ParameterIn.QUERY, required = false, description = "Field name e.g status,asc/desc",
+                    examples = @ExampleObject(value = "'property': 'status,asc/desc'")),
+            @Parameter(name = "count", in = ParameterIn.QUERY, required = false, description = "Total count strategy "
+                    + "i.e. exact, none, capped or estimated"),
+            @Parameter(name = "fields", in = ParameterIn.QUERY, required = false, description = "Comma separated fields "
+                    + "to return e.g. name,status. All fields are returned by default")
+    })
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAll(@Parameter(hidden = true) Pageable pg,
+                                                           @Parameter(hidden = true) HttpServletRequest request) throws ParseException {
+        if (this.transactionManager == null) {
+            //records are read on another thread, without a transaction there is no entity manager to read them with
+            throw new UnsupportedOperationException("Streaming " + this.recordName + " records requires a transaction manager");
+        }
+        this.validatePageable(pg, this.maxExportSize);
+        this.validateCountMode(request);
+        Projection<T> projection = this.resolveProjection(request);
+        PageStream stream = this.getPageStream();
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(this.metadata.getEntityClass());
+        this.select(criteriaQuery, root, projection);
+        criteriaQuery.where(this.buildPredicate(criteriaBuilder, root, request));
+        criteriaQuery.orderBy(this.buildOrders(criteriaBuilder, root, pg.getSort()));
+
+        StreamingResponseBody body = out -> {
+            try (ReplicaRouting.Scope scope = ReplicaRouting.replica()) {
+                TransactionTemplate template = new TransactionTemplate(this.transactionManager);
+                template.setReadOnly(true);
+                template.executeWithoutResult(status -> {
+                    try {
+                        this.writeStream(out, stream, criteriaQuery, projection, pg, request);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
                     }
-                    cal.setTime(from);
-                    cal.add(Calendar.DAY_OF_WEEK, -1);
-                    from = cal.getTime();
+                });
+            } catch (UncheckedIOException ex) {
+                log.warn("Streaming {} records failed", this.recordName, ex.getCause());
+                throw ex.getCause();
+            } catch (RuntimeException ex) {
+                log.error("Streaming {} records failed", this.recordName, ex);
+                throw ex;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 
-                    Date to = this.chasisService.tryParse(request.getParameter("to"));
-                    if (to == null) {
-                        throw new ParseException("Failed to parse " + request.getParameter("to") + " to date", 0);
-                    }
-                    cal.setTime(to);
-                    cal.add(Calendar.DAY_OF_WEEK, 1);
-                    to = cal.getTime();
-                    Predicate datePred = criteriaBuilder.between(root.get(field.getName()).as(Date.class), from, to);
-                    filterPreds.add(datePred);
-                } else if (request.getParameter(field.getName()) != null && !request.getParameter(field.getName()).isEmpty()) {
-                    if (field.isAnnotationPresent(ManyToOne.class)) {
-//                        BeanWrapper wrapper = new BeanWrapperImpl(field.getType());
-                        String fieldName = "";
-                        for (Field f : field.getType().getDeclaredFields()) {
-                            if (f.isAnnotationPresent(Id.class)) {
-                                fieldName = f.getName();
-                                break;
-                            }
-                        }
-                        if(request.getParameterValues(field.getName()).length > 1) {
-                            ArrayList<Object> relFilters = new ArrayList<>();
-                            for(String paramFilter : request.getParameterValues(field.getName())){
-                                BeanWrapper wrapper = new BeanWrapperImpl(field.getType());
-                                wrapper.setPropertyValue(fieldName, paramFilter);
-                                relFilters.add(wrapper.getWrappedInstance());
-                            }
-                            log.debug("Found array filter ({}) using in/contains predicate", relFilters);
-                            filterPreds.add(root.get(field.getName()).in(relFilters));
-                        } else{
-                            BeanWrapper wrapper = new BeanWrapperImpl(field.getType());
-                            wrapper.setPropertyValue(fieldName, request.getParameter(field.getName()));
-                            filterPreds.add(criteriaBuilder.equal(root.get(field.getName()), wrapper.getWrappedInstance()));
-
-                        }
-                    } else {
-                        if(request.getParameterValues(field.getName()).length > 1){
-                            filterPreds.add(root.get(field.getName()).in(request.getParameterValues(field.getName())));
-                        } else {
-                            filterPreds.add(criteriaBuilder.like(root.get(field.getName()).as(String.class),
-                                    request.getParameter(field.getName())));
-                        }
-                    }
-                } else {
-                    log.debug("Failed to find parameter {} skipping filtering for field {} ", field.getName(), field.getName());
+    /**
+     * Used to write the {@link #streamAll(Pageable, HttpServletRequest)} response
+     *
+     * @param out           response body
+     * @param stream        page writer
+     * @param criteriaQuery records query
+     * @param projection    selected fields or null to write entities
+     * @param pg            used to limit the result
+     * @param request       HTTP Request used to count records
+     * @throws IOException if writing the response fails
+     */
+    private void writeStream(OutputStream out, PageStream stream, CriteriaQuery<Tuple> criteriaQuery,
+                             Projection<T> projection, Pageable pg, HttpServletRequest request) throws IOException {
+        TypedQuery<Tuple> query = FetchGraphs.timeout(this.fetchPlan(this.entityManager.createQuery(criteriaQuery), projection),
+                this.exportTimeout)
+                .setFirstResult((int) pg.getOffset())
+                .setMaxResults(pg.getPageSize() + 1)
+                .setHint(QueryHints.HINT_FETCH_SIZE, this.streamFetchSize(projection));
+        stream.write(out, query.getResultStream().map(row -> (projection == null) ? row.get(0) : projection.read(row)),
+                pg.getPageSize(), this.streamChunkSize, this.entityManager::clear,
+                (written, hasNext) -> this.createPage(written, pg, pg.getOffset(), hasNext, null, request));
+    }
+
+    /**
+     * Used to get the JDBC fetch size of {@link #streamAll(Pageable, HttpServletRequest)}. Defaults to
+     * {@link #streamChunkSize} except on MySQL without <code>useCursorFetch=true</code> whose driver ignores the fetch
+     * size and reads every row into memory. There fields projections use {@link Integer#MIN_VALUE} (rows are streamed
+     * one at a time and nothing else is queried until they have been read). Records may load relations while they are
+     * written, which MySQL doesn't allow while streaming, hence add <code>useCursorFetch=true</code> to the JDBC URL to
+     * stream records. Override to use another fetch size
+     *
+     * @param projection selected fields or null if records are streamed
+     * @return fetch size
+     */
+    protected int streamFetchSize(Projection<T> projection) {
+        Boolean streaming = this.rowStreaming;
+        if (streaming == null) {
+            streaming = PageStream.isRowStreaming(this.entityManager);
+            if (streaming) {
+                log.warn("MySQL reads whole {} pages into memory when streaming records, add useCursorFetch=true to the JDBC URL",
+                        this.recordName);
+            }
+            this.rowStreaming = streaming;
+        }
+        return (streaming && projection != null) ? Integer.MIN_VALUE : this.streamChunkSize;
+    }
+
+    /**
+     * @return object mapper of the Jackson message converter (the object mapper used to write the other responses)
+     * @throws UnsupportedOperationException if there is no Jackson message converter
+     */
+    private ObjectMapper getObjectMapper() {
+        ObjectMapper mapper = this.findObjectMapper();
+        if (mapper == null) {
+            throw new UnsupportedOperationException("Streaming " + this.recordName + " records requires a Jackson message converter");
+        }
+        return mapper;
+    }
+
+    /**
+     * @return object mapper of the Jackson message converter or null if there is none
+     */
+    private ObjectMapper findObjectMapper() {
+        ObjectMapper mapper = this.objectMapper;
+        if (mapper == null && this.handlerAdapter != null) {
+            for (HttpMessageConverter<?> converter : this.handlerAdapter.getMessageConverters()) {
+                if (converter instanceof MappingJackson2HttpMessageConverter) {
+                    mapper = ((MappingJackson2HttpMessageConverter) converter).getObjectMapper();
+                    this.objectMapper = mapper;
+                    break;
                 }
             }
-            //check if order parameter is available for the current field
-            Sort.Order ord = pg.getSort().getOrderFor(field.getName());
-            if (ord != null) {
-                log.debug("Found ordering paramater ({}) for field {} preparing ordering query", ord, field.getName());
-                if (ord.isAscending()) {
-                    ords.add(criteriaBuilder.asc(root.get(field.getName())));
+        }
+        return mapper;
+    }
+
+    /**
+     * @return {@link PageStream} writing with the object mapper of the Jackson message converter
+     * @throws UnsupportedOperationException if there is no Jackson message converter
+     */
+    private PageStream getPageStream() {
+        PageStream stream = this.pageStream;
+        if (stream == null) {
+            stream = new PageStream(this.getObjectMapper());
+            this.pageStream = stream;
+        }
+        return stream;
+    }
+
+    /**
+     * Used to fetch a page and the exact number of records in a single query using
+     * {@link ChasisMetadataBuilderInitializer#TOTAL_COUNT_FUNCTION} window function. Every row carries the total so
+     * an empty page (requested offset is past the last record) falls back to a count query.
+     *
+     * @param pg      used to sort and limit the result
+     * @param request HTTP Request used to get filter and search parameters
+     * @return {@link ChasisPage} of entities or of selected fields (see {@link #resolveProjection(HttpServletRequest)})
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected ChasisPage<?> findAllWithTotal(Pageable pg, HttpServletRequest request) throws ParseException {
+        long generation = this.countCache.getGeneration();
+        Projection<T> projection = this.resolveProjection(request);
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(this.metadata.getEntityClass());
+        int totalIndex = this.select(criteriaQuery, root, projection,
+                criteriaBuilder.function(ChasisMetadataBuilderInitializer.TOTAL_COUNT_FUNCTION, Long.class));
+        criteriaQuery.where(this.buildPredicate(criteriaBuilder, root, request));
+        criteriaQuery.orderBy(this.buildOrders(criteriaBuilder, root, pg.getSort()));
+        List<Tuple> rows = this.fetchPlan(this.entityManager
+                .createQuery(criteriaQuery), projection)
+                .setFirstResult((int) pg.getOffset())
+                .setMaxResults(pg.getPageSize())
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return this.createPage(new ArrayList<>(), pg, pg.getOffset(), false, null, request);
+        }
+        List<Object> content = this.readRows(rows, projection);
+        long total = rows.get(0).get(totalIndex, Long.class);
+        this.countCache.put(this.countCacheKey(request), total, generation);
+        return new ChasisPage<>(content, pg, total, pg.getOffset() + content.size() < total, null, CountMode.EXACT);
+    }
+
+    /**
+     * Used to fetch a page of records using the @{@link ReadModel} of the entity. Filters, search and sorting are
+     * applied to the read model table (labels of related records are plain columns, no joins are required) to select
+     * the ids of the page, the records are then loaded by id in the same order. The id is always the last sort key so
+     * that pages are stable. Counts use the read model table as well (see {@link #countRecords(HttpServletRequest)}).
+     *
+     * @param pg        used to sort and limit the result
+     * @param request   HTTP Request used to get filter and search parameters
+     * @param readModel read model mapping of the entity
+     * @param <V>       read model type
+     * @return {@link ChasisPage} of entities or of selected fields (see {@link #resolveProjection(HttpServletRequest)})
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected <V> ChasisPage<?> findAllFromReadModel(Pageable pg, HttpServletRequest request,
+                                                   ReadModelMapping<T, V> readModel) throws ParseException {
+        Projection<T> projection = this.resolveProjection(request);
+        EntityMetadata<V> viewMetadata = readModel.getViewMetadata();
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> idQuery = criteriaBuilder.createQuery(Object.class);
+        Root<V> root = this.restrict(criteriaBuilder, idQuery, request, readModel);
+        idQuery.select(root.get(viewMetadata.requireIdFieldName()));
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order ord : pg.getSort()) {
+            if (viewMetadata.getField(ord.getProperty()) != null) {
+                orders.add(ord.isAscending() ? criteriaBuilder.asc(root.get(ord.getProperty()))
+                        : criteriaBuilder.desc(root.get(ord.getProperty())));
+            }
+        }
+        String viewId = viewMetadata.requireIdFieldName();
+        if (pg.getSort().getOrderFor(viewId) == null) {
+            orders.add(criteriaBuilder.asc(root.get(viewId)));
+        }
+        idQuery.orderBy(orders);
+        List<Object> ids = FetchGraphs.timeout(this.entityManager.createQuery(idQuery), this.queryTimeout)
+                .setFirstResult((int) pg.getOffset())
+                .setMaxResults(pg.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = ids.size() > pg.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pg.getPageSize());
+        }
+        Map<Object, Object> found = this.batchFetch().load(ids, projection, this.getFetchGraph());
+        List<Object> content = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            Object record = found.get(id);
+            if (record != null) {
+                content.add(record);
+            }
+        }
+        if (content.size() < ids.size()) {
+            log.warn("{} of the {} records listed by read model {} were not found, rebuild the read model if it's out of "
+                    + "sync", ids.size() - content.size(), ids.size(), readModel.getViewClass().getName());
+        }
+        return this.createPage(content, pg, pg.getOffset(), hasNext, null, request);
+    }
+
+    /**
+     * Used to decide whether record lists are served from the @{@link ReadModel} of the entity. The entity is
+     * queried if the request filters by a @{@link Filter} field of the entity that isn't a @{@link Filter} field of
+     * the read model
+     *
+     * @param request HTTP Request used to get filter parameters
+     * @return read model mapping of the entity or null to query the entity
+     */
+    protected ReadModelMapping<T, ?> getReadModel(HttpServletRequest request) {
+        ReadModelMapping<T, ?> readModel = this.readModelEnabled ? ReadModels.forEntity(this.metadata.getEntityClass()) : null;
+        if (readModel == null) {
+            return null;
+        }
+        EntityMetadata<?> viewMetadata = readModel.getViewMetadata();
+        for (Field field : this.metadata.getFilterFields()) {
+            boolean filtered = field.getAnnotation(Filter.class).isDateRange()
+                    ? request.getParameter("from") != null && request.getParameter("to") != null
+                    : request.getParameter(field.getName()) != null;
+            Field viewField = viewMetadata.getField(field.getName());
+            if (filtered && (viewField == null || !viewMetadata.getFilterFields().contains(viewField))) {
+                log.debug("Read model {} doesn't have filter {} querying the entity", readModel.getViewClass().getName(),
+                        field.getName());
+                return null;
+            }
+        }
+        return readModel;
+    }
+
+    /**
+     * Used to decide whether a page of records is served from the @{@link ReadModel} of the entity. Same as
+     * {@link #getReadModel(HttpServletRequest)}, the entity is also queried if the page is sorted by a field that
+     * isn't a read model field
+     *
+     * @param pg      requested page
+     * @param request HTTP Request used to get filter parameters
+     * @return read model mapping of the entity or null to query the entity
+     */
+    protected ReadModelMapping<T, ?> getReadModel(Pageable pg, HttpServletRequest request) {
+        ReadModelMapping<T, ?> readModel = this.getReadModel(request);
+        if (readModel == null) {
+            return null;
+        }
+        for (Sort.Order order : pg.getSort()) {
+            if (readModel.getViewMetadata().getField(order.getProperty()) == null) {
+                log.debug("Read model {} doesn't have sort field {} querying the entity",
+                        readModel.getViewClass().getName(), order.getProperty());
+                return null;
+            }
+        }
+        return readModel;
+    }
+
+    /**
+     * Used to check if {@link #findAll(Pageable, HttpServletRequest)} can fetch the page and the total in a single
+     * query i.e. single query count is enabled and the database supports window functions. Otherwise records are
+     * counted using a separate query
+     *
+     * @return true if {@link #findAllWithTotal(Pageable, HttpServletRequest)} can be used
+     */
+    protected boolean isSingleQueryCountSupported() {
+        if (!this.singleQueryCount) {
+            return false;
+        }
+        Boolean supported = this.totalCountSupported;
+        if (supported == null) {
+            supported = ChasisMetadataBuilderInitializer.isTotalCountSupported(this.entityManager);
+            if (!supported) {
+                log.debug("Total count window function is not supported by the database using a separate count query");
+            }
+            this.totalCountSupported = supported;
+        }
+        return supported;
+    }
+
+    /**
+     * Used to create the page returned by {@link #findAll(Pageable, HttpServletRequest)}. The total is computed using
+     * the requested {@link CountMode} and isn't queried when it can be derived from the page i.e. on the last page.
+     *
+     * @param content    page content
+     * @param pg         page request
+     * @param offset     number of records before the page or -1 if unknown (keyset pagination)
+     * @param hasNext    true if there are more records after the page
+     * @param nextCursor keyset cursor of the next page
+     * @param request    HTTP Request used to get filter and search parameters
+     * @return {@link ChasisPage}
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected <C> ChasisPage<C> createPage(List<C> content, Pageable pg, long offset, boolean hasNext, String nextCursor,
+                                           HttpServletRequest request) throws ParseException {
+        return this.createPage(content, content.size(), pg, offset, hasNext, nextCursor, request);
+    }
+
+    /**
+     * Used to create the properties of a page whose records aren't held in memory i.e. written by
+     * {@link #streamAll(Pageable, HttpServletRequest)} as they are read. The total is computed as in
+     * {@link #createPage(List, Pageable, long, boolean, String, HttpServletRequest)}, the page content is empty
+     *
+     * @param numberOfElements number of records of the page
+     * @param pg               page request
+     * @param offset           number of records before the page
+     * @param hasNext          true if there are more records after the page
+     * @param nextCursor       keyset cursor of the next page
+     * @param request          HTTP Request used to get filter and search parameters
+     * @return {@link ChasisPage} whose <code>numberOfElements</code> is the number of records
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected <C> ChasisPage<C> createPage(int numberOfElements, Pageable pg, long offset, boolean hasNext,
+                                           String nextCursor, HttpServletRequest request) throws ParseException {
+        return this.createPage(null, numberOfElements, pg, offset, hasNext, nextCursor, request);
+    }
+
+    /**
+     * @param content page content or null if only the number of records is known
+     */
+    private <C> ChasisPage<C> createPage(List<C> content, int numberOfElements, Pageable pg, long offset,
+                                         boolean hasNext, String nextCursor, HttpServletRequest request) throws ParseException {
+        Pageable pageable = (offset < 0) ? PageRequest.of(0, pg.getPageSize(), pg.getSort()) : pg;
+        long fetched = Math.max(offset, 0) + numberOfElements + (hasNext ? 1 : 0);
+        if (offset >= 0 && !hasNext && (offset == 0 || numberOfElements > 0)) {
+            return page(content, numberOfElements, pageable, fetched, false, nextCursor, CountMode.EXACT);
+        }
+
+        CountMode mode = this.resolveCountMode(request);
+        if (mode == CountMode.ESTIMATED) {
+            Long estimate = this.hasRestrictions(request) ? null
+                    : TableStatistics.estimateRowCount(this.entityManager, this.metadata.getEntityClass());
+            if (estimate != null) {
+                return page(content, numberOfElements, pageable, Math.max(fetched, estimate), hasNext, nextCursor, mode);
+            }
+            log.debug("Row count estimate is not available using capped count");
+            mode = CountMode.CAPPED;
+        }
+        long total;
+        switch (mode) {
+            case NONE:
+                total = fetched;
+                break;
+            case CAPPED:
+                total = this.countRecords(request, this.countCap);
+                if (total <= this.countCap) {
+                    mode = CountMode.EXACT;
                 } else {
-                    ords.add(criteriaBuilder.desc(root.get(field.getName())));
+                    total = this.countCap;
                 }
+                total = Math.max(fetched, total);
+                break;
+            default:
+                total = this.countRecords(request);
+        }
+        return page(content, numberOfElements, pageable, total, hasNext, nextCursor, mode);
+    }
+
+    private static <C> ChasisPage<C> page(List<C> content, int numberOfElements, Pageable pageable, long total,
+                                          boolean hasNext, String nextCursor, CountMode mode) {
+        return (content == null) ? new ChasisPage<>(numberOfElements, pageable, total, hasNext, nextCursor, mode)
+                : new ChasisPage<>(content, pageable, total, hasNext, nextCursor, mode);
+    }
+
+    /**
+     * Used to resolve the strategy used to count records. Uses count request parameter if present otherwise the
+     * default count mode. Override to use a different strategy per entity.
+     *
+     * @param request HTTP Request
+     * @return {@link CountMode}
+     * @throws RunTimeBadRequest if count parameter is not a valid {@link CountMode}
+     */
+    protected CountMode resolveCountMode(HttpServletRequest request) {
+        String mode = request.getParameter(COUNT_PARAM);
+        if (mode == null || mode.isBlank()) {
+            return this.countMode;
+        }
+        try {
+            return CountMode.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new RunTimeBadRequest("Invalid count mode " + mode + ". Expected one of "
+                    + Arrays.toString(CountMode.values()).toLowerCase());
+        }
+    }
+
+    /**
+     * Used to reject an invalid count parameter before the response is committed. Streamed pages are counted after
+     * their records have been written when the status can no longer be changed
+     *
+     * @param request HTTP Request
+     * @throws RunTimeBadRequest if count parameter is not a valid {@link CountMode}
+     */
+    private void validateCountMode(HttpServletRequest request) {
+        this.resolveCountMode(request);
+    }
+
+    /**
+     * Used to check if the request has search or filter parameters
+     *
+     * @param request HTTP Request
+     * @return true if the request has search or filter parameters
+     */
+    protected boolean hasRestrictions(HttpServletRequest request) {
+        if (request.getParameter("needle") != null) {
+            return true;
+        }
+        for (Field field : this.metadata.getFilterFields()) {
+            String value = request.getParameter(field.getName());
+            if ((value != null && !value.isEmpty()) || (field.getAnnotation(Filter.class).isDateRange()
+                    && request.getParameter("to") != null && request.getParameter("from") != null)) {
+                return true;
             }
-            //check if is intrash
-            if (field.getName().equalsIgnoreCase("intrash")) {
-                filterPreds.add(criteriaBuilder.equal(root.get(field.getName()), AppConstants.NO));
+        }
+        return false;
+    }
+
+    /**
+     * Used to fetch a page of records using keyset (seek) pagination. Instead of skipping
+     * <code>page * size</code> records the query only fetches records positioned after the cursor which makes every
+     * page as cheap as the first one.
+     * <h4>Note</h4>
+     * <ul>
+     * <li>Records are ordered by the requested sort fields followed by the id field (used as a tie breaker)</li>
+     * <li>@{@link ManyToOne} sort fields are ordered by the related entity id</li>
+     * <li>Nulls sort first in ascending order and last in descending order (see {@link KeysetCursor}). Declare sort
+     * fields that can't be null as not nullable so that they are read in index order</li>
+     * <li>The page parameter is ignored</li>
+     * </ul>
+     *
+     * @param pg      used to sort and limit the result
+     * @param request HTTP Request used to get filter and search parameters
+     * @param after   cursor returned by the previous page or an empty string for the first page
+     * @return {@link ChasisPage} with the next page cursor
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     * @throws RunTimeBadRequest if the cursor is invalid
+     */
+    protected ChasisPage<?> findAllAfter(Pageable pg, HttpServletRequest request, String after) throws ParseException {
+        Projection<T> projection = this.resolveProjection(request);
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(this.metadata.getEntityClass());
+
+        //resolve sort keys
+        String idField = this.metadata.requireIdFieldName();
+        List<String> keys = new ArrayList<>();
+        List<Boolean> ascending = new ArrayList<>();
+        for (Sort.Order ord : pg.getSort()) {
+            Field field = this.metadata.getField(ord.getProperty());
+            if (field == null || keys.contains(field.getName()) || field.isAnnotationPresent(OneToMany.class)) {
+                continue;
             }
+            keys.add(field.getName());
+            ascending.add(ord.isAscending());
         }
-        if (!filterPreds.isEmpty() && !searchPreds.isEmpty()) {
-            criteriaQuery.where(criteriaBuilder.and(filterPreds.toArray(new Predicate[filterPreds.size()])),
-                    criteriaBuilder.or(searchPreds.toArray(new Predicate[searchPreds.size()])));
-            countQuery.where(criteriaBuilder.and(filterPreds.toArray(new Predicate[filterPreds.size()])),
-                    criteriaBuilder.or(searchPreds.toArray(new Predicate[searchPreds.size()])));
-        } else if (!filterPreds.isEmpty()) {
-            criteriaQuery.where(filterPreds.toArray(new Predicate[filterPreds.size()]));
-            countQuery.where(filterPreds.toArray(new Predicate[filterPreds.size()]));
-        } else if (!searchPreds.isEmpty()) {
-            criteriaQuery.where(criteriaBuilder.or(searchPreds.toArray(new Predicate[searchPreds.size()])));
-            countQuery.where(criteriaBuilder.or(searchPreds.toArray(new Predicate[searchPreds.size()])));
-        } else {
-            criteriaQuery.where();
-            countQuery.where();
+        if (!keys.contains(idField)) {
+            keys.add(idField);
+            ascending.add(true);
+        }
+        List<Path<Comparable>> paths = new ArrayList<>();
+        List<Boolean> nullable = new ArrayList<>();
+        List<Class<?>> types = new ArrayList<>();
+        List<Order> ords = new ArrayList<>();
+        List<Selection<?>> keySelections = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Field field = this.metadata.getField(keys.get(i));
+            Path<Comparable> path = root.get(field.getName());
+            Class<?> type = field.getType();
+            if (field.isAnnotationPresent(ManyToOne.class)) {
+                Field relId = EntityMetadataRegistry.forClass(field.getType()).getIdField();
+                path = path.get(relId.getName());
+                type = relId.getType();
+            }
+            paths.add(path);
+            nullable.add(KeysetCursor.isNullable(field));
+            keySelections.add(path);
+            types.add(ClassUtils.resolvePrimitiveIfNecessary(type));
+            if (nullable.get(i)) {//nulls sort first whatever the database default is
+                Expression<Integer> isNotNull = criteriaBuilder.<Integer>selectCase()
+                        .when(criteriaBuilder.isNull(path), 0).otherwise(1);
+                ords.add(ascending.get(i) ? criteriaBuilder.asc(isNotNull) : criteriaBuilder.desc(isNotNull));
+            }
+            ords.add(ascending.get(i) ? criteriaBuilder.asc(path) : criteriaBuilder.desc(path));
         }
 
+        //seek predicate: (k1 after v1) or (k1 = v1 and k2 after v2) or ...
+        Predicate predicate = this.buildPredicate(criteriaBuilder, root, request);
+        if (!after.isBlank()) {
+            List<Object> values = KeysetCursor.decode(after, types);
+            List<Predicate> seekPreds = new ArrayList<>();
+            List<Predicate> equalPreds = new ArrayList<>();
+            for (int i = 0; i < paths.size(); i++) {
+                Comparable value = (Comparable) values.get(i);
+                Path<Comparable> path = paths.get(i);
+                Predicate next;
+                if (value == null) {
+                    //nulls come first: non null values follow in ascending order, nothing follows in descending order
+                    next = ascending.get(i) ? criteriaBuilder.isNotNull(path) : null;
+                } else if (ascending.get(i)) {
+                    next = criteriaBuilder.greaterThan(path, value);
+                } else {
+                    next = criteriaBuilder.lessThan(path, value);
+                    if (nullable.get(i)) {
+                        next = criteriaBuilder.or(next, criteriaBuilder.isNull(path));
+                    }
+                }
+                if (next != null) {
+                    List<Predicate> term = new ArrayList<>(equalPreds);
+                    term.add(next);
+                    seekPreds.add(criteriaBuilder.and(term.toArray(new Predicate[0])));
+                }
+                equalPreds.add((value == null) ? criteriaBuilder.isNull(path) : criteriaBuilder.equal(path, value));
+            }
+            predicate = criteriaBuilder.and(predicate, criteriaBuilder.or(seekPreds.toArray(new Predicate[0])));
+        }
+        int keyIndex = this.select(criteriaQuery, root, projection, keySelections.toArray(new Selection[0]));
+        criteriaQuery.where(predicate);
         criteriaQuery.orderBy(ords);
-        List<T> content = this.entityManager
-                .createQuery(criteriaQuery)
-                .setFirstResult((pg.getPageNumber() * pg.getPageSize()))
-                .setMaxResults(pg.getPageSize())
+
+        List<Tuple> rows = this.fetchPlan(this.entityManager
+                .createQuery(criteriaQuery), projection)
+                .setMaxResults(pg.getPageSize() + 1)
                 .getResultList();
 
-        countQuery.select(criteriaBuilder.count(countQuery.from(this.genericClasses.get(0))));
-        Long total = this.entityManager.createQuery(countQuery).getSingleResult();
+        String nextCursor = null;
+        boolean hasNext = rows.size() > pg.getPageSize();
+        if (hasNext) {
+            rows = rows.subList(0, pg.getPageSize());
+            Tuple last = rows.get(rows.size() - 1);
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                values.add(last.get(keyIndex + i));
+            }
+            nextCursor = KeysetCursor.encode(values);
+        }
+        List<Object> content = this.readRows(rows, projection);
+        return this.createPage(content, pg, after.isBlank() ? 0 : -1, hasNext, nextCursor, request);
+    }
 
-        Page<T> page = new PageImpl<>(content, pg, total);
+    /**
+     * Used to resolve the fields selected by {@link #findAll(Pageable, HttpServletRequest)} and
+     * {@link #getEntity(Serializable, HttpServletRequest)} from the fields parameter
+     *
+     * @param request HTTP Request
+     * @return {@link Projection} or null to select whole entities
+     * @throws RunTimeBadRequest if a field doesn't exist or can't be selected
+     */
+    protected Projection<T> resolveProjection(HttpServletRequest request) {
+        return Projection.of(this.metadata, request.getParameter(FIELDS_PARAM));
+    }
 
-        response.setData(page);
-        return ResponseEntity.ok(response);
+    /**
+     * Used to set the selection of a tuple query. Selects the root entity (first tuple element) or the projected
+     * fields followed by the extra selections
+     *
+     * @param criteriaQuery tuple query
+     * @param root          query root
+     * @param projection    selected fields or null to select the entity
+     * @param extra         additional selections e.g. total count
+     * @return tuple index of the first extra selection
+     */
+    private int select(CriteriaQuery<Tuple> criteriaQuery, Root<T> root, Projection<T> projection, Selection<?>... extra) {
+        List<Selection<?>> selections = (projection == null) ? new ArrayList<>(List.of(root)) : projection.select(root);
+        int extraIndex = selections.size();
+        selections.addAll(Arrays.asList(extra));
+        criteriaQuery.multiselect(selections);
+        return extraIndex;
+    }
+
+    /**
+     * Used to create the fetch plan applied when loading entities in {@link #findAll(Pageable, HttpServletRequest)},
+     * {@link #fetchEntity(Serializable)} and exports. By default all @{@link ManyToOne} fields are fetched in the same
+     * query as the entity. Override to fetch more or less relations or return null to use the mapped fetch types
+     *
+     * @return {@link EntityGraph} or null
+     */
+    protected EntityGraph<T> createFetchGraph() {
+        return FetchGraphs.forManyToOne(this.entityManager, this.metadata);
+    }
+
+    /**
+     * @return fetch plan created by {@link #createFetchGraph()} (created once per resource)
+     */
+    protected EntityGraph<T> getFetchGraph() {
+        Optional<EntityGraph<T>> graph = this.fetchGraph;
+        if (graph == null) {
+            graph = Optional.ofNullable(this.createFetchGraph());
+            this.fetchGraph = graph;
+        }
+        return graph.orElse(null);
+    }
+
+    /**
+     * Used to apply the fetch plan to queries loading entities and mark them read only. Projections don't load entities
+     * hence are not affected
+     *
+     * @param query      tuple query
+     * @param projection selected fields or null if the entity is selected
+     * @return the query
+     */
+    private TypedQuery<Tuple> fetchPlan(TypedQuery<Tuple> query, Projection<T> projection) {
+        FetchGraphs.timeout(query, this.queryTimeout);
+        return (projection == null) ? FetchGraphs.readOnly(FetchGraphs.apply(query, this.getFetchGraph())) : query;
+    }
+
+    /**
+     * Used to reject requests that would run unbounded queries:
+     * <ul>
+     * <li>Page size greater than the maximum (or unpaged requests if there is a maximum)</li>
+     * <li>Sorting by fields other than @{@link Sortable} fields and the id if the entity has @{@link Sortable} fields
+     * or {@link #sortableOnly} is set. @{@link Sortable} fields of the read model are allowed if it is used</li>
+     * </ul>
+     *
+     * @param pg      requested page
+     * @param maxSize maximum page size (0 for no limit)
+     * @throws RunTimeBadRequest if the page size or sort is not allowed
+     */
+    protected void validatePageable(Pageable pg, int maxSize) {
+        if (maxSize > 0 && (pg.isUnpaged() || pg.getPageSize() < 1 || pg.getPageSize() > maxSize)) {
+            throw new RunTimeBadRequest("Page size must be between 1 and " + maxSize);
+        }
+        List<Field> sortable = new ArrayList<>(this.metadata.getSortableFields());
+        ReadModelMapping<T, ?> readModel = this.readModelEnabled ? ReadModels.forEntity(this.metadata.getEntityClass()) : null;
+        if (readModel != null) {
+            sortable.addAll(readModel.getViewMetadata().getSortableFields());
+        }
+        if (sortable.isEmpty() && !this.sortableOnly) {
+            return;
+        }
+        for (Sort.Order order : pg.getSort()) {
+            Field field = this.metadata.getField(order.getProperty());
+            if (field == null && readModel != null) {
+                field = readModel.getViewMetadata().getField(order.getProperty());
+            }
+            if (field == null || !(sortable.contains(field) || field.equals(this.metadata.getIdField()))) {
+                throw new RunTimeBadRequest("Sorting by " + order.getProperty() + " is not allowed");
+            }
+        }
+    }
+
+    /**
+     * Used to convert rows selected using {@link #select(CriteriaQuery, Root, Projection, Selection[])} to page content
+     *
+     * @param rows       query rows
+     * @param projection selected fields or null if the entity was selected
+     * @return entities or maps of field values
+     */
+    private List<Object> readRows(List<Tuple> rows, Projection<T> projection) {
+        List<Object> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add((projection == null) ? row.get(0) : projection.read(row));
+        }
+        return content;
+    }
+
+    /**
+     * Used to count records matching the request filter and search parameters. Counts are served from
+     * {@link #countCache} when available
+     *
+     * @param request HTTP Request used to get filter and search parameters
+     * @return number of records
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected long countRecords(HttpServletRequest request) throws ParseException {
+        return this.countCache.count(this.countCacheKey(request), () -> {
+            CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+            Root<?> root = this.restrict(criteriaBuilder, countQuery, request);
+            countQuery.select(criteriaBuilder.count(root));
+            return FetchGraphs.timeout(this.entityManager.createQuery(countQuery), this.queryTimeout).getSingleResult();
+        });
+    }
+
+    /**
+     * Used to create the {@link #countCache} key of the request. The key is made of the entity class, the sorted
+     * request parameters (excluding paging and sorting parameters) and the caller (see
+     * {@link #resolveCallerScope(HttpServletRequest)}). Override if
+     * {@link #buildPredicate(CriteriaBuilder, Root, HttpServletRequest)} is restricted by anything else
+     *
+     * @param request HTTP Request used to get filter and search parameters
+     * @return cache key
+     */
+    protected String countCacheKey(HttpServletRequest request) {
+        return this.countCache.createKey(request.getParameterMap(), this.resolveCallerScope(request));
+    }
+
+    /**
+     * Used to record a write to the entity i.e. invalidate cached counts, increment the entity version
+     * (see {@link EntityVersions}) and read from the primary database for a while (see {@link ReplicaRouting}). If a
+     * transaction is active this is repeated once it completes (see {@link EntityWrites}). Called once a record has
+     * been persisted, merged or removed so that rejected writes don't invalidate anything
+     */
+    protected void markModified() {
+        EntityWrites.record(this.metadata.getEntityClass());
+    }
+
+    /**
+     * Used to notify {@link #subscribeEvents()} subscribers of a change to a record. The event is published after the
+     * transaction commits (nothing is published if it rolls back) or immediately if there is no transaction. The
+     * status is read from the record in the persistence context before the commit
+     *
+     * @param id       record id
+     * @param activity activity performed e.g. {@link AppConstants#ACTIVITY_APPROVE}
+     */
+    protected void publishChange(Object id, String activity) {
+        if (id == null || !this.changeFeed.hasSubscribers()) {
+            return;
+        }
+        Short status = null;
+        if (this.metadata.getField("status") != null) {
+            T entity = this.entityManager.find(this.metadata.getEntityClass(), id);
+            Object value = (entity == null) ? null : FastBeanWrapper.forBean(entity).getPropertyValue("status");
+            status = (value == null) ? null : this.toStatusId(value);
+        }
+        ChangeEvent event = new ChangeEvent(id, activity, status);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.changeFeed.publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changeFeed.publish(event);
+            }
+        });
+    }
+
+    /**
+     * Used to create the key of identical reads coalesced by {@link #singleFlight}. The key is made of the resource
+     * class, the operation, the request parameters, the conditional request headers, the caller (see
+     * {@link #resolveCallerScope(HttpServletRequest)}) and whether the caller reads from the primary database (see
+     * {@link ReplicaRouting}). Override to add anything else the response depends on or return null to not coalesce
+     * the request
+     *
+     * @param operation operation and path variables e.g. getEntity/1
+     * @param request   HTTP Request
+     * @return key or null
+     */
+    protected String coalesceKey(String operation, HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(ClassUtils.getUserClass(this).getName()).append('#').append(operation);
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+            key.append('&').append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append('=');
+            for (String value : values) {
+                key.append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append(',');
+            }
+        });
+        key.append('|').append(request.getHeader(HttpHeaders.IF_NONE_MATCH))
+                .append('|').append(request.getHeader(HttpHeaders.IF_MODIFIED_SINCE))
+                .append('|').append(this.resolveCallerScope(request))
+                .append('|').append(ReplicaRouting.isEnabled() && ReplicaRouting.hasRecentWrite());
+        return key.toString();
+    }
+
+    /**
+     * Used to resolve what the caller is allowed to see so that cached counts and coalesced reads are only shared
+     * between callers seeing the same records. Defaults to the authenticated user name. Override if records are
+     * restricted by anything else e.g. the user's organization (callers of the same organization can then share counts
+     * and reads) or return an empty string if every caller sees the same records
+     *
+     * @param request HTTP Request
+     * @return caller scope (empty if the request is not authenticated)
+     */
+    protected String resolveCallerScope(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return (principal == null) ? "" : principal.getName();
+    }
+
+    /**
+     * Used to execute a read once for identical concurrent requests in a read only transaction (see
+     * {@link CoalescedReads}). Responses are copied using the object mapper of the Jackson message converter, requests
+     * are not coalesced without one
+     *
+     * @param key  read key (see {@link #coalesceKey(String, HttpServletRequest)}) or null to execute the read
+     * @param read read to execute
+     * @param <B>  response body type
+     * @param <X>  exception thrown by the read
+     * @return response of the read
+     * @throws X if the read fails
+     */
+    private <B, X extends Exception> ResponseEntity<B> coalesce(String key, SingleFlight.Read<ResponseEntity<B>, X> read) throws X {
+        ObjectMapper mapper = (key == null) ? null : this.findObjectMapper();
+        return new CoalescedReads(this.singleFlight, mapper, this.transactionManager).execute(key, read);
+    }
+
+    /**
+     * Used to resolve the version of the records returned by {@link #findAll(Pageable, HttpServletRequest)} for
+     * conditional requests. The version is made of the latest last modified timestamp, the entity modification
+     * counter (see {@link EntityVersions}) if enabled, the request parameters and the caller (see
+     * {@link #resolveCallerScope(HttpServletRequest)}). Without the counter lists are only versioned if the entity has
+     * a last modified field and an intrash field, since deleting records permanently doesn't change the latest
+     * modification time. Override if the records depend on anything else
+     * <p>
+     * <b>Note:</b> the latest modification time is queried over the whole table on every request, index the last
+     * modified column (reported by {@link com.cm.projects.spring.resource.chasis.config.IndexAdvisor})
+     *
+     * @param request HTTP Request
+     * @return {@link ResourceVersion} or null to disable conditional requests
+     */
+    protected ResourceVersion resolveListVersion(HttpServletRequest request) {
+        return this.conditionalRequests().forList(request, this.resolveCallerScope(request));
+    }
+
+    /**
+     * Used to resolve the version of the record returned by {@link #getEntity(Serializable, HttpServletRequest)}
+     * for conditional requests. Uses the @{@link javax.persistence.Version} and last modified fields of the record if
+     * present otherwise the entity modification counter (see {@link EntityVersions}) if enabled
+     *
+     * @param id      record id
+     * @param request HTTP Request
+     * @return {@link ResourceVersion} or null to disable conditional requests (e.g. the record doesn't exist)
+     */
+    protected ResourceVersion resolveEntityVersion(E id, HttpServletRequest request) {
+        return this.conditionalRequests().forEntity(id, request, this.resolveCallerScope(request));
+    }
+
+    /**
+     * @return {@link ConditionalRequests} versioning the records of the entity
+     */
+    private ConditionalRequests<T> conditionalRequests() {
+        return new ConditionalRequests<>(this.entityManager, this.metadata, this.counterVersions, this.queryTimeout);
+    }
+
+    /**
+     * Used to count records matching the request filter and search parameters up to the specified limit. Only the ids of
+     * up to <code>limit + 1</code> records are fetched
+     *
+     * @param request HTTP Request used to get filter and search parameters
+     * @param limit   maximum number of records to count
+     * @return number of records (<code>limit + 1</code> if there are more than limit records)
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected long countRecords(HttpServletRequest request, int limit) throws ParseException {
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> idQuery = criteriaBuilder.createQuery(Object.class);
+        Root<?> root = this.restrict(criteriaBuilder, idQuery, request);
+        idQuery.select(root.get(EntityMetadataRegistry.forClass(root.getJavaType()).requireIdFieldName()));
+        return FetchGraphs.timeout(this.entityManager.createQuery(idQuery), this.queryTimeout)
+                .setMaxResults(limit + 1).getResultList().size();
+    }
+
+    /**
+     * Used to create query restrictions from the request i.e.
+     * <ul>
+     * <li>Search (needle) parameter on fields annotated with @{@link Searchable}</li>
+     * <li>Filter parameters on fields annotated with @{@link Filter} including operators e.g. price=gt:100
+     * (see {@link FilterPlan})</li>
+     * <li>Excludes deleted records if the entity has an intrash field</li>
+     * </ul>
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            query root
+     * @param request         HTTP Request used to get filter and search parameters
+     * @return {@link Predicate} (conjunction if there are no restrictions)
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected Predicate buildPredicate(CriteriaBuilder criteriaBuilder, Root<T> root, HttpServletRequest request) throws ParseException {
+        String needle = request.getParameter("needle");
+        return this.filterPlan.toPredicate(criteriaBuilder, root, request,
+                (needle == null) ? null : this.search(needle), this.chasisService);
+    }
+
+    /**
+     * Used to create query restrictions on the @{@link ReadModel} of the entity. Same as
+     * {@link #buildPredicate(CriteriaBuilder, Root, HttpServletRequest)} using the @{@link Filter} and
+     * @{@link Searchable} fields of the read model (a search index still resolves the needle parameter to entity ids)
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            read model query root
+     * @param request         HTTP Request used to get filter and search parameters
+     * @param readModel       read model mapping of the entity
+     * @param <V>             read model type
+     * @return {@link Predicate} (conjunction if there are no restrictions)
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    protected <V> Predicate buildReadModelPredicate(CriteriaBuilder criteriaBuilder, Root<V> root, HttpServletRequest request,
+                                                    ReadModelMapping<T, V> readModel) throws ParseException {
+        String needle = request.getParameter("needle");
+        return FilterPlan.forClass(readModel.getViewClass()).toPredicate(criteriaBuilder, root, request,
+                (needle == null) ? null : this.search(needle), this.chasisService);
+    }
+
+    /**
+     * Used to restrict record list queries. Queries the @{@link ReadModel} of the entity if it is used (see
+     * {@link #getReadModel(HttpServletRequest)}) otherwise the entity
+     *
+     * @param criteriaBuilder criteria builder
+     * @param query           query to restrict
+     * @param request         HTTP Request used to get filter and search parameters
+     * @return query root
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
+    private Root<?> restrict(CriteriaBuilder criteriaBuilder, CriteriaQuery<?> query, HttpServletRequest request) throws ParseException {
+        ReadModelMapping<T, ?> readModel = this.getReadModel(request);
+        if (readModel != null) {
+            return this.restrict(criteriaBuilder, query, request, readModel);
+        }
+        Root<T> root = query.from(this.metadata.getEntityClass());
+        query.where(this.buildPredicate(criteriaBuilder, root, request));
+        return root;
+    }
+
+    private <V> Root<V> restrict(CriteriaBuilder criteriaBuilder, CriteriaQuery<?> query, HttpServletRequest request,
+                                 ReadModelMapping<T, V> readModel) throws ParseException {
+        Root<V> root = query.from(readModel.getViewClass());
+        query.where(this.buildReadModelPredicate(criteriaBuilder, root, request, readModel));
+        return root;
+    }
+
+    /**
+     * Used to resolve the needle parameter to record ids using the {@link SearchProvider} (if one is configured)
+     *
+     * @param needle search text
+     * @return ids of matching records or null to search the database
+     */
+    protected Collection<?> search(String needle) {
+        SearchProvider provider = SearchProviders.forClass(this.metadata.getEntityClass());
+        return (provider == null) ? null : provider.search(this.entityManager, this.metadata.getEntityClass(), needle);
+    }
+
+    /**
+     * Used to subscribe to committed changes of the entity using Server-Sent Events instead of polling
+     * {@link #findAll(Pageable, HttpServletRequest)}. A <code>change</code> event ({@link ChangeEvent} with the record
+     * id, activity and new status) is sent after records are created, updated, deleted, approved, declined,
+     * activated, deactivated, locked or unlocked through the resource.
+     * <h4>Note</h4>
+     * <ul>
+     * <li>Each subscriber buffers up to chasis.events.buffer-size events. If a subscriber falls behind the oldest
+     * events are dropped and a <code>dropped</code> event with the number of dropped events is sent, reload the
+     * records when it is received</li>
+     * <li>Subscriptions end after chasis.events.timeout seconds, clients should reconnect (browsers' EventSource
+     * reconnects automatically)</li>
+     * <li>At most chasis.events.max-subscribers clients can subscribe, further subscriptions are rejected with
+     * status 503</li>
+     * <li>Only changes made through this application instance are sent unless a {@link ChangeFeed.Relay} is set (see
+     * {@link ChangeFeed#setRelay(ChangeFeed.Relay)})</li>
+     * </ul>
+     *
+     * @return {@link SseEmitter} of {@link ChangeEvent}(s)
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to Record Changes", description = "Server-Sent Events stream of committed changes")
+    public SseEmitter subscribeEvents() {
+        return this.changeFeed.subscribe();
+    }
+
+    /**
+     * Used to count records per value of @{@link Filter} fields (facets) e.g. number of records per status. Records
+     * are restricted by the same search and filter parameters as {@link #findAll(Pageable, HttpServletRequest)}
+     * (including excluding deleted records). Each facet is counted using a single group by query:
+     * <ul>
+     * <li>Facets parameter selects the fields to count (comma separated). All non date range @{@link Filter} fields
+     * are counted by default</li>
+     * <li>@{@link ManyToOne} fields are grouped by the id of the related record (without joining its table)</li>
+     * <li>Values are ordered by count (most frequent first) and limited to {@link #facetLimit} values per facet</li>
+     * </ul>
+     *
+     * @param request HTTP Request used to get filter and search parameters
+     * @return {@link ResponseEntity} with the values of each facet
+     * @throws ParseException    if request param date cannot be casted to {@link Date}
+     * @throws RunTimeBadRequest if a facet is not a @{@link Filter} field
+     */
+    @Operation(summary = "Count Records per Filter Value")
+    @Parameters({
+            @Parameter(name = "facets", in = ParameterIn.QUERY, required = false, description = "Comma separated "
+                    + "filter fields to count e.g. status,category. All filter fields are counted by default")
+    })
+    @GetMapping("/facets")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ResponseWrapper<Map<String, List<FacetValue>>>> findFacets(
+            @Parameter(hidden = true) HttpServletRequest request) throws ParseException {
+        ResourceVersion version = this.conditionalGet ? this.resolveListVersion(request) : null;
+        ResponseEntity<ResponseWrapper<Map<String, List<FacetValue>>>> notModified = ConditionalRequests.notModified(request, version);
+        if (notModified != null) {
+            return notModified;
+        }
+        Map<String, List<FacetValue>> facets = Facets.of(this.metadata, this.resolveFacets(request)).count(this.entityManager,
+                (criteriaBuilder, root) -> this.buildPredicate(criteriaBuilder, root, request), this.facetLimit, this.queryTimeout);
+        ResponseWrapper<Map<String, List<FacetValue>>> response = new ResponseWrapper<>();
+        response.setData(facets);
+        return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+    }
+
+    /**
+     * Used to aggregate records in the database e.g. <code>?metric=sum:amount&amp;groupBy=status</code>. Records are
+     * restricted by the same search and filter parameters as {@link #findAll(Pageable, HttpServletRequest)}
+     * (including excluding deleted records):
+     * <ul>
+     * <li>Metric parameter (repeatable or comma separated) is one of sum, avg, min, max or count followed by the field
+     * e.g. avg:price. count without a field counts records</li>
+     * <li>groupBy parameter (optional) is a comma separated list of fields. Returns a single row if not present</li>
+     * <li>Groups are ordered by the sort parameter if present otherwise by the group by fields and limited to
+     * {@link #aggregateLimit} groups</li>
+     * </ul>
+     *
+     * @param pg      used to sort the groups
+     * @param request HTTP Request used to get filter, search and aggregate parameters
+     * @return {@link ResponseEntity} with rows of group by field values followed by metrics (see {@link Aggregation#read(Tuple)})
+     * @throws ParseException    if request param date cannot be casted to {@link Date}
+     * @throws RunTimeBadRequest if a metric or group by field is not valid
+     */
+    @Operation(summary = "Aggregate Records")
+    @Parameters({
+            @Parameter(name = "metric", in = ParameterIn.QUERY, required = true, description = "Aggregate function and "
+                    + "field e.g. sum:amount (sum, avg, min, max or count)"),
+            @Parameter(name = "groupBy", in = ParameterIn.QUERY, required = false, description = "Comma separated "
+                    + "fields to group by e.g. status"),
+            @Parameter(name = "sort", in = ParameterIn.QUERY, required = false, description = "Group by field name "
+                    + "e.g status,asc/desc")
+    })
+    @GetMapping("/aggregate")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ResponseWrapper<List<Map<String, Object>>>> aggregate(@Parameter(hidden = true) Pageable pg,
+            @Parameter(hidden = true) HttpServletRequest request) throws ParseException {
+        Aggregation<T> aggregation = Aggregation.of(this.metadata, request.getParameterValues(METRIC_PARAM),
+                request.getParameter(GROUP_BY_PARAM));
+        ResourceVersion version = this.conditionalGet ? this.resolveListVersion(request) : null;
+        ResponseEntity<ResponseWrapper<List<Map<String, Object>>>> notModified = ConditionalRequests.notModified(request, version);
+        if (notModified != null) {
+            return notModified;
+        }
+        List<Map<String, Object>> rows = aggregation.execute(this.entityManager,
+                (criteriaBuilder, root) -> this.buildPredicate(criteriaBuilder, root, request), pg.getSort(),
+                this.aggregateLimit, this.queryTimeout);
+        ResponseWrapper<List<Map<String, Object>>> response = new ResponseWrapper<>();
+        response.setData(rows);
+        return ConditionalRequests.withVersion(ResponseEntity.ok(), version).body(response);
+    }
+
+    /**
+     * Used to resolve the fields counted by {@link #findFacets(HttpServletRequest)} from the facets parameter
+     *
+     * @param request HTTP Request
+     * @return @{@link Filter} fields
+     * @throws RunTimeBadRequest if a requested field is not a @{@link Filter} field
+     */
+    protected List<Field> resolveFacets(HttpServletRequest request) {
+        return Facets.of(this.metadata, request.getParameter(FACETS_PARAM)).getFields();
+    }
+
+    /**
+     * Used to create query ordering from the requested sort. Sort properties that are not entity fields are ignored
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            query root
+     * @param sort            requested sort
+     * @return {@link List} of {@link Order}(s)
+     */
+    protected List<Order> buildOrders(CriteriaBuilder criteriaBuilder, Root<T> root, Sort sort) {
+        List<Order> ords = new ArrayList<>();
+        for (Sort.Order ord : sort) {
+            if (this.metadata.getField(ord.getProperty()) == null) {
+                continue;
+            }
+            log.debug("Found ordering paramater ({}) for field {} preparing ordering query", ord, ord.getProperty());
+            if (ord.isAscending()) {
+                ords.add(criteriaBuilder.asc(root.get(ord.getProperty())));
+            } else {
+                ords.add(criteriaBuilder.desc(root.get(ord.getProperty())));
+            }
+        }
+        return ords;
     }
 
     /**
@@ -1170,7 +2799,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                 continue;
             }
 
-            PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+            PropertyAccessor accessor = FastBeanWrapper.forBean(t);
             try {
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null || !statusId.equals(AppConstants.STATUS_ID_ACTIVE)) {
@@ -1181,6 +2810,8 @@ public class ChasisResource<T, E extends Serializable, R> {
                     this.setStatus(accessor, AppConstants.STATUS_ID_DEACTIVATE);
                     loggerService.log("Deactivate " + recordName + " successfully", this.genericClasses.get(0).getSimpleName(),
                             id, AppConstants.ACTIVITY_DEACTIVATE, AppConstants.STATUS_ID_COMPLETED, "");
+                    this.markModified();
+                    this.publishChange(id, AppConstants.ACTIVITY_DEACTIVATE);
                 }
             } catch (org.springframework.beans.NotWritablePropertyException | org.springframework.beans.NotReadablePropertyException e) {
                 loggerService.log("Deactivating " + recordName + " failed due to record doesn't have status field", this.genericClasses.get(0).getSimpleName(),
@@ -1229,7 +2860,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                 continue;
             }
 
-            PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+            PropertyAccessor accessor = FastBeanWrapper.forBean(t);
             try {
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null || !statusId.equals(AppConstants.STATUS_ID_DEACTIVATED)) {
@@ -1240,6 +2871,8 @@ public class ChasisResource<T, E extends Serializable, R> {
                     this.setStatus(accessor, AppConstants.STATUS_ID_ACTIVATE);
                     loggerService.log("Activated " + recordName + " successfully", this.genericClasses.get(0).getSimpleName(),
                             id, AppConstants.ACTIVITY_ACTIVATION, AppConstants.STATUS_ID_COMPLETED, "");
+                    this.markModified();
+                    this.publishChange(id, AppConstants.ACTIVITY_ACTIVATION);
                 }
             } catch (org.springframework.beans.NotWritablePropertyException | org.springframework.beans.NotReadablePropertyException e) {
                 loggerService.log("Activating " + recordName + " failed due to record doesn't have status field", this.genericClasses.get(0).getSimpleName(),
@@ -1288,7 +2921,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                 continue;
             }
 
-            PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+            PropertyAccessor accessor = FastBeanWrapper.forBean(t);
             try {
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null || !statusId.equals(AppConstants.STATUS_ID_ACTIVE)) {
@@ -1299,6 +2932,8 @@ public class ChasisResource<T, E extends Serializable, R> {
                     this.setStatus(accessor, AppConstants.STATUS_ID_LOCK);
                     loggerService.log("Locked " + recordName + " successfully", this.genericClasses.get(0).getSimpleName(),
                             id, AppConstants.ACTIVITY_LOCK, AppConstants.STATUS_ID_COMPLETED, "");
+                    this.markModified();
+                    this.publishChange(id, AppConstants.ACTIVITY_LOCK);
                 }
             } catch (org.springframework.beans.NotWritablePropertyException | org.springframework.beans.NotReadablePropertyException e) {
                 loggerService.log("Locking " + recordName + " failed due to record doesn't have status field", this.genericClasses.get(0).getSimpleName(),
@@ -1347,7 +2982,7 @@ public class ChasisResource<T, E extends Serializable, R> {
                 continue;
             }
 
-            PropertyAccessor accessor = PropertyAccessorFactory.forBeanPropertyAccess(t);
+            PropertyAccessor accessor = FastBeanWrapper.forBean(t);
             try {
                 Short statusId = this.getStatusId(accessor);
                 if (statusId == null || !statusId.equals(AppConstants.STATUS_ID_LOCKED)) {
@@ -1358,6 +2993,8 @@ public class ChasisResource<T, E extends Serializable, R> {
                     this.setStatus(accessor, AppConstants.STATUS_ID_UNLOCK);
                     loggerService.log("Unlocked " + recordName + " successfully", this.genericClasses.get(0).getSimpleName(),
                             id, AppConstants.ACTIVITY_UNLOCK, AppConstants.STATUS_ID_COMPLETED, "");
+                    this.markModified();
+                    this.publishChange(id, AppConstants.ACTIVITY_UNLOCK);
                 }
             } catch (org.springframework.beans.NotWritablePropertyException | org.springframework.beans.NotReadablePropertyException e) {
                 loggerService.log("Unlocking " + recordName + " failed due to record doesn't have status field", this.genericClasses.get(0).getSimpleName(),
@@ -1377,10 +3014,28 @@ public class ChasisResource<T, E extends Serializable, R> {
 
     }
 
+    /**
+     * Used to export records to CSV. Records are streamed while the view is rendered (after this method returns) hence
+     * the export doesn't run in a transaction; the export query is read only instead (and reads from the replica if
+     * one is configured, see {@link ReplicaRouting}, until the records have been written)
+     *
+     * @param pg      used to sort and limit the result
+     * @param request HTTP Request used to get filter and search parameters
+     * @return {@link CsvFlexView}
+     * @throws ParseException if request param date cannot be casted to {@link Date}
+     */
     @Operation(summary = "Export Record To CSV")
     @GetMapping("/export.csv")
     public ModelAndView exportCsv(Pageable pg, HttpServletRequest request) throws ParseException {
-        return new ModelAndView(new CsvFlexView<T>(this.genericClasses.get(0), this.chasisService.findAll(pg, this.genericClasses.get(0), request, entityManager), this.recordName));
+        this.validatePageable(pg, this.maxExportSize);
+        ReplicaRouting.Scope scope = ReplicaRouting.replicaForRequest();
+        try {
+            Stream<T> records = this.chasisService.findAll(pg, this.genericClasses.get(0), request, entityManager, this.getFetchGraph(), this.exportTimeout);
+            return new ModelAndView(new CsvFlexView<T>(this.genericClasses.get(0), records.onClose(scope::close), this.recordName));
+        } catch (ParseException | RuntimeException ex) {
+            scope.close();
+            throw ex;
+        }
     }
 
 }
@@ -12,7 +12,12 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * Used to mark a field to be filtered usually a @ManyToOne field
+ * Used to mark a field to be filtered usually a @ManyToOne field. Date fields filtered using the from and to
+ * parameters should set isDateRange e.g.
+ * <pre>
+ * &#64;Filter(isDateRange = true, rangeMode = Filter.RangeMode.HALF_OPEN)
+ * private LocalDateTime created;
+ * </pre>
  * @author Cornelius M
  * @version 0.0.1
  */
@@ -20,4 +25,26 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Filter {    
     boolean isDateRange() default false;
+
+    /**
+     * @return how the from and to parameters of a date range are compared
+     */
+    RangeMode rangeMode() default RangeMode.WIDENED;
+
+    /**
+     * Date range modes
+     */
+    enum RangeMode {
+        /**
+         * <code>CAST(field AS DATE) BETWEEN from - 1 day AND to + 1 day</code>
+         */
+        WIDENED,
+        /**
+         * <code>field &gt;= from AND field &lt; to + 1 day</code> (to is the start of the last day) compared on the
+         * column type so that an index on the field can be used. Supports {@link java.util.Date},
+         * {@link java.util.Calendar}, {@link java.time.LocalDate}, {@link java.time.LocalDateTime},
+         * {@link java.time.Instant}, {@link java.time.OffsetDateTime} and {@link java.time.ZonedDateTime} fields
+         */
+        HALF_OPEN
+    }
 }
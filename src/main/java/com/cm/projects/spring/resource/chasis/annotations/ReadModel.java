@@ -0,0 +1,40 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package com.cm.projects.spring.resource.chasis.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity as the flat read model of another entity. The read model has the same id as the entity and fields
+ * copied from the entity fields with the same name (the id of the related record for @{@link javax.persistence.ManyToOne}
+ * fields) plus label fields annotated with @{@link ReadModelLabel}. For example <br />
+ * <pre>
+ * &#64;Entity &#64;ReadModel(Item.class)
+ * public class ItemView {
+ *     &#64;Id private Long id;
+ *     &#64;Filter &#64;Searchable private String name;
+ *     &#64;Filter private Short status;
+ *     &#64;Filter &#64;Searchable &#64;ReadModelLabel("status") private String statusName;
+ *     private String intrash;
+ * }
+ * </pre>
+ * @author Cornelius M
+ * @version 0.0.1
+ */
+@Target(value = {ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadModel {
+
+    /**
+     * Entity the read model is built from
+     * @return entity class
+     */
+    Class<?> value();
+}
@@ -0,0 +1,37 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package com.cm.projects.spring.resource.chasis.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a @{@link ReadModel} field holding the label of a @{@link javax.persistence.ManyToOne} field of the entity.
+ * The label is the field of the related entity annotated with @{@link RelEntityLabel} unless a field is specified.
+ * The read model must also have a field with the same name as the @{@link javax.persistence.ManyToOne} field
+ * (holding the id of the related record)
+ * @author Cornelius M
+ * @version 0.0.1
+ */
+@Target(value = {ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadModelLabel {
+
+    /**
+     * Name of the @ManyToOne field on the entity
+     * @return field name
+     */
+    String value();
+
+    /**
+     * Field of the related entity used as the label (defaults to the field annotated with @{@link RelEntityLabel})
+     * @return field name
+     */
+    String field() default "";
+}
@@ -12,7 +12,18 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * Used to mark fields to be searched.
+ * Used to mark fields to be searched. By default fields are matched using <code>UPPER(field) LIKE '%NEEDLE%'</code>.
+ * For index friendly (type-ahead) search use {@link Mode#PREFIX} with a shadow field e.g.
+ * <pre>
+ * &#64;Searchable(mode = Searchable.Mode.PREFIX, shadow = "nameSearch")
+ * private String name;
+ * &#64;JsonIgnore
+ * private String nameSearch;
+ * </pre>
+ * The shadow field holds the upper-cased, accent-stripped value of the field and is maintained by the library on
+ * insert and update, populate it for existing records using
+ * {@link com.cm.projects.spring.resource.chasis.search.SearchFields#populateShadows}. The recommended index DDL is
+ * logged on startup.
  * @author Cornelius M
  * @version 0.0.1
  */
@@ -20,4 +31,30 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Searchable {
 
+    /**
+     * @return how the field is matched
+     */
+    Mode mode() default Mode.CONTAINS;
+
+    /**
+     * @return name of the field storing the normalized value used by {@link Mode#PREFIX} (optional)
+     */
+    String shadow() default "";
+
+    /**
+     * Search modes
+     */
+    enum Mode {
+        /**
+         * <code>UPPER(field) LIKE '%NEEDLE%'</code> can't use an index
+         */
+        CONTAINS,
+        /**
+         * <code>shadow LIKE 'NEEDLE%'</code> can use a B-tree index on the shadow column. Without a shadow field
+         * <code>UPPER(field) LIKE 'NEEDLE%'</code> is used which can only use an expression index on
+         * <code>upper(field)</code> (databases without expression indexes scan the table). Some databases need a
+         * pattern index for LIKE e.g. <code>text_pattern_ops</code> on PostgreSQL with a non C collation
+         */
+        PREFIX
+    }
 }
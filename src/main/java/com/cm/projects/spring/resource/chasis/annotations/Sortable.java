@@ -0,0 +1,23 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+
+package com.cm.projects.spring.resource.chasis.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Used to mark fields records can be sorted by (preferably indexed fields). If an entity has sortable fields, sorting
+ * by any other field except the id is rejected
+ * @author Cornelius M
+ * @version 0.0.1
+ */
+@Target(value = {ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Sortable {
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.spi.MetadataBuilderInitializer;
+import org.hibernate.dialect.*;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.StandardBasicTypes;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Registers the SQL functions used by the library with Hibernate. Picked up automatically by Hibernate through
+ * <code>META-INF/services/org.hibernate.boot.spi.MetadataBuilderInitializer</code>. Functions include:
+ * <ul>
+ * <li>{@value #TOTAL_COUNT_FUNCTION}: <code>count(*) over()</code> window function used to fetch a page of records
+ * and the total number of records in a single query</li>
+ * </ul>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChasisMetadataBuilderInitializer implements MetadataBuilderInitializer {
+
+    /**
+     * Total count window function name
+     */
+    public static final String TOTAL_COUNT_FUNCTION = "chasis_total_count";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder, StandardServiceRegistry serviceRegistry) {
+        metadataBuilder.applySqlFunction(TOTAL_COUNT_FUNCTION, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+    }
+
+    /**
+     * Used to check if {@value #TOTAL_COUNT_FUNCTION} can be used i.e. the function has been registered and the
+     * database supports window functions (PostgreSQL, MySQL 8, MariaDB 10.2+, Oracle, SQL Server 2005+, DB2 and H2)
+     *
+     * @param entityManager entity manager
+     * @return true if the function is supported
+     */
+    public static boolean isTotalCountSupported(EntityManager entityManager) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        if (sessionFactory.getSqlFunctionRegistry().findSQLFunction(TOTAL_COUNT_FUNCTION) == null) {
+            return false;
+        }
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        return dialect instanceof PostgreSQL81Dialect || dialect instanceof MySQL8Dialect
+                || dialect instanceof MariaDB102Dialect || dialect instanceof Oracle8iDialect
+                || dialect instanceof SQLServer2005Dialect || dialect instanceof DB2Dialect
+                || dialect instanceof H2Dialect;
+    }
+}
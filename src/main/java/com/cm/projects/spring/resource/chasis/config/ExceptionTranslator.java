@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Map;
 
@@ -123,6 +124,14 @@ public class ExceptionTranslator {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ResponseWrapper<Map<String, Object>>> processTypeMismatch(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException ex) {
+        ResponseWrapper<Map<String, Object>> response = new ResponseWrapper<>();
+        response.setStatus(400);
+        response.setMessage("Invalid value " + ex.getValue() + " for " + ex.getName());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
     public ResponseEntity<ResponseWrapper<Map<String, Object>>> processExpectationError(HttpMediaTypeNotSupportedException ex) {
         ResponseWrapper<Map<String, Object>> response = new ResponseWrapper<>();
@@ -174,6 +183,16 @@ public class ExceptionTranslator {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler({org.springframework.dao.QueryTimeoutException.class,
+        javax.persistence.QueryTimeoutException.class, org.hibernate.QueryTimeoutException.class})
+    public ResponseEntity<ResponseWrapper<Map<String, Object>>> processQueryTimeout(Exception ex) {
+        log.warn("Query timed out: {}", ex.getMessage());
+        ResponseWrapper<Map<String, Object>> response = new ResponseWrapper<>();
+        response.setStatus(400);
+        response.setMessage("Query took too long, narrow the results using filters");
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler({IllegalStateException.class, TransactionSystemException.class,
         java.sql.SQLRecoverableException.class, CannotCreateTransactionException.class,
         java.net.UnknownHostException.class, ClassCastException.class,
@@ -222,7 +241,16 @@ public class ExceptionTranslator {
         log.warn("Unsupported Exception", ex);
         ResponseWrapper<Map<String, String>> response = new ResponseWrapper<>();
         response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
-        response.setMessage("Sorry the requested resource is not yet implemented");
+        response.setMessage((ex.getMessage() == null) ? "Sorry the requested resource is not yet implemented" : ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.NOT_IMPLEMENTED);
     }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ResponseWrapper<Map<String, String>>> processResponseStatus(ResponseStatusException ex) {
+        log.warn("Request failed: {}", ex.getMessage());
+        ResponseWrapper<Map<String, String>> response = new ResponseWrapper<>();
+        response.setStatus(ex.getStatus().value());
+        response.setMessage(ex.getReason());
+        return new ResponseEntity<>(response, ex.getResponseHeaders(), ex.getStatus());
+    }
 }
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import com.cm.projects.spring.resource.chasis.ChasisResource;
+import com.cm.projects.spring.resource.chasis.annotations.CompoundUnique;
+import com.cm.projects.spring.resource.chasis.annotations.Searchable;
+import com.cm.projects.spring.resource.chasis.annotations.UniquePair;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.utils.SharedMethods;
+import com.cm.projects.spring.resource.chasis.utils.TableStatistics;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Checks on startup that the indexes used by the queries the library issues exist. Register it as a bean e.g.
+ * <pre>
+ * &#64;Bean
+ * public IndexAdvisor indexAdvisor(EntityManager entityManager, DataSource dataSource) {
+ *     return new IndexAdvisor(entityManager, dataSource);
+ * }
+ * </pre>
+ * For every entity exposed through a {@link ChasisResource} bean the following columns are expected to be indexed:
+ * <ul>
+ * <li>@{@link com.cm.projects.spring.resource.chasis.annotations.Unique} fields and the fields of
+ * @{@link CompoundUnique} pairs (unique validation)</li>
+ * <li>@{@link com.cm.projects.spring.resource.chasis.annotations.Filter} fields</li>
+ * <li>@{@link Searchable} fields using {@link Searchable.Mode#PREFIX} (the shadow field or <code>upper(field)</code>).
+ * {@link Searchable.Mode#CONTAINS} fields are skipped since a B-tree index can't serve them</li>
+ * <li>The intrash field</li>
+ * <li>The last modified field (latest modification time of conditional list requests)</li>
+ * <li>The edited record entity name and entity id pair (@{@link com.cm.projects.spring.resource.chasis.annotations.EditEntity}
+ * and @{@link com.cm.projects.spring.resource.chasis.annotations.EditEntityId})</li>
+ * </ul>
+ * An index serves a column list if the list makes up its leading columns. Indexes are read from JDBC
+ * {@link DatabaseMetaData}. Missing indexes are logged together with the DDL to create them (adjust it to the
+ * database). In strict mode (chasis.index-advisor.strict property) missing indexes fail the application startup.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class IndexAdvisor implements ApplicationContextAware, SmartInitializingSingleton {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final EntityManager entityManager;
+    private final DataSource dataSource;
+    private ApplicationContext applicationContext;
+    private boolean enabled = true;
+    private boolean strict = false;
+    private List<String> missingIndexes = Collections.emptyList();
+
+    /**
+     * @param entityManager entity manager used to resolve tables and columns
+     * @param dataSource    data source used to read the database indexes
+     */
+    public IndexAdvisor(EntityManager entityManager, DataSource dataSource) {
+        this.entityManager = entityManager;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Enable or disable the startup check
+     *
+     * @param enabled false to skip the check
+     */
+    @Value("${chasis.index-advisor.enabled:true}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Set whether missing indexes fail the application startup
+     *
+     * @param strict true to fail the startup
+     */
+    @Value("${chasis.index-advisor.strict:false}")
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!this.enabled) {
+            return;
+        }
+        Set<Class<?>> entities = new LinkedHashSet<>(), editedRecords = new LinkedHashSet<>();
+        for (Object resource : this.applicationContext.getBeansOfType(ChasisResource.class, false, false).values()) {
+            List<Class> classes = SharedMethods.getGenericClasses(ClassUtils.getUserClass(resource));
+            entities.add(classes.get(0));
+            editedRecords.add(classes.get(2));
+        }
+        this.missingIndexes = this.check(entities, editedRecords);
+        if (!this.missingIndexes.isEmpty() && this.strict) {
+            throw new IllegalStateException("Missing indexes (set chasis.index-advisor.strict=false to start anyway):\n"
+                    + String.join(";\n", this.missingIndexes));
+        }
+    }
+
+    /**
+     * Used to check the indexes of the specified entities
+     *
+     * @param entities      entity classes exposed through resources
+     * @param editedRecords edited record classes of the resources
+     * @return create index statements of the missing indexes
+     */
+    public List<String> check(Collection<Class<?>> entities, Collection<Class<?>> editedRecords) {
+        Map<String, Requirement> requirements = new LinkedHashMap<>();
+        for (Class<?> clazz : entities) {
+            this.entityRequirements(clazz, requirements);
+        }
+        for (Class<?> clazz : editedRecords) {
+            EntityMetadata<?> metadata = EntityMetadataRegistry.forClass(clazz);
+            if (metadata.getEditEntityField() != null && metadata.getEditEntityIdField() != null) {
+                this.require(requirements, clazz, "edited record lookup", false,
+                        metadata.getEditEntityField().getName(), metadata.getEditEntityIdField().getName());
+            }
+        }
+
+        List<String> missing = new ArrayList<>();
+        Map<String, List<List<String>>> indexes = new HashMap<>();
+        try (Connection connection = this.dataSource.getConnection()) {
+            DatabaseMetaData databaseMetaData = connection.getMetaData();
+            for (Requirement requirement : requirements.values()) {
+                List<List<String>> tableIndexes = indexes.get(requirement.table);
+                if (tableIndexes == null) {
+                    tableIndexes = this.readIndexes(connection, databaseMetaData, requirement.table);
+                    indexes.put(requirement.table, tableIndexes);
+                }
+                if (tableIndexes == null) {
+                    continue;
+                }
+                if (!requirement.isServedBy(tableIndexes)) {
+                    String ddl = requirement.toDdl();
+                    log.warn("Missing index on {} {} used by {}: {}", requirement.table, requirement.columns,
+                            requirement.usage, ddl);
+                    missing.add(ddl);
+                }
+            }
+        } catch (SQLException ex) {
+            if (this.strict) {
+                throw new IllegalStateException("Failed to read database indexes", ex);
+            }
+            log.warn("Failed to read database indexes, index check skipped", ex);
+            return Collections.emptyList();
+        }
+        if (missing.isEmpty()) {
+            log.info("All {} recommended indexes exist", requirements.size());
+        }
+        return Collections.unmodifiableList(missing);
+    }
+
+    /**
+     * @return create index statements of the indexes found missing on startup
+     */
+    public List<String> getMissingIndexes() {
+        return missingIndexes;
+    }
+
+    private void entityRequirements(Class<?> clazz, Map<String, Requirement> requirements) {
+        EntityMetadata<?> metadata = EntityMetadataRegistry.forClass(clazz);
+        for (Field field : metadata.getUniqueFields()) {
+            this.require(requirements, clazz, "unique validation", false, field.getName());
+        }
+        CompoundUnique compoundUnique = clazz.getAnnotation(CompoundUnique.class);
+        if (compoundUnique != null) {
+            for (UniquePair pair : compoundUnique.pairs()) {
+                this.require(requirements, clazz, "unique validation", false, pair.fields());
+            }
+        }
+        for (Field field : metadata.getFilterFields()) {
+            this.require(requirements, clazz, "filters", false, field.getName());
+        }
+        for (Field field : metadata.getSearchableFields()) {
+            Searchable searchable = field.getAnnotation(Searchable.class);
+            if (searchable.mode() != Searchable.Mode.PREFIX) {
+                continue;
+            }
+            if (searchable.shadow().isEmpty()) {
+                this.require(requirements, clazz, "prefix search", true, field.getName());
+            } else {
+                this.require(requirements, clazz, "prefix search", false, searchable.shadow());
+            }
+        }
+        if (metadata.hasIntrash()) {
+            this.require(requirements, clazz, "trash filter", false, metadata.getIntrashFieldName());
+        }
+        if (metadata.getLastModifiedField() != null) {
+            this.require(requirements, clazz, "conditional requests", false, metadata.getLastModifiedField().getName());
+        }
+    }
+
+    /**
+     * Used to add an index requirement resolving the table and column names of the fields. Fields that aren't
+     * mapped to a column of the entity table are skipped
+     */
+    private void require(Map<String, Requirement> requirements, Class<?> clazz, String usage, boolean upper,
+                         String... fieldNames) {
+        AbstractEntityPersister persister;
+        String table;
+        try {
+            EntityPersister entityPersister = this.entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(clazz);
+            if (!(entityPersister instanceof AbstractEntityPersister)) {
+                return;
+            }
+            persister = (AbstractEntityPersister) entityPersister;
+            table = TableStatistics.getTableName(this.entityManager, clazz);
+        } catch (RuntimeException ex) {
+            log.debug("{} is not a mapped entity, index check skipped", clazz.getName());
+            return;
+        }
+        List<String> columns = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            try {
+                if (persister.getSubclassPropertyTableNumber(fieldName) != 0) {
+                    return;
+                }
+                for (String column : persister.getPropertyColumnNames(fieldName)) {
+                    columns.add(column.replaceAll("[\"`\\[\\]]", ""));
+                }
+            } catch (RuntimeException ex) {
+                log.debug("{}.{} is not mapped to a column, index check skipped", clazz.getName(), fieldName);
+                return;
+            }
+        }
+        if (table == null || columns.isEmpty()) {
+            return;
+        }
+        Requirement requirement = new Requirement(table, columns, upper, usage);
+        requirements.putIfAbsent(requirement.key(), requirement);
+    }
+
+    /**
+     * Used to read the columns of the table indexes (primary key included) in index order
+     *
+     * @return lower case columns per index or null if the table doesn't exist
+     */
+    private List<List<String>> readIndexes(Connection connection, DatabaseMetaData databaseMetaData, String table)
+            throws SQLException {
+        String name = databaseMetaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+                : databaseMetaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+        String schema = connection.getSchema();
+        try (ResultSet tables = databaseMetaData.getTables(connection.getCatalog(), schema, name, null)) {
+            if (!tables.next()) {
+                schema = null;
+            }
+        }
+        Map<String, SortedMap<Short, String>> columnsByIndex = new LinkedHashMap<>();
+        try (ResultSet rs = databaseMetaData.getIndexInfo(connection.getCatalog(), schema, name, false, true)) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic || column == null) {
+                    continue;
+                }
+                columnsByIndex.computeIfAbsent(rs.getString("INDEX_NAME"), k -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), column.replaceAll("[\"`\\[\\]]", "").toLowerCase(Locale.ROOT));
+            }
+        }
+        try (ResultSet rs = databaseMetaData.getPrimaryKeys(connection.getCatalog(), schema, name)) {
+            while (rs.next()) {
+                columnsByIndex.computeIfAbsent("PK_" + rs.getString("PK_NAME"), k -> new TreeMap<>())
+                        .put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        if (columnsByIndex.isEmpty()) {
+            try (ResultSet tables = databaseMetaData.getTables(connection.getCatalog(), schema, name, null)) {
+                if (!tables.next()) {
+                    log.warn("Table {} was not found, index check skipped", table);
+                    return null;
+                }
+            }
+        }
+        List<List<String>> indexes = new ArrayList<>();
+        columnsByIndex.values().forEach(columns -> indexes.add(new ArrayList<>(columns.values())));
+        return indexes;
+    }
+
+    /**
+     * Index expected on a table
+     */
+    static class Requirement {
+
+        private final String table;
+        private final List<String> columns;
+        private final boolean upper;
+        private final String usage;
+
+        Requirement(String table, List<String> columns, boolean upper, String usage) {
+            this.table = table;
+            this.columns = columns;
+            this.upper = upper;
+            this.usage = usage;
+        }
+
+        String key() {
+            return (table + ":" + upper + ":" + new TreeSet<>(columns)).toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * The required columns (in any order) must be the leading columns of an index. Expression indexes are
+         * matched by the column name appearing in the first expression e.g. <code>upper((name)::text)</code>
+         */
+        boolean isServedBy(List<List<String>> indexes) {
+            Set<String> required = new HashSet<>();
+            columns.forEach(column -> required.add(column.toLowerCase(Locale.ROOT)));
+            for (List<String> index : indexes) {
+                if (index.size() < required.size()) {
+                    continue;
+                }
+                if (upper) {
+                    String expression = index.get(0);
+                    if (expression.contains(columns.get(0).toLowerCase(Locale.ROOT)) && expression.contains("upper")) {
+                        return true;
+                    }
+                } else if (required.equals(new HashSet<>(index.subList(0, required.size())))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String toDdl() {
+            String columnList = upper ? "upper(" + columns.get(0) + ")" : String.join(", ", columns);
+            return "create index idx_" + table + "_" + String.join("_", columns) + " on " + table + " (" + columnList + ")";
+        }
+    }
+}
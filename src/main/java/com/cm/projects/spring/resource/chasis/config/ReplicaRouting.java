@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides whether the current thread reads from the replica of a {@link ReplicaRoutingDataSource}. Reads are routed to
+ * the replica when:
+ * <ul>
+ * <li>A {@link ReplicaRoutingDataSource} has been created</li>
+ * <li>The current transaction is read only (e.g. {@link com.cm.projects.spring.resource.chasis.ChasisResource} fetch
+ * endpoints) or the read is inside a {@link #replica()} scope (e.g. exports which stream records outside a
+ * transaction)</li>
+ * <li>The client hasn't written through a resource recently (read your writes). After a write the response sets the
+ * {@value #PRIMARY_COOKIE} cookie and requests carrying it read from the primary until it expires</li>
+ * </ul>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class ReplicaRouting {
+
+    /**
+     * Cookie holding the time (epoch milliseconds) until which the client reads from the primary
+     */
+    public static final String PRIMARY_COOKIE = "CHASIS_PRIMARY";
+
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+    /**
+     * How long a client reads from the primary after a write (-1 if routing is disabled)
+     */
+    private static volatile long readYourWritesMillis = -1;
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Enable routing
+     *
+     * @param readYourWritesMillis how long a client reads from the primary after a write (0 to disable)
+     */
+    static void enable(long readYourWritesMillis) {
+        ReplicaRouting.readYourWritesMillis = Math.max(readYourWritesMillis, 0);
+    }
+
+    /**
+     * @return true if a {@link ReplicaRoutingDataSource} has been created
+     */
+    public static boolean isEnabled() {
+        return readYourWritesMillis >= 0;
+    }
+
+    /**
+     * @return true if the current thread should read from the replica
+     */
+    public static boolean isReplicaRead() {
+        if (!isEnabled()) {
+            return false;
+        }
+        boolean readOnly = Boolean.TRUE.equals(REPLICA.get())
+                || (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        return readOnly && !hasRecentWrite();
+    }
+
+    /**
+     * Route reads of the current thread to the replica until the returned scope is closed e.g.
+     * <pre>
+     * try (ReplicaRouting.Scope scope = ReplicaRouting.replica()) {
+     *     ...
+     * }
+     * </pre>
+     *
+     * @return {@link Scope}
+     */
+    public static Scope replica() {
+        Boolean previous = REPLICA.get();
+        REPLICA.set(Boolean.TRUE);
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (previous == null) {
+                REPLICA.remove();
+            } else {
+                REPLICA.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Route reads of the current thread to the replica until the returned scope is closed or at the latest until the
+     * current request completes e.g. while a view renders records streamed from the database after the handler
+     * returned
+     *
+     * @return {@link Scope}
+     */
+    public static Scope replicaForRequest() {
+        Scope scope = replica();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.registerDestructionCallback(ReplicaRouting.class.getName() + "." + System.identityHashCode(scope),
+                    scope::close, RequestAttributes.SCOPE_REQUEST);
+        }
+        return scope;
+    }
+
+    /**
+     * Used to record a write by the client of the current request so that its next reads use the primary
+     * (see {@link #PRIMARY_COOKIE})
+     */
+    public static void recordWrite() {
+        long window = readYourWritesMillis;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (window <= 0 || !(attributes instanceof ServletRequestAttributes)) {
+            return;
+        }
+        HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(PRIMARY_COOKIE, String.valueOf(System.currentTimeMillis() + window));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (window + 999) / 1000));
+        response.addCookie(cookie);
+    }
+
+    /**
+     * @return true if the client of the current request wrote recently hence reads from the primary
+     * (see {@link #PRIMARY_COOKIE})
+     */
+    public static boolean hasRecentWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (PRIMARY_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replica read scope
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
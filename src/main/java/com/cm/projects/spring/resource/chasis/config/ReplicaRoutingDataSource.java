@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link DataSource} that sends read only work to a replica (see {@link ReplicaRouting}) and everything else to the
+ * primary database. Used in place of the application data source so that a single persistence unit serves both e.g.
+ * <pre>
+ * &#64;Bean
+ * public DataSource dataSource(...) {
+ *     return ReplicaRoutingDataSource.create(primary, replica, Duration.ofSeconds(5));
+ * }
+ * </pre>
+ * The returned data source is wrapped in a {@link LazyConnectionDataSourceProxy} so that the database is chosen when
+ * the first statement is executed (after the transaction has been marked read only) rather than when the transaction
+ * begins. Connections opened before routing is decided e.g. by Hibernate on startup use the primary.
+ * <p>
+ * The database is chosen once per connection hence Hibernate must release connections after each transaction,
+ * otherwise an entity manager kept open for the whole request (open session in view) would write using the replica
+ * connection of an earlier read. The persistence unit fails to start unless it is configured (see
+ * {@link ReplicaRoutingIntegrator}):
+ * <pre>
+ * spring.jpa.properties.hibernate.connection.handling_mode=DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION
+ * </pre>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Lookup key of the primary data source
+     */
+    public static final String PRIMARY = "primary";
+    /**
+     * Lookup key of the replica data source
+     */
+    public static final String REPLICA = "replica";
+
+    /**
+     * @param primary primary (read write) data source
+     * @param replica replica (read only) data source
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        this.setTargetDataSources(targets);
+        this.setDefaultTargetDataSource(primary);
+        this.afterPropertiesSet();
+    }
+
+    /**
+     * Create routing data source
+     *
+     * @param primary        primary (read write) data source
+     * @param replica        replica (read only) data source
+     * @param readYourWrites how long a client reads from the primary after writing through a resource
+     *                       ({@link Duration#ZERO} to always read from the replica)
+     * @return lazy routing {@link DataSource}
+     */
+    public static DataSource create(DataSource primary, DataSource replica, Duration readYourWrites) {
+        ReplicaRouting.enable(readYourWrites.toMillis());
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReplicaRouting.isReplicaRead() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import org.hibernate.ConnectionReleaseMode;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Fails the persistence unit of a {@link ReplicaRoutingDataSource} unless Hibernate releases connections after each
+ * transaction. Picked up automatically by Hibernate through
+ * <code>META-INF/services/org.hibernate.integrator.spi.Integrator</code>.
+ * <p>
+ * The database is chosen when a connection is opened. Spring sets the Hibernate connection handling mode to
+ * <code>DELAYED_ACQUISITION_AND_HOLD</code> which keeps the connection until the entity manager is closed, with open
+ * session in view that is the end of the request. A request that reads (from the replica) and then writes would write
+ * to the replica. Set:
+ * <pre>
+ * spring.jpa.properties.hibernate.connection.handling_mode=DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION
+ * </pre>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ReplicaRoutingIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        PhysicalConnectionHandlingMode mode = sessionFactory.getSessionFactoryOptions().getPhysicalConnectionHandlingMode();
+        if (mode.getReleaseMode() != ConnectionReleaseMode.ON_CLOSE || !isRouted(serviceRegistry)) {
+            return;
+        }
+        throw new IllegalStateException("ReplicaRoutingDataSource chooses the database per connection and connection "
+                + "handling mode " + mode + " holds connections until the entity manager is closed, set "
+                + "spring.jpa.properties.hibernate.connection.handling_mode="
+                + PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * @return true if the persistence unit uses a {@link ReplicaRoutingDataSource}
+     */
+    private static boolean isRouted(SessionFactoryServiceRegistry serviceRegistry) {
+        ConnectionProvider provider = serviceRegistry.getService(ConnectionProvider.class);
+        if (provider == null || !provider.isUnwrappableAs(DataSource.class)) {
+            return false;
+        }
+        try {
+            return provider.unwrap(DataSource.class).isWrapperFor(ReplicaRoutingDataSource.class);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
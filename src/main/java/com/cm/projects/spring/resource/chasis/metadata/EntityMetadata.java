@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.metadata;
+
+import com.cm.projects.spring.resource.chasis.annotations.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.annotation.LastModifiedDate;
+
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.Version;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Immutable description of an entity class. Holds the fields the library looks up on every request i.e.
+ * <ul>
+ * <li>Field annotated with @{@link Id}</li>
+ * <li>intrash field</li>
+ * <li>Fields annotated with @{@link Unique}, @{@link Filter}, @{@link Searchable}, @{@link ModifiableField}
+ * and @{@link ExportField}</li>
+ * <li>@{@link ManyToOne} and @{@link OneToMany} fields</li>
+ * <li>Edited record fields (@{@link EditEntity}, @{@link EditEntityId} and @{@link EditDataWrapper})</li>
+ * <li>@{@link Version} and last modified timestamp fields</li>
+ * <li>Generated bean property accessors ({@link PropertyHandle})</li>
+ * </ul>
+ * Instances are built once per class by {@link EntityMetadataRegistry} and shared across requests.
+ * <b>Note:</b> like the rest of the library only fields declared on the class itself are considered
+ * (inherited fields are ignored).
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class EntityMetadata<T> {
+
+    /**
+     * Name of the field used to flag deleted records
+     */
+    public static final String INTRASH_FIELD = "intrash";
+
+    private final Class<T> entityClass;
+    private final String recordName;
+    private final Field idField;
+    private final String intrashFieldName;
+    private final List<Field> fields;
+    private final Map<String, Field> fieldsByName;
+    private final List<Field> uniqueFields;
+    private final List<Field> filterFields;
+    private final List<Field> searchableFields;
+    private final List<Field> sortableFields;
+    private final List<Field> modifiableFields;
+    private final List<Field> exportFields;
+    private final List<Field> manyToOneFields;
+    private final List<Field> oneToManyFields;
+    private final Set<String> nonModifiableFieldNames;
+    private final Field editEntityField;
+    private final Field editEntityIdField;
+    private final Field editDataWrapperField;
+    private final Field versionField;
+    private final Field lastModifiedField;
+    private final Map<String, PropertyHandle> properties;
+
+    /**
+     * Scans the class declared fields. Use {@link EntityMetadataRegistry#forClass(Class)} instead of
+     * creating new instances
+     *
+     * @param entityClass entity class
+     */
+    EntityMetadata(Class<T> entityClass) {
+        this.entityClass = entityClass;
+        NickName nickName = entityClass.getAnnotation(NickName.class);
+        this.recordName = (nickName == null) ? "Record" : nickName.name();
+
+        Field id = null, editEntity = null, editEntityId = null, editData = null, version = null, lastModified = null;
+        String intrash = null;
+        List<Field> all = new ArrayList<>(), unique = new ArrayList<>(), filters = new ArrayList<>(),
+                searchable = new ArrayList<>(), modifiable = new ArrayList<>(), export = new ArrayList<>(),
+                manyToOne = new ArrayList<>(), oneToMany = new ArrayList<>(), sortable = new ArrayList<>();
+        Map<String, Field> byName = new LinkedHashMap<>();
+        Set<String> nonModifiable = new LinkedHashSet<>();
+
+        for (Field field : entityClass.getDeclaredFields()) {
+            try {
+                field.setAccessible(true);
+            } catch (RuntimeException ex) {
+                //field remains reachable through its getter
+            }
+            all.add(field);
+            byName.put(field.getName(), field);
+            if (field.isAnnotationPresent(Id.class) && id == null) {
+                id = field;
+            }
+            if (field.getName().equalsIgnoreCase(INTRASH_FIELD)) {
+                intrash = field.getName();
+            }
+            if (field.isAnnotationPresent(Unique.class)) {
+                unique.add(field);
+            }
+            if (field.isAnnotationPresent(Filter.class)) {
+                filters.add(field);
+            }
+            if (field.isAnnotationPresent(Searchable.class)) {
+                searchable.add(field);
+            }
+            if (field.isAnnotationPresent(Sortable.class)) {
+                sortable.add(field);
+            }
+            if (field.isAnnotationPresent(ModifiableField.class)) {
+                modifiable.add(field);
+            } else if (!field.isAnnotationPresent(Id.class)) {
+                nonModifiable.add(field.getName());
+            }
+            if (field.isAnnotationPresent(ExportField.class)) {
+                export.add(field);
+            }
+            if (field.isAnnotationPresent(ManyToOne.class)) {
+                manyToOne.add(field);
+            }
+            if (field.isAnnotationPresent(OneToMany.class)) {
+                oneToMany.add(field);
+            }
+            if (field.isAnnotationPresent(Version.class) && version == null) {
+                version = field;
+            }
+            if ((field.isAnnotationPresent(UpdateTimestamp.class) || field.isAnnotationPresent(LastModifiedDate.class))
+                    && lastModified == null) {
+                lastModified = field;
+            }
+            if (field.isAnnotationPresent(EditEntity.class) && editEntity == null) {
+                editEntity = field;
+            } else if (field.isAnnotationPresent(EditDataWrapper.class) && editData == null) {
+                editData = field;
+            } else if (field.isAnnotationPresent(EditEntityId.class) && editEntityId == null) {
+                editEntityId = field;
+            }
+        }
+
+        this.idField = id;
+        this.intrashFieldName = intrash;
+        this.editEntityField = editEntity;
+        this.editEntityIdField = editEntityId;
+        this.editDataWrapperField = editData;
+        this.versionField = version;
+        this.lastModifiedField = lastModified;
+        this.fields = Collections.unmodifiableList(all);
+        this.fieldsByName = Collections.unmodifiableMap(byName);
+        this.uniqueFields = Collections.unmodifiableList(unique);
+        this.filterFields = Collections.unmodifiableList(filters);
+        this.searchableFields = Collections.unmodifiableList(searchable);
+        this.sortableFields = Collections.unmodifiableList(sortable);
+        this.modifiableFields = Collections.unmodifiableList(modifiable);
+        this.exportFields = Collections.unmodifiableList(export);
+        this.manyToOneFields = Collections.unmodifiableList(manyToOne);
+        this.oneToManyFields = Collections.unmodifiableList(oneToMany);
+        this.nonModifiableFieldNames = Collections.unmodifiableSet(nonModifiable);
+
+        Map<String, PropertyHandle> handles = new LinkedHashMap<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(entityClass)) {
+            if (descriptor.getPropertyType() != null) {
+                handles.put(descriptor.getName(), new PropertyHandle(entityClass, descriptor));
+            }
+        }
+        this.properties = Collections.unmodifiableMap(handles);
+    }
+
+    /**
+     * @return entity class
+     */
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * @return entity user friendly name from @{@link NickName} or "Record" if the annotation is absent
+     */
+    public String getRecordName() {
+        return recordName;
+    }
+
+    /**
+     * @return field annotated with @{@link Id} or null if the entity doesn't have one
+     */
+    public Field getIdField() {
+        return idField;
+    }
+
+    /**
+     * @return name of the field annotated with @{@link Id} or null if the entity doesn't have one
+     */
+    public String getIdFieldName() {
+        return idField == null ? null : idField.getName();
+    }
+
+    /**
+     * Used to retrieve id field name on entities that must have an id field
+     *
+     * @return id field name
+     * @throws RuntimeException if entity doesn't have an id field
+     */
+    public String requireIdFieldName() {
+        if (idField == null) {
+            throw new RuntimeException("Entity doesn't have an id field");
+        }
+        return idField.getName();
+    }
+
+    /**
+     * @return true if the entity has intrash field
+     */
+    public boolean hasIntrash() {
+        return intrashFieldName != null;
+    }
+
+    /**
+     * @return declared name of the intrash field or null if the entity doesn't have one
+     */
+    public String getIntrashFieldName() {
+        return intrashFieldName;
+    }
+
+    /**
+     * @return all declared fields
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Get declared field by name
+     *
+     * @param name field name
+     * @return {@link Field} or null if the field is not declared on the entity
+     */
+    public Field getField(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * Get the first declared field annotated with the specified annotation
+     *
+     * @param annotation annotation class
+     * @return {@link Field} or null if none of the fields has the annotation
+     */
+    public Field getFieldAnnotatedWith(Class<? extends Annotation> annotation) {
+        if (annotation == Id.class) {
+            return idField;
+        }
+        for (Field field : fields) {
+            if (field.isAnnotationPresent(annotation)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return fields annotated with @{@link Unique}
+     */
+    public List<Field> getUniqueFields() {
+        return uniqueFields;
+    }
+
+    /**
+     * @return fields annotated with @{@link Filter}
+     */
+    public List<Field> getFilterFields() {
+        return filterFields;
+    }
+
+    /**
+     * @return fields annotated with @{@link Searchable}
+     */
+    public List<Field> getSearchableFields() {
+        return searchableFields;
+    }
+
+    /**
+     * @return fields annotated with @{@link Sortable}
+     */
+    public List<Field> getSortableFields() {
+        return sortableFields;
+    }
+
+    /**
+     * @return fields annotated with @{@link ModifiableField}
+     */
+    public List<Field> getModifiableFields() {
+        return modifiableFields;
+    }
+
+    /**
+     * @return names of fields that are neither annotated with @{@link ModifiableField} nor @{@link Id}
+     */
+    public Set<String> getNonModifiableFieldNames() {
+        return nonModifiableFieldNames;
+    }
+
+    /**
+     * @return fields annotated with @{@link ExportField}
+     */
+    public List<Field> getExportFields() {
+        return exportFields;
+    }
+
+    /**
+     * @return fields annotated with @{@link ManyToOne}
+     */
+    public List<Field> getManyToOneFields() {
+        return manyToOneFields;
+    }
+
+    /**
+     * @return fields annotated with @{@link OneToMany}
+     */
+    public List<Field> getOneToManyFields() {
+        return oneToManyFields;
+    }
+
+    /**
+     * @return field annotated with @{@link Version} or null if the entity isn't versioned
+     */
+    public Field getVersionField() {
+        return versionField;
+    }
+
+    /**
+     * @return field annotated with @{@link UpdateTimestamp} or @{@link LastModifiedDate} or null if none exists
+     */
+    public Field getLastModifiedField() {
+        return lastModifiedField;
+    }
+
+    /**
+     * @return edited record field annotated with @{@link EditEntity}
+     */
+    public Field getEditEntityField() {
+        return editEntityField;
+    }
+
+    /**
+     * @return edited record field annotated with @{@link EditEntityId}
+     */
+    public Field getEditEntityIdField() {
+        return editEntityIdField;
+    }
+
+    /**
+     * @return edited record field annotated with @{@link EditDataWrapper}
+     */
+    public Field getEditDataWrapperField() {
+        return editDataWrapperField;
+    }
+
+    /**
+     * Get bean property accessor by name
+     *
+     * @param name property name
+     * @return {@link PropertyHandle} or null if the class doesn't have the property
+     */
+    public PropertyHandle getProperty(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * @return bean property accessors keyed by property name
+     */
+    public Map<String, PropertyHandle> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityMetadata{" + "entityClass=" + entityClass.getName() + ", idField=" + getIdFieldName()
+                + ", intrash=" + intrashFieldName + '}';
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.metadata;
+
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches {@link EntityMetadata} per entity class. Metadata is built the first time a class is requested
+ * (usually when a {@link com.cm.projects.spring.resource.chasis.ChasisResource} or
+ * {@link com.cm.projects.spring.resource.chasis.repository.SupportRepository} is instantiated) and reused afterwards.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class EntityMetadataRegistry {
+
+    /**
+     * Entity metadata cache
+     */
+    private static final Map<Class<?>, EntityMetadata<?>> CACHE = new ConcurrentHashMap<>();
+
+    private EntityMetadataRegistry() {
+    }
+
+    /**
+     * Get metadata for the specified class building it if it doesn't exist
+     *
+     * @param clazz entity class
+     * @param <T>   entity type
+     * @return {@link EntityMetadata}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMetadata<T> forClass(Class<T> clazz) {
+        EntityMetadata<T> metadata = (EntityMetadata<T>) CACHE.get(clazz);
+        if (metadata == null) {
+            metadata = (EntityMetadata<T>) CACHE.computeIfAbsent(clazz, EntityMetadata::new);
+        }
+        return metadata;
+    }
+
+    /**
+     * Get metadata for the class of the specified object. Hibernate proxies resolve to the persistent class
+     * (without initializing the proxy)
+     *
+     * @param entity entity instance
+     * @param <T>    entity type
+     * @return {@link EntityMetadata}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityMetadata<T> forEntity(T entity) {
+        if (entity instanceof HibernateProxy) {
+            return forClass((Class<T>) ((HibernateProxy) entity).getHibernateLazyInitializer().getPersistentClass());
+        }
+        return forClass((Class<T>) entity.getClass());
+    }
+}
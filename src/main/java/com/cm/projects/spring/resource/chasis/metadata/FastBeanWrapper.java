@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.metadata;
+
+import org.springframework.beans.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+
+/**
+ * {@link BeanWrapper} backed by the generated accessors of {@link EntityMetadata}. Used in place of
+ * {@link BeanWrapperImpl} / {@link PropertyAccessorFactory} so that wrapping a bean doesn't introspect the class
+ * and reading or writing a property doesn't go through reflection.
+ * <p>
+ * Behaves like {@link BeanWrapperImpl} for simple properties i.e. throws {@link NotReadablePropertyException},
+ * {@link NotWritablePropertyException} and {@link TypeMismatchException}. Values are converted using the configured
+ * {@link ConversionService} (defaults to {@link DefaultConversionService#getSharedInstance()}); custom property
+ * editors are not applied. Nested and indexed property paths are delegated to a {@link BeanWrapperImpl}.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class FastBeanWrapper extends AbstractPropertyAccessor implements BeanWrapper {
+
+    private final Object wrappedObject;
+    private final EntityMetadata<?> metadata;
+    private BeanWrapperImpl nestedWrapper;
+    private int autoGrowCollectionLimit = Integer.MAX_VALUE;
+
+    /**
+     * @param object bean instance
+     */
+    public FastBeanWrapper(Object object) {
+        this.wrappedObject = object;
+        this.metadata = EntityMetadataRegistry.forEntity(object);
+    }
+
+    /**
+     * Obtain a wrapper for the specified bean
+     *
+     * @param object bean instance
+     * @return {@link BeanWrapper}
+     */
+    public static BeanWrapper forBean(Object object) {
+        return new FastBeanWrapper(object);
+    }
+
+    /**
+     * Instantiate the specified class using its no args constructor and wrap the new instance
+     *
+     * @param clazz bean class
+     * @return {@link BeanWrapper}
+     */
+    public static BeanWrapper forClass(Class<?> clazz) {
+        return new FastBeanWrapper(BeanUtils.instantiateClass(clazz));
+    }
+
+    @Override
+    public Object getWrappedInstance() {
+        return wrappedObject;
+    }
+
+    @Override
+    public Class<?> getWrappedClass() {
+        return metadata.getEntityClass();
+    }
+
+    @Override
+    public PropertyDescriptor[] getPropertyDescriptors() {
+        return metadata.getProperties().values().stream()
+                .map(PropertyHandle::getDescriptor)
+                .toArray(PropertyDescriptor[]::new);
+    }
+
+    @Override
+    public PropertyDescriptor getPropertyDescriptor(String propertyName) throws InvalidPropertyException {
+        if (isNested(propertyName)) {
+            return nested().getPropertyDescriptor(propertyName);
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        if (handle == null) {
+            throw new InvalidPropertyException(getWrappedClass(), propertyName, "No property '" + propertyName + "' found");
+        }
+        return handle.getDescriptor();
+    }
+
+    @Override
+    public void setAutoGrowCollectionLimit(int autoGrowCollectionLimit) {
+        this.autoGrowCollectionLimit = autoGrowCollectionLimit;
+    }
+
+    @Override
+    public int getAutoGrowCollectionLimit() {
+        return autoGrowCollectionLimit;
+    }
+
+    @Override
+    public boolean isReadableProperty(String propertyName) {
+        if (isNested(propertyName)) {
+            return nested().isReadableProperty(propertyName);
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        return handle != null && handle.isReadable();
+    }
+
+    @Override
+    public boolean isWritableProperty(String propertyName) {
+        if (isNested(propertyName)) {
+            return nested().isWritableProperty(propertyName);
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        return handle != null && handle.isWritable();
+    }
+
+    @Override
+    public Class<?> getPropertyType(String propertyName) throws BeansException {
+        if (isNested(propertyName)) {
+            return nested().getPropertyType(propertyName);
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        return (handle == null) ? null : handle.getType();
+    }
+
+    @Override
+    public TypeDescriptor getPropertyTypeDescriptor(String propertyName) throws BeansException {
+        if (isNested(propertyName)) {
+            return nested().getPropertyTypeDescriptor(propertyName);
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        return (handle == null) ? null : handle.getTypeDescriptor();
+    }
+
+    @Override
+    public Object getPropertyValue(String propertyName) throws BeansException {
+        if (isNested(propertyName)) {
+            return nested().getPropertyValue(propertyName);
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        if (handle == null || !handle.isReadable()) {
+            throw new NotReadablePropertyException(getWrappedClass(), propertyName);
+        }
+        try {
+            return handle.get(wrappedObject);
+        } catch (RuntimeException ex) {
+            throw new InvalidPropertyException(getWrappedClass(), propertyName, "Getter for property '"
+                    + propertyName + "' threw exception", ex);
+        }
+    }
+
+    @Override
+    public void setPropertyValue(String propertyName, Object value) throws BeansException {
+        if (isNested(propertyName)) {
+            nested().setPropertyValue(propertyName, value);
+            return;
+        }
+        PropertyHandle handle = metadata.getProperty(propertyName);
+        if (handle == null || !handle.isWritable()) {
+            throw new NotWritablePropertyException(getWrappedClass(), propertyName);
+        }
+        Object converted = value;
+        if (value == null) {
+            if (handle.getType().isPrimitive()) {
+                throw new TypeMismatchException(new PropertyChangeEvent(wrappedObject, propertyName, null, null),
+                        handle.getType());
+            }
+        } else if (!ClassUtils.isAssignableValue(handle.getType(), value)) {
+            try {
+                converted = conversionService().convert(value, TypeDescriptor.forObject(value), handle.getTypeDescriptor());
+            } catch (ConversionException ex) {
+                throw new TypeMismatchException(new PropertyChangeEvent(wrappedObject, propertyName, null, value),
+                        handle.getType(), ex);
+            }
+        }
+        try {
+            handle.set(wrappedObject, converted);
+        } catch (RuntimeException ex) {
+            throw new MethodInvocationException(new PropertyChangeEvent(wrappedObject, propertyName, null, value), ex);
+        }
+    }
+
+    @Override
+    public <T> T convertIfNecessary(Object value, Class<T> requiredType) throws TypeMismatchException {
+        return convertIfNecessary(value, requiredType, (TypeDescriptor) null);
+    }
+
+    @Override
+    public <T> T convertIfNecessary(Object value, Class<T> requiredType, MethodParameter methodParam) throws TypeMismatchException {
+        return convertIfNecessary(value, requiredType, (methodParam == null) ? null : new TypeDescriptor(methodParam));
+    }
+
+    @Override
+    public <T> T convertIfNecessary(Object value, Class<T> requiredType, Field field) throws TypeMismatchException {
+        return convertIfNecessary(value, requiredType, (field == null) ? null : new TypeDescriptor(field));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T convertIfNecessary(Object value, Class<T> requiredType, TypeDescriptor typeDescriptor) throws TypeMismatchException {
+        if (requiredType == null || (value != null && ClassUtils.isAssignableValue(requiredType, value))) {
+            return (T) value;
+        }
+        try {
+            return (T) conversionService().convert(value, TypeDescriptor.forObject(value),
+                    (typeDescriptor == null) ? TypeDescriptor.valueOf(requiredType) : typeDescriptor);
+        } catch (ConversionException ex) {
+            throw new TypeMismatchException(value, requiredType, ex);
+        }
+    }
+
+    private ConversionService conversionService() {
+        ConversionService conversionService = getConversionService();
+        return (conversionService == null) ? DefaultConversionService.getSharedInstance() : conversionService;
+    }
+
+    private static boolean isNested(String propertyName) {
+        return propertyName.indexOf(PropertyAccessor.NESTED_PROPERTY_SEPARATOR_CHAR) > -1
+                || propertyName.indexOf(PropertyAccessor.PROPERTY_KEY_PREFIX_CHAR) > -1;
+    }
+
+    private BeanWrapperImpl nested() {
+        if (nestedWrapper == null) {
+            nestedWrapper = new BeanWrapperImpl(wrappedObject);
+            nestedWrapper.setConversionService(getConversionService());
+            nestedWrapper.setAutoGrowNestedPaths(isAutoGrowNestedPaths());
+            nestedWrapper.setAutoGrowCollectionLimit(autoGrowCollectionLimit);
+        }
+        return nestedWrapper;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + ": wrapping object [" + wrappedObject + "]";
+    }
+}
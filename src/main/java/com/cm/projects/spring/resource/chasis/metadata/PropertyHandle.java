@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.metadata;
+
+import org.springframework.core.convert.Property;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Getter and setter of a single bean property. Accessors are generated once per class using
+ * {@link LambdaMetafactory} so reading or writing a property is a plain interface call instead of
+ * a reflective invocation. When a lambda can't be generated (e.g. the declaring class is in a module that
+ * isn't open to the library) the accessor falls back to a {@link MethodHandle}.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class PropertyHandle {
+
+    private final String name;
+    private final Class<?> type;
+    private final PropertyDescriptor descriptor;
+    private final TypeDescriptor typeDescriptor;
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+
+    /**
+     * @param beanClass  bean class
+     * @param descriptor property descriptor
+     */
+    PropertyHandle(Class<?> beanClass, PropertyDescriptor descriptor) {
+        this.name = descriptor.getName();
+        this.type = descriptor.getPropertyType();
+        this.descriptor = descriptor;
+        this.typeDescriptor = new TypeDescriptor(new Property(beanClass, descriptor.getReadMethod(),
+                descriptor.getWriteMethod(), descriptor.getName()));
+        this.getter = (descriptor.getReadMethod() == null) ? null : createGetter(descriptor.getReadMethod());
+        this.setter = (descriptor.getWriteMethod() == null) ? null : createSetter(descriptor.getWriteMethod());
+    }
+
+    /**
+     * @return property name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return property type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return java beans property descriptor
+     */
+    public PropertyDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return property type descriptor (includes generics and annotations) used for type conversion
+     */
+    public TypeDescriptor getTypeDescriptor() {
+        return typeDescriptor;
+    }
+
+    /**
+     * @return true if the property has a getter
+     */
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    /**
+     * @return true if the property has a setter
+     */
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * Read property value
+     *
+     * @param bean bean instance
+     * @return property value
+     */
+    public Object get(Object bean) {
+        return getter.apply(bean);
+    }
+
+    /**
+     * Write property value. Value must already be of the property type
+     *
+     * @param bean  bean instance
+     * @param value new value
+     */
+    public void set(Object bean, Object value) {
+        setter.accept(bean, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class), handle,
+                    MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType()), owner));
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            MethodHandle handle = unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+            return bean -> {
+                try {
+                    return handle.invokeExact(bean);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, owner,
+                            ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0])));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable ex) {
+            MethodHandle handle = unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            };
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException ex) {
+            try {
+                ReflectionUtils.makeAccessible(method);
+                return MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new IllegalStateException("Failed to create accessor for method " + method, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyHandle{" + "name=" + name + ", type=" + type.getName() + '}';
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.readmodel;
+
+import com.cm.projects.spring.resource.chasis.annotations.ReadModel;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps @{@link ReadModel} records in sync with their entities. Picked up automatically by Hibernate through
+ * <code>META-INF/services/org.hibernate.integrator.spi.Integrator</code>. Registers the read models found in the
+ * persistence unit and insert, update and delete listeners that record the changed entities. The read model is
+ * updated when the transaction commits (after the session has been flushed) in the same transaction as the entity
+ * i.e.
+ * <ul>
+ * <li>Inserted and updated entities are copied to their read model records (created if missing)</li>
+ * <li>Deleted entities have their read model records deleted</li>
+ * <li>Updated related entities (e.g. a renamed status) have their label updated on every read model record
+ * referencing them using a single update query</li>
+ * </ul>
+ * Every write goes through the listeners (creating, updating, approving, declining and status changes through
+ * resources as well as writes outside the library). Writes using bulk queries or SQL bypass the listeners, rebuild
+ * the read model after such writes (see {@link ReadModels#rebuild(javax.persistence.EntityManager, Class)}).
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ReadModelIntegrator implements Integrator {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        boolean hasReadModels = false;
+        for (PersistentClass binding : metadata.getEntityBindings()) {
+            Class<?> clazz = binding.getMappedClass();
+            if (clazz != null && clazz.isAnnotationPresent(ReadModel.class)) {
+                ReadModels.register(clazz);
+                log.info("Read model {} is kept in sync with {}", clazz.getName(), clazz.getAnnotation(ReadModel.class).value().getName());
+                hasReadModels = true;
+            }
+        }
+        if (hasReadModels) {
+            SyncListener listener = new SyncListener();
+            EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, listener);
+            registry.appendListeners(EventType.POST_UPDATE, listener);
+            registry.appendListeners(EventType.POST_DELETE, listener);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    /**
+     * Records changed entities with a read model and changed related entities providing read model labels
+     */
+    static class SyncListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            this.changed(event.getSession(), event.getPersister(), event.getId(), false);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            this.changed(event.getSession(), event.getPersister(), event.getId(), false);
+            if (!ReadModels.forLabelSource(event.getPersister().getMappedClass()).isEmpty()) {
+                SyncProcess.of(event.getSession()).relabel(event.getPersister().getMappedClass(), event.getId());
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            this.changed(event.getSession(), event.getPersister(), event.getId(), true);
+        }
+
+        private void changed(EventSource session, EntityPersister persister, Serializable id, boolean deleted) {
+            if (ReadModels.forEntity(persister.getMappedClass()) != null) {
+                SyncProcess.of(session).record(persister.getMappedClass(), id, deleted);
+            }
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+
+        /**
+         * Misspelled predecessor of {@link #requiresPostCommitHandling(EntityPersister)} still declared abstract by
+         * Hibernate 5.4
+         */
+        @Override
+        @Deprecated
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return this.requiresPostCommitHandling(persister);
+        }
+    }
+
+    /**
+     * Changes of a single transaction applied to the read models before the transaction commits
+     */
+    static class SyncProcess implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        /**
+         * Process of each session with pending changes
+         */
+        private static final Map<SharedSessionContractImplementor, SyncProcess> PROCESSES = new ConcurrentHashMap<>();
+        private final Logger log = LoggerFactory.getLogger(this.getClass());
+        /**
+         * Changed entity ids per entity class (true if the entity was deleted)
+         */
+        private final Map<Class<?>, Map<Serializable, Boolean>> changes = new LinkedHashMap<>();
+        /**
+         * Changed related entity ids per related entity class
+         */
+        private final Map<Class<?>, Set<Serializable>> relabels = new LinkedHashMap<>();
+
+        static SyncProcess of(EventSource session) {
+            return PROCESSES.computeIfAbsent(session, s -> {
+                SyncProcess process = new SyncProcess();
+                session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) process);
+                session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) process);
+                return process;
+            });
+        }
+
+        /**
+         * @return number of sessions with pending changes
+         */
+        static int pending() {
+            return PROCESSES.size();
+        }
+
+        void record(Class<?> entityClass, Serializable id, boolean deleted) {
+            this.changes.computeIfAbsent(entityClass, k -> new LinkedHashMap<>()).put(id, deleted);
+        }
+
+        void relabel(Class<?> relatedClass, Serializable id) {
+            this.relabels.computeIfAbsent(relatedClass, k -> new LinkedHashSet<>()).add(id);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            PROCESSES.remove(session);
+            this.changes.forEach((entityClass, ids) ->
+                    ids.forEach((id, deleted) -> this.apply(session, ReadModels.forEntity(entityClass), id, deleted)));
+            this.relabels.forEach((relatedClass, ids) -> {
+                for (ReadModelMapping<?, ?> mapping : ReadModels.forLabelSource(relatedClass)) {
+                    ids.forEach(id -> this.relabel(session, mapping, relatedClass, id));
+                }
+            });
+            session.flush();
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            PROCESSES.remove(session);
+        }
+
+        private <T, V> void apply(SessionImplementor session, ReadModelMapping<T, V> mapping, Serializable id, boolean deleted) {
+            V view = session.get(mapping.getViewClass(), id);
+            T entity = deleted ? null : session.get(mapping.getEntityClass(), id);
+            if (entity == null) {
+                if (view != null) {
+                    session.remove(view);
+                }
+            } else if (view == null) {
+                session.persist(mapping.toView(entity, null, session));
+            } else {
+                mapping.toView(entity, view, session);
+            }
+        }
+
+        private void relabel(SessionImplementor session, ReadModelMapping<?, ?> mapping, Class<?> relatedClass, Serializable id) {
+            Object related = session.get(relatedClass, id);
+            if (related == null) {
+                return;
+            }
+            String viewName = session.getFactory().getMetamodel().entity(mapping.getViewClass()).getName();
+            for (ReadModelMapping.Label label : mapping.getLabels()) {
+                if (!label.getRelatedClass().equals(relatedClass)) {
+                    continue;
+                }
+                int updated = session.createQuery("update " + viewName + " v set v." + label.getField() + " = :label"
+                        + " where v." + label.getRelation() + " = :id")
+                        .setParameter("label", label.read(related))
+                        .setParameter("id", id)
+                        .executeUpdate();
+                log.debug("Updated {} label of {} {} records", label.getField(), updated, viewName);
+            }
+        }
+    }
+}
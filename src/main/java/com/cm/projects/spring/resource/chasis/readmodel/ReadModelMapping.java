@@ -0,0 +1,243 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.readmodel;
+
+import com.cm.projects.spring.resource.chasis.annotations.ReadModel;
+import com.cm.projects.spring.resource.chasis.annotations.ReadModelLabel;
+import com.cm.projects.spring.resource.chasis.annotations.RelEntityLabel;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.metadata.FastBeanWrapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+
+import javax.persistence.EntityManager;
+import javax.persistence.ManyToOne;
+import javax.persistence.Transient;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps an entity to its @{@link ReadModel}. Resolved once per read model class, fields are:
+ * <ul>
+ * <li>Copied fields: read model fields with the same name as an entity field. @{@link ManyToOne} fields are copied
+ * as the id of the related record</li>
+ * <li>Label fields: read model fields annotated with @{@link ReadModelLabel} holding the label of a related record</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @param <V> read model type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class ReadModelMapping<T, V> {
+
+    private final Class<T> entityClass;
+    private final Class<V> viewClass;
+    private final EntityMetadata<V> viewMetadata;
+    private final List<Copy> copies = new ArrayList<>();
+    private final List<Label> labels = new ArrayList<>();
+
+    /**
+     * @param entityClass entity class
+     * @param viewClass   read model class
+     * @throws IllegalStateException if a read model field can't be mapped to the entity
+     */
+    ReadModelMapping(Class<T> entityClass, Class<V> viewClass) {
+        this.entityClass = entityClass;
+        this.viewClass = viewClass;
+        this.viewMetadata = EntityMetadataRegistry.forClass(viewClass);
+        EntityMetadata<T> entityMetadata = EntityMetadataRegistry.forClass(entityClass);
+        for (Field field : this.viewMetadata.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                    || field.isAnnotationPresent(Transient.class)) {
+                continue;
+            }
+            ReadModelLabel label = field.getAnnotation(ReadModelLabel.class);
+            Field source = entityMetadata.getField((label == null) ? field.getName() : label.value());
+            if (source == null) {
+                throw new IllegalStateException("Read model field " + viewClass.getName() + "." + field.getName()
+                        + " doesn't match a field of " + entityClass.getName());
+            }
+            if (label == null) {
+                this.copies.add(new Copy(field.getName(), source.isAnnotationPresent(ManyToOne.class)
+                        ? EntityMetadataRegistry.forClass(source.getType()).requireIdFieldName() : null));
+                continue;
+            }
+            if (!source.isAnnotationPresent(ManyToOne.class) || this.viewMetadata.getField(source.getName()) == null) {
+                throw new IllegalStateException("Read model label " + viewClass.getName() + "." + field.getName()
+                        + " requires " + entityClass.getName() + "." + source.getName() + " to be a @ManyToOne field "
+                        + "copied to the read model");
+            }
+            this.labels.add(new Label(field.getName(), source.getName(), source.getType(),
+                    EntityMetadataRegistry.forClass(source.getType()).requireIdFieldName(),
+                    label.field().isEmpty() ? labelPath(source.getType()) : label.field()));
+        }
+    }
+
+    /**
+     * Used to resolve the label of the related entity i.e. the field annotated with @{@link RelEntityLabel}
+     * (followed by {@link RelEntityLabel#fieldName()} if set)
+     */
+    private static String labelPath(Class<?> relatedClass) {
+        Field field = EntityMetadataRegistry.forClass(relatedClass).getFieldAnnotatedWith(RelEntityLabel.class);
+        if (field == null) {
+            throw new IllegalStateException(relatedClass.getName() + " doesn't have a @RelEntityLabel field, "
+                    + "set the label field using @ReadModelLabel(field = ...)");
+        }
+        String nested = field.getAnnotation(RelEntityLabel.class).fieldName();
+        return nested.isBlank() ? field.getName() : field.getName() + "." + nested;
+    }
+
+    /**
+     * Used to copy the entity state to the read model
+     *
+     * @param entity entity
+     * @param view   read model to update or null to create a new one
+     * @return read model
+     */
+    public V toView(T entity, V view) {
+        return this.toView(entity, view, null);
+    }
+
+    /**
+     * Used to copy the entity state to the read model. Labels are read from the related records managed by the
+     * entity manager i.e. related records set using a new instance holding only the id are loaded
+     *
+     * @param entity        entity
+     * @param view          read model to update or null to create a new one
+     * @param entityManager used to load related records or null to read labels from the entity as is
+     * @return read model
+     */
+    public V toView(T entity, V view, EntityManager entityManager) {
+        V target = (view == null) ? BeanUtils.instantiateClass(this.viewClass) : view;
+        BeanWrapper source = FastBeanWrapper.forBean(entity);
+        BeanWrapper accessor = FastBeanWrapper.forBean(target);
+        for (Copy copy : this.copies) {
+            Object value = source.getPropertyValue(copy.field);
+            if (copy.relationId != null && value != null) {
+                value = FastBeanWrapper.forBean(value).getPropertyValue(copy.relationId);
+            }
+            accessor.setPropertyValue(copy.field, value);
+        }
+        for (Label label : this.labels) {
+            Object related = source.getPropertyValue(label.relation);
+            if (entityManager != null && related != null && !entityManager.contains(related)) {
+                Object relatedId = FastBeanWrapper.forBean(related).getPropertyValue(label.relatedId);
+                related = (relatedId == null) ? null : entityManager.find(label.relatedClass, relatedId);
+            }
+            accessor.setPropertyValue(label.field, label.read(related));
+        }
+        return target;
+    }
+
+    /**
+     * @return entity class
+     */
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * @return read model class
+     */
+    public Class<V> getViewClass() {
+        return viewClass;
+    }
+
+    /**
+     * @return read model metadata
+     */
+    public EntityMetadata<V> getViewMetadata() {
+        return viewMetadata;
+    }
+
+    /**
+     * @return label fields
+     */
+    public List<Label> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * Read model field copied from an entity field
+     */
+    private static final class Copy {
+
+        private final String field;
+        /**
+         * Id field of the related entity for @{@link ManyToOne} fields otherwise null
+         */
+        private final String relationId;
+
+        private Copy(String field, String relationId) {
+            this.field = field;
+            this.relationId = relationId;
+        }
+    }
+
+    /**
+     * Read model field holding the label of a related record
+     */
+    public static final class Label {
+
+        private final String field;
+        private final String relation;
+        private final Class<?> relatedClass;
+        private final String relatedId;
+        private final String path;
+
+        private Label(String field, String relation, Class<?> relatedClass, String relatedId, String path) {
+            this.field = field;
+            this.relation = relation;
+            this.relatedClass = relatedClass;
+            this.relatedId = relatedId;
+            this.path = path;
+        }
+
+        /**
+         * @param related related record (may be null)
+         * @return label of the related record or null
+         */
+        public Object read(Object related) {
+            return (related == null) ? null : FastBeanWrapper.forBean(related).getPropertyValue(path);
+        }
+
+        /**
+         * @return read model field holding the label
+         */
+        public String getField() {
+            return field;
+        }
+
+        /**
+         * @return read model field holding the id of the related record (same name as the entity field)
+         */
+        public String getRelation() {
+            return relation;
+        }
+
+        /**
+         * @return related entity class
+         */
+        public Class<?> getRelatedClass() {
+            return relatedClass;
+        }
+    }
+}
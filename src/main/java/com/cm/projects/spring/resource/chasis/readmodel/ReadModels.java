@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.readmodel;
+
+import com.cm.projects.spring.resource.chasis.annotations.ReadModel;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the @{@link ReadModel} mappings registered by {@link ReadModelIntegrator} so that they can be reached from
+ * resources and Hibernate event listeners.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class ReadModels {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadModels.class);
+    /**
+     * Mapping per entity class
+     */
+    private static final Map<Class<?>, ReadModelMapping<?, ?>> MAPPINGS = new ConcurrentHashMap<>();
+    /**
+     * Label fields per related entity class
+     */
+    private static final Map<Class<?>, List<ReadModelMapping<?, ?>>> LABEL_SOURCES = new ConcurrentHashMap<>();
+    /**
+     * Number of records loaded per query when rebuilding
+     */
+    private static final int REBUILD_CHUNK_SIZE = 500;
+
+    private ReadModels() {
+    }
+
+    /**
+     * Register the read model of an entity
+     *
+     * @param viewClass class annotated with @{@link ReadModel}
+     */
+    static void register(Class<?> viewClass) {
+        ReadModelMapping<?, ?> mapping = new ReadModelMapping<>(viewClass.getAnnotation(ReadModel.class).value(), viewClass);
+        MAPPINGS.put(mapping.getEntityClass(), mapping);
+        for (ReadModelMapping.Label label : mapping.getLabels()) {
+            List<ReadModelMapping<?, ?>> mappings = LABEL_SOURCES.computeIfAbsent(label.getRelatedClass(),
+                    k -> new CopyOnWriteArrayList<>());
+            if (!mappings.contains(mapping)) {
+                mappings.add(mapping);
+            }
+        }
+        log.debug("Registered read model {} of {}", viewClass.getName(), mapping.getEntityClass().getName());
+    }
+
+    /**
+     * @param entityClass entity class
+     * @param <T>         entity type
+     * @return read model mapping of the entity or null if the entity doesn't have a read model
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ReadModelMapping<T, ?> forEntity(Class<T> entityClass) {
+        return (ReadModelMapping<T, ?>) MAPPINGS.get(entityClass);
+    }
+
+    /**
+     * @param relatedClass entity class
+     * @return mappings with labels read from the entity (empty if none)
+     */
+    static List<ReadModelMapping<?, ?>> forLabelSource(Class<?> relatedClass) {
+        return LABEL_SOURCES.getOrDefault(relatedClass, Collections.emptyList());
+    }
+
+    /**
+     * Rebuild the read model of an entity from the entity table. Existing read model records are deleted and all
+     * entity records copied again in chunks. Must be called in a transaction
+     *
+     * @param entityManager entity manager
+     * @param entityClass   entity class
+     * @param <T>           entity type
+     * @return number of read model records or -1 if the entity doesn't have a read model
+     */
+    public static <T> long rebuild(EntityManager entityManager, Class<T> entityClass) {
+        ReadModelMapping<T, ?> mapping = forEntity(entityClass);
+        return (mapping == null) ? -1 : rebuild(entityManager, mapping);
+    }
+
+    private static <T, V> long rebuild(EntityManager entityManager, ReadModelMapping<T, V> mapping) {
+        EntityMetadata<T> metadata = EntityMetadataRegistry.forClass(mapping.getEntityClass());
+        String id = metadata.requireIdFieldName();
+        entityManager.flush();
+        entityManager.createQuery("delete from " + entityManager.getMetamodel().entity(mapping.getViewClass()).getName())
+                .executeUpdate();
+        String select = "select e from " + entityManager.getMetamodel().entity(mapping.getEntityClass()).getName()
+                + " e order by e." + id;
+        long count = 0;
+        List<T> chunk;
+        do {
+            chunk = entityManager.createQuery(select, mapping.getEntityClass())
+                    .setFirstResult((int) count)
+                    .setMaxResults(REBUILD_CHUNK_SIZE)
+                    .getResultList();
+            for (T entity : chunk) {
+                entityManager.persist(mapping.toView(entity, null));
+            }
+            count += chunk.size();
+            entityManager.flush();
+            entityManager.clear();
+        } while (chunk.size() == REBUILD_CHUNK_SIZE);
+        log.info("Rebuilt read model {} with {} records", mapping.getViewClass().getName(), count);
+        return count;
+    }
+}
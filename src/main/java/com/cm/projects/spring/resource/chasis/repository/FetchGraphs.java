@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.repository;
+
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.QueryHints;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.ManyToOne;
+import javax.persistence.TypedQuery;
+import java.lang.reflect.Field;
+
+/**
+ * Used to create the default fetch plan of an entity. The default plan fetches all @{@link ManyToOne} fields in the
+ * same query (join) as the entity so that loading or serializing a page of records doesn't issue a select per
+ * relation (N+1 selects). Also used to mark read queries read only (see {@link #readOnly(TypedQuery)}) and to limit
+ * their duration (see {@link #timeout(TypedQuery, int)}).
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class FetchGraphs {
+
+    /**
+     * JPA load graph hint. Attributes in the graph are fetched eagerly and the rest use their mapped fetch type
+     */
+    public static final String LOAD_GRAPH_HINT = "javax.persistence.loadgraph";
+
+    private FetchGraphs() {
+    }
+
+    /**
+     * Create an entity graph containing all @{@link ManyToOne} fields of the entity
+     *
+     * @param entityManager entity manager
+     * @param metadata      entity metadata
+     * @param <T>           entity type
+     * @return {@link EntityGraph} or null if the entity doesn't have @{@link ManyToOne} fields
+     */
+    public static <T> EntityGraph<T> forManyToOne(EntityManager entityManager, EntityMetadata<T> metadata) {
+        if (metadata.getManyToOneFields().isEmpty()) {
+            return null;
+        }
+        EntityGraph<T> graph = entityManager.createEntityGraph(metadata.getEntityClass());
+        for (Field field : metadata.getManyToOneFields()) {
+            graph.addAttributeNodes(field.getName());
+        }
+        return graph;
+    }
+
+    /**
+     * Mark the query results read only i.e. Hibernate doesn't keep dirty checking snapshots of the loaded entities
+     * and doesn't flush the session before running the query. Only use on queries whose entities are not modified
+     *
+     * @param query query
+     * @param <Q>   query type
+     * @return the query
+     */
+    public static <Q extends TypedQuery<?>> Q readOnly(Q query) {
+        query.setHint(QueryHints.HINT_READONLY, true);
+        query.setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        return query;
+    }
+
+    /**
+     * Set the query timeout hint
+     *
+     * @param query   query
+     * @param timeout timeout in seconds (0 for no timeout)
+     * @param <Q>     query type
+     * @return the query
+     */
+    public static <Q extends TypedQuery<?>> Q timeout(Q query, int timeout) {
+        if (timeout > 0) {
+            query.setHint(QueryHints.SPEC_HINT_TIMEOUT, timeout * 1000);
+        }
+        return query;
+    }
+
+    /**
+     * Apply the graph to the query as a load graph
+     *
+     * @param query query
+     * @param graph entity graph (ignored if null)
+     * @param <Q>   query type
+     * @return the query
+     */
+    public static <Q extends TypedQuery<?>> Q apply(Q query, EntityGraph<?> graph) {
+        if (graph != null) {
+            query.setHint(LOAD_GRAPH_HINT, graph);
+        }
+        return query;
+    }
+}
@@ -7,6 +7,9 @@ package com.cm.projects.spring.resource.chasis.repository;
 
 import com.cm.projects.spring.resource.chasis.annotations.*;
 import com.cm.projects.spring.resource.chasis.exceptions.ExpectationFailed;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.metadata.FastBeanWrapper;
 import com.cm.projects.spring.resource.chasis.utils.AppConstants;
 import com.cm.projects.spring.resource.chasis.utils.SharedMethods;
 import com.fasterxml.jackson.annotation.JsonFilter;
@@ -20,8 +23,6 @@ import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
-import org.springframework.beans.PropertyAccessorFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Id;
@@ -60,6 +61,14 @@ public class SupportRepository<T, E> {
      * Edited entity mapping
      */
     private final Class<E> editedEnClazz;
+    /**
+     * Entity metadata
+     */
+    private final EntityMetadata<T> entityMetadata;
+    /**
+     * Edited entity metadata
+     */
+    private final EntityMetadata<E> editedMetadata;
     /**
      * Entity manager used to handle persisting requests
      */
@@ -81,6 +90,34 @@ public class SupportRepository<T, E> {
         this.builder = entityManager.getCriteriaBuilder();
         this.entityClazz = entityMapping;
         this.editedEnClazz = editedEnMapping;
+        this.entityMetadata = EntityMetadataRegistry.forClass(entityMapping);
+        this.editedMetadata = EntityMetadataRegistry.forClass(editedEnMapping);
+    }
+
+    /**
+     * Used to create edited record restrictions for the specified entity id i.e. fields annotated with
+     * @{@link EditEntity} and @{@link EditEntityId}
+     *
+     * @param criteriaRoot edited record query root
+     * @param id           entity id
+     * @return an array of two {@link Predicate}(s). A predicate is null if its field could not be found
+     */
+    private Predicate[] editedRecordPredicates(Root criteriaRoot, Serializable id) {
+        Predicate[] preds = new Predicate[2];
+        Field entityField = this.editedMetadata.getEditEntityField();
+        Field entityIdField = this.editedMetadata.getEditEntityIdField();
+        if (entityField != null) {
+            log.debug("Adding restriction for field {} value {}", entityField.getName(), this.entityClazz.getSimpleName());
+            preds[0] = this.builder.equal(criteriaRoot.get(entityField.getName()), this.entityClazz.getSimpleName());
+        }
+        if (entityIdField != null) {
+            if (entityIdField.getType().isAssignableFrom(String.class)) {
+                preds[1] = this.builder.equal(criteriaRoot.get(entityIdField.getName()), id.toString());
+            } else {
+                preds[1] = this.builder.equal(criteriaRoot.get(entityIdField.getName()), id);
+            }
+        }
+        return preds;
     }
 
     /**
@@ -113,13 +150,9 @@ public class SupportRepository<T, E> {
 
         if (null != entity) {
             //Check if entity has been modified
-            for (Field field : entity.getClass().getDeclaredFields()) {
-                if (!field.isAccessible()) {
-                    field.setAccessible(true);
-                }
-                if (field.isAnnotationPresent(Id.class)) {
-                    index = (Serializable) field.get(entity);
-                }
+            EntityMetadata<?> metadata = EntityMetadataRegistry.forEntity(entity);
+            if (metadata.getIdField() != null) {
+                index = (Serializable) metadata.getIdField().get(entity);
             }
             if (index == null) {
                 log.warn("Failed to find id field on entity {} during handling edit request", entity);
@@ -127,21 +160,12 @@ public class SupportRepository<T, E> {
                 changes = this.fetchChanges(entity, oldEntity);
                 //If there are changes, update this field
                 if (!changes.isEmpty()) {
-                    BeanWrapper wrapper = new BeanWrapperImpl(editEntity);
+                    BeanWrapper wrapper = FastBeanWrapper.forClass(editEntity);
                     ObjectMapper mapper = new ObjectMapper();
                     mapper.addMixIn(Object.class, DynamicMixIn.class);
                     mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
                     //ignore entities
-                    Set<String> ignoreProperties = new HashSet<>();
-                    for (Field field : oldEntity.getClass().getDeclaredFields()) {
-//                        if ((field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToOne.class)) &&
-//                                !field.isAnnotationPresent(ModifiableField.class)) {
-//                            ignoreProperties.add(field.getName());
-//                        }else
-                        if (!field.isAnnotationPresent(ModifiableField.class) && !field.isAnnotationPresent(Id.class)) {
-                            ignoreProperties.add(field.getName());
-                        }
-                    }
+                    Set<String> ignoreProperties = EntityMetadataRegistry.forEntity(oldEntity).getNonModifiableFieldNames();
 
                     FilterProvider filters = new SimpleFilterProvider()
                             .addFilter("dynamicFilter", SimpleBeanPropertyFilter.serializeAllExcept(ignoreProperties));
@@ -151,21 +175,24 @@ public class SupportRepository<T, E> {
                     CriteriaDelete c = this.builder.createCriteriaDelete(editEntity);
                     Root criteriaRoot = c.from(editEntity);
                     Predicate[] preds = new Predicate[2];
-                    for (Field field : editEntity.getDeclaredFields()) {
-                        if (field.isAnnotationPresent(EditEntity.class)) {
-                            wrapper.setPropertyValue(field.getName(), entity.getClass().getSimpleName());
-                            preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), entity.getClass().getSimpleName());
-                        } else if (field.isAnnotationPresent(EditDataWrapper.class)) {
-                            wrapper.setPropertyValue(field.getName(), data);
-                        } else if (field.isAnnotationPresent(EditEntityId.class)) {
-                            if (field.getType().isAssignableFrom(String.class)) {
-                                wrapper.setPropertyValue(field.getName(), index.toString());
-                                preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), index.toString());
-                            } else {
-                                wrapper.setPropertyValue(field.getName(), index);
-                                preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), index);
-                            }
-
+                    EntityMetadata<E> editMetadata = EntityMetadataRegistry.forClass(editEntity);
+                    Field field = editMetadata.getEditEntityField();
+                    if (field != null) {
+                        wrapper.setPropertyValue(field.getName(), entity.getClass().getSimpleName());
+                        preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), entity.getClass().getSimpleName());
+                    }
+                    field = editMetadata.getEditDataWrapperField();
+                    if (field != null) {
+                        wrapper.setPropertyValue(field.getName(), data);
+                    }
+                    field = editMetadata.getEditEntityIdField();
+                    if (field != null) {
+                        if (field.getType().isAssignableFrom(String.class)) {
+                            wrapper.setPropertyValue(field.getName(), index.toString());
+                            preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), index.toString());
+                        } else {
+                            wrapper.setPropertyValue(field.getName(), index);
+                            preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), index);
                         }
                     }
 
@@ -232,44 +259,36 @@ public class SupportRepository<T, E> {
             return changes;
         }
 
-        final Field[] allFields = oldBean.getClass().getDeclaredFields();
-        for (Field field : allFields) {
-            //Manage the fields that we need only
-            if (field.isAnnotationPresent(ModifiableField.class)) {
-                //Enable access of this field 
-                if (!field.isAccessible()) {
-                    field.setAccessible(true);
-                }
-                Object _newValue = field.get(oldBean);
-                Object _oldValue = field.get(newBean);
-
-                if (field.isAnnotationPresent(OneToMany.class)) {//process collection changes
-                    changes.addAll(this.processCollectionChanges(field, (Collection) _oldValue, (Collection) _newValue));
-                } else if (_newValue != _oldValue) {
-                    log.debug("Found changes on field {} processing changes", field.getName());
-                    if ((_newValue != null && !_newValue.equals(_oldValue))
-                            || (_oldValue != null && !_oldValue.equals(_newValue))) {
-                        if (_oldValue == null) {
-                            if (field.isAnnotationPresent(ManyToOne.class)) {
-                                changes.add("Assigned new value to " + SharedMethods.splitCamelString(field.getName()));
-                            } else {
-                                changes.add("Assigned " + _newValue + " to " + SharedMethods.splitCamelString(field.getName()));
-                            }
-                        } else if (_newValue == null) {
-                            if (field.isAnnotationPresent(ManyToOne.class)) {
-                                changes.add("Removed " + SharedMethods.splitCamelString(field.getName()) + "(" + this.getFieldValue(_oldValue, RelEntityLabel.class, false) + ")");
-                            } else {
-                                changes.add("Removed " + SharedMethods.splitCamelString(field.getName()) + "(" + _oldValue + ")");
-                            }
+        for (Field field : EntityMetadataRegistry.forEntity(oldBean).getModifiableFields()) {
+            Object _newValue = field.get(oldBean);
+            Object _oldValue = field.get(newBean);
+
+            if (field.isAnnotationPresent(OneToMany.class)) {//process collection changes
+                changes.addAll(this.processCollectionChanges(field, (Collection) _oldValue, (Collection) _newValue));
+            } else if (_newValue != _oldValue) {
+                log.debug("Found changes on field {} processing changes", field.getName());
+                if ((_newValue != null && !_newValue.equals(_oldValue))
+                        || (_oldValue != null && !_oldValue.equals(_newValue))) {
+                    if (_oldValue == null) {
+                        if (field.isAnnotationPresent(ManyToOne.class)) {
+                            changes.add("Assigned new value to " + SharedMethods.splitCamelString(field.getName()));
                         } else {
-                            if (field.isAnnotationPresent(ManyToOne.class)) {
-                                changes.add(SharedMethods.splitCamelString(field.getName())
-                                        + " changed from " + this.getFieldValue(_oldValue, RelEntityLabel.class, false) + " to " + this.getFieldValue(_newValue, RelEntityLabel.class, true));
+                            changes.add("Assigned " + _newValue + " to " + SharedMethods.splitCamelString(field.getName()));
+                        }
+                    } else if (_newValue == null) {
+                        if (field.isAnnotationPresent(ManyToOne.class)) {
+                            changes.add("Removed " + SharedMethods.splitCamelString(field.getName()) + "(" + this.getFieldValue(_oldValue, RelEntityLabel.class, false) + ")");
+                        } else {
+                            changes.add("Removed " + SharedMethods.splitCamelString(field.getName()) + "(" + _oldValue + ")");
+                        }
+                    } else {
+                        if (field.isAnnotationPresent(ManyToOne.class)) {
+                            changes.add(SharedMethods.splitCamelString(field.getName())
+                                    + " changed from " + this.getFieldValue(_oldValue, RelEntityLabel.class, false) + " to " + this.getFieldValue(_newValue, RelEntityLabel.class, true));
 
-                            } else {
-                                changes.add(SharedMethods.splitCamelString(field.getName())
-                                        + " changed from " + _oldValue + " to " + _newValue);
-                            }
+                        } else {
+                            changes.add(SharedMethods.splitCamelString(field.getName())
+                                    + " changed from " + _oldValue + " to " + _newValue);
                         }
                     }
                 }
@@ -314,14 +333,13 @@ public class SupportRepository<T, E> {
         _oldValue.forEach(val -> {
             String fieldLabel = "";
             if (_newValue.stream().filter(val2 -> val2 != null && val2.equals(val)).collect(Collectors.toList()).isEmpty()) {
-                for (Field f : val.getClass().getDeclaredFields()) {
+                for (Field f : EntityMetadataRegistry.forEntity(val).getFields()) {
                     if (f.isAnnotationPresent(RelEntityLabel.class)) {
                         String label = f.getAnnotation(RelEntityLabel.class).fieldName();
                         if (!label.isBlank()) {
                             try {
-                                f.setAccessible(true);
                                 Object fVal = f.get(val);
-                                BeanWrapper fAccessor = PropertyAccessorFactory.forBeanPropertyAccess(fVal);
+                                BeanWrapper fAccessor = FastBeanWrapper.forBean(fVal);
                                 fieldLabel = "" + fAccessor.getPropertyValue(label);
                             } catch (Exception e) {
                                 log.info("Failed to find label field {} skipping description", e);
@@ -337,20 +355,17 @@ public class SupportRepository<T, E> {
         _newValue.forEach(val -> {
             String fieldLabel = "";
             if (_oldValue.stream().filter(val2 -> val2 != null && val2.equals(val)).collect(Collectors.toList()).isEmpty()) {
-                for (Field f : val.getClass().getDeclaredFields()) {
+                for (Field f : EntityMetadataRegistry.forEntity(val).getFields()) {
                     if (f.isAnnotationPresent(RelEntityLabel.class)) {
                         String label = f.getAnnotation(RelEntityLabel.class).fieldName();
                         if (!label.isBlank()) {
                             try {
-                                f.setAccessible(true);
                                 Object fVal = f.get(val);
-                                for (Field f2 : fVal.getClass().getDeclaredFields()) {
-                                    if (f2.isAnnotationPresent(Id.class)) {
-                                        f2.setAccessible(true);
-                                        fVal = this.entityManager.find(fVal.getClass(), f2.get(fVal));
-                                    }
+                                Field f2 = EntityMetadataRegistry.forEntity(fVal).getIdField();
+                                if (f2 != null) {
+                                    fVal = this.entityManager.find(fVal.getClass(), f2.get(fVal));
                                 }
-                                BeanWrapper fAccessor = PropertyAccessorFactory.forBeanPropertyAccess(fVal);
+                                BeanWrapper fAccessor = FastBeanWrapper.forBean(fVal);
                                 fieldLabel = "" + fAccessor.getPropertyValue(label);
                             } catch (Exception e) {
                                 log.info("Failed to find label field {} skipping description", e);
@@ -375,16 +390,14 @@ public class SupportRepository<T, E> {
      */
     public Object getFieldValue(Object entity, Class<? extends java.lang.annotation.Annotation> annotation, boolean useEntityManager) {
 
-        BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(entity);
-        String fieldName = null;
-        for (Field f : entity.getClass().getDeclaredFields()) {
-            if (useEntityManager && f.isAnnotationPresent(Id.class)) {
-                accessor = PropertyAccessorFactory.forBeanPropertyAccess(this.entityManager.find(entity.getClass(), accessor.getPropertyValue(f.getName())));
-            }
-            if (f.isAnnotationPresent(annotation)) {
-                fieldName = f.getName();
-            }
+        BeanWrapper accessor = FastBeanWrapper.forBean(entity);
+        EntityMetadata<?> metadata = EntityMetadataRegistry.forEntity(entity);
+        Field idField = metadata.getIdField();
+        if (useEntityManager && idField != null) {
+            accessor = FastBeanWrapper.forBean(this.entityManager.find(entity.getClass(), accessor.getPropertyValue(idField.getName())));
         }
+        Field field = metadata.getFieldAnnotatedWith(annotation);
+        String fieldName = (field == null) ? null : field.getName();
         //if entity doesn't have annotation
         log.debug("Found rel field name {} annotation {} and clazz {}", fieldName, annotation, entity.getClass());
         return (fieldName == null) ? null : accessor.getPropertyValue(fieldName);
@@ -410,27 +423,10 @@ public class SupportRepository<T, E> {
         }
 
         CriteriaQuery<E> c = this.builder.createQuery(editedEnClazz);
-        String dataField = null;
+        String dataField = this.editedDataField();
         Root criteriaRoot = c.from(editedEnClazz);
-        Predicate[] preds = new Predicate[2];
-
-        for (Field field : editedEnClazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(EditEntity.class)) {
-                log.debug("Adding restriction for field {} value {}", field.getName(), this.entityClazz.getSimpleName());
-                preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), this.entityClazz.getSimpleName());
-            } else if (field.isAnnotationPresent(EditEntityId.class)) {
-                if (field.getType().isAssignableFrom(String.class)) {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id.toString());
-                } else {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id);
-                }
 
-            } else if (field.isAnnotationPresent(EditDataWrapper.class)) {
-                dataField = field.getName();
-            }
-        }
-
-        c.where(preds);
+        c.where(this.editedRecordPredicates(criteriaRoot, id));
         E e;
         try {
             e = this.entityManager.createQuery(c).getSingleResult();
@@ -443,7 +439,7 @@ public class SupportRepository<T, E> {
             return changes;
         }
         String data;
-        BeanWrapper wrapper = new BeanWrapperImpl(e);
+        BeanWrapper wrapper = FastBeanWrapper.forBean(e);
         data = (String) wrapper.getPropertyValue(dataField);
 
         if (null != data) {
@@ -467,28 +463,14 @@ public class SupportRepository<T, E> {
      * @return persistent context entity
      */
     public T fetchEntity(Serializable id) {
-        //get id field name
-        String fieldId = null;
-        boolean hasIntrash = false;
-        for (Field field : entityClazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                fieldId = field.getName();
-            }
-            if (field.getName().equalsIgnoreCase("intrash")) {
-                hasIntrash = true;
-            }
-        }
-
-        if (fieldId == null) {
-            throw new RuntimeException("Entity doesn't have an id field");
-        }
+        String fieldId = this.entityMetadata.requireIdFieldName();
 
         CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
         CriteriaQuery<T> criteriaQuery = criteriaBuilder.createQuery(entityClazz);
         Root<T> root = criteriaQuery.from(entityClazz);
-        if (hasIntrash) {
+        if (this.entityMetadata.hasIntrash()) {
             criteriaQuery.where(criteriaBuilder.and(criteriaBuilder.equal(root.get(fieldId), id),
-                    criteriaBuilder.equal(root.get("intrash"), AppConstants.NO)));
+                    criteriaBuilder.equal(root.get(this.entityMetadata.getIntrashFieldName()), AppConstants.NO)));
         } else {
             criteriaQuery.where(criteriaBuilder.equal(root.get(fieldId), id));
         }
@@ -515,27 +497,11 @@ public class SupportRepository<T, E> {
      */
     public T mergeChanges(Serializable id, T t) throws IOException, IllegalArgumentException, IllegalAccessException {
 
-        String data, dataField = null;
+        String data, dataField = this.editedDataField();
         CriteriaQuery<E> c = this.builder.createQuery(editedEnClazz);
         Root criteriaRoot = c.from(editedEnClazz);
-        Predicate[] preds = new Predicate[2];
-
-        for (Field field : editedEnClazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(EditEntity.class)) {
-                preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), this.entityClazz.getSimpleName());
-            } else if (field.isAnnotationPresent(EditEntityId.class)) {
-                if (field.getType().isAssignableFrom(String.class)) {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id.toString());
-                } else {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id);
-                }
 
-            } else if (field.isAnnotationPresent(EditDataWrapper.class)) {
-                dataField = field.getName();
-            }
-        }
-
-        c.where(preds);
+        c.where(this.editedRecordPredicates(criteriaRoot, id));
         E e;
         try {
             e = this.entityManager.createQuery(c).getSingleResult();
@@ -548,7 +514,7 @@ public class SupportRepository<T, E> {
             log.warn("Changes not found for entity {} returning current entity", t);
             return t;
         }
-        BeanWrapper wrapper = new BeanWrapperImpl(e);
+        BeanWrapper wrapper = FastBeanWrapper.forBean(e);
         data = (String) wrapper.getPropertyValue(dataField);
         if (null != data) {
             //Serialize object
@@ -578,21 +544,8 @@ public class SupportRepository<T, E> {
     public List<E> getEntityChanges(Serializable id) {
         CriteriaQuery<E> c = this.builder.createQuery(editedEnClazz);
         Root criteriaRoot = c.from(editedEnClazz);
-        Predicate[] preds = new Predicate[2];
 
-        for (Field field : editedEnClazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(EditEntity.class)) {
-                preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), this.entityClazz.getSimpleName());
-            } else if (field.isAnnotationPresent(EditEntityId.class)) {
-                if (field.getType().isAssignableFrom(String.class)) {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id.toString());
-                } else {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id);
-                }
-            }
-        }
-
-        c.where(preds);
+        c.where(this.editedRecordPredicates(criteriaRoot, id));
         return this.entityManager.createQuery(c).getResultList();
     }
 
@@ -604,20 +557,7 @@ public class SupportRepository<T, E> {
     public void clearEntityChanges(Serializable id) {
         CriteriaDelete<E> c = this.builder.createCriteriaDelete(editedEnClazz);
         Root criteriaRoot = c.from(editedEnClazz);
-        Predicate[] preds = new Predicate[2];
-
-        for (Field field : editedEnClazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(EditEntity.class)) {
-                preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), this.entityClazz.getSimpleName());
-            } else if (field.isAnnotationPresent(EditEntityId.class)) {
-                if (field.getType().isAssignableFrom(String.class)) {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id.toString());
-                } else {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), id);
-                }
-            }
-        }
-        c.where(preds);
+        c.where(this.editedRecordPredicates(criteriaRoot, id));
         this.entityManager.createQuery(c).executeUpdate();
     }
 
@@ -631,23 +571,15 @@ public class SupportRepository<T, E> {
      *                                {@link ModifiableField} is not accessible
      */
     public T updateEdit(T newBean, T oldBean) throws IllegalAccessException {
-        final Field[] allFields = newBean.getClass().getDeclaredFields();
-        BeanWrapper wrapper = new BeanWrapperImpl(oldBean);
-        for (Field field : allFields) {
-            //Manage the fields that we need only
-            if (field.isAnnotationPresent(ModifiableField.class)) {
-                //Enable access of this field 
-                if (!field.isAccessible()) {
-                    field.setAccessible(true);
-                }
-                Object oldValue = wrapper.getPropertyValue(field.getName());//field.get(oldBean);
-                Object newValue = field.get(newBean);
-                if (oldValue != newValue) {
-                    if (field.isAnnotationPresent(OneToMany.class)) {//detach existing entities
-                        this.deleteCollection((Collection) oldValue);
-                    }
-                    wrapper.setPropertyValue(field.getName(), newValue);
+        BeanWrapper wrapper = FastBeanWrapper.forBean(oldBean);
+        for (Field field : EntityMetadataRegistry.forEntity(newBean).getModifiableFields()) {
+            Object oldValue = wrapper.getPropertyValue(field.getName());//field.get(oldBean);
+            Object newValue = field.get(newBean);
+            if (oldValue != newValue) {
+                if (field.isAnnotationPresent(OneToMany.class)) {//detach existing entities
+                    this.deleteCollection((Collection) oldValue);
                 }
+                wrapper.setPropertyValue(field.getName(), newValue);
             }
         }
         return oldBean;
@@ -672,13 +604,7 @@ public class SupportRepository<T, E> {
             ids.add(this.getFieldValue(entity, Id.class, false));
         }
         //get id field
-        String idField = "";
-        for (Field field : clazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                idField = field.getName();
-                break;
-            }
-        }
+        String idField = EntityMetadataRegistry.forClass(clazz).getIdFieldName();
         CriteriaDelete<Object> criteria = this.builder.createCriteriaDelete(clazz);
         Root root = criteria.from(clazz);
         criteria.where(root.get(idField).in(ids));
@@ -711,22 +637,8 @@ public class SupportRepository<T, E> {
     private E getEditedEntity(Serializable entityId) {
         CriteriaQuery<E> c = this.builder.createQuery(editedEnClazz);
         Root criteriaRoot = c.from(editedEnClazz);
-        Predicate[] preds = new Predicate[2];
-
-        for (Field field : editedEnClazz.getDeclaredFields()) {
-            if (field.isAnnotationPresent(EditEntity.class)) {
-                preds[0] = this.builder.equal(criteriaRoot.get(field.getName()), this.entityClazz.getSimpleName());
-            } else if (field.isAnnotationPresent(EditEntityId.class)) {
-                if (field.getType().isAssignableFrom(String.class)) {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), entityId.toString());
-                } else {
-                    preds[1] = this.builder.equal(criteriaRoot.get(field.getName()), entityId);
-                }
-
-            }
-        }
         try {
-            c.where(preds);
+            c.where(this.editedRecordPredicates(criteriaRoot, entityId));
             return this.entityManager.createQuery(c).getSingleResult();
         } catch (javax.persistence.NoResultException ex) {
             log.warn("Changes not found for entity name {} and entityId {} returning current entity", entityId, this.entityClazz.getSimpleName());
@@ -734,6 +646,14 @@ public class SupportRepository<T, E> {
         }
     }
 
+    /**
+     * @return name of the edited entity field annotated with @{@link EditDataWrapper}
+     */
+    private String editedDataField() {
+        Field field = this.editedMetadata.getEditDataWrapperField();
+        return (field == null) ? null : field.getName();
+    }
+
     /**
      * Used by jackson mapper to  filter relational entities
      */
@@ -0,0 +1,734 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.utils.Timestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Embedded {@link SearchProvider} backed by an in-memory trigram index that is persisted to a local directory
+ * (one file per entity). Matches the same records as <code>UPPER(field) LIKE '%NEEDLE%'</code> on the
+ * @{@link com.cm.projects.spring.resource.chasis.annotations.Searchable} fields:
+ * <ul>
+ * <li>Candidates are the records containing every trigram of the needle and are then verified against the
+ * indexed text</li>
+ * <li>Needles shorter than 3 characters or containing control characters, searches matching more than maxResults
+ * records and entities whose index hasn't been built (see {@link #rebuild(EntityManager, Class)}) fall back to the
+ * database</li>
+ * <li>The index is checked against the database before it's searched, at most once every catchUpWindow
+ * milliseconds. The highest value of the entity's last modified field (@UpdateTimestamp / @LastModifiedDate) is
+ * recorded when the index is built and each time it's checked; the records modified since (changes made by other
+ * application instances or lost in a crash) are read into the index, including those modified in the catchUpWindow
+ * before to pick up transactions that committed after a later one. Changes made by other application instances are
+ * therefore found after up to catchUpWindow milliseconds. If more than catchUpLimit records were modified the
+ * database is searched while the index is rebuilt in the background</li>
+ * <li>Entities without a last modified field are searched in the database unless {@link #setSingleNode(boolean)}
+ * is set. Their index is not used after an unclean shutdown until it's rebuilt (in the background)</li>
+ * <li>Records deleted by other application instances stay in the index, their ids don't match any record in the
+ * database query</li>
+ * <li>Changes are written to disk in the background every few seconds and when the bean is destroyed. Index files
+ * hold the id and searchable text of each record, ids of type Long, Integer, Short, String and UUID are
+ * supported</li>
+ * <li>The searchable text of every indexed record and its trigrams are held on the heap, roughly 50 bytes per
+ * character of searchable text (about 1 GB for 500000 records with 40 characters). Use a database or external search
+ * engine index for larger tables</li>
+ * <li>The index registers itself with {@link SearchProviders} when the bean is initialized</li>
+ * </ul>
+ * Example:
+ * <pre>
+ * &#64;Bean
+ * public SearchProvider searchProvider() {
+ *     return new LocalSearchIndex(Paths.get("/var/lib/app/search"));
+ * }
+ * </pre>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class LocalSearchIndex implements SearchProvider, InitializingBean, DisposableBean {
+
+    /**
+     * Default maximum number of ids returned by a search
+     */
+    public static final int DEFAULT_MAX_RESULTS = 1000;
+    private static final int GRAM = 3;
+    private static final char FIELD_SEPARATOR = '\u0001';
+    private static final int FORMAT = 3;
+    private static final long NONE = Long.MIN_VALUE;
+    private static final byte ID_LONG = 'J';
+    private static final byte ID_INTEGER = 'I';
+    private static final byte ID_SHORT = 'S';
+    private static final byte ID_STRING = 'T';
+    private static final byte ID_UUID = 'U';
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final Path directory;
+    private final int maxResults;
+    private final Map<Class<?>, EntityIndex> indexes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private boolean singleNode;
+    private long catchUpWindow = 60_000;
+    private int catchUpLimit = 10_000;
+
+    /**
+     * @param directory directory used to store the index files
+     */
+    public LocalSearchIndex(Path directory) {
+        this(directory, DEFAULT_MAX_RESULTS, 5);
+    }
+
+    /**
+     * @param directory     directory used to store the index files
+     * @param maxResults    maximum number of ids returned by a search (larger results fall back to the database)
+     * @param flushInterval seconds between writing changes to disk
+     */
+    public LocalSearchIndex(Path directory, int maxResults, long flushInterval) {
+        this.directory = directory;
+        this.maxResults = maxResults;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chasis-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Search entities without a last modified field using the index. Only enable if records are modified through
+     * this application instance alone
+     *
+     * @param singleNode true if this is the only application instance writing to the database (default false)
+     */
+    public void setSingleNode(boolean singleNode) {
+        this.singleNode = singleNode;
+    }
+
+    /**
+     * @param catchUpWindow milliseconds before the last check that are re-read when catching up with the database.
+     *                      Should exceed the longest time between setting the last modified field and commit
+     *                      (default 60000)
+     */
+    public void setCatchUpWindow(long catchUpWindow) {
+        this.catchUpWindow = catchUpWindow;
+    }
+
+    /**
+     * @param catchUpLimit maximum number of modified records read when catching up with the database, the index is
+     *                     rebuilt if more records were modified (default 10000)
+     */
+    public void setCatchUpLimit(int catchUpLimit) {
+        this.catchUpLimit = catchUpLimit;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SearchProviders.set(this);
+    }
+
+    @Override
+    public boolean supports(Class<?> entityClass) {
+        return !EntityMetadataRegistry.forClass(entityClass).getSearchableFields().isEmpty();
+    }
+
+    @Override
+    public Collection<?> search(EntityManager entityManager, Class<?> entityClass, String needle) {
+        String text = normalize(needle);
+        if (text.length() < GRAM || text.indexOf(FIELD_SEPARATOR) >= 0) {
+            return null;
+        }
+        EntityIndex index = this.indexFor(entityClass);
+        if (!index.ready || !this.isCurrent(entityManager, entityClass, index)) {
+            return null;
+        }
+        return index.search(text, this.maxResults);
+    }
+
+    @Override
+    public void index(Object entity) {
+        EntityMetadata<Object> metadata = EntityMetadataRegistry.forEntity(entity);
+        Object id = metadata.getProperty(metadata.requireIdFieldName()).get(entity);
+        if (id != null) {
+            List<Object> values = new ArrayList<>();
+            for (Field field : metadata.getSearchableFields()) {
+                values.add(metadata.getProperty(field.getName()).get(entity));
+            }
+            this.indexFor(metadata.getEntityClass()).put(id, document(values));
+        }
+    }
+
+    @Override
+    public void remove(Object entity) {
+        EntityMetadata<Object> metadata = EntityMetadataRegistry.forEntity(entity);
+        Object id = metadata.getProperty(metadata.requireIdFieldName()).get(entity);
+        if (id != null) {
+            this.indexFor(metadata.getEntityClass()).remove(id);
+        }
+    }
+
+    /**
+     * Rebuild the index of the entity. Records changed while the table is read are merged into the new index
+     *
+     * @param entityManager entity manager
+     * @param entityClass   entity class
+     * @return number of indexed records
+     */
+    @Override
+    public long rebuild(EntityManager entityManager, Class<?> entityClass) {
+        EntityIndex index = this.indexFor(entityClass);
+        index.maintenance.lock();
+        try {
+            //recorded before reading so that records committed by other instances meanwhile are caught up
+            long verified = this.lastModified(entityManager, entityClass);
+            long checked = System.currentTimeMillis();
+            Map<Object, String> documents = new HashMap<>();
+            index.beginRebuild();
+            try (Stream<Object[]> rows = this.select(entityManager, entityClass, NONE).getResultStream()) {
+                rows.forEach(row -> documents.put(row[0], document(Arrays.asList(row).subList(1, row.length))));
+            } catch (RuntimeException ex) {
+                index.abortRebuild();
+                throw ex;
+            }
+            index.replace(documents, verified, true, checked);
+            index.save();
+            log.info("Rebuilt {} search index with {} records", entityClass.getSimpleName(), documents.size());
+            return documents.size();
+        } finally {
+            index.maintenance.unlock();
+        }
+    }
+
+    /**
+     * Write changed indexes to disk
+     */
+    public void flush() {
+        this.flush(false);
+    }
+
+    @Override
+    public void destroy() {
+        this.flusher.shutdown();
+        this.flush(true);
+        SearchProviders.remove(this);
+    }
+
+    private void flush(boolean shutdown) {
+        for (EntityIndex index : this.indexes.values()) {
+            try {
+                if (index.dirty) {
+                    index.save();
+                }
+                if (shutdown && index.ready && index.complete) {
+                    Files.write(index.cleanMarker, new byte[0]);
+                }
+            } catch (IOException | UncheckedIOException ex) {
+                log.error("Failed to save {} search index", index.entityClass.getSimpleName(), ex);
+            }
+        }
+    }
+
+    /**
+     * Check the index against the database and read the records modified since the last check
+     *
+     * @return true if the index can be searched
+     */
+    private boolean isCurrent(EntityManager entityManager, Class<?> entityClass, EntityIndex index) {
+        if (index.stale.get()) {
+            return false;
+        }
+        Field lastModified = EntityMetadataRegistry.forClass(entityClass).getLastModifiedField();
+        if (lastModified == null || Timestamps.fromEpochMillis(0, lastModified.getType()) == null) {
+            boolean complete = index.complete;
+            if (this.singleNode && !complete) {
+                log.warn("{} search index wasn't saved on shutdown, rebuilding the index", entityClass.getSimpleName());
+                this.rebuildInBackground(entityManager.getEntityManagerFactory(), entityClass, index);
+            }
+            return this.singleNode && complete;
+        }
+        long checked = System.currentTimeMillis();
+        if (checked - index.checked < this.catchUpWindow) {
+            return true;
+        }
+        if (!index.maintenance.tryLock()) {
+            //being caught up or rebuilt by another request
+            return false;
+        }
+        try {
+            long current = this.lastModified(entityManager, entityClass);
+            long since = (index.verified == NONE) ? NONE : index.verified - this.catchUpWindow;
+            List<Object[]> rows = this.select(entityManager, entityClass, since)
+                    .setMaxResults(this.catchUpLimit + 1)
+                    .getResultList();
+            if (rows.size() > this.catchUpLimit) {
+                log.warn("{} search index is more than {} records behind the database, rebuilding the index",
+                        entityClass.getSimpleName(), this.catchUpLimit);
+                this.rebuildInBackground(entityManager.getEntityManagerFactory(), entityClass, index);
+                return false;
+            }
+            for (Object[] row : rows) {
+                index.put(row[0], document(Arrays.asList(row).subList(1, row.length)));
+            }
+            index.verified = Math.max(index.verified, current);
+            index.checked = checked;
+            return true;
+        } finally {
+            index.maintenance.unlock();
+        }
+    }
+
+    private void rebuildInBackground(EntityManagerFactory entityManagerFactory, Class<?> entityClass, EntityIndex index) {
+        if (!index.stale.compareAndSet(false, true)) {
+            return;
+        }
+        this.flusher.execute(() -> {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            EntityTransaction transaction = null;
+            try {
+                transaction = entityManager.getTransaction();
+                transaction.begin();
+                this.rebuild(entityManager, entityClass);
+            } catch (RuntimeException ex) {
+                log.error("Failed to rebuild {} search index", entityClass.getSimpleName(), ex);
+            } finally {
+                if (transaction != null && transaction.isActive()) {
+                    transaction.rollback();
+                }
+                entityManager.close();
+                index.stale.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return epoch milliseconds of the latest last modified field value or {@link #NONE} if the entity doesn't have
+     * a last modified field or records
+     */
+    private <T> long lastModified(EntityManager entityManager, Class<T> entityClass) {
+        Field lastModified = EntityMetadataRegistry.forClass(entityClass).getLastModifiedField();
+        if (lastModified == null) {
+            return NONE;
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> query = criteriaBuilder.createQuery(Object.class);
+        Root<T> root = query.from(entityClass);
+        query.select(criteriaBuilder.greatest(root.<Comparable>get(lastModified.getName())));
+        Object value = entityManager.createQuery(query).getSingleResult();
+        return (value == null) ? NONE : Timestamps.toEpochMillis(value);
+    }
+
+    /**
+     * @param since epoch milliseconds of the earliest last modified field value or {@link #NONE} to read every record
+     * @return query of the id and searchable field values of the records
+     */
+    @SuppressWarnings("unchecked")
+    private <T> TypedQuery<Object[]> select(EntityManager entityManager, Class<T> entityClass, long since) {
+        EntityMetadata<T> metadata = EntityMetadataRegistry.forClass(entityClass);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<T> root = query.from(entityClass);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get(metadata.requireIdFieldName()));
+        for (Field field : metadata.getSearchableFields()) {
+            selections.add(root.get(field.getName()));
+        }
+        query.multiselect(selections);
+        if (since != NONE) {
+            Field lastModified = metadata.getLastModifiedField();
+            query.where(criteriaBuilder.greaterThanOrEqualTo(root.<Comparable>get(lastModified.getName()),
+                    (Comparable) Timestamps.fromEpochMillis(since, lastModified.getType())));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private EntityIndex indexFor(Class<?> entityClass) {
+        return this.indexes.computeIfAbsent(entityClass, clazz -> {
+            EntityIndex index = new EntityIndex(clazz, this.directory.resolve(clazz.getName() + ".idx"),
+                    this.directory.resolve(clazz.getName() + ".clean"));
+            index.load();
+            return index;
+        });
+    }
+
+    private static String document(List<Object> values) {
+        StringBuilder document = new StringBuilder();
+        for (Object value : values) {
+            if (value != null) {
+                document.append(normalize(value.toString()));
+            }
+            document.append(FIELD_SEPARATOR);
+        }
+        return document.toString();
+    }
+
+    private static String normalize(String text) {
+        return text.toUpperCase();
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM);
+            if (gram.indexOf(FIELD_SEPARATOR) < 0) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Index of a single entity. Documents (record id and normalized searchable text) and the last verified
+     * modification time are persisted, postings are rebuilt when the index is loaded
+     */
+    private static final class EntityIndex {
+
+        private final Class<?> entityClass;
+        private final Path file;
+        /**
+         * Written on shutdown after the index is saved and deleted when it's loaded
+         */
+        private final Path cleanMarker;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * Held while the index is rebuilt or caught up with the database
+         */
+        private final Lock maintenance = new ReentrantLock();
+        private final AtomicBoolean stale = new AtomicBoolean();
+        /**
+         * Held while the index is written to disk so that an older snapshot doesn't replace a newer one
+         */
+        private final Lock saving = new ReentrantLock();
+        private Map<Object, String> documents = new HashMap<>();
+        private Map<String, Set<Object>> postings = new HashMap<>();
+        /**
+         * Changes made while the index is rebuilt (null document for removed records)
+         */
+        private Map<Object, String> journal;
+        private volatile boolean ready;
+        private volatile boolean dirty;
+        /**
+         * False if changes may have been lost (loaded after an unclean shutdown)
+         */
+        private volatile boolean complete;
+        private volatile long verified = NONE;
+        private volatile long checked;
+
+        private EntityIndex(Class<?> entityClass, Path file, Path cleanMarker) {
+            this.entityClass = entityClass;
+            this.file = file;
+            this.cleanMarker = cleanMarker;
+        }
+
+        private Set<Object> search(String needle, int maxResults) {
+            lock.readLock().lock();
+            try {
+                if (!ready) {
+                    return null;
+                }
+                Set<Object> candidates = null;
+                for (String gram : grams(needle)) {
+                    Set<Object> ids = postings.getOrDefault(gram, Collections.emptySet());
+                    if (candidates == null || ids.size() < candidates.size()) {
+                        candidates = ids;
+                    }
+                }
+                if (candidates == null) {
+                    return null;
+                }
+                Set<Object> matches = new HashSet<>();
+                for (Object id : candidates) {
+                    if (documents.get(id).contains(needle)) {
+                        if (matches.size() == maxResults) {
+                            return null;
+                        }
+                        matches.add(id);
+                    }
+                }
+                return matches;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void put(Object id, String document) {
+            lock.writeLock().lock();
+            try {
+                add(id, document);
+                if (journal != null) {
+                    journal.put(id, document);
+                }
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Object id) {
+            lock.writeLock().lock();
+            try {
+                unindex(id);
+                if (journal != null) {
+                    journal.put(id, null);
+                }
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void add(Object id, String document) {
+            unindex(id);
+            documents.put(id, document);
+            for (String gram : grams(document)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+            }
+        }
+
+        private void unindex(Object id) {
+            String previous = documents.remove(id);
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    Set<Object> ids = postings.get(gram);
+                    if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+
+        private void beginRebuild() {
+            lock.writeLock().lock();
+            try {
+                journal = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void abortRebuild() {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Replace the documents and apply the changes made while they were read
+         */
+        private void replace(Map<Object, String> newDocuments, long newVerified, boolean newComplete, long newChecked) {
+            Map<String, Set<Object>> newPostings = new HashMap<>();
+            newDocuments.forEach((id, document) -> {
+                for (String gram : grams(document)) {
+                    newPostings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+                }
+            });
+            lock.writeLock().lock();
+            try {
+                Map<Object, String> changes = journal;
+                journal = null;
+                documents = newDocuments;
+                postings = newPostings;
+                if (changes != null) {
+                    changes.forEach((id, document) -> {
+                        if (document == null) {
+                            unindex(id);
+                        } else {
+                            add(id, document);
+                        }
+                    });
+                }
+                verified = newVerified;
+                complete = newComplete;
+                checked = newChecked;
+                ready = true;
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void load() {
+            if (!Files.exists(file)) {
+                return;
+            }
+            boolean clean;
+            try {
+                clean = Files.deleteIfExists(cleanMarker);
+            } catch (IOException ex) {
+                clean = false;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != FORMAT) {
+                    throw new IOException("Unsupported search index format");
+                }
+                long savedVerified = in.readLong();
+                int size = in.readInt();
+                Map<Object, String> savedDocuments = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    Object id = readId(in);
+                    savedDocuments.put(id, readText(in));
+                }
+                replace(savedDocuments, savedVerified, clean, 0);
+                dirty = false;
+            } catch (IOException ex) {
+                LoggerFactory.getLogger(LocalSearchIndex.class)
+                        .warn("Ignoring unreadable search index {} rebuild the index", file, ex);
+            }
+        }
+
+        /**
+         * Write a snapshot of the documents, the snapshot is taken under the read lock and written outside it
+         */
+        private void save() {
+            saving.lock();
+            try {
+                Map<Object, String> snapshot;
+                long savedVerified;
+                lock.readLock().lock();
+                try {
+                    if (!ready) {
+                        return;
+                    }
+                    snapshot = new HashMap<>(documents);
+                    savedVerified = verified;
+                    dirty = false;
+                } finally {
+                    lock.readLock().unlock();
+                }
+                try {
+                    write(snapshot, savedVerified);
+                } catch (IOException ex) {
+                    dirty = true;
+                    throw new UncheckedIOException(ex);
+                } catch (RuntimeException ex) {
+                    dirty = true;
+                    throw ex;
+                }
+            } finally {
+                saving.unlock();
+            }
+        }
+
+        private void write(Map<Object, String> snapshot, long savedVerified) throws IOException {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(FORMAT);
+                    out.writeLong(savedVerified);
+                    out.writeInt(snapshot.size());
+                    for (Map.Entry<Object, String> entry : snapshot.entrySet()) {
+                        writeId(out, entry.getKey());
+                        writeText(out, entry.getValue());
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private static void writeId(DataOutputStream out, Object id) throws IOException {
+            if (id instanceof Long) {
+                out.writeByte(ID_LONG);
+                out.writeLong((Long) id);
+            } else if (id instanceof Integer) {
+                out.writeByte(ID_INTEGER);
+                out.writeInt((Integer) id);
+            } else if (id instanceof Short) {
+                out.writeByte(ID_SHORT);
+                out.writeShort((Short) id);
+            } else if (id instanceof String) {
+                out.writeByte(ID_STRING);
+                writeText(out, (String) id);
+            } else if (id instanceof UUID) {
+                out.writeByte(ID_UUID);
+                out.writeLong(((UUID) id).getMostSignificantBits());
+                out.writeLong(((UUID) id).getLeastSignificantBits());
+            } else {
+                throw new IOException("Unsupported search index id type " + id.getClass().getName());
+            }
+        }
+
+        private static Object readId(DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+                case ID_LONG:
+                    return in.readLong();
+                case ID_INTEGER:
+                    return in.readInt();
+                case ID_SHORT:
+                    return in.readShort();
+                case ID_STRING:
+                    return readText(in);
+                case ID_UUID:
+                    return new UUID(in.readLong(), in.readLong());
+                default:
+                    throw new IOException("Unsupported search index id type " + type);
+            }
+        }
+
+        private static void writeText(DataOutputStream out, String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readText(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Corrupt search index");
+            }
+            //read in chunks so that a corrupt length doesn't allocate a huge array
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) {
+                throw new EOFException();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import com.cm.projects.spring.resource.chasis.annotations.Searchable;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.metadata.FastBeanWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.lang.reflect.Field;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Used to match @{@link Searchable} fields against the needle parameter according to their {@link Searchable.Mode}
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class SearchFields {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final char ESCAPE = '\\';
+    /**
+     * Number of records loaded per query when populating shadow fields
+     */
+    private static final int CHUNK_SIZE = 500;
+    private static final Logger log = LoggerFactory.getLogger(SearchFields.class);
+
+    private SearchFields() {
+    }
+
+    /**
+     * Used to normalize text stored in shadow fields i.e. remove accents and convert to upper case
+     *
+     * @param text text
+     * @return normalized text or null if text is null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Create the predicate matching the field against the needle
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            query root
+     * @param field           field annotated with @{@link Searchable}
+     * @param needle          search text
+     * @return {@link Predicate}
+     */
+    public static Predicate predicate(CriteriaBuilder criteriaBuilder, Root<?> root, Field field, String needle) {
+        Searchable searchable = field.getAnnotation(Searchable.class);
+        if (searchable == null || searchable.mode() == Searchable.Mode.CONTAINS) {
+            return criteriaBuilder.like(criteriaBuilder.upper(root.get(field.getName())), "%" + needle.toUpperCase() + "%");
+        }
+        if (searchable.shadow().isEmpty()) {
+            return criteriaBuilder.like(criteriaBuilder.upper(root.get(field.getName())),
+                    escape(needle.toUpperCase()) + "%", ESCAPE);
+        }
+        return criteriaBuilder.like(root.get(searchable.shadow()), escape(normalize(needle)) + "%", ESCAPE);
+    }
+
+    /**
+     * Used to populate the shadow fields of existing records e.g. after adding a shadow field to a table that has
+     * records (shadow fields are otherwise only populated when records are inserted or updated through JPA). Records
+     * are read in chunks ordered by id and only records whose shadow values differ are updated. Must be called in a
+     * transaction
+     *
+     * @param entityManager entity manager
+     * @param entityClass   entity class
+     * @param <T>           entity type
+     * @return number of updated records or -1 if the entity doesn't have shadow fields
+     */
+    public static <T> long populateShadows(EntityManager entityManager, Class<T> entityClass) {
+        EntityMetadata<T> metadata = EntityMetadataRegistry.forClass(entityClass);
+        Map<String, String> shadows = new LinkedHashMap<>();
+        for (Field field : metadata.getSearchableFields()) {
+            Searchable searchable = field.getAnnotation(Searchable.class);
+            if (searchable.mode() == Searchable.Mode.PREFIX && !searchable.shadow().isEmpty()) {
+                shadows.put(field.getName(), searchable.shadow());
+            }
+        }
+        if (shadows.isEmpty()) {
+            return -1;
+        }
+        entityManager.flush();
+        String select = "select e from " + entityManager.getMetamodel().entity(entityClass).getName()
+                + " e order by e." + metadata.requireIdFieldName();
+        long read = 0, updated = 0;
+        List<T> chunk;
+        do {
+            chunk = entityManager.createQuery(select, entityClass)
+                    .setFirstResult((int) read)
+                    .setMaxResults(CHUNK_SIZE)
+                    .getResultList();
+            for (T entity : chunk) {
+                BeanWrapper accessor = FastBeanWrapper.forBean(entity);
+                boolean changed = false;
+                for (Map.Entry<String, String> shadow : shadows.entrySet()) {
+                    Object value = accessor.getPropertyValue(shadow.getKey());
+                    String normalized = normalize((value == null) ? null : value.toString());
+                    if (!Objects.equals(normalized, accessor.getPropertyValue(shadow.getValue()))) {
+                        accessor.setPropertyValue(shadow.getValue(), normalized);
+                        changed = true;
+                    }
+                }
+                updated += changed ? 1 : 0;
+            }
+            read += chunk.size();
+            entityManager.flush();
+            entityManager.clear();
+        } while (chunk.size() == CHUNK_SIZE);
+        log.info("Populated search shadow fields of {} of {} {} records", updated, read, entityClass.getSimpleName());
+        return updated;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
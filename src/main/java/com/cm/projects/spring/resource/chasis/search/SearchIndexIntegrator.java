@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import com.cm.projects.spring.resource.chasis.annotations.Searchable;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.Selectable;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps search data up to date. Picked up automatically by Hibernate through
+ * <code>META-INF/services/org.hibernate.integrator.spi.Integrator</code>. Registers:
+ * <ul>
+ * <li>Post commit insert, update and delete listeners that update the active {@link SearchProvider} so that only
+ * committed changes are indexed</li>
+ * <li>Pre insert and update listeners that populate the shadow fields of @{@link Searchable} fields using
+ * {@link Searchable.Mode#PREFIX}</li>
+ * </ul>
+ * The recommended indexes for {@link Searchable.Mode#PREFIX} fields are logged on startup.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class SearchIndexIntegrator implements Integrator {
+
+    /**
+     * Recommended index DDL per entity class
+     */
+    private static final Map<Class<?>, List<String>> RECOMMENDED_INDEXES = new ConcurrentHashMap<>();
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        IndexListener listener = new IndexListener();
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+        ShadowListener shadowListener = new ShadowListener();
+        boolean hasShadows = false;
+        for (PersistentClass binding : metadata.getEntityBindings()) {
+            Map<String, String> shadows = this.prefixFields(binding);
+            if (!shadows.isEmpty()) {
+                hasShadows |= shadowListener.register(binding.getMappedClass(), shadows);
+            }
+        }
+        if (hasShadows) {
+            registry.appendListeners(EventType.PRE_INSERT, shadowListener);
+            registry.appendListeners(EventType.PRE_UPDATE, shadowListener);
+        }
+    }
+
+    /**
+     * Collects the {@link Searchable.Mode#PREFIX} fields of the entity and records their recommended indexes
+     *
+     * @param binding entity mapping
+     * @return map of field name to shadow field name (empty string if the field has no shadow field)
+     */
+    private Map<String, String> prefixFields(PersistentClass binding) {
+        Class<?> clazz = binding.getMappedClass();
+        Map<String, String> fields = new LinkedHashMap<>();
+        if (clazz == null) {
+            return fields;
+        }
+        List<String> indexes = new ArrayList<>();
+        String table = binding.getTable().getName();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                Searchable searchable = field.getAnnotation(Searchable.class);
+                if (searchable == null || searchable.mode() != Searchable.Mode.PREFIX) {
+                    continue;
+                }
+                String shadow = searchable.shadow();
+                Property property = this.findProperty(binding, shadow.isEmpty() ? field.getName() : shadow);
+                if (property == null && shadow.isEmpty()) {
+                    continue;
+                } else if (property == null) {
+                    throw new IllegalStateException("Shadow field " + shadow + " of " + clazz.getName() + "."
+                            + field.getName() + " is not a persistent field");
+                }
+                String column = this.columnName(property);
+                if (column == null) {
+                    continue;
+                }
+                fields.put(field.getName(), shadow);
+                indexes.add("create index idx_" + table + "_" + column + " on " + table
+                        + (shadow.isEmpty() ? " (upper(" + column + "))" : " (" + column + ")"));
+            }
+        }
+        if (!indexes.isEmpty()) {
+            RECOMMENDED_INDEXES.put(clazz, Collections.unmodifiableList(indexes));
+            indexes.forEach(ddl -> log.info("Recommended index for prefix search on {}: {}", clazz.getName(), ddl));
+        }
+        return fields;
+    }
+
+    private Property findProperty(PersistentClass binding, String name) {
+        try {
+            return binding.getRecursiveProperty(name);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private String columnName(Property property) {
+        Iterator<Selectable> columns = property.getColumnIterator();
+        if (!columns.hasNext()) {
+            return null;
+        }
+        Selectable selectable = columns.next();
+        return (selectable instanceof Column) ? ((Column) selectable).getName() : null;
+    }
+
+    /**
+     * Get the recommended index DDL for the {@link Searchable.Mode#PREFIX} fields of an entity. The DDL is generic,
+     * adjust it to the database (e.g. <code>text_pattern_ops</code> on PostgreSQL with a non C collation)
+     *
+     * @param clazz entity class
+     * @return list of create index statements (empty if the entity has no prefix fields)
+     */
+    public static List<String> getRecommendedIndexes(Class<?> clazz) {
+        return RECOMMENDED_INDEXES.getOrDefault(clazz, Collections.emptyList());
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    /**
+     * Forwards committed changes to the active provider. Failures are logged so that they don't affect the
+     * committed transaction; rebuild the index to recover
+     */
+    static class IndexListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+            PostCommitDeleteEventListener {
+
+        private static final long serialVersionUID = 1L;
+        private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            SearchProvider provider = SearchProviders.forClass(event.getPersister().getMappedClass());
+            if (provider != null) {
+                try {
+                    provider.index(event.getEntity());
+                } catch (RuntimeException ex) {
+                    log.error("Failed to index {} record {}", event.getPersister().getEntityName(), event.getId(), ex);
+                }
+            }
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            SearchProvider provider = SearchProviders.forClass(event.getPersister().getMappedClass());
+            if (provider != null) {
+                try {
+                    provider.index(event.getEntity());
+                } catch (RuntimeException ex) {
+                    log.error("Failed to index {} record {}", event.getPersister().getEntityName(), event.getId(), ex);
+                }
+            }
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            SearchProvider provider = SearchProviders.forClass(event.getPersister().getMappedClass());
+            if (provider != null) {
+                try {
+                    provider.remove(event.getEntity());
+                } catch (RuntimeException ex) {
+                    log.error("Failed to remove {} record {} from index", event.getPersister().getEntityName(), event.getId(), ex);
+                }
+            }
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return SearchProviders.forClass(persister.getMappedClass()) != null;
+        }
+
+        /**
+         * Misspelled predecessor of {@link #requiresPostCommitHandling(EntityPersister)} still declared abstract by
+         * Hibernate 5.4
+         */
+        @Override
+        @Deprecated
+        public boolean requiresPostCommitHanding(EntityPersister persister) {
+            return this.requiresPostCommitHandling(persister);
+        }
+    }
+
+    /**
+     * Populates shadow fields with the normalized value (see {@link SearchFields#normalize(String)}) of their
+     * source fields before the record is inserted or updated. Both the entity and the state written to the
+     * database are updated
+     */
+    static class ShadowListener implements PreInsertEventListener, PreUpdateEventListener {
+
+        private static final long serialVersionUID = 1L;
+        /**
+         * Source field name to shadow field name per entity class
+         */
+        private final Map<Class<?>, Map<String, String>> shadows = new ConcurrentHashMap<>();
+
+        boolean register(Class<?> clazz, Map<String, String> fields) {
+            Map<String, String> pairs = new LinkedHashMap<>();
+            fields.forEach((field, shadow) -> {
+                if (!shadow.isEmpty()) {
+                    pairs.put(field, shadow);
+                }
+            });
+            if (!pairs.isEmpty()) {
+                shadows.put(clazz, pairs);
+            }
+            return !pairs.isEmpty();
+        }
+
+        @Override
+        public boolean onPreInsert(PreInsertEvent event) {
+            this.populate(event.getPersister(), event.getEntity(), event.getState());
+            return false;
+        }
+
+        @Override
+        public boolean onPreUpdate(PreUpdateEvent event) {
+            this.populate(event.getPersister(), event.getEntity(), event.getState());
+            return false;
+        }
+
+        private void populate(EntityPersister persister, Object entity, Object[] state) {
+            Map<String, String> pairs = shadows.get(persister.getMappedClass());
+            if (pairs == null) {
+                return;
+            }
+            pairs.forEach((field, shadow) -> {
+                Integer source = persister.getEntityMetamodel().getPropertyIndexOrNull(field);
+                Integer target = persister.getEntityMetamodel().getPropertyIndexOrNull(shadow);
+                if (source == null || target == null) {
+                    return;
+                }
+                Object value = state[source];
+                String normalized = SearchFields.normalize((value == null) ? null : value.toString());
+                state[target] = normalized;
+                persister.setPropertyValue(entity, target, normalized);
+            });
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+
+/**
+ * Full-text search used to resolve the needle parameter to record ids instead of matching
+ * <code>UPPER(field) LIKE '%NEEDLE%'</code> on every @{@link com.cm.projects.spring.resource.chasis.annotations.Searchable}
+ * field. Enable an implementation by registering it once with {@link SearchProviders} when the application starts
+ * ({@link LocalSearchIndex} registers itself when declared as a bean). The index is kept up to date by
+ * {@link SearchIndexIntegrator} once records are committed.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public interface SearchProvider {
+
+    /**
+     * @param entityClass entity class
+     * @return true if records of the entity are indexed
+     */
+    boolean supports(Class<?> entityClass);
+
+    /**
+     * Find records whose searchable fields contain the needle (case insensitive)
+     *
+     * @param entityManager entity manager of the request (e.g. to check the index is up to date)
+     * @param entityClass   entity class
+     * @param needle        search text
+     * @return ids of matching records or null if the provider can't answer the query (e.g. the index isn't built
+     * yet or the needle is too short) in which case the database is searched
+     */
+    Collection<?> search(EntityManager entityManager, Class<?> entityClass, String needle);
+
+    /**
+     * Add or update a record
+     *
+     * @param entity record
+     */
+    void index(Object entity);
+
+    /**
+     * Remove a record
+     *
+     * @param entity record
+     */
+    void remove(Object entity);
+
+    /**
+     * Rebuild the index of the entity from the database
+     *
+     * @param entityManager entity manager
+     * @param entityClass   entity class
+     * @return number of indexed records
+     */
+    long rebuild(EntityManager entityManager, Class<?> entityClass);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the active {@link SearchProvider} so that it can be reached from Hibernate event listeners
+ * ({@link SearchIndexIntegrator}) which are not managed by Spring. The provider applies to every resource of the
+ * application and should be set once at startup e.g. from the configuration declaring it
+ * ({@link LocalSearchIndex} sets itself when the bean is initialized).
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class SearchProviders {
+
+    private static volatile SearchProvider provider;
+
+    private SearchProviders() {
+    }
+
+    /**
+     * @return active provider or null if search uses the database
+     */
+    public static SearchProvider get() {
+        return provider;
+    }
+
+    /**
+     * @param searchProvider active provider (null to search the database)
+     */
+    public static synchronized void set(SearchProvider searchProvider) {
+        if (provider != null && searchProvider != null && provider != searchProvider) {
+            LoggerFactory.getLogger(SearchProviders.class).warn("Replacing search provider {} with {}, only one "
+                    + "provider can be active", provider.getClass().getName(), searchProvider.getClass().getName());
+        }
+        provider = searchProvider;
+    }
+
+    /**
+     * Clear the active provider if it's the specified provider e.g. when the provider bean is destroyed
+     *
+     * @param searchProvider provider
+     */
+    public static synchronized void remove(SearchProvider searchProvider) {
+        if (provider == searchProvider) {
+            provider = null;
+        }
+    }
+
+    /**
+     * @param entityClass entity class
+     * @return active provider if it supports the entity otherwise null
+     */
+    public static SearchProvider forClass(Class<?> entityClass) {
+        SearchProvider current = provider;
+        return (current != null && current.supports(entityClass)) ? current : null;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.PropertyAccessor;
 import org.springframework.data.domain.Pageable;
 
+import javax.persistence.EntityGraph;
 import javax.persistence.EntityManager;
 import javax.persistence.Id;
 import javax.servlet.http.HttpServletRequest;
@@ -94,4 +95,37 @@ public interface ChasisService {
      * @throws ParseException Occurs when date cannot be parsed to {@link Date}
      */
     <T> Stream<T> findAll(Pageable pg, Class<T> clazz, HttpServletRequest request, EntityManager entityManager) throws ParseException;
+
+    /**
+     * Used to stream records from the persistance unit using the specified filters and fetch plan
+     * @param pg pagealbe object containing size and sort params
+     * @param clazz Entity class
+     * @param request {@link HttpServletRequest}
+     * @param entityManager {@link EntityManager}
+     * @param fetchGraph relations fetched with the entity (null to use the mapped fetch types)
+     * @param <T> Entity Class Type
+     * @return {@link Stream} of entities
+     * @throws ParseException Occurs when date cannot be parsed to {@link Date}
+     */
+    default <T> Stream<T> findAll(Pageable pg, Class<T> clazz, HttpServletRequest request, EntityManager entityManager,
+                                  EntityGraph<T> fetchGraph) throws ParseException {
+        return this.findAll(pg, clazz, request, entityManager);
+    }
+
+    /**
+     * Used to stream records from the persistance unit using the specified filters, fetch plan and query timeout
+     * @param pg pagealbe object containing size and sort params
+     * @param clazz Entity class
+     * @param request {@link HttpServletRequest}
+     * @param entityManager {@link EntityManager}
+     * @param fetchGraph relations fetched with the entity (null to use the mapped fetch types)
+     * @param timeout query timeout in seconds (0 for no timeout)
+     * @param <T> Entity Class Type
+     * @return {@link Stream} of entities
+     * @throws ParseException Occurs when date cannot be parsed to {@link Date}
+     */
+    default <T> Stream<T> findAll(Pageable pg, Class<T> clazz, HttpServletRequest request, EntityManager entityManager,
+                                  EntityGraph<T> fetchGraph, int timeout) throws ParseException {
+        return this.findAll(pg, clazz, request, entityManager, fetchGraph);
+    }
 }
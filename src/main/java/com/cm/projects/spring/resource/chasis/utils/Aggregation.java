@@ -0,0 +1,301 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.repository.FetchGraphs;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.ManyToOne;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.*;
+import java.lang.reflect.Field;
+import java.text.ParseException;
+import java.util.*;
+
+/**
+ * Aggregation requested using the metric and groupBy parameters e.g. <code>?metric=sum:amount&amp;groupBy=status</code>.
+ * Used to compute totals in the database instead of fetching the records:
+ * <ul>
+ * <li>Metrics are written as <code>function:field</code> where function is one of sum, avg, min, max or count.
+ * <code>count</code> without a field counts records</li>
+ * <li>sum and avg require numeric fields. min and max require comparable fields e.g. numbers, dates or strings</li>
+ * <li>Group by fields are comma separated. @{@link ManyToOne} fields are grouped by the id of the related entity
+ * (foreign key column, no join) and are returned as <code>{"id": value}</code></li>
+ * <li>Only fields that can be selected using the fields parameter can be aggregated or grouped by (see {@link Projection})</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class Aggregation<T> {
+
+    private final Class<T> entityClass;
+    private final List<Field> groupBy;
+    private final List<Metric> metrics;
+
+    private Aggregation(Class<T> entityClass, List<Field> groupBy, List<Metric> metrics) {
+        this.entityClass = entityClass;
+        this.groupBy = Collections.unmodifiableList(groupBy);
+        this.metrics = Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * Parse the metric and group by parameters
+     *
+     * @param metadata entity metadata
+     * @param metrics  metric parameter values e.g. sum:amount
+     * @param groupBy  comma separated group by field names (optional)
+     * @param <T>      entity type
+     * @return {@link Aggregation}
+     * @throws RunTimeBadRequest if there are no metrics or a metric or field is not valid
+     */
+    public static <T> Aggregation<T> of(EntityMetadata<T> metadata, String[] metrics, String groupBy) {
+        if (metrics == null || metrics.length == 0) {
+            throw new RunTimeBadRequest("Metric parameter is required");
+        }
+        List<Metric> parsed = new ArrayList<>();
+        for (String value : metrics) {
+            for (String metric : value.split(",")) {
+                Metric m = Metric.parse(metadata, metric.trim());
+                if (!parsed.contains(m)) {
+                    parsed.add(m);
+                }
+            }
+        }
+        List<Field> groups = new ArrayList<>();
+        if (groupBy != null && !groupBy.isBlank()) {
+            for (String name : groupBy.split(",")) {
+                Field field = field(metadata, name.trim());
+                if (!groups.contains(field)) {
+                    groups.add(field);
+                }
+            }
+        }
+        return new Aggregation<>(metadata.getEntityClass(), groups, parsed);
+    }
+
+    /**
+     * @return group by fields
+     */
+    public List<Field> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Used to create the group by expressions
+     *
+     * @param root query root
+     * @return expressions in the order of {@link #getGroupBy()}
+     */
+    public List<Expression<?>> group(Root<T> root) {
+        List<Expression<?>> expressions = new ArrayList<>(groupBy.size());
+        for (Field field : groupBy) {
+            expressions.add(path(root, field));
+        }
+        return expressions;
+    }
+
+    /**
+     * Used to create tuple selections i.e. group by expressions followed by the metrics
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            query root
+     * @return selections
+     */
+    public List<Selection<?>> select(CriteriaBuilder criteriaBuilder, Root<T> root) {
+        List<Selection<?>> selections = new ArrayList<>(this.group(root));
+        for (Metric metric : metrics) {
+            selections.add(metric.expression(criteriaBuilder, root));
+        }
+        return selections;
+    }
+
+    /**
+     * Used to convert a row selected using {@link #select(CriteriaBuilder, Root)} to a map of group by field values
+     * followed by metric values (keyed as <code>function_field</code> e.g. sum_amount)
+     *
+     * @param tuple query row
+     * @return row values
+     */
+    public Map<String, Object> read(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        int i = 0;
+        for (Field field : groupBy) {
+            Object value = tuple.get(i++);
+            if (value != null && field.isAnnotationPresent(ManyToOne.class)) {
+                value = Collections.singletonMap(EntityMetadataRegistry.forClass(field.getType()).getIdFieldName(), value);
+            }
+            row.put(field.getName(), value);
+        }
+        for (Metric metric : metrics) {
+            row.put(metric.getName(), tuple.get(i++));
+        }
+        return row;
+    }
+
+    /**
+     * Run the aggregation query. Groups are ordered by the sort if it names group by fields otherwise by the group by
+     * fields
+     *
+     * @param entityManager entity manager
+     * @param restriction   restriction of the aggregated records
+     * @param sort          requested sort (properties that are not group by fields are ignored)
+     * @param limit         maximum number of groups
+     * @param timeout       query timeout in seconds (0 for no timeout)
+     * @return rows (see {@link #read(Tuple)})
+     * @throws ParseException if the restriction cannot be created
+     */
+    public List<Map<String, Object>> execute(EntityManager entityManager, Restriction<T> restriction, Sort sort,
+                                             int limit, int timeout) throws ParseException {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+        Root<T> root = criteriaQuery.from(this.entityClass);
+        criteriaQuery.multiselect(this.select(criteriaBuilder, root));
+        criteriaQuery.where(restriction.toPredicate(criteriaBuilder, root));
+        List<Expression<?>> groups = this.group(root);
+        if (!groups.isEmpty()) {
+            criteriaQuery.groupBy(groups);
+            List<Order> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                for (int i = 0; i < groupBy.size(); i++) {
+                    if (groupBy.get(i).getName().equals(order.getProperty())) {
+                        orders.add(order.isAscending() ? criteriaBuilder.asc(groups.get(i))
+                                : criteriaBuilder.desc(groups.get(i)));
+                    }
+                }
+            }
+            if (orders.isEmpty()) {
+                groups.forEach(group -> orders.add(criteriaBuilder.asc(group)));
+            }
+            criteriaQuery.orderBy(orders);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple row : FetchGraphs.timeout(entityManager.createQuery(criteriaQuery), timeout)
+                .setMaxResults(limit).getResultList()) {
+            rows.add(this.read(row));
+        }
+        return rows;
+    }
+
+    private static Field field(EntityMetadata<?> metadata, String name) {
+        Field field = metadata.getField(name);
+        if (field == null || !Projection.isSelectable(metadata, field)) {
+            throw new RunTimeBadRequest("Unknown field " + name);
+        }
+        return field;
+    }
+
+    private static Path<Object> path(Root<?> root, Field field) {
+        Path<Object> path = root.get(field.getName());
+        if (field.isAnnotationPresent(ManyToOne.class)) {
+            path = path.get(EntityMetadataRegistry.forClass(field.getType()).getIdFieldName());
+        }
+        return path;
+    }
+
+    /**
+     * Aggregate functions
+     */
+    public enum Function {
+        SUM, AVG, MIN, MAX, COUNT
+    }
+
+    /**
+     * Aggregate function applied on a field
+     */
+    public static final class Metric {
+
+        private final Function function;
+        private final Field field;
+
+        private Metric(Function function, Field field) {
+            this.function = function;
+            this.field = field;
+        }
+
+        private static Metric parse(EntityMetadata<?> metadata, String metric) {
+            String[] parts = metric.split(":", 2);
+            Function function;
+            try {
+                function = Function.valueOf(parts[0].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new RunTimeBadRequest("Unknown metric " + metric);
+            }
+            if (parts.length == 1 || parts[1].isBlank()) {
+                if (function != Function.COUNT) {
+                    throw new RunTimeBadRequest("Metric " + metric + " requires a field");
+                }
+                return new Metric(function, null);
+            }
+            Field field = field(metadata, parts[1].trim());
+            Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(field.getType());
+            if ((function == Function.SUM || function == Function.AVG) && !Number.class.isAssignableFrom(type)) {
+                throw new RunTimeBadRequest("Metric " + metric + " requires a numeric field");
+            }
+            if ((function == Function.MIN || function == Function.MAX) && !Comparable.class.isAssignableFrom(type)) {
+                throw new RunTimeBadRequest("Metric " + metric + " requires a comparable field");
+            }
+            return new Metric(function, field);
+        }
+
+        /**
+         * @return result key e.g. sum_amount or count
+         */
+        public String getName() {
+            String name = function.name().toLowerCase(Locale.ROOT);
+            return (field == null) ? name : name + "_" + field.getName();
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Expression<?> expression(CriteriaBuilder criteriaBuilder, Root<?> root) {
+            switch (function) {
+                case SUM:
+                    return criteriaBuilder.sum((Expression<Number>) (Expression) root.get(field.getName()));
+                case AVG:
+                    return criteriaBuilder.avg((Expression<Number>) (Expression) root.get(field.getName()));
+                case MIN:
+                    return criteriaBuilder.least((Expression<Comparable>) (Expression) root.get(field.getName()));
+                case MAX:
+                    return criteriaBuilder.greatest((Expression<Comparable>) (Expression) root.get(field.getName()));
+                default:
+                    return (field == null) ? criteriaBuilder.count(root) : criteriaBuilder.count(path(root, field));
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Metric)) {
+                return false;
+            }
+            Metric metric = (Metric) o;
+            return function == metric.function && Objects.equals(field, metric.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(function, field);
+        }
+    }
+}
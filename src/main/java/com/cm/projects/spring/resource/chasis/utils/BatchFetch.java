@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.repository.FetchGraphs;
+import com.cm.projects.spring.resource.chasis.wrappers.BatchResult;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.*;
+
+/**
+ * Used to fetch several records of an entity by id:
+ * <ul>
+ * <li>Ids are converted to the type of the @{@link javax.persistence.Id} field and duplicates are fetched once</li>
+ * <li>Records are loaded using IN queries of at most the chunk size ids</li>
+ * <li>Records in trash are treated as missing</li>
+ * <li>Entities are loaded read only using the fetch graph, projections select only their fields (see {@link Projection})</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class BatchFetch<T> {
+
+    private final EntityManager entityManager;
+    private final EntityMetadata<T> metadata;
+    private final int chunkSize;
+    private final int timeout;
+
+    /**
+     * @param entityManager entity manager
+     * @param metadata      entity metadata (the entity must have an @{@link javax.persistence.Id} field)
+     * @param chunkSize     maximum number of ids per query
+     * @param timeout       query timeout in seconds (0 for no timeout)
+     */
+    public BatchFetch(EntityManager entityManager, EntityMetadata<T> metadata, int chunkSize, int timeout) {
+        this.entityManager = entityManager;
+        this.metadata = metadata;
+        this.chunkSize = chunkSize;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Fetch the records of the ids
+     *
+     * @param ids          requested ids (duplicates are fetched once)
+     * @param maxBatchSize maximum number of ids
+     * @param projection   selected fields or null to fetch entities
+     * @param graph        fetch graph applied when loading entities (optional)
+     * @param <E>          requested id type
+     * @return {@link BatchResult} with records in the order of the ids and the ids that weren't found
+     * @throws RunTimeBadRequest if there are no ids, more than the maximum ids or an id is not valid
+     */
+    public <E> BatchResult<Object, E> fetch(List<E> ids, int maxBatchSize, Projection<T> projection, EntityGraph<T> graph) {
+        if (ids == null || ids.isEmpty()) {
+            throw new RunTimeBadRequest("At least one id is required");
+        } else if (ids.size() > maxBatchSize) {
+            throw new RunTimeBadRequest("At most " + maxBatchSize + " ids can be fetched at a time");
+        }
+        Class<?> idType = ClassUtils.resolvePrimitiveIfNecessary(this.metadata.getIdField().getType());
+        Map<Object, E> requested = new LinkedHashMap<>();
+        for (E id : ids) {
+            if (id == null) {
+                continue;
+            }
+            try {
+                requested.putIfAbsent(DefaultConversionService.getSharedInstance().convert(id, idType), id);
+            } catch (ConversionException ex) {
+                throw new RunTimeBadRequest("Invalid id " + id);
+            }
+        }
+
+        Map<Object, Object> found = this.load(new ArrayList<>(requested.keySet()), projection, graph);
+        List<Object> content = new ArrayList<>(found.size());
+        List<E> missing = new ArrayList<>();
+        requested.forEach((key, id) -> {
+            Object record = found.get(key);
+            if (record == null) {
+                missing.add(id);
+            } else {
+                content.add(record);
+            }
+        });
+        return new BatchResult<>(content, missing);
+    }
+
+    /**
+     * Load records using IN queries of at most the chunk size ids excluding records in trash
+     *
+     * @param keys       entity ids (of the id field type)
+     * @param projection selected fields or null to fetch entities
+     * @param graph      fetch graph applied when loading entities (optional)
+     * @return records (entities or projection rows) by id
+     */
+    public Map<Object, Object> load(List<?> keys, Projection<T> projection, EntityGraph<T> graph) {
+        Map<Object, Object> found = new HashMap<>();
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        for (int from = 0; from < keys.size(); from += this.chunkSize) {
+            CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+            Root<T> root = criteriaQuery.from(this.metadata.getEntityClass());
+            Path<Object> idPath = root.get(this.metadata.requireIdFieldName());
+            List<Selection<?>> selections = (projection == null) ? new ArrayList<>(List.of(root)) : projection.select(root);
+            int idIndex = selections.size();
+            selections.add(idPath);
+            criteriaQuery.multiselect(selections);
+            Predicate predicate = idPath.in(keys.subList(from, Math.min(from + this.chunkSize, keys.size())));
+            if (this.metadata.hasIntrash()) {
+                predicate = criteriaBuilder.and(predicate,
+                        criteriaBuilder.equal(root.get(this.metadata.getIntrashFieldName()), AppConstants.NO));
+            }
+            criteriaQuery.where(predicate);
+            TypedQuery<Tuple> query = FetchGraphs.timeout(this.entityManager.createQuery(criteriaQuery), this.timeout);
+            if (projection == null) {
+                FetchGraphs.readOnly(FetchGraphs.apply(query, graph));
+            }
+            for (Tuple row : query.getResultList()) {
+                found.put(row.get(idIndex), (projection == null) ? row.get(0) : projection.read(row));
+            }
+        }
+        return found;
+    }
+}
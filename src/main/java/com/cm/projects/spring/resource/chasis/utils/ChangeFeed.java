@@ -0,0 +1,422 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.wrappers.ChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events feed of committed changes to an entity. A single feed is shared by all resources of the same
+ * entity (see {@link #forClass(Class)}). Each subscriber has:
+ * <ul>
+ * <li>A bounded buffer of pending events. When it is full the oldest event is dropped and the subscriber is sent a
+ * <code>dropped</code> event with the number of dropped events (reload the records to catch up)</li>
+ * <li>At most one sender at a time on a shared, fixed size pool of daemon threads. A sender sends a few events and
+ * then gives its thread to the next subscriber so that a busy subscriber doesn't hold a thread</li>
+ * <li>A send timeout (see {@link #setSendTimeoutMillis(long)}). A subscriber whose send takes longer (e.g. a client
+ * that stopped reading) is removed and the sending thread is interrupted. The pool gets an additional thread until
+ * the send returns so that stalled clients don't hold every sender</li>
+ * </ul>
+ * Publishing never blocks on subscribers. The number of subscribers per entity is limited (see
+ * {@link #setMaxSubscribers(int)}), further subscriptions are rejected with status 503.
+ * <p>
+ * <b>Note:</b> subscribers only receive changes made through this application instance. To send changes made on other
+ * instances register a {@link Relay} (e.g. publishing to a message broker) once at startup using
+ * {@link #setRelay(Relay)} and pass the events received from the other instances to {@link #deliver(ChangeEvent)}.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChangeFeed {
+
+    /**
+     * Name of change events
+     */
+    public static final String CHANGE_EVENT = "change";
+    /**
+     * Name of the event sent when events were dropped, the data is the number of dropped events
+     */
+    public static final String DROPPED_EVENT = "dropped";
+    /**
+     * Default number of pending events per subscriber
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 100;
+    /**
+     * Default subscription timeout in milliseconds
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30 * 60_000;
+    /**
+     * Default maximum number of subscribers per entity
+     */
+    public static final int DEFAULT_MAX_SUBSCRIBERS = 1000;
+    /**
+     * Default time in milliseconds a single event can take to be sent before the subscriber is removed
+     */
+    public static final long DEFAULT_SEND_TIMEOUT_MILLIS = 10_000;
+    /**
+     * Events sent by a sender before it gives its thread to the next subscriber
+     */
+    private static final int SEND_BATCH = 16;
+    private static final int SENDER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+    private static final Map<Class<?>, ChangeFeed> FEEDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    /**
+     * Sends events to subscribers. The queue holds at most one task per subscriber
+     */
+    private static final ThreadPoolExecutor SENDERS = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "chasis-events-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Removes subscribers whose send timed out
+     */
+    private static final ScheduledThreadPoolExecutor WATCHDOG = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "chasis-events-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile Relay relay;
+
+    static {
+        SENDERS.allowCoreThreadTimeOut(true);
+        WATCHDOG.setRemoveOnCancelPolicy(true);
+    }
+
+    private final Class<?> entityClass;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private volatile int maxSubscribers = DEFAULT_MAX_SUBSCRIBERS;
+    private volatile long sendTimeoutMillis = DEFAULT_SEND_TIMEOUT_MILLIS;
+
+    /**
+     * @param entityClass entity class
+     */
+    public ChangeFeed(Class<?> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Get the feed of the specified entity creating it if it doesn't exist
+     *
+     * @param entityClass entity class
+     * @return {@link ChangeFeed}
+     */
+    public static ChangeFeed forClass(Class<?> entityClass) {
+        return FEEDS.computeIfAbsent(entityClass, ChangeFeed::new);
+    }
+
+    /**
+     * Set the relay used to send published events to other application instances
+     *
+     * @param changeRelay relay or null to only send events to the subscribers of this instance
+     */
+    public static void setRelay(Relay changeRelay) {
+        relay = changeRelay;
+    }
+
+    /**
+     * Used to subscribe to the feed. The subscription ends when the client disconnects or the timeout elapses
+     * (clients should reconnect)
+     *
+     * @return {@link SseEmitter} returned by the controller
+     * @throws ResponseStatusException with status 503 if the feed has the maximum number of subscribers
+     */
+    public SseEmitter subscribe() {
+        return this.subscribe(new SseEmitter(this.timeoutMillis));
+    }
+
+    /**
+     * @param emitter emitter the events are sent to
+     * @return the emitter
+     */
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, Math.max(this.bufferSize, 1));
+        synchronized (this.subscribers) {
+            if (this.maxSubscribers > 0 && this.subscribers.size() >= this.maxSubscribers) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers to "
+                        + entityClass.getSimpleName() + " changes, try again later");
+            }
+            this.subscribers.add(subscriber);
+        }
+        emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+        emitter.onError(ex -> this.subscribers.remove(subscriber));
+        log.debug("Subscribed to {} changes ({} subscribers)", entityClass.getSimpleName(), this.subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Used to push an event of a change made by this application instance to every subscriber and to the
+     * {@link Relay} if one is set
+     *
+     * @param event change event
+     */
+    public void publish(ChangeEvent event) {
+        this.deliver(event);
+        Relay current = relay;
+        if (current != null) {
+            try {
+                current.relay(this.entityClass, event);
+            } catch (RuntimeException ex) {
+                log.error("Failed to relay {} change event", entityClass.getSimpleName(), ex);
+            }
+        }
+    }
+
+    /**
+     * Used to push an event to the subscribers of this application instance only e.g. an event received from another
+     * instance
+     *
+     * @param event change event
+     */
+    public void deliver(ChangeEvent event) {
+        long id = this.sequence.incrementAndGet();
+        for (Subscriber subscriber : this.subscribers) {
+            subscriber.offer(id, event);
+        }
+    }
+
+    /**
+     * @return true if the feed has subscribers or events are relayed to other instances
+     */
+    public boolean hasSubscribers() {
+        return !this.subscribers.isEmpty() || relay != null;
+    }
+
+    /**
+     * @return number of subscribers
+     */
+    public int getSubscriberCount() {
+        return this.subscribers.size();
+    }
+
+    /**
+     * @param bufferSize number of pending events per subscriber (applies to new subscribers)
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param timeoutMillis subscription timeout in milliseconds (applies to new subscribers)
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param maxSubscribers maximum number of subscribers (0 for no limit)
+     */
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * @param sendTimeoutMillis time in milliseconds a single event can take to be sent before the subscriber is
+     *                          removed
+     */
+    public void setSendTimeoutMillis(long sendTimeoutMillis) {
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    /**
+     * Add (or remove) a sender thread while a timed out send is blocked
+     */
+    private static void resizeSenders(int delta) {
+        synchronized (SENDERS) {
+            if (delta > 0) {
+                SENDERS.setMaximumPoolSize(SENDERS.getMaximumPoolSize() + delta);
+                SENDERS.setCorePoolSize(SENDERS.getCorePoolSize() + delta);
+            } else {
+                SENDERS.setCorePoolSize(SENDERS.getCorePoolSize() + delta);
+                SENDERS.setMaximumPoolSize(SENDERS.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    /**
+     * Sends the events published by this application instance to the other instances
+     */
+    @FunctionalInterface
+    public interface Relay {
+
+        /**
+         * Called after the event is sent to the local subscribers. Shouldn't block, failures are logged
+         *
+         * @param entityClass entity class, receivers pass the event to {@link ChangeFeed#forClass(Class)}
+         *                    {@link #deliver(ChangeEvent)}
+         * @param event       change event
+         */
+        void relay(Class<?> entityClass, ChangeEvent event);
+    }
+
+    /**
+     * Subscriber with its pending events
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final ArrayDeque<Pending> pending;
+        private long dropped;
+        private boolean sending;
+        /**
+         * Thread running the current send
+         */
+        private Thread sender;
+        private boolean expired;
+
+        private Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.pending = new ArrayDeque<>(capacity);
+        }
+
+        private void offer(long id, ChangeEvent event) {
+            synchronized (this) {
+                if (this.pending.size() == this.capacity) {
+                    this.pending.poll();
+                    this.dropped++;
+                }
+                this.pending.add(new Pending(id, event));
+                if (this.sending) {
+                    return;
+                }
+                this.sending = true;
+            }
+            this.submit();
+        }
+
+        private void submit() {
+            try {
+                SENDERS.execute(this::send);
+            } catch (RejectedExecutionException ex) {
+                synchronized (this) {
+                    this.sending = false;
+                }
+            }
+        }
+
+        private void send() {
+            for (int sent = 0; ; sent++) {
+                if (sent == SEND_BATCH) {
+                    //let other subscribers use the thread, sending stays true so no other sender is started
+                    this.submit();
+                    return;
+                }
+                Pending next;
+                long missed;
+                synchronized (this) {
+                    next = this.pending.poll();
+                    missed = this.dropped;
+                    this.dropped = 0;
+                    if (next == null && missed == 0) {
+                        this.sending = false;
+                        return;
+                    }
+                }
+                try {
+                    if (missed > 0) {
+                        this.send(SseEmitter.event().name(DROPPED_EVENT).data(missed));
+                    }
+                    if (next != null) {
+                        this.send(SseEmitter.event().id(String.valueOf(next.id)).name(CHANGE_EVENT)
+                                .data(next.event, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    log.debug("Removing {} changes subscriber: {}", entityClass.getSimpleName(), ex.getMessage());
+                    subscribers.remove(this);
+                    this.emitter.completeWithError(ex);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Send an event, the subscriber is expired if it takes longer than the send timeout
+         */
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                this.sender = Thread.currentThread();
+            }
+            ScheduledFuture<?> timeout = WATCHDOG.schedule(this::expire, sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            boolean timedOut;
+            try {
+                this.emitter.send(event);
+            } finally {
+                timeout.cancel(false);
+                synchronized (this) {
+                    this.sender = null;
+                    timedOut = this.expired;
+                }
+                if (timedOut) {
+                    //clear the interrupt before the thread is reused
+                    Thread.interrupted();
+                    resizeSenders(-1);
+                }
+            }
+            if (timedOut) {
+                throw new IOException("Send timed out");
+            }
+        }
+
+        private void expire() {
+            synchronized (this) {
+                if (this.sender == null || this.expired) {
+                    return;
+                }
+                this.expired = true;
+                this.sender.interrupt();
+                resizeSenders(1);
+            }
+            subscribers.remove(this);
+            log.debug("Removing {} changes subscriber: send timed out after {} ms", entityClass.getSimpleName(),
+                    sendTimeoutMillis);
+        }
+    }
+
+    /**
+     * Event waiting to be sent
+     */
+    private static final class Pending {
+
+        private final long id;
+        private final ChangeEvent event;
+
+        private Pending(long id, ChangeEvent event) {
+            this.id = id;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+
+/**
+ * Used to execute a read once for identical concurrent requests (see {@link SingleFlight}):
+ * <ul>
+ * <li>Reads run in a read only transaction (joining the current transaction if there is one) started after coalescing
+ * so that requests waiting for an identical read don't hold a database connection</li>
+ * <li>The response holds managed entities and a mutable {@link ResponseWrapper} hence requests waiting for the read
+ * get their own response made from a copy serialized by the object mapper (see {@link DetachedResponse})</li>
+ * <li>Requests without a key or without an object mapper are not coalesced</li>
+ * </ul>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class CoalescedReads {
+
+    private final SingleFlight flight;
+    private final ObjectMapper mapper;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * @param flight             coalesces the reads of the entity
+     * @param mapper             object mapper copying responses (null to not coalesce)
+     * @param transactionManager starts the read only transactions (null to read without a transaction)
+     */
+    public CoalescedReads(SingleFlight flight, ObjectMapper mapper, PlatformTransactionManager transactionManager) {
+        this.flight = flight;
+        this.mapper = mapper;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Execute the read or wait for the identical read in flight
+     *
+     * @param key  read key or null to execute the read
+     * @param read read to execute
+     * @param <B>  response body type
+     * @param <X>  exception thrown by the read
+     * @return response of the read
+     * @throws X if the read fails
+     */
+    public <B, X extends Exception> ResponseEntity<B> execute(String key, SingleFlight.Read<ResponseEntity<B>, X> read) throws X {
+        if (key == null || this.mapper == null) {
+            return this.readOnly(read);
+        }
+        return this.flight.execute(key, () -> this.readOnly(read), response -> new DetachedResponse(response, this.mapper),
+                DetachedResponse::<B>toResponse);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R, X extends Exception> R readOnly(SingleFlight.Read<R, X> read) throws X {
+        if (this.transactionManager == null) {
+            return read.execute();
+        }
+        TransactionTemplate template = new TransactionTemplate(this.transactionManager);
+        template.setReadOnly(true);
+        try {
+            return template.execute(status -> {
+                try {
+                    return read.execute();
+                } catch (RuntimeException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new UndeclaredThrowableException(ex);
+                }
+            });
+        } catch (UndeclaredThrowableException ex) {
+            throw (X) ex.getUndeclaredThrowable();
+        }
+    }
+
+    /**
+     * Copy of a coalesced response shared with the requests waiting for it. The body is serialized to a
+     * {@link JsonNode} so that it doesn't reference the entities of the request that executed the read. Each waiting
+     * request gets a new {@link ResponseEntity} and {@link ResponseWrapper} whose data is a copy of the serialized data
+     * (it is written the same as the original data)
+     */
+    static final class DetachedResponse {
+
+        private final int status;
+        private final HttpHeaders headers;
+        private final ResponseWrapper<?> wrapper;
+        private final JsonNode body;
+
+        DetachedResponse(ResponseEntity<?> response, ObjectMapper mapper) {
+            this.status = response.getStatusCodeValue();
+            this.headers = copy(response.getHeaders());
+            if (response.getBody() != null && response.getBody().getClass() == ResponseWrapper.class) {
+                ResponseWrapper<?> original = (ResponseWrapper<?>) response.getBody();
+                ResponseWrapper<JsonNode> copy = new ResponseWrapper<>(original.getStatus());
+                copy.setMessage(original.getMessage());
+                copy.setTimestamp(original.getTimestamp());
+                copy.setData((original.getData() == null) ? null : mapper.valueToTree(original.getData()));
+                this.wrapper = copy;
+                this.body = null;
+            } else {
+                this.wrapper = null;
+                this.body = (response.getBody() == null) ? null : mapper.valueToTree(response.getBody());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <B> ResponseEntity<B> toResponse() {
+            Object content;
+            if (this.wrapper != null) {
+                ResponseWrapper<Object> response = new ResponseWrapper<>(this.wrapper.getStatus());
+                response.setMessage(this.wrapper.getMessage());
+                response.setTimestamp(this.wrapper.getTimestamp());
+                response.setData((this.wrapper.getData() == null) ? null : ((JsonNode) this.wrapper.getData()).deepCopy());
+                content = response;
+            } else {
+                content = (this.body == null) ? null : this.body.deepCopy();
+            }
+            return (ResponseEntity<B>) ResponseEntity.status(this.status).headers(copy(this.headers)).body(content);
+        }
+
+        private static HttpHeaders copy(HttpHeaders headers) {
+            HttpHeaders copy = new HttpHeaders();
+            headers.forEach((name, values) -> copy.put(name, new ArrayList<>(values)));
+            return copy;
+        }
+    }
+}
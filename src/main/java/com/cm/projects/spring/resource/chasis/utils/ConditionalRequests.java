@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.repository.FetchGraphs;
+import com.cm.projects.spring.resource.chasis.wrappers.ResourceVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Used to answer conditional requests (If-None-Match and If-Modified-Since) on the records of an entity:
+ * <ul>
+ * <li>Lists are versioned by the entity modification counter (see {@link EntityVersions}) if enabled and the latest
+ * last modified timestamp. Without the counter lists are only versioned if the entity has a last modified field and an
+ * intrash field, since deleting records permanently doesn't change the latest modification time</li>
+ * <li>Records are versioned by their @{@link javax.persistence.Version} and last modified fields if present otherwise by
+ * the entity modification counter if enabled</li>
+ * <li>ETags also cover the request parameters and the caller scope so that representations that differ per
+ * parameters or caller get different tags</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class ConditionalRequests<T> {
+
+    private final EntityManager entityManager;
+    private final EntityMetadata<T> metadata;
+    private final boolean counterVersions;
+    private final int timeout;
+
+    /**
+     * @param entityManager   entity manager
+     * @param metadata        entity metadata
+     * @param counterVersions true to use the entity modification counter (see {@link EntityVersions})
+     * @param timeout         query timeout in seconds (0 for no timeout)
+     */
+    public ConditionalRequests(EntityManager entityManager, EntityMetadata<T> metadata, boolean counterVersions, int timeout) {
+        this.entityManager = entityManager;
+        this.metadata = metadata;
+        this.counterVersions = counterVersions;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Resolve the version of a record list
+     *
+     * @param request     HTTP Request
+     * @param callerScope caller the records are returned to (part of the ETag)
+     * @return {@link ResourceVersion} or null if lists of the entity can't be versioned
+     */
+    public ResourceVersion forList(HttpServletRequest request, String callerScope) {
+        Field lastModified = this.metadata.getLastModifiedField();
+        StringBuilder token = new StringBuilder();
+        if (this.counterVersions) {
+            token.append(EntityVersions.current(this.metadata.getEntityClass()));
+        } else if (lastModified == null || !this.metadata.hasIntrash()) {
+            return null;
+        }
+        if (lastModified != null) {
+            CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+            CriteriaQuery<Object> query = criteriaBuilder.createQuery(Object.class);
+            Root<T> root = query.from(this.metadata.getEntityClass());
+            query.select(criteriaBuilder.greatest(root.<Comparable>get(lastModified.getName())));
+            token.append('.').append(Timestamps.toEpochMillis(FetchGraphs.timeout(this.entityManager.createQuery(query),
+                    this.timeout).getSingleResult()));
+        }
+        return new ResourceVersion(digest(token, request, callerScope), -1);
+    }
+
+    /**
+     * Resolve the version of a record
+     *
+     * @param id          record id
+     * @param request     HTTP Request
+     * @param callerScope caller the record is returned to (part of the ETag)
+     * @return {@link ResourceVersion} or null if the record can't be versioned or doesn't exist
+     */
+    public ResourceVersion forEntity(Object id, HttpServletRequest request, String callerScope) {
+        Field version = this.metadata.getVersionField();
+        Field lastModified = this.metadata.getLastModifiedField();
+        StringBuilder token = new StringBuilder(String.valueOf(id));
+        if (version == null && lastModified == null) {
+            if (!this.counterVersions) {
+                return null;
+            }
+            token.append('.').append(EntityVersions.current(this.metadata.getEntityClass()));
+            return new ResourceVersion(digest(token, request, callerScope), -1);
+        }
+
+        CriteriaBuilder criteriaBuilder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(this.metadata.getEntityClass());
+        query.multiselect(root.get((version == null) ? lastModified.getName() : version.getName()),
+                root.get((lastModified == null) ? version.getName() : lastModified.getName()));
+        Predicate predicate = criteriaBuilder.equal(root.get(this.metadata.requireIdFieldName()), id);
+        if (this.metadata.hasIntrash()) {
+            predicate = criteriaBuilder.and(predicate,
+                    criteriaBuilder.equal(root.get(this.metadata.getIntrashFieldName()), AppConstants.NO));
+        }
+        query.where(predicate);
+        List<Tuple> rows = this.entityManager.createQuery(query).getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        long modified = (lastModified == null) ? -1 : Timestamps.toEpochMillis(rows.get(0).get(1));
+        token.append('.').append(rows.get(0).get(0)).append('.').append(modified);
+        return new ResourceVersion(digest(token, request, callerScope), modified);
+    }
+
+    /**
+     * Check the request conditional headers (If-None-Match and If-Modified-Since)
+     *
+     * @param request HTTP Request
+     * @param version current version or null if unknown
+     * @param <B>     response body type
+     * @return 304 response if the client already has the current version otherwise null
+     */
+    public static <B> ResponseEntity<B> notModified(HttpServletRequest request, ResourceVersion version) {
+        if (version == null || !new ServletWebRequest(request).checkNotModified(version.getETag(), version.getLastModified())) {
+            return null;
+        }
+        return withVersion(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    /**
+     * Set the ETag and Last-Modified headers
+     *
+     * @param builder response builder
+     * @param version current version or null if unknown
+     * @return the builder
+     */
+    public static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder builder, ResourceVersion version) {
+        if (version != null) {
+            builder.eTag(version.getETag());
+            if (version.getLastModified() >= 0) {
+                builder.lastModified(version.getLastModified());
+            }
+        }
+        return builder;
+    }
+
+    private static String digest(StringBuilder token, HttpServletRequest request, String callerScope) {
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                token.append('&').append(name).append('=').append(String.join(",", values)));
+        token.append('|').append(callerScope);
+        return DigestUtils.md5DigestAsHex(token.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
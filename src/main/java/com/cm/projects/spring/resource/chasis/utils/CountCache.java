@@ -0,0 +1,352 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded (least recently used) cache of record counts keyed by entity class and the normalized request parameters
+ * that restrict the count (search and filter parameters). Used by
+ * {@link com.cm.projects.spring.resource.chasis.ChasisResource} to avoid counting the same filter combination on
+ * every request. Entries expire after the configured time to live and are invalidated on writes to the entity.
+ * A single cache is shared by all resources of the same entity (see {@link #forClass(Class)}).
+ * <p>
+ * Hit, miss and eviction counts are exposed through {@link CountCacheMXBean}.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class CountCache implements CountCacheMXBean {
+
+    /**
+     * Request parameters that don't affect the number of records
+     */
+    public static final Set<String> IGNORED_PARAMS = Set.of("page", "size", "sort", "after", "count");
+    /**
+     * Default maximum number of cached counts per entity
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    /**
+     * Default time to live of a cached count in milliseconds
+     */
+    public static final long DEFAULT_TTL_MILLIS = 60_000;
+    private static final Logger log = LoggerFactory.getLogger(CountCache.class);
+    private static final Map<Class<?>, CountCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Class<?> entityClass;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int maxSize;
+    private volatile long ttlMillis;
+    /**
+     * Incremented on every invalidation so that counts computed before a write are not cached after it
+     */
+    private long generation;
+
+    /**
+     * @param entityClass entity class
+     * @param maxSize     maximum number of cached counts (0 disables the cache)
+     * @param ttlMillis   time to live of a cached count in milliseconds
+     */
+    public CountCache(Class<?> entityClass, int maxSize, long ttlMillis) {
+        this.entityClass = entityClass;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Get the cache of the specified entity creating (and registering its MXBean) if it doesn't exist
+     *
+     * @param entityClass entity class
+     * @return {@link CountCache}
+     */
+    public static CountCache forClass(Class<?> entityClass) {
+        return CACHES.computeIfAbsent(entityClass, clazz -> {
+            CountCache cache = new CountCache(clazz, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+            cache.register();
+            return cache;
+        });
+    }
+
+    /**
+     * Used to create the cache key from request parameters. Parameters that don't restrict the records e.g. page,
+     * size and sort are ignored and the rest are sorted by name so that the same filters always give the same key
+     *
+     * @param parameters request parameters
+     * @return cache key
+     */
+    public String createKey(Map<String, String[]> parameters) {
+        return this.createKey(parameters, "");
+    }
+
+    /**
+     * Used to create the cache key from request parameters and the records visible to the caller (see
+     * {@link #createKey(Map)})
+     *
+     * @param parameters request parameters
+     * @param scope      records visible to the caller e.g. the user name (empty if every caller sees the same records)
+     * @return cache key
+     */
+    public String createKey(Map<String, String[]> parameters, String scope) {
+        StringBuilder key = new StringBuilder(entityClass.getName());
+        new TreeMap<>(parameters).forEach((name, values) -> {
+            if (IGNORED_PARAMS.contains(name) || values == null) {
+                return;
+            }
+            String[] sorted = values.clone();
+            Arrays.sort(sorted);
+            key.append('&').append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append('=');
+            for (int i = 0; i < sorted.length; i++) {
+                key.append((i == 0) ? "" : ",").append(URLEncoder.encode(sorted[i], StandardCharsets.UTF_8));
+            }
+        });
+        return key.append('|').append(scope).toString();
+    }
+
+    /**
+     * @return true if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return maxSize > 0 && ttlMillis > 0;
+    }
+
+    /**
+     * Used to check if a count is cached without updating hit and miss counts
+     *
+     * @param key cache key (see {@link #createKey(Map)})
+     * @return true if the count is cached and hasn't expired
+     */
+    public boolean contains(String key) {
+        if (!isEnabled()) {
+            return false;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry != null && entry.expires > System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Get cached count
+     *
+     * @param key cache key (see {@link #createKey(Map)})
+     * @return count or null if it isn't cached or has expired
+     */
+    public Long get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expires > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.count;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Used to get the current generation. Should be read before running the count query and passed to
+     * {@link #put(String, long, long)}
+     *
+     * @return cache generation
+     */
+    public long getGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Cache count. Ignored if the cache has been invalidated since the count query started
+     *
+     * @param key        cache key (see {@link #createKey(Map)})
+     * @param count      number of records
+     * @param generation cache generation before the count query (see {@link #getGeneration()})
+     */
+    public void put(String key, long count, long generation) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (entries) {
+            if (generation != this.generation) {
+                return;
+            }
+            entries.put(key, new Entry(count, System.currentTimeMillis() + ttlMillis));
+            Iterator<String> keys = entries.keySet().iterator();
+            while (entries.size() > maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Get the cached count or run the count and cache it (unless the cache is invalidated while counting)
+     *
+     * @param key     cache key (see {@link #createKey(Map)})
+     * @param counter counts the records
+     * @param <X>     exception thrown by the counter
+     * @return number of records
+     * @throws X if counting fails
+     */
+    public <X extends Exception> long count(String key, Counter<X> counter) throws X {
+        Long cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = getGeneration();
+        long count = counter.count();
+        put(key, count, generation);
+        return count;
+    }
+
+    /**
+     * Remove all cached counts of the entity. Called after writes
+     */
+    public void invalidate() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Register the cache MXBean with the platform MBean server. Failures are logged and ignored
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName("com.cm.projects.spring.resource.chasis:type=CountCache,name="
+                    + ObjectName.quote(entityClass.getName())));
+        } catch (InstanceAlreadyExistsException ex) {
+            log.debug("Count cache MXBean for {} is already registered", entityClass.getName());
+        } catch (JMException | SecurityException ex) {
+            log.warn("Failed to register count cache MXBean for {}", entityClass.getName(), ex);
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of cached counts (0 disables the cache)
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param ttlMillis time to live of a cached count in milliseconds
+     */
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return (total == 0) ? 0 : (double) hits.get() / total;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Counts the records of a cache key
+     *
+     * @param <X> exception thrown when counting
+     */
+    @FunctionalInterface
+    public interface Counter<X extends Exception> {
+
+        /**
+         * @return number of records
+         * @throws X if counting fails
+         */
+        long count() throws X;
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long expires;
+
+        private Entry(long count, long expires) {
+            this.count = count;
+            this.expires = expires;
+        }
+    }
+}
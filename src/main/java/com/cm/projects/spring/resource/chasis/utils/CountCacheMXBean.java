@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+/**
+ * JMX view of a {@link CountCache}. Registered under
+ * <code>com.cm.projects.spring.resource.chasis:type=CountCache,name={entity class}</code>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public interface CountCacheMXBean {
+
+    /**
+     * @return number of counts served from the cache
+     */
+    long getHitCount();
+
+    /**
+     * @return number of lookups that required a count query
+     */
+    long getMissCount();
+
+    /**
+     * @return hits / (hits + misses) or 0 if the cache hasn't been used
+     */
+    double getHitRatio();
+
+    /**
+     * @return number of entries evicted because the cache was full
+     */
+    long getEvictionCount();
+
+    /**
+     * @return number of times the cache was invalidated by a write
+     */
+    long getInvalidationCount();
+
+    /**
+     * @return current number of cached counts
+     */
+    int getSize();
+
+    /**
+     * @return maximum number of cached counts
+     */
+    int getMaxSize();
+
+    /**
+     * @return time to live of a cached count in milliseconds
+     */
+    long getTtlMillis();
+
+    /**
+     * Remove all cached counts
+     */
+    void clear();
+}
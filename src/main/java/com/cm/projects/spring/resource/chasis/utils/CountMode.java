@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+/**
+ * Strategy used to compute the total number of records when fetching a page of records
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public enum CountMode {
+    /**
+     * Count all matching records (COUNT query)
+     */
+    EXACT,
+    /**
+     * Don't count records. Only whether a next page exists is resolved
+     */
+    NONE,
+    /**
+     * Count matching records up to a limit
+     */
+    CAPPED,
+    /**
+     * Use database table statistics. Falls back to {@link #CAPPED} when the request has search or filter
+     * parameters or statistics are not available. The estimate includes records in trash
+     */
+    ESTIMATED
+}
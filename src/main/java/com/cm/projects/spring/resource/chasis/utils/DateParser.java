@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * Used to parse dates sent as request parameters (e.g. filters) without exceptions. The format is detected from the
+ * shape of the text and parsed using a shared {@link DateTimeFormatter}. Supported formats:
+ * <ul>
+ * <li>dd/MM/yyyy, dd/MM/yyyy HH:mm:ss, dd/MM/yyyy HH:mm:ss.SSS</li>
+ * <li>dd-MM-yyyy, dd-MM-yyyy HH:mm:ss, dd-MM-yyyy HH:mm:ss.SSS</li>
+ * <li>yyyy-MM-dd, yyyy-MM-dd HH:mm:ss, yyyy-MM-dd HH:mm:ss.SSS</li>
+ * </ul>
+ * Day, month, hour, minute and second may have a single digit. Invalid dates (e.g. 31/02/2020) are rejected.
+ * <p>
+ * As with <code>SimpleDateFormat.parse(String)</code> a valid date followed by text that isn't a supported time
+ * (e.g. <code>05/10/2020 13:04</code> or <code>2020-10-05T13:04:05</code>) is accepted and the rest of the text is
+ * ignored i.e. the time is midnight.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class DateParser {
+
+    /**
+     * Formatters indexed by {@link #DAY_FIRST_SLASH}, {@link #DAY_FIRST_DASH} or {@link #YEAR_FIRST} plus
+     * {@link #WITH_TIME} or {@link #WITH_MILLIS}
+     */
+    private static final DateTimeFormatter[] FORMATTERS = {
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("d/M/uuuu H:m:s"),
+            DateTimeFormatter.ofPattern("d/M/uuuu H:m:s.SSS"),
+            DateTimeFormatter.ofPattern("d-M-uuuu"),
+            DateTimeFormatter.ofPattern("d-M-uuuu H:m:s"),
+            DateTimeFormatter.ofPattern("d-M-uuuu H:m:s.SSS"),
+            DateTimeFormatter.ofPattern("uuuu-M-d"),
+            DateTimeFormatter.ofPattern("uuuu-M-d H:m:s"),
+            DateTimeFormatter.ofPattern("uuuu-M-d H:m:s.SSS")
+    };
+    private static final int DAY_FIRST_SLASH = 0;
+    private static final int DAY_FIRST_DASH = 3;
+    private static final int YEAR_FIRST = 6;
+    private static final int WITH_TIME = 1;
+    private static final int WITH_MILLIS = 2;
+    private static final int FORMATS_PER_DATE = 3;
+
+    private DateParser() {
+    }
+
+    /**
+     * Parse date in the system default time zone
+     *
+     * @param text date as a string
+     * @return {@link Date} or null if the text is not a supported date
+     */
+    public static Date parse(String text) {
+        LocalDateTime dateTime = parseLocalDateTime(text);
+        return (dateTime == null) ? null : Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Parse date and time (midnight if the text has no time)
+     *
+     * @param text date as a string
+     * @return {@link LocalDateTime} or null if the text is not a supported date
+     */
+    public static LocalDateTime parseLocalDateTime(String text) {
+        if (text == null) {
+            return null;
+        }
+        String value = text.trim();
+        int index = formatter(value);
+        if (index < 0) {
+            return null;
+        }
+        LocalDateTime dateTime = parse(value, FORMATTERS[index], false);
+        return (dateTime == null) ? parse(value, FORMATTERS[index - index % FORMATS_PER_DATE], true) : dateTime;
+    }
+
+    /**
+     * @param prefix true to ignore text after the date
+     * @return date or null if the text doesn't match the formatter
+     */
+    private static LocalDateTime parse(String value, DateTimeFormatter formatter, boolean prefix) {
+        ParsePosition position = new ParsePosition(0);
+        TemporalAccessor parsed = formatter.parseUnresolved(value, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || (!prefix && position.getIndex() != value.length())) {
+            return null;
+        }
+        return toLocalDateTime(parsed);
+    }
+
+    /**
+     * Select the formatter from the separators i.e. the first separator ('/' or '-'), whether the date starts with a
+     * four digit year and whether there is a time and milliseconds part
+     *
+     * @return index of the formatter or -1 if the text isn't a supported date
+     */
+    private static int formatter(String value) {
+        int separator = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                separator = i;
+                break;
+            }
+        }
+        if (separator < 1) {
+            return -1;
+        }
+        int index;
+        if (value.charAt(separator) == '/') {
+            index = DAY_FIRST_SLASH;
+        } else if (value.charAt(separator) != '-') {
+            return -1;
+        } else {
+            index = (separator == 4) ? YEAR_FIRST : DAY_FIRST_DASH;
+        }
+        int space = value.indexOf(' ', separator);
+        if (space > -1) {
+            index += (value.indexOf('.', space) > -1) ? WITH_MILLIS : WITH_TIME;
+        }
+        return index;
+    }
+
+    private static LocalDateTime toLocalDateTime(TemporalAccessor parsed) {
+        long year = parsed.getLong(ChronoField.YEAR);
+        long month = parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        long day = parsed.getLong(ChronoField.DAY_OF_MONTH);
+        if (year < Year.MIN_VALUE || year > Year.MAX_VALUE || month < 1 || month > 12 || day < 1
+                || day > YearMonth.of((int) year, (int) month).lengthOfMonth()) {
+            return null;
+        }
+        long hour = field(parsed, ChronoField.HOUR_OF_DAY);
+        long minute = field(parsed, ChronoField.MINUTE_OF_HOUR);
+        long second = field(parsed, ChronoField.SECOND_OF_MINUTE);
+        long nano = field(parsed, ChronoField.NANO_OF_SECOND);
+        if (!ChronoField.HOUR_OF_DAY.range().isValidValue(hour) || !ChronoField.MINUTE_OF_HOUR.range().isValidValue(minute)
+                || !ChronoField.SECOND_OF_MINUTE.range().isValidValue(second)) {
+            return null;
+        }
+        return LocalDateTime.of((int) year, (int) month, (int) day, (int) hour, (int) minute, (int) second, (int) nano);
+    }
+
+    private static long field(TemporalAccessor parsed, ChronoField field) {
+        return parsed.isSupported(field) ? parsed.getLong(field) : 0;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per entity modification counters used to create ETags of entities without a @{@link javax.persistence.Version}
+ * or last modified field. Counters are incremented by the write endpoints of
+ * {@link com.cm.projects.spring.resource.chasis.ChasisResource} and are prefixed with the application start time so
+ * that versions issued before a restart never match.
+ * <p>
+ * <b>Note:</b> counters are kept in memory hence only see writes made through this application instance.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class EntityVersions {
+
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private static final Map<Class<?>, AtomicLong> COUNTERS = new ConcurrentHashMap<>();
+
+    private EntityVersions() {
+    }
+
+    /**
+     * Get the current version of the entity
+     *
+     * @param entityClass entity class
+     * @return version token
+     */
+    public static String current(Class<?> entityClass) {
+        return EPOCH + "." + counter(entityClass).get();
+    }
+
+    /**
+     * Increment the version of the entity. Called when records of the entity are modified
+     *
+     * @param entityClass entity class
+     */
+    public static void increment(Class<?> entityClass) {
+        counter(entityClass).incrementAndGet();
+    }
+
+    private static AtomicLong counter(Class<?> entityClass) {
+        return COUNTERS.computeIfAbsent(entityClass, clazz -> new AtomicLong());
+    }
+}
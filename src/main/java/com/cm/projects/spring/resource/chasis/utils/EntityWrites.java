@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.config.ReplicaRouting;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Used to record writes to the records of an entity so that state derived from the records isn't reused:
+ * <ul>
+ * <li>Cached counts are invalidated (see {@link CountCache})</li>
+ * <li>Reads in flight are no longer shared with new callers (see {@link SingleFlight})</li>
+ * <li>The entity version is incremented (see {@link EntityVersions})</li>
+ * <li>The caller reads from the primary database for a while (see {@link ReplicaRouting})</li>
+ * </ul>
+ * If a transaction is active the invalidation is repeated once it completes so that counts and versions read before
+ * the changes are committed are not reused.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class EntityWrites {
+
+    private EntityWrites() {
+    }
+
+    /**
+     * Record a write to the records of the entity
+     *
+     * @param entityClass entity class
+     */
+    public static void record(Class<?> entityClass) {
+        invalidate(entityClass);
+        ReplicaRouting.recordWrite();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(entityClass);
+                }
+            });
+        }
+    }
+
+    private static void invalidate(Class<?> entityClass) {
+        CountCache.forClass(entityClass).invalidate();
+        SingleFlight.forClass(entityClass).invalidate();
+        EntityVersions.increment(entityClass);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.annotations.Filter;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.repository.FetchGraphs;
+import com.cm.projects.spring.resource.chasis.wrappers.FacetValue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.ManyToOne;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.*;
+import java.lang.reflect.Field;
+import java.text.ParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Facets requested using the facets parameter e.g. <code>?facets=status,category</code>. Used to count the records
+ * having each value of @{@link Filter} fields:
+ * <ul>
+ * <li>Facets parameter is a comma separated list of @{@link Filter} fields. All non date range @{@link Filter}
+ * fields are counted if it isn't present</li>
+ * <li>Each facet is counted using a single group by query</li>
+ * <li>@{@link ManyToOne} fields are grouped by the id of the related record (foreign key column, no join)</li>
+ * <li>Values are ordered by count (most frequent first)</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class Facets<T> {
+
+    private final Class<T> entityClass;
+    private final List<Field> fields;
+
+    private Facets(Class<T> entityClass, List<Field> fields) {
+        this.entityClass = entityClass;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * Parse the facets parameter
+     *
+     * @param metadata entity metadata
+     * @param facets   comma separated @{@link Filter} field names (optional)
+     * @param <T>      entity type
+     * @return {@link Facets}
+     * @throws RunTimeBadRequest if a field is not a @{@link Filter} field
+     */
+    public static <T> Facets<T> of(EntityMetadata<T> metadata, String facets) {
+        if (facets == null || facets.isBlank()) {
+            return of(metadata, metadata.getFilterFields().stream()
+                    .filter(field -> !field.getAnnotation(Filter.class).isDateRange())
+                    .collect(Collectors.toList()));
+        }
+        List<Field> fields = new ArrayList<>();
+        for (String name : facets.split(",")) {
+            Field field = metadata.getFilterFields().stream()
+                    .filter(f -> f.getName().equals(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new RunTimeBadRequest("Unknown facet " + name.trim()));
+            if (!fields.contains(field)) {
+                fields.add(field);
+            }
+        }
+        return of(metadata, fields);
+    }
+
+    /**
+     * @param metadata entity metadata
+     * @param fields   fields to count
+     * @param <T>      entity type
+     * @return {@link Facets}
+     */
+    public static <T> Facets<T> of(EntityMetadata<T> metadata, List<Field> fields) {
+        return new Facets<>(metadata.getEntityClass(), new ArrayList<>(fields));
+    }
+
+    /**
+     * @return fields counted
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Count the records per value of each field
+     *
+     * @param entityManager entity manager
+     * @param restriction   restriction of the counted records
+     * @param limit         maximum number of values per field
+     * @param timeout       query timeout in seconds (0 for no timeout)
+     * @return values of each field by field name
+     * @throws ParseException if the restriction cannot be created
+     */
+    public Map<String, List<FacetValue>> count(EntityManager entityManager, Restriction<T> restriction, int limit,
+                                               int timeout) throws ParseException {
+        Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+        for (Field field : this.fields) {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createTupleQuery();
+            Root<T> root = criteriaQuery.from(this.entityClass);
+            Path<?> path = root.get(field.getName());
+            if (field.isAnnotationPresent(ManyToOne.class)) {
+                path = path.get(EntityMetadataRegistry.forClass(field.getType()).requireIdFieldName());
+            }
+            Expression<Long> count = criteriaBuilder.count(root);
+            criteriaQuery.multiselect(path, count);
+            criteriaQuery.where(restriction.toPredicate(criteriaBuilder, root));
+            criteriaQuery.groupBy(path);
+            criteriaQuery.orderBy(criteriaBuilder.desc(count));
+            List<FacetValue> values = new ArrayList<>();
+            for (Tuple row : FetchGraphs.timeout(entityManager.createQuery(criteriaQuery), timeout)
+                    .setMaxResults(limit).getResultList()) {
+                values.add(new FacetValue(row.get(0), row.get(1, Long.class)));
+            }
+            facets.put(field.getName(), values);
+        }
+        return facets;
+    }
+}
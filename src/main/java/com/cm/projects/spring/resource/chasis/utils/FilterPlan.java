@@ -0,0 +1,384 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.annotations.Filter;
+import com.cm.projects.spring.resource.chasis.annotations.Searchable;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.search.SearchFields;
+import com.cm.projects.spring.resource.chasis.service.ChasisService;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.ManyToOne;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Field;
+import java.text.ParseException;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Used to create query restrictions from request parameters. The plan of an entity (filter fields, paths and value
+ * types) is compiled once and shared by all requests (see {@link #forClass(Class)}). Restrictions include:
+ * <ul>
+ * <li>Search (needle) parameter on fields annotated with @{@link Searchable} or the ids resolved by a search index</li>
+ * <li>Filter parameters on fields annotated with @{@link Filter}</li>
+ * <li>Excludes deleted records if the entity has an intrash field</li>
+ * </ul>
+ * Filter parameter values are either a plain value or an operator followed by the value e.g.
+ * <code>?price=gt:100&amp;status=in:2,3&amp;approvedOn=isnull:</code>:
+ * <ul>
+ * <li>Plain values are matched using like (e.g. <code>?name=Jo%</code>), several values of the same parameter using in</li>
+ * <li>Operators are listed in {@link Operator}. A parameter can be repeated to combine operators e.g.
+ * <code>?price=gt:10&amp;price=lt:100</code></li>
+ * <li>A plain value starting with an operator name followed by <code>:</code> is parsed as an operator. Only the
+ * first operator is removed so <code>like:</code> (or <code>eq:</code>) matches such a value literally e.g.
+ * <code>?status=like:in:1</code></li>
+ * <li>@{@link ManyToOne} fields are compared using the id of the related entity (foreign key column, no join)</li>
+ * <li>Date range fields are filtered using the from and to parameters (see {@link Filter.RangeMode})</li>
+ * <li>{@link Date}, {@link Calendar} and java.time (e.g. {@link LocalDate}) values are parsed using
+ * {@link ChasisService#tryParse(String)}</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class FilterPlan<T> {
+
+    /**
+     * Compiled plans per entity class
+     */
+    private static final Map<Class<?>, FilterPlan<?>> PLANS = new ConcurrentHashMap<>();
+
+    private final EntityMetadata<T> metadata;
+    private final List<FilterField> fields;
+
+    private FilterPlan(EntityMetadata<T> metadata) {
+        this.metadata = metadata;
+        List<FilterField> filterFields = new ArrayList<>();
+        for (Field field : metadata.getFilterFields()) {
+            filterFields.add(new FilterField(field));
+        }
+        this.fields = Collections.unmodifiableList(filterFields);
+    }
+
+    /**
+     * Get the plan of the specified class compiling it if it doesn't exist
+     *
+     * @param clazz entity class
+     * @param <T>   entity type
+     * @return {@link FilterPlan}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> FilterPlan<T> forClass(Class<T> clazz) {
+        FilterPlan<T> plan = (FilterPlan<T>) PLANS.get(clazz);
+        if (plan == null) {
+            plan = (FilterPlan<T>) PLANS.computeIfAbsent(clazz, c -> new FilterPlan<>(EntityMetadataRegistry.forClass(c)));
+        }
+        return plan;
+    }
+
+    /**
+     * Used to create the restrictions of the request
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            query root
+     * @param request         HTTP Request used to get filter and search parameters
+     * @param searchIds       ids of the records matching the needle parameter resolved using a search index or null
+     *                        to match @{@link Searchable} fields in the database
+     * @param chasisService   used to parse dates
+     * @return {@link Predicate} (conjunction if there are no restrictions)
+     * @throws ParseException    if request param date cannot be casted to {@link Date}
+     * @throws RunTimeBadRequest if a filter value or operator is not valid
+     */
+    public Predicate toPredicate(CriteriaBuilder criteriaBuilder, Root<T> root, HttpServletRequest request,
+                                 Collection<?> searchIds, ChasisService chasisService) throws ParseException {
+        List<Predicate> predicates = new ArrayList<>();
+        for (FilterField field : fields) {
+            field.addPredicates(predicates, criteriaBuilder, root, request, chasisService);
+        }
+        if (metadata.hasIntrash()) {
+            predicates.add(criteriaBuilder.equal(root.get(metadata.getIntrashFieldName()), AppConstants.NO));
+        }
+
+        String needle = request.getParameter("needle");
+        if (searchIds != null) {
+            predicates.add(searchIds.isEmpty() ? criteriaBuilder.disjunction()
+                    : root.get(metadata.requireIdFieldName()).in(searchIds));
+        } else if (needle != null && !metadata.getSearchableFields().isEmpty()) {
+            List<Predicate> searchPreds = new ArrayList<>();
+            for (Field field : metadata.getSearchableFields()) {
+                searchPreds.add(SearchFields.predicate(criteriaBuilder, root, field, needle));
+            }
+            predicates.add(criteriaBuilder.or(searchPreds.toArray(new Predicate[0])));
+        }
+        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Filter operators
+     */
+    public enum Operator {
+        /**
+         * Equal to the value
+         */
+        EQ,
+        /**
+         * Not equal to the value
+         */
+        NE,
+        /**
+         * Greater than the value
+         */
+        GT,
+        /**
+         * Greater than or equal to the value
+         */
+        GE,
+        /**
+         * Less than the value
+         */
+        LT,
+        /**
+         * Less than or equal to the value
+         */
+        LE,
+        /**
+         * Between two comma separated values (inclusive) e.g. between:10,100
+         */
+        BETWEEN,
+        /**
+         * One of the comma separated values e.g. in:2,3
+         */
+        IN,
+        /**
+         * Is null (isnull: or isnull:true) or is not null (isnull:false)
+         */
+        ISNULL,
+        /**
+         * Like the value e.g. like:Jo% (default for plain values)
+         */
+        LIKE;
+
+        private static final Map<String, Operator> NAMES = new HashMap<>();
+
+        static {
+            for (Operator operator : values()) {
+                NAMES.put(operator.name().toLowerCase(Locale.ROOT), operator);
+            }
+        }
+
+        /**
+         * @param name operator name (lower case)
+         * @return {@link Operator} or null if the name is not an operator
+         */
+        public static Operator forName(String name) {
+            return NAMES.get(name);
+        }
+    }
+
+    /**
+     * Compiled @{@link Filter} field i.e. query path and the type parameter values are converted to
+     */
+    private static final class FilterField {
+
+        private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+        private final String name;
+        private final boolean dateRange;
+        private final Filter.RangeMode rangeMode;
+        private final String relationIdName;
+        private final Class<?> valueType;
+        private final boolean comparable;
+
+        private FilterField(Field field) {
+            this.name = field.getName();
+            this.dateRange = field.getAnnotation(Filter.class).isDateRange();
+            this.rangeMode = field.getAnnotation(Filter.class).rangeMode();
+            if (field.isAnnotationPresent(ManyToOne.class)) {
+                EntityMetadata<?> relation = EntityMetadataRegistry.forClass(field.getType());
+                this.relationIdName = relation.requireIdFieldName();
+                this.valueType = ClassUtils.resolvePrimitiveIfNecessary(relation.getIdField().getType());
+            } else {
+                this.relationIdName = null;
+                this.valueType = ClassUtils.resolvePrimitiveIfNecessary(field.getType());
+            }
+            this.comparable = Comparable.class.isAssignableFrom(this.valueType);
+        }
+
+        private Path<Object> path(Root<?> root) {
+            Path<Object> path = root.get(name);
+            return (relationIdName == null) ? path : path.get(relationIdName);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void addPredicates(List<Predicate> predicates, CriteriaBuilder criteriaBuilder, Root<?> root,
+                                   HttpServletRequest request, ChasisService chasisService) throws ParseException {
+            if (dateRange && rangeMode == Filter.RangeMode.HALF_OPEN && request.getParameter("to") != null
+                    && request.getParameter("from") != null) {
+                LocalDateTime from = parseDateTime(request.getParameter("from"), chasisService);
+                LocalDateTime to = parseDateTime(request.getParameter("to"), chasisService).toLocalDate()
+                        .plusDays(1).atStartOfDay();
+                Path path = root.get(name);
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(path, (Comparable) this.temporal(from)));
+                predicates.add(criteriaBuilder.lessThan(path, (Comparable) this.temporal(to)));
+                return;
+            } else if (dateRange && request.getParameter("to") != null && request.getParameter("from") != null) {
+                Calendar cal = Calendar.getInstance();
+                cal.setTime(parseDate(request.getParameter("from"), chasisService));
+                cal.add(Calendar.DAY_OF_WEEK, -1);
+                Date from = cal.getTime();
+                cal.setTime(parseDate(request.getParameter("to"), chasisService));
+                cal.add(Calendar.DAY_OF_WEEK, 1);
+                Date to = cal.getTime();
+                predicates.add(criteriaBuilder.between(root.get(name).as(Date.class), from, to));
+                return;
+            }
+            String[] values = request.getParameterValues(name);
+            if (values == null || values.length == 0 || values[0] == null || values[0].isEmpty()) {
+                return;
+            }
+            Path path = this.path(root);
+            if (values.length > 1 && Arrays.stream(values).noneMatch(value -> operator(value) != null)) {
+                predicates.add(path.in(this.convert(Arrays.asList(values), chasisService)));
+                return;
+            }
+            for (String value : values) {
+                Operator operator = operator(value);
+                String operand = (operator == null) ? value : value.substring(value.indexOf(':') + 1);
+                if (operator == null) {
+                    operator = (relationIdName == null) ? Operator.LIKE : Operator.EQ;
+                }
+                switch (operator) {
+                    case EQ:
+                        predicates.add(criteriaBuilder.equal(path, this.convert(operand, chasisService)));
+                        break;
+                    case NE:
+                        predicates.add(criteriaBuilder.notEqual(path, this.convert(operand, chasisService)));
+                        break;
+                    case GT:
+                        predicates.add(criteriaBuilder.greaterThan(path, this.comparable(operand, chasisService)));
+                        break;
+                    case GE:
+                        predicates.add(criteriaBuilder.greaterThanOrEqualTo(path, this.comparable(operand, chasisService)));
+                        break;
+                    case LT:
+                        predicates.add(criteriaBuilder.lessThan(path, this.comparable(operand, chasisService)));
+                        break;
+                    case LE:
+                        predicates.add(criteriaBuilder.lessThanOrEqualTo(path, this.comparable(operand, chasisService)));
+                        break;
+                    case BETWEEN:
+                        String[] bounds = operand.split(",", -1);
+                        if (bounds.length != 2) {
+                            throw new RunTimeBadRequest("Filter " + name + " between requires two values");
+                        }
+                        predicates.add(criteriaBuilder.between(path, this.comparable(bounds[0], chasisService),
+                                this.comparable(bounds[1], chasisService)));
+                        break;
+                    case IN:
+                        predicates.add(path.in(this.convert(Arrays.asList(operand.split(",")), chasisService)));
+                        break;
+                    case ISNULL:
+                        predicates.add(("false".equalsIgnoreCase(operand.trim())) ? criteriaBuilder.isNotNull(path)
+                                : criteriaBuilder.isNull(path));
+                        break;
+                    default:
+                        predicates.add(criteriaBuilder.like(root.get(name).as(String.class), operand));
+                }
+            }
+        }
+
+        private static Operator operator(String value) {
+            int index = value.indexOf(':');
+            return (index < 1) ? null : Operator.forName(value.substring(0, index).toLowerCase(Locale.ROOT));
+        }
+
+        private List<Object> convert(List<String> values, ChasisService chasisService) throws ParseException {
+            List<Object> converted = new ArrayList<>(values.size());
+            for (String value : values) {
+                converted.add(this.convert(value, chasisService));
+            }
+            return converted;
+        }
+
+        @SuppressWarnings("rawtypes")
+        private Comparable comparable(String value, ChasisService chasisService) throws ParseException {
+            if (!comparable) {
+                throw new RunTimeBadRequest("Filter " + name + " doesn't support comparison");
+            }
+            return (Comparable) this.convert(value, chasisService);
+        }
+
+        private Object convert(String value, ChasisService chasisService) throws ParseException {
+            if (Date.class.isAssignableFrom(valueType) || Calendar.class.isAssignableFrom(valueType)
+                    || valueType.getPackage() == LocalDate.class.getPackage()) {
+                return this.temporal(parseDateTime(value, chasisService));
+            }
+            try {
+                return CONVERSION_SERVICE.convert(value.trim(), valueType);
+            } catch (ConversionException ex) {
+                throw new RunTimeBadRequest("Invalid value " + value + " for filter " + name);
+            }
+        }
+
+        /**
+         * Convert to the type of the field. {@link Date} subclasses (e.g. {@link java.sql.Timestamp}) are compared
+         * as {@link Date}
+         */
+        private Object temporal(LocalDateTime value) {
+            ZonedDateTime zoned = value.atZone(ZoneId.systemDefault());
+            if (Date.class.isAssignableFrom(valueType)) {
+                return Date.from(zoned.toInstant());
+            } else if (Calendar.class.isAssignableFrom(valueType)) {
+                return GregorianCalendar.from(zoned);
+            } else if (valueType == LocalDate.class) {
+                return value.toLocalDate();
+            } else if (valueType == LocalDateTime.class) {
+                return value;
+            } else if (valueType == Instant.class) {
+                return zoned.toInstant();
+            } else if (valueType == OffsetDateTime.class) {
+                return zoned.toOffsetDateTime();
+            } else if (valueType == ZonedDateTime.class) {
+                return zoned;
+            }
+            throw new RunTimeBadRequest("Filter " + name + " is not a date");
+        }
+
+        private static LocalDateTime parseDateTime(String value, ChasisService chasisService) throws ParseException {
+            return LocalDateTime.ofInstant(parseDate(value, chasisService).toInstant(), ZoneId.systemDefault());
+        }
+
+        private static Date parseDate(String value, ChasisService chasisService) throws ParseException {
+            Date date = chasisService.tryParse(value);
+            if (date == null) {
+                throw new ParseException("Failed to parse " + value + " to date", 0);
+            }
+            return date;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes and decodes keyset pagination cursors. A cursor is the URL safe Base64 form of a JSON array holding the sort
+ * key values of the last record of a page (the last value is always the record id). Clients should treat it as an
+ * opaque string.
+ * <p>
+ * Null sort key values sort before every other value i.e. first in ascending order and last in descending order
+ * whatever the database default is. Keys that may be null (see {@link #isNullable(Field)}) are therefore ordered by
+ * an extra <code>is null</code> expression which prevents the database from reading them in index order, declare sort
+ * fields as not nullable when they can't be null.
+ * <p>
+ * {@link Date} and {@link Timestamp} sort keys are encoded as ISO-8601 instants with nanoseconds (e.g.
+ * <code>2020-10-01T08:30:00.123456789Z</code>) so that records created within the same millisecond aren't skipped
+ * or repeated. Cursors holding epoch milliseconds (encoded by earlier versions) are still accepted.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class KeysetCursor {
+
+    /**
+     * Reads decimals as {@link java.math.BigDecimal} so that decimal sort keys keep their exact value and writes
+     * timestamps with nanoseconds
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules()
+            .registerModule(new SimpleModule("KeysetCursor")
+                    .addSerializer(Date.class, new DateSerializer())
+                    .addDeserializer(Date.class, new DateDeserializer<>(Date.class,
+                            instant -> (instant.getNano() % 1_000_000 == 0) ? Date.from(instant) : Timestamp.from(instant)))
+                    .addDeserializer(Timestamp.class, new DateDeserializer<>(Timestamp.class, Timestamp::from)))
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Encode sort key values
+     *
+     * @param values sort key values in sort order
+     * @return opaque cursor
+     */
+    public static String encode(List<Object> values) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(values));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode cursor values " + values, ex);
+        }
+    }
+
+    /**
+     * Decode cursor
+     *
+     * @param cursor opaque cursor
+     * @param types  expected sort key types in sort order
+     * @return sort key values
+     * @throws RunTimeBadRequest if the cursor is malformed or doesn't match the current sort keys
+     */
+    public static List<Object> decode(String cursor, List<Class<?>> types) {
+        try {
+            JsonNode node = MAPPER.readTree(Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII)));
+            if (node == null || !node.isArray() || node.size() != types.size()) {
+                throw new RunTimeBadRequest("Invalid cursor. Cursor doesn't match the requested sort order");
+            }
+            List<Object> values = new ArrayList<>(types.size());
+            for (int i = 0; i < types.size(); i++) {
+                values.add(node.get(i).isNull() ? null : MAPPER.treeToValue(node.get(i), types.get(i)));
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new RunTimeBadRequest("Invalid cursor " + cursor);
+        }
+    }
+
+    /**
+     * Used to decide whether a sort key needs null handling. A field can't be null if it is the id, primitive,
+     * annotated with {@link NotNull} or mapped as not nullable / not optional ({@link Column}, {@link Basic},
+     * {@link ManyToOne} and {@link JoinColumn})
+     *
+     * @param field sort key field
+     * @return true if the field may hold null
+     */
+    public static boolean isNullable(Field field) {
+        if (field.getType().isPrimitive() || field.isAnnotationPresent(Id.class) || field.isAnnotationPresent(NotNull.class)) {
+            return false;
+        }
+        Column column = field.getAnnotation(Column.class);
+        Basic basic = field.getAnnotation(Basic.class);
+        ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+        JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+        return (column == null || column.nullable()) && (basic == null || basic.optional())
+                && (manyToOne == null || manyToOne.optional()) && (joinColumn == null || joinColumn.nullable());
+    }
+
+    /**
+     * Writes {@link Date} and {@link Timestamp} values as ISO-8601 instants. {@link java.sql.Date} and
+     * {@link java.sql.Time} values (no time or date part) are written as epoch milliseconds
+     */
+    private static final class DateSerializer extends StdSerializer<Date> {
+
+        private DateSerializer() {
+            super(Date.class);
+        }
+
+        @Override
+        public void serialize(Date value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+                gen.writeNumber(value.getTime());
+            } else if (value instanceof Timestamp) {
+                gen.writeString(((Timestamp) value).toInstant().toString());
+            } else {
+                gen.writeString(value.toInstant().toString());
+            }
+        }
+    }
+
+    /**
+     * Reads ISO-8601 instants and epoch milliseconds
+     */
+    private static final class DateDeserializer<T extends Date> extends StdDeserializer<T> {
+
+        private final transient Function<Instant, T> converter;
+
+        private DateDeserializer(Class<T> type, Function<Instant, T> converter) {
+            super(type);
+            this.converter = converter;
+        }
+
+        @Override
+        public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return this.converter.apply(Instant.ofEpochMilli(parser.getLongValue()));
+            }
+            try {
+                return this.converter.apply(Instant.parse(parser.getValueAsString("")));
+            } catch (DateTimeParseException ex) {
+                throw context.weirdStringException(parser.getText(), handledType(), "Not an ISO-8601 instant");
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.wrappers.ChasisPage;
+import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.DatabaseMetaData;
+import java.text.ParseException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Used to write a page of records as they are read from the database instead of holding the page in memory. Writes
+ * the same JSON as a {@link ResponseWrapper} of {@link ChasisPage}:
+ * <ul>
+ * <li>The envelope is written first then each record followed by the page properties</li>
+ * <li>The records stream is closed (releasing the database cursor) before the page properties are created since
+ * they may need to count records</li>
+ * <li>Errors after the first byte has been written can't change the response status, the response is truncated
+ * instead</li>
+ * </ul>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class PageStream {
+
+    private final ObjectMapper mapper;
+    private final ObjectMapper pageMapper;
+
+    /**
+     * @param mapper object mapper writing the records and the envelope
+     */
+    public PageStream(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.pageMapper = mapper.copy().addMixIn(ChasisPage.class, PageProperties.class);
+    }
+
+    /**
+     * Write the page
+     *
+     * @param out        response body
+     * @param records    records in page order, at most one more than the page size is read to know if there is a next page
+     * @param pageSize   page size
+     * @param chunkSize  number of records written between flushes
+     * @param onFlush    called after each chunk of records is flushed e.g. to clear the persistence context
+     * @param pages      creates the page properties once the records have been written
+     * @throws IOException if writing the response or creating the page fails
+     */
+    public void write(OutputStream out, Stream<?> records, int pageSize, int chunkSize, Runnable onFlush,
+                      PageFactory pages) throws IOException {
+        JsonNode envelope = this.mapper.valueToTree(new ResponseWrapper<>());
+        try (JsonGenerator generator = this.mapper.getFactory().createGenerator(out);
+             Stream<?> rows = records) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = envelope.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                if (!field.getKey().equals("data")) {
+                    generator.writeTree(field.getValue());
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("content");
+                SequenceWriter rowWriter = this.mapper.writer().writeValues(generator);
+                int written = 0;
+                boolean hasNext = false;
+                for (Iterator<?> iterator = rows.iterator(); iterator.hasNext(); ) {
+                    Object row = iterator.next();
+                    if (written == pageSize) {
+                        hasNext = true;
+                        break;
+                    }
+                    rowWriter.write(row);
+                    if (++written % chunkSize == 0) {
+                        rowWriter.flush();
+                        onFlush.run();
+                    }
+                }
+                generator.writeEndArray();
+                //release the cursor before counting, streamed MySQL rows block other queries on the connection
+                rows.close();
+                ChasisPage<?> page;
+                try {
+                    page = pages.create(written, hasNext);
+                } catch (ParseException ex) {
+                    throw new IOException(ex);
+                }
+                for (Iterator<Map.Entry<String, JsonNode>> properties = this.pageMapper.valueToTree(page).fields();
+                     properties.hasNext(); ) {
+                    Map.Entry<String, JsonNode> property = properties.next();
+                    generator.writeFieldName(property.getKey());
+                    generator.writeTree(property.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Used to find out if the JDBC driver reads every row into memory unless the fetch size is
+     * {@link Integer#MIN_VALUE} i.e. MySQL without <code>useCursorFetch=true</code>
+     *
+     * @param entityManager entity manager
+     * @return true if rows are only streamed using the {@link Integer#MIN_VALUE} fetch size
+     */
+    public static boolean isRowStreaming(EntityManager entityManager) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String url = (metaData.getURL() == null) ? "" : metaData.getURL().toLowerCase();
+            return metaData.getDatabaseProductName().equalsIgnoreCase("MySQL")
+                    && !url.contains("usecursorfetch=true");
+        });
+    }
+
+    /**
+     * Creates the page properties of a streamed page
+     */
+    @FunctionalInterface
+    public interface PageFactory {
+
+        /**
+         * @param written number of records written
+         * @param hasNext true if there are more records after the page
+         * @return page (its content is not written)
+         * @throws ParseException if counting records fails to parse a request parameter
+         */
+        ChasisPage<?> create(int written, boolean hasNext) throws ParseException;
+    }
+
+    /**
+     * Jackson mix-in used to write the page properties of a streamed page (the content is written as it is read)
+     */
+    @JsonIgnoreProperties("content")
+    private interface PageProperties {
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.metadata.PropertyHandle;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import javax.persistence.*;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Subset of entity fields requested using the fields parameter e.g. <code>?fields=name,status</code>. Used to
+ * select only the requested columns instead of loading whole entities:
+ * <ul>
+ * <li>Fields are selected as tuple elements in the order of {@link #getFields()}</li>
+ * <li>@{@link ManyToOne} fields select the id of the related entity (foreign key column, no join) and are returned as
+ * <code>{"id": value}</code></li>
+ * <li>The entity id is always selected, entities without an @{@link Id} field don't support projections</li>
+ * <li>Rows are written like the entity by the object mapper writing the response i.e. JSON names, @JsonFormat and
+ * custom serializers of the entity's properties are applied (see {@link Row})</li>
+ * <li>Collections, @{@link OneToOne}, transient and fields hidden from JSON (@{@link JsonIgnore} or write only) can't be
+ * selected</li>
+ * </ul>
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class Projection<T> {
+
+    private final Class<T> entityClass;
+    private final List<Field> fields;
+    /**
+     * Names of the selected @{@link ManyToOne} fields
+     */
+    private final Set<String> relations = new HashSet<>();
+    /**
+     * Property writers by field name resolved from the last entity serializer (see {@link #writers(SerializerProvider)})
+     */
+    private volatile Writers writers;
+
+    private Projection(Class<T> entityClass, List<Field> fields) {
+        this.entityClass = entityClass;
+        this.fields = Collections.unmodifiableList(fields);
+        for (Field field : fields) {
+            if (field.isAnnotationPresent(ManyToOne.class)) {
+                this.relations.add(field.getName());
+            }
+        }
+    }
+
+    /**
+     * Parse comma separated field names
+     *
+     * @param metadata entity metadata
+     * @param fields   comma separated field names
+     * @param <T>      entity type
+     * @return {@link Projection} or null if fields is empty
+     * @throws RunTimeBadRequest if a field doesn't exist or can't be selected or the entity doesn't have an
+     *                           @{@link Id} field
+     */
+    public static <T> Projection<T> of(EntityMetadata<T> metadata, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        if (metadata.getIdField() == null) {
+            throw new RunTimeBadRequest("Selecting fields of " + metadata.getRecordName() + " records requires an @Id field");
+        }
+        List<Field> selected = new ArrayList<>();
+        selected.add(metadata.getIdField());
+        for (String name : fields.split(",")) {
+            Field field = metadata.getField(name.trim());
+            if (field == null || !isSelectable(metadata, field)) {
+                throw new RunTimeBadRequest("Unknown field " + name.trim());
+            }
+            if (!selected.contains(field)) {
+                selected.add(field);
+            }
+        }
+        return new Projection<>(metadata.getEntityClass(), selected);
+    }
+
+    /**
+     * @return selected fields (id field first)
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Used to create tuple selections of the projected fields
+     *
+     * @param root query root
+     * @return selections in the order of {@link #getFields()}
+     */
+    public List<Selection<?>> select(Root<T> root) {
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            Path<Object> path = root.get(field.getName());
+            if (field.isAnnotationPresent(ManyToOne.class)) {
+                path = path.get(EntityMetadataRegistry.forClass(field.getType()).getIdFieldName());
+            }
+            selections.add(path);
+        }
+        return selections;
+    }
+
+    /**
+     * Used to convert a row selected using {@link #select(Root)} to a map of field name and value
+     *
+     * @param tuple query row
+     * @return field values in the requested order
+     */
+    public Row read(Tuple tuple) {
+        Row row = new Row(this);
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            Object value = tuple.get(i);
+            if (value != null && field.isAnnotationPresent(ManyToOne.class)) {
+                value = Collections.singletonMap(EntityMetadataRegistry.forClass(field.getType()).getIdFieldName(), value);
+            }
+            row.put(field.getName(), value);
+        }
+        return row;
+    }
+
+    /**
+     * Used to resolve the property writers of the entity from the serializer the object mapper uses for the entity.
+     * Writers are cached for the last serializer (object mappers cache serializers)
+     *
+     * @param provider serializer provider of the object mapper writing the row
+     * @return property writers by field name, null if the entity isn't serialized as a bean
+     * @throws com.fasterxml.jackson.databind.JsonMappingException if the entity serializer can't be resolved
+     */
+    private Map<String, BeanPropertyWriter> writers(SerializerProvider provider) throws IOException {
+        JsonSerializer<Object> serializer = provider.findValueSerializer(this.entityClass);
+        Writers cached = this.writers;
+        if (cached != null && cached.serializer == serializer) {
+            return cached.writers;
+        }
+        Map<String, BeanPropertyWriter> byName = new HashMap<>();
+        for (Iterator<PropertyWriter> it = serializer.properties(); it.hasNext(); ) {
+            PropertyWriter writer = it.next();
+            if (writer instanceof BeanPropertyWriter) {
+                byName.put(writer.getName(), (BeanPropertyWriter) writer);
+            }
+        }
+        Map<String, BeanPropertyWriter> byField = null;
+        if (!byName.isEmpty()) {
+            byField = new HashMap<>();
+            for (BeanPropertyDefinition property : provider.getConfig()
+                    .introspect(provider.constructType(this.entityClass)).findProperties()) {
+                BeanPropertyWriter writer = byName.get(property.getName());
+                if (writer != null) {
+                    byField.put(property.getInternalName(), writer);
+                }
+            }
+        }
+        this.writers = new Writers(serializer, byField);
+        return byField;
+    }
+
+    static boolean isSelectable(EntityMetadata<?> metadata, Field field) {
+        if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())
+                || field.isAnnotationPresent(Transient.class) || field.isAnnotationPresent(OneToMany.class)
+                || field.isAnnotationPresent(OneToOne.class) || field.isAnnotationPresent(ManyToMany.class)
+                || field.isAnnotationPresent(ElementCollection.class)
+                || isHidden(field)) {
+            return false;
+        }
+        PropertyHandle property = metadata.getProperty(field.getName());
+        return property == null || property.getDescriptor().getReadMethod() == null
+                || !isHidden(property.getDescriptor().getReadMethod());
+    }
+
+    private static boolean isHidden(AnnotatedElement element) {
+        JsonIgnore ignore = element.getAnnotation(JsonIgnore.class);
+        JsonProperty property = element.getAnnotation(JsonProperty.class);
+        return (ignore != null && ignore.value())
+                || (property != null && property.access() == JsonProperty.Access.WRITE_ONLY);
+    }
+
+    /**
+     * Selected field values by field name in the requested order. Written by {@link RowSerializer} like the
+     * properties of the entity
+     */
+    @JsonSerialize(using = RowSerializer.class)
+    public static final class Row extends LinkedHashMap<String, Object> {
+
+        private static final long serialVersionUID = 1L;
+        private final transient Projection<?> projection;
+
+        Row(Projection<?> projection) {
+            this.projection = projection;
+        }
+    }
+
+    /**
+     * Writes rows using the property writers of the entity serializer:
+     * <ul>
+     * <li>Fields are named using their JSON names e.g. @{@link JsonProperty}</li>
+     * <li>Values are written using the serializer of the property i.e. @JsonFormat and @JsonSerialize are applied</li>
+     * <li>Null values are omitted if the property excludes nulls and fields the entity serializer doesn't write
+     * (e.g. @JsonIgnoreProperties) are omitted</li>
+     * <li>@{@link ManyToOne} values are written as <code>{"id": value}</code></li>
+     * </ul>
+     * If the entity isn't serialized as a bean the map is written as is
+     */
+    static final class RowSerializer extends StdSerializer<Row> {
+
+        private static final long serialVersionUID = 1L;
+
+        RowSerializer() {
+            super(Row.class);
+        }
+
+        @Override
+        public void serialize(Row row, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            Map<String, BeanPropertyWriter> writers = (row.projection == null) ? null : row.projection.writers(provider);
+            generator.writeStartObject(row);
+            for (Map.Entry<String, Object> entry : row.entrySet()) {
+                Object value = entry.getValue();
+                if (writers == null) {
+                    generator.writeFieldName(entry.getKey());
+                    provider.defaultSerializeValue(value, generator);
+                    continue;
+                }
+                BeanPropertyWriter writer = writers.get(entry.getKey());
+                if (writer == null || (value == null && writer.willSuppressNulls())) {
+                    continue;
+                }
+                generator.writeFieldName(writer.getName());
+                if (value == null) {
+                    provider.defaultSerializeNull(generator);
+                } else if (row.projection.relations.contains(entry.getKey())) {
+                    provider.defaultSerializeValue(value, generator);
+                } else if (writer.hasSerializer()) {
+                    writer.getSerializer().serialize(value, generator, provider);
+                } else {
+                    provider.findValueSerializer(value.getClass(), writer).serialize(value, generator, provider);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Property writers by field name resolved from an entity serializer
+     */
+    private static final class Writers {
+
+        private final JsonSerializer<Object> serializer;
+        private final Map<String, BeanPropertyWriter> writers;
+
+        private Writers(JsonSerializer<Object> serializer, Map<String, BeanPropertyWriter> writers) {
+            this.serializer = serializer;
+            this.writers = writers;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.text.ParseException;
+
+/**
+ * Restriction of queries on the records of an entity e.g. the search and filter parameters of a request. Used by
+ * query helpers such as {@link Facets} and {@link Aggregation} to restrict their queries the same way record lists
+ * are restricted
+ *
+ * @param <T> entity type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+@FunctionalInterface
+public interface Restriction<T> {
+
+    /**
+     * Create the query restriction
+     *
+     * @param criteriaBuilder criteria builder
+     * @param root            query root
+     * @return {@link Predicate}
+     * @throws ParseException if a date parameter cannot be parsed
+     */
+    Predicate toPredicate(CriteriaBuilder criteriaBuilder, Root<T> root) throws ParseException;
+}
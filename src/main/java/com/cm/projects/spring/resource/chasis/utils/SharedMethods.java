@@ -10,7 +10,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.security.InvalidKeyException;
@@ -30,13 +29,13 @@ import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.SecretKeySpec;
-import javax.persistence.Id;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
 //import ke.co.tracom.gulf.dcc.entities.CmsUser;
 //import ke.co.tracom.gulf.dcc.repository.UserRepository;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.PropertyAccessorFactory;
+import com.cm.projects.spring.resource.chasis.metadata.FastBeanWrapper;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
@@ -239,12 +238,11 @@ public class SharedMethods {
      * @return id value
      */
     public static Object getEntityIdValue(Object entity) {
-        for (Field field : entity.getClass().getDeclaredFields()) {
-            if (field.isAnnotationPresent(Id.class)) {
-                return PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(field.getName());
-            }
+        String fieldId = EntityMetadataRegistry.forEntity(entity).getIdFieldName();
+        if (fieldId == null) {
+            return null;
         }
-        return null;
+        return FastBeanWrapper.forBean(entity).getPropertyValue(fieldId);
     }
     
     /**
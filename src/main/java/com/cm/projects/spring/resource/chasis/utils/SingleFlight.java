@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces identical concurrent reads of an entity: the first caller of a key executes the read and callers arriving
+ * while it is in flight wait for its result (or its exception) instead of running the same queries. Used by
+ * {@link com.cm.projects.spring.resource.chasis.ChasisResource} for record lists and single records.
+ * <ul>
+ * <li>Callers wait at most {@link #getMaxWaitMillis()} then execute the read themselves</li>
+ * <li>Results are only shared while the read is in flight, nothing is cached after it completes</li>
+ * <li>Results holding state of the caller (e.g. managed entities or mutable responses) are shared as a detached copy
+ * made by the first caller once the read completes (only if others are waiting for it), each waiting caller gets its
+ * own result made from the copy (see {@link #execute(String, Read, Function, Function)})</li>
+ * <li>{@link #invalidate()} (called on writes to the entity) makes new callers start a new read so that reads started
+ * before a write are not shared with callers arriving after it</li>
+ * </ul>
+ * A single instance is shared by all resources of the same entity (see {@link #forClass(Class)}). Execution,
+ * coalesced and timeout counts are exposed through {@link SingleFlightMXBean}.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class SingleFlight implements SingleFlightMXBean {
+
+    /**
+     * Default maximum time a caller waits for an identical read in milliseconds
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30_000;
+    private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+    private static final Map<Class<?>, SingleFlight> FLIGHTS = new ConcurrentHashMap<>();
+
+    private final Class<?> entityClass;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private volatile long maxWaitMillis;
+
+    /**
+     * @param entityClass   entity class
+     * @param maxWaitMillis maximum time a caller waits for an identical read in milliseconds (0 disables coalescing)
+     */
+    public SingleFlight(Class<?> entityClass, long maxWaitMillis) {
+        this.entityClass = entityClass;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Get the instance of the specified entity creating (and registering its MXBean) if it doesn't exist
+     *
+     * @param entityClass entity class
+     * @return {@link SingleFlight}
+     */
+    public static SingleFlight forClass(Class<?> entityClass) {
+        return FLIGHTS.computeIfAbsent(entityClass, clazz -> {
+            SingleFlight flight = new SingleFlight(clazz, DEFAULT_MAX_WAIT_MILLIS);
+            flight.register();
+            return flight;
+        });
+    }
+
+    /**
+     * Used to execute a read or wait for the identical read in flight. The result instance is shared by all callers of
+     * the same flight hence only use for immutable results, see {@link #execute(String, Read, Function, Function)}
+     *
+     * @param key  identifies identical reads i.e. the operation, its parameters and anything else the result depends
+     *             on (e.g. the caller)
+     * @param read read to execute
+     * @param <R>  result type
+     * @param <X>  exception thrown by the read
+     * @return result of the read (shared by all callers of the same flight)
+     * @throws X if the read fails (the exception is shared by all callers of the same flight)
+     */
+    public <R, X extends Exception> R execute(String key, Read<R, X> read) throws X {
+        return this.execute(key, read, Function.identity(), Function.identity());
+    }
+
+    /**
+     * Used to execute a read or wait for the identical read in flight. Callers waiting for the read get their own
+     * result made from a detached copy of the result of the caller executing it
+     *
+     * @param key    identifies identical reads i.e. the operation, its parameters and anything else the result depends
+     *               on (e.g. the caller)
+     * @param read   read to execute
+     * @param detach used by the caller executing the read to copy its result if other callers are waiting for it e.g.
+     *               serialize it. The copy must not reference state of the caller
+     * @param attach used by each waiting caller to make its result from the copy
+     * @param <R>    result type
+     * @param <S>    detached copy type
+     * @param <X>    exception thrown by the read
+     * @return result of the read
+     * @throws X if the read fails (the exception is shared by all callers of the same flight)
+     */
+    @SuppressWarnings("unchecked")
+    public <R, S, X extends Exception> R execute(String key, Read<R, X> read, Function<? super R, ? extends S> detach,
+                                                 Function<? super S, ? extends R> attach) throws X {
+        long wait = this.maxWaitMillis;
+        if (wait <= 0) {
+            return read.execute();
+        }
+        Flight flight = new Flight();
+        Flight leader = this.inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            this.executions.incrementAndGet();
+            R result;
+            try {
+                result = read.execute();
+            } catch (Throwable ex) {
+                this.inFlight.remove(key, flight);
+                flight.seal();
+                flight.result.completeExceptionally(ex);
+                throw ex;
+            }
+            this.inFlight.remove(key, flight);
+            if (flight.seal()) {
+                try {
+                    flight.result.complete(detach.apply(result));
+                } catch (RuntimeException | Error ex) {
+                    flight.result.completeExceptionally(ex);
+                }
+            }
+            return result;
+        }
+        if (!leader.join()) {
+            //the read completed while joining, start a new one
+            return this.execute(key, read, detach, attach);
+        }
+
+        try {
+            Object result = leader.result.get(wait, TimeUnit.MILLISECONDS);
+            this.coalesced.incrementAndGet();
+            return attach.apply((S) result);
+        } catch (ExecutionException ex) {
+            this.coalesced.incrementAndGet();
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (X) cause;
+        } catch (TimeoutException ex) {
+            this.timeouts.incrementAndGet();
+            log.debug("Identical {} read didn't complete in {}ms executing {}", entityClass.getSimpleName(), wait, key);
+            return read.execute();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return read.execute();
+        }
+    }
+
+    /**
+     * Used to stop sharing the reads in flight with new callers e.g. after a write
+     */
+    public void invalidate() {
+        this.inFlight.clear();
+    }
+
+    /**
+     * Register the MXBean with the platform MBean server. Failures are logged and ignored
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName("com.cm.projects.spring.resource.chasis:type=SingleFlight,name="
+                    + ObjectName.quote(entityClass.getName())));
+        } catch (InstanceAlreadyExistsException ex) {
+            log.debug("Single flight MXBean for {} is already registered", entityClass.getName());
+        } catch (JMException | SecurityException ex) {
+            log.warn("Failed to register single flight MXBean for {}", entityClass.getName(), ex);
+        }
+    }
+
+    /**
+     * @param maxWaitMillis maximum time a caller waits for an identical read in milliseconds (0 disables coalescing)
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Override
+    public long getExecutionCount() {
+        return executions.get();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public double getCoalescedRatio() {
+        long total = executions.get() + coalesced.get();
+        return (total == 0) ? 0 : (double) coalesced.get() / total;
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Read in flight. Callers join it until it completes, the result is only completed if some joined
+     */
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private int followers;
+        private boolean sealed;
+
+        /**
+         * @return false if the read has completed
+         */
+        private synchronized boolean join() {
+            if (this.sealed) {
+                return false;
+            }
+            this.followers++;
+            return true;
+        }
+
+        /**
+         * Stop accepting callers
+         *
+         * @return true if callers are waiting for the result
+         */
+        private synchronized boolean seal() {
+            this.sealed = true;
+            return this.followers > 0;
+        }
+    }
+
+    /**
+     * Read executed by {@link #execute(String, Read)}
+     *
+     * @param <R> result type
+     * @param <X> exception thrown by the read
+     */
+    @FunctionalInterface
+    public interface Read<R, X extends Exception> {
+
+        /**
+         * @return result of the read
+         * @throws X if the read fails
+         */
+        R execute() throws X;
+    }
+}
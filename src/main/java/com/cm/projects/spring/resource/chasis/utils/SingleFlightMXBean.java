@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+/**
+ * JMX view of a {@link SingleFlight}. Registered under
+ * <code>com.cm.projects.spring.resource.chasis:type=SingleFlight,name={entity class}</code>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public interface SingleFlightMXBean {
+
+    /**
+     * @return number of reads executed against the database
+     */
+    long getExecutionCount();
+
+    /**
+     * @return number of reads served by an identical read already in flight
+     */
+    long getCoalescedCount();
+
+    /**
+     * @return coalesced / (executions + coalesced) or 0 if no reads have been made
+     */
+    double getCoalescedRatio();
+
+    /**
+     * @return number of reads that stopped waiting for an identical read after the maximum wait and executed
+     * themselves
+     */
+    long getTimeoutCount();
+
+    /**
+     * @return number of reads currently in flight
+     */
+    int getInFlightCount();
+
+    /**
+     * @return maximum time a read waits for an identical read in milliseconds
+     */
+    long getMaxWaitMillis();
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Used to read database metadata about entity tables i.e.
+ * <ul>
+ * <li>Entity table name</li>
+ * <li>Estimated number of rows from the database statistics (PostgreSQL, MySQL/MariaDB, Oracle, SQL Server and H2)</li>
+ * </ul>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class TableStatistics {
+
+    /**
+     * How long row count estimates are cached in milliseconds
+     */
+    public static final long ESTIMATE_TTL_MILLIS = 60_000;
+    /**
+     * How long the estimate of a table isn't read again after a failure in milliseconds
+     */
+    public static final long FAILURE_BACKOFF_MILLIS = 10 * 60_000;
+    private static final Logger log = LoggerFactory.getLogger(TableStatistics.class);
+    private static final Map<Class<?>, Estimate> ESTIMATES = new ConcurrentHashMap<>();
+    private static final Set<Class<?>> REFRESHING = ConcurrentHashMap.newKeySet();
+
+    private TableStatistics() {
+    }
+
+    /**
+     * Used to get the entity primary table name
+     *
+     * @param entityManager entity manager
+     * @param clazz         entity class
+     * @return unqualified and unquoted table name or null if it can't be resolved
+     */
+    public static String getTableName(EntityManager entityManager, Class<?> clazz) {
+        EntityPersister persister = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(clazz);
+        if (!(persister instanceof AbstractEntityPersister)) {
+            return null;
+        }
+        String tableName = ((AbstractEntityPersister) persister).getTableName();
+        tableName = tableName.substring(tableName.lastIndexOf('.') + 1);
+        return tableName.replaceAll("[\"`\\[\\]]", "");
+    }
+
+    /**
+     * Used to get the Hibernate dialect of the entity manager e.g. H2Dialect, PostgreSQL95Dialect
+     *
+     * @param entityManager entity manager
+     * @return {@link Dialect}
+     */
+    public static Dialect getDialect(EntityManager entityManager) {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    /**
+     * Used to retrieve the estimated number of rows of the entity table from the database statistics. The estimate
+     * includes all rows in the table (records in trash included) and is only as fresh as the database statistics.
+     * <ul>
+     * <li>The statistics are read on the connection of the entity manager (no second pool connection is taken). In a
+     * transaction the query runs after a savepoint that is rolled back on failure (e.g. missing permission to read the
+     * statistics) so that the caller's transaction isn't aborted</li>
+     * <li>Estimates are cached for {@link #ESTIMATE_TTL_MILLIS}. After a failure the estimate isn't read again for
+     * {@link #FAILURE_BACKOFF_MILLIS}</li>
+     * <li>Only one caller reads an expired estimate, concurrent callers get the expired estimate meanwhile (null if
+     * the table's estimate hasn't been read yet)</li>
+     * </ul>
+     *
+     * @param entityManager entity manager
+     * @param clazz         entity class
+     * @return estimated number of rows or null if the database doesn't provide an estimate
+     */
+    public static Long estimateRowCount(EntityManager entityManager, Class<?> clazz) {
+        long now = System.currentTimeMillis();
+        Estimate cached = ESTIMATES.get(clazz);
+        if (cached != null && cached.expires > now) {
+            return cached.rows;
+        }
+        String tableName = getTableName(entityManager, clazz);
+        if (tableName == null) {
+            ESTIMATES.put(clazz, new Estimate(null, Long.MAX_VALUE));
+            return null;
+        }
+        String product = getDialect(entityManager).getClass().getSimpleName().toLowerCase();
+        String sql;
+        if (product.contains("postgres")) {
+            sql = "SELECT reltuples FROM pg_class WHERE relkind = 'r' AND relname = ?";
+            tableName = tableName.toLowerCase();
+        } else if (product.contains("mysql") || product.contains("mariadb")) {
+            sql = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        } else if (product.contains("oracle")) {
+            sql = "SELECT NUM_ROWS FROM USER_TABLES WHERE TABLE_NAME = ?";
+            tableName = tableName.toUpperCase();
+        } else if (product.contains("sqlserver")) {
+            sql = "SELECT SUM(row_count) FROM sys.dm_db_partition_stats WHERE object_id = OBJECT_ID(?) AND index_id IN (0, 1)";
+        } else if (product.contains("h2")) {
+            sql = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE UPPER(TABLE_NAME) = ?";
+            tableName = tableName.toUpperCase();
+        } else {
+            log.debug("Row count estimation is not supported for database {}", product);
+            ESTIMATES.put(clazz, new Estimate(null, Long.MAX_VALUE));
+            return null;
+        }
+        if (!REFRESHING.add(clazz)) {
+            //being read by another caller
+            return (cached == null) ? null : cached.rows;
+        }
+        String table = tableName;
+        Long estimate = null;
+        try {
+            estimate = entityManager.unwrap(Session.class).doReturningWork(connection -> read(connection, sql, table));
+            ESTIMATES.put(clazz, new Estimate(estimate, now + ESTIMATE_TTL_MILLIS));
+        } catch (HibernateException ex) {
+            log.warn("Failed to read row count estimate of table {}, not retrying for {} seconds", tableName,
+                    FAILURE_BACKOFF_MILLIS / 1000, ex);
+            ESTIMATES.put(clazz, new Estimate(null, now + FAILURE_BACKOFF_MILLIS));
+        } finally {
+            REFRESHING.remove(clazz);
+        }
+        return estimate;
+    }
+
+    /**
+     * Run the estimate query, rolling back to a savepoint on failure if the connection is in a transaction
+     */
+    private static Long read(Connection connection, String sql, String tableName) throws SQLException {
+        Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+        Long estimate = null;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tableName);
+            try (ResultSet result = statement.executeQuery()) {
+                if (result.next() && result.getObject(1) instanceof Number) {
+                    long rows = ((Number) result.getObject(1)).longValue();
+                    estimate = (rows < 0) ? null : rows;
+                }
+            }
+        } catch (SQLException ex) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            throw ex;
+        }
+        if (savepoint != null) {
+            try {
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException ex) {
+                //not supported by every driver (e.g. Oracle), released when the transaction ends
+                log.trace("Savepoint not released", ex);
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Cached estimate
+     */
+    private static final class Estimate {
+
+        private final Long rows;
+        private final long expires;
+
+        private Estimate(Long rows, long expires) {
+            this.rows = rows;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Conversion of last modified field values (<code>Date</code>, <code>Calendar</code>, <code>java.time</code> types
+ * and numbers) to and from epoch milliseconds
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class Timestamps {
+
+    private Timestamps() {
+    }
+
+    /**
+     * @param value field value
+     * @return epoch milliseconds or -1 if the value isn't a supported type
+     */
+    public static long toEpochMillis(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } else if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } else if (value instanceof OffsetDateTime) {
+            return ((OffsetDateTime) value).toInstant().toEpochMilli();
+        } else if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant().toEpochMilli();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return -1;
+    }
+
+    /**
+     * @param millis epoch milliseconds
+     * @param type   field type
+     * @return value of the field type or null if the type isn't supported
+     */
+    public static Object fromEpochMillis(long millis, Class<?> type) {
+        Instant instant = Instant.ofEpochMilli(millis);
+        if (type == Timestamp.class) {
+            return new Timestamp(millis);
+        } else if (type == java.sql.Date.class) {
+            return new java.sql.Date(millis);
+        } else if (Date.class.isAssignableFrom(type)) {
+            return new Date(millis);
+        } else if (Calendar.class.isAssignableFrom(type)) {
+            Calendar calendar = new GregorianCalendar();
+            calendar.setTimeInMillis(millis);
+            return calendar;
+        } else if (type == Instant.class) {
+            return instant;
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+        } else if (type == LocalDate.class) {
+            return LocalDateTime.ofInstant(instant, ZoneId.systemDefault()).toLocalDate();
+        } else if (type == OffsetDateTime.class) {
+            return OffsetDateTime.ofInstant(instant, ZoneId.systemDefault());
+        } else if (type == ZonedDateTime.class) {
+            return ZonedDateTime.ofInstant(instant, ZoneId.systemDefault());
+        } else if (type == Long.class || type == long.class) {
+            return millis;
+        }
+        return null;
+    }
+}
@@ -9,8 +9,6 @@ import com.cm.projects.spring.resource.chasis.annotations.ExportField;
 import com.cm.projects.spring.resource.chasis.utils.SharedMethods;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.supercsv.prefs.CsvPreference;
 
 import javax.servlet.http.HttpServletRequest;
@@ -77,20 +75,17 @@ public class CsvFlexView<T> extends AbstractCsvView {
         response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + ".csv\"");
 
 //        List<User> users = (List<User>) model.get("users");
-        BeanWrapper classWrapper = new BeanWrapperImpl(clazz);
+        List<Field> exportFields = ExportFields.readable(clazz);
         ArrayList<String> headers = new ArrayList<>();
         ArrayList<String> mappingHeaders = new ArrayList<>();
-        for (Field field : clazz.getDeclaredFields()) {//Get column titles from field name or annotation
-            if (field.isAnnotationPresent(ExportField.class)
-                    && classWrapper.isReadableProperty(field.getName())) {//check if the field has export annotation
-                ExportField exportField = field.getAnnotation(ExportField.class);
-                if (exportField.name().isEmpty()) {//check if field name has been given, if not retrieve from the field
-                    headers.add(SharedMethods.splitCamelString(field.getName()));
-                } else {
-                    headers.add(exportField.name());
-                }
-                mappingHeaders.add(field.getName());
+        for (Field field : exportFields) {//Get column titles from field name or annotation
+            ExportField exportField = field.getAnnotation(ExportField.class);
+            if (exportField.name().isEmpty()) {//check if field name has been given, if not retrieve from the field
+                headers.add(SharedMethods.splitCamelString(field.getName()));
+            } else {
+                headers.add(exportField.name());
             }
+            mappingHeaders.add(field.getName());
         }
 
         String[] header = headers.toArray(new String[headers.size()]);//(String[]) headers.toArray();// {"Firstname", "LastName", "LastName", "JobTitle", "Company", "Address", "City", "Country", "PhoneNumber"};
@@ -101,44 +96,46 @@ public class CsvFlexView<T> extends AbstractCsvView {
 
         csvWriter.writeHeader(header);
         SimpleDateFormat simpleDateFormat = new SimpleDateFormat(this.dateFormat);
-        this.entities.forEach(entity -> {
-            //Generate rows from entities list
-            BeanWrapper wrapper = new BeanWrapperImpl(entity);
-            List<String> row = new ArrayList<>();
-            for (Field field : clazz.getDeclaredFields()) {//retrieve values from the base field
-                if (field.isAnnotationPresent(ExportField.class) && wrapper.isReadableProperty(field.getName())) {
+        try (Stream<T> rows = this.entities) {
+            rows.forEach(entity -> {
+                //Generate rows from entities list
+                List<String> row = new ArrayList<>();
+                for (Field field : exportFields) {//retrieve values from the base field
                     ExportField exportField = field.getAnnotation(ExportField.class);
                     if (exportField.entityField().fieldName().isEmpty()) {//check if the current field is an entity
                         if (field.getType() == Date.class) {
-                            String value = wrapper.getPropertyValue(field.getName()) == null ? "" : simpleDateFormat.format(wrapper.getPropertyValue(field.getName()));
+                            Object raw = ExportFields.read(entity, field.getName());
+                            String value = raw == null ? "" : simpleDateFormat.format(raw);
                             row.add(value);
                         } else {
-                            String value = wrapper.getPropertyValue(field.getName()) == null ? "" : "" + wrapper.getPropertyValue(field.getName());
+                            Object raw = ExportFields.read(entity, field.getName());
+                            String value = raw == null ? "" : "" + raw;
                             row.add(value);
                         }
                     } else {//process the entity field
-                        Object entity2 = wrapper.getPropertyValue(field.getName());
+                        Object entity2 = ExportFields.read(entity, field.getName());
                         log.debug("Found an object entity {} getting description value from field {}", entity2, exportField.entityField().fieldName());
                         if (entity2 != null) {
-                            BeanWrapper wrapper2 = new BeanWrapperImpl(entity2);
                             if (field.getType() == Date.class) {
-                                String value = wrapper2.getPropertyValue(exportField.entityField().fieldName()) == null ? "" : simpleDateFormat.format(wrapper2.getPropertyValue(exportField.entityField().fieldName()));
+                                Object raw = ExportFields.read(entity2, exportField.entityField().fieldName());
+                                String value = raw == null ? "" : simpleDateFormat.format(raw);
                                 row.add(simpleDateFormat.format(value));
                             } else {
-                                String value = wrapper2.getPropertyValue(exportField.entityField().fieldName()) == null ? "" : "" + wrapper2.getPropertyValue(exportField.entityField().fieldName());
+                                Object raw = ExportFields.read(entity2, exportField.entityField().fieldName());
+                                String value = raw == null ? "" : "" + raw;
                                 row.add(value);
                             }
-//                            row.add((String) wrapper2.getPropertyValue(exportField.entityField().fieldName()));
+    //                            row.add((String) wrapper2.getPropertyValue(exportField.entityField().fieldName()));
                         }
                     }
                 }
-            }
-            try {
-                csvWriter.writeFromList(row, mappingHeaders.toArray(new String[headers.size()]));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        });
+                try {
+                    csvWriter.writeFromList(row, mappingHeaders.toArray(new String[headers.size()]));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
 //        for (T entity : this.entities) {//Generate rows from entities list
 //            BeanWrapper wrapper = new BeanWrapperImpl(entity);
 //            List<String> row = new ArrayList<>();
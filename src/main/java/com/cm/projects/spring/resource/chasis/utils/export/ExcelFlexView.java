@@ -9,8 +9,6 @@ import com.cm.projects.spring.resource.chasis.annotations.ExportField;
 import com.cm.projects.spring.resource.chasis.utils.SharedMethods;
 import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ss.usermodel.*;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.web.servlet.view.document.AbstractXlsView;
 
 import javax.servlet.http.HttpServletRequest;
@@ -90,50 +88,47 @@ public class ExcelFlexView<T> extends AbstractXlsView {
         Row header = sheet.createRow(0);
         int i = 0;
 
-        BeanWrapper classWrapper = new BeanWrapperImpl(clazz);
-        for (Field field : clazz.getDeclaredFields()) {//Get column titles from field name or annotation
-            if (field.isAnnotationPresent(ExportField.class)
-                    && classWrapper.isReadableProperty(field.getName())) {//check if the field has export annotation
-                ExportField exportField = field.getAnnotation(ExportField.class);
-                if (exportField.name().isEmpty()) {//check if field name has been given, if not retrieve from the field
-                    header.createCell(i).setCellValue(SharedMethods.splitCamelString(field.getName()));
-                } else {
-                    header.createCell(i).setCellValue(exportField.name());
-                }
-                header.getCell(i++).setCellStyle(style);
+        List<Field> exportFields = ExportFields.readable(clazz);
+        for (Field field : exportFields) {//Get column titles from field name or annotation
+            ExportField exportField = field.getAnnotation(ExportField.class);
+            if (exportField.name().isEmpty()) {//check if field name has been given, if not retrieve from the field
+                header.createCell(i).setCellValue(SharedMethods.splitCamelString(field.getName()));
+            } else {
+                header.createCell(i).setCellValue(exportField.name());
             }
+            header.getCell(i++).setCellStyle(style);
         }
         int rowCount = 1;
         SimpleDateFormat simpleDateFormat = new SimpleDateFormat(this.dateFormat);
         for (T entity : this.entities) {//Generate rows from entities list
             Row userRow = sheet.createRow(rowCount++);
             i = 0;
-            BeanWrapper wrapper = new BeanWrapperImpl(entity);
-            for (Field field : clazz.getDeclaredFields()) {//retrieve values from the base field
-                if (field.isAnnotationPresent(ExportField.class) && wrapper.isReadableProperty(field.getName())) {
-                    ExportField exportField = field.getAnnotation(ExportField.class);
-                    if (exportField.entityField().fieldName().isEmpty()) {//check if the current field is an entity
+            for (Field field : exportFields) {//retrieve values from the base field
+                ExportField exportField = field.getAnnotation(ExportField.class);
+                if (exportField.entityField().fieldName().isEmpty()) {//check if the current field is an entity
+                    if (field.getType() == Date.class) {
+                        Object raw = ExportFields.read(entity, field.getName());
+                        String value = raw == null ? "" : simpleDateFormat.format(raw);
+                        userRow.createCell(i++).setCellValue(value);
+                    } else {
+                        Object raw = ExportFields.read(entity, field.getName());
+                        String value = raw == null ? "" : "" + raw;
+                        userRow.createCell(i++).setCellValue(value);
+                    }
+//                        userRow.createCell(i++).setCellValue((String) wrapper.getPropertyValue(field.getName()));
+                } else {//process the entity field
+                    Object entity2 = ExportFields.read(entity, field.getName());
+                    if (entity2 != null) {
                         if (field.getType() == Date.class) {
-                            String value = wrapper.getPropertyValue(field.getName()) == null ? "" : simpleDateFormat.format(wrapper.getPropertyValue(field.getName()));
+                            Object raw = ExportFields.read(entity2, exportField.entityField().fieldName());
+                            String value = raw == null ? "" : simpleDateFormat.format(raw);
                             userRow.createCell(i++).setCellValue(value);
                         } else {
-                            String value = wrapper.getPropertyValue(field.getName()) == null ? "" : "" + wrapper.getPropertyValue(field.getName());
+                            Object raw = ExportFields.read(entity2, exportField.entityField().fieldName());
+                            String value = raw == null ? "" : "" + raw;
                             userRow.createCell(i++).setCellValue(value);
                         }
-//                        userRow.createCell(i++).setCellValue((String) wrapper.getPropertyValue(field.getName()));
-                    } else {//process the entity field
-                        Object entity2 = wrapper.getPropertyValue(field.getName());
-                        if (entity2 != null) {
-                            BeanWrapper wrapper2 = new BeanWrapperImpl(entity2);
-                            if (field.getType() == Date.class) {
-                                String value = wrapper2.getPropertyValue(exportField.entityField().fieldName()) == null ? "" : simpleDateFormat.format(wrapper2.getPropertyValue(exportField.entityField().fieldName()));
-                                userRow.createCell(i++).setCellValue(value);
-                            } else {
-                                String value = wrapper2.getPropertyValue(exportField.entityField().fieldName()) == null ? "" : "" + wrapper2.getPropertyValue(exportField.entityField().fieldName());
-                                userRow.createCell(i++).setCellValue(value);
-                            }
 //                            userRow.createCell(i++).setCellValue((String) wrapper2.getPropertyValue(exportField.entityField().fieldName()));
-                        }
                     }
                 }
             }
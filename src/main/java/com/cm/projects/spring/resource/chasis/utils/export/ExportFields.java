@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils.export;
+
+import com.cm.projects.spring.resource.chasis.annotations.ExportField;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadata;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.metadata.FastBeanWrapper;
+import com.cm.projects.spring.resource.chasis.metadata.PropertyHandle;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the columns exported by the flex views i.e. fields annotated with @{@link ExportField} that are
+ * readable bean properties. Columns are resolved once per class instead of once per exported row and values are
+ * read through the generated {@link PropertyHandle}(s) so exporting a row doesn't allocate a bean wrapper.
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+final class ExportFields {
+
+    private static final Map<Class<?>, List<Field>> CACHE = new ConcurrentHashMap<>();
+
+    private ExportFields() {
+    }
+
+    /**
+     * Get exportable fields of the specified class
+     *
+     * @param clazz entity class
+     * @return {@link List} of readable fields annotated with @{@link ExportField}
+     */
+    static List<Field> readable(Class<?> clazz) {
+        return CACHE.computeIfAbsent(clazz, c -> {
+            EntityMetadata<?> metadata = EntityMetadataRegistry.forClass(c);
+            List<Field> fields = new ArrayList<>();
+            for (Field field : metadata.getExportFields()) {
+                PropertyHandle handle = metadata.getProperty(field.getName());
+                if (handle != null && handle.isReadable()) {
+                    fields.add(field);
+                }
+            }
+            return Collections.unmodifiableList(fields);
+        });
+    }
+
+    /**
+     * Read property value
+     *
+     * @param bean     bean instance
+     * @param property property name or path
+     * @return property value
+     * @throws org.springframework.beans.NotReadablePropertyException if the property is not readable
+     */
+    static Object read(Object bean, String property) {
+        PropertyHandle handle = EntityMetadataRegistry.forEntity(bean).getProperty(property);
+        if (handle != null && handle.isReadable()) {
+            return handle.get(bean);
+        }
+        return FastBeanWrapper.forBean(bean).getPropertyValue(property);
+    }
+}
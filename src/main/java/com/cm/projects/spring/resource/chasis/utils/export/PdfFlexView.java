@@ -11,8 +11,6 @@ import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
-import org.springframework.beans.BeanWrapper;
-import org.springframework.beans.BeanWrapperImpl;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -89,20 +87,17 @@ public class PdfFlexView<T> extends AbstractPdfView {
         document.add(new Paragraph(title));
 
         // write table header
-        BeanWrapper classWrapper = new BeanWrapperImpl(clazz);
+        List<Field> exportFields = ExportFields.readable(clazz);
         int columns = 0;
         List<String> columnTitles = new ArrayList<>();
-        for (Field field : clazz.getDeclaredFields()) {//Get column titles from field name or annotation
-            if (field.isAnnotationPresent(ExportField.class)
-                    && classWrapper.isReadableProperty(field.getName())) {//check if the field has export annotation
-                ExportField exportField = field.getAnnotation(ExportField.class);
-                if (exportField.name().isEmpty()) {//check if field name has been given, if not retrieve from the field
-                    columnTitles.add(SharedMethods.splitCamelString(field.getName()));
-                } else {
-                    columnTitles.add(exportField.name());
-                }
-                columns++;
+        for (Field field : exportFields) {//Get column titles from field name or annotation
+            ExportField exportField = field.getAnnotation(ExportField.class);
+            if (exportField.name().isEmpty()) {//check if field name has been given, if not retrieve from the field
+                columnTitles.add(SharedMethods.splitCamelString(field.getName()));
+            } else {
+                columnTitles.add(exportField.name());
             }
+            columns++;
         }
 
         PdfPTable table = new PdfPTable(columns);
@@ -125,36 +120,33 @@ public class PdfFlexView<T> extends AbstractPdfView {
 
         //Generate rows from entities list
         SimpleDateFormat simpleDateFormat = new SimpleDateFormat(this.dateFormat);
-        this.entities.stream().map((entity) -> {
-            int i = 0;
-            BeanWrapper wrapper = new BeanWrapperImpl(entity);
-            return wrapper;
-        }).forEachOrdered((wrapper) -> {
+        this.entities.forEach(entity -> {
             List<String> row = new ArrayList<>();
-            for (Field field : clazz.getDeclaredFields()) {//retrieve values from the base field
-                if (field.isAnnotationPresent(ExportField.class) && wrapper.isReadableProperty(field.getName())) {
-                    ExportField exportField = field.getAnnotation(ExportField.class);
-                    if (exportField.entityField().fieldName().isEmpty()) {//check if the current field is an entity
+            for (Field field : exportFields) {//retrieve values from the base field
+                ExportField exportField = field.getAnnotation(ExportField.class);
+                if (exportField.entityField().fieldName().isEmpty()) {//check if the current field is an entity
+                    if (field.getType() == Date.class) {
+                        Object raw = ExportFields.read(entity, field.getName());
+                        String value = raw == null ? "" : simpleDateFormat.format(raw);
+                        table.addCell(value);
+                    } else {
+                        Object raw = ExportFields.read(entity, field.getName());
+                        String value = raw == null ? "" : "" + raw;
+                        table.addCell(value);
+                    }
+                } else {//process the entity field
+                    Object entity2 = ExportFields.read(entity, field.getName());
+                    if (entity2 != null) {
+//                            wrapper.setPropertyValue(field.getName(), exportField.entityField().fieldName());
                         if (field.getType() == Date.class) {
-                            String value = wrapper.getPropertyValue(field.getName()) == null ? "" : simpleDateFormat.format(wrapper.getPropertyValue(field.getName()));
+                            Object raw = ExportFields.read(entity2, exportField.entityField().fieldName());
+                            String value = raw == null ? "" : simpleDateFormat.format(raw);
                             table.addCell(value);
                         } else {
-                            String value = wrapper.getPropertyValue(field.getName()) == null ? "" : "" + wrapper.getPropertyValue(field.getName());
+                            Object raw = ExportFields.read(entity2, exportField.entityField().fieldName());
+                            String value = raw == null ? "" : "" + raw;
                             table.addCell(value);
                         }
-                    } else {//process the entity field
-                        Object entity2 = wrapper.getPropertyValue(field.getName());
-                        if (entity2 != null) {
-                            BeanWrapper wrapper2 = new BeanWrapperImpl(entity2);
-//                            wrapper.setPropertyValue(field.getName(), exportField.entityField().fieldName());
-                            if (field.getType() == Date.class) {
-                                String value = wrapper2.getPropertyValue(exportField.entityField().fieldName()) == null ? "" : simpleDateFormat.format(wrapper2.getPropertyValue(exportField.entityField().fieldName()));
-                                table.addCell(value);
-                            } else {
-                                String value = wrapper2.getPropertyValue(exportField.entityField().fieldName()) == null ? "" : "" + wrapper2.getPropertyValue(exportField.entityField().fieldName());
-                                table.addCell(value);
-                            }
-                        }
                     }
                 }
             }
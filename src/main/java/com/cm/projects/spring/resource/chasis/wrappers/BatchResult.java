@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.wrappers;
+
+import java.util.List;
+
+/**
+ * Records fetched by id in a single request. Records are in the order the ids were requested (duplicate ids are
+ * returned once)
+ *
+ * @param <T> record type (entity or selected fields)
+ * @param <E> id type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class BatchResult<T, E> {
+
+    private final List<T> content;
+    private final List<E> missing;
+
+    /**
+     * @param content records found
+     * @param missing ids of records that don't exist or are in trash
+     */
+    public BatchResult(List<T> content, List<E> missing) {
+        this.content = content;
+        this.missing = missing;
+    }
+
+    /**
+     * @return records found in the requested order
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return ids of records that don't exist or are in trash in the requested order
+     */
+    public List<E> getMissing() {
+        return missing;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" + "content=" + content.size() + ", missing=" + missing + '}';
+    }
+}
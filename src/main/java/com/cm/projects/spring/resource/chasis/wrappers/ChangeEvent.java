@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.wrappers;
+
+/**
+ * Notification of a committed change to a record pushed to change feed subscribers
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChangeEvent {
+
+    private final Object id;
+    private final String activity;
+    private final Short status;
+
+    /**
+     * @param id       record id
+     * @param activity activity performed e.g. {@link com.cm.projects.spring.resource.chasis.utils.AppConstants#ACTIVITY_APPROVE}
+     * @param status   status id of the record after the change or null if the record doesn't have a status
+     */
+    public ChangeEvent(Object id, String activity, Short status) {
+        this.id = id;
+        this.activity = activity;
+        this.status = status;
+    }
+
+    /**
+     * @return record id
+     */
+    public Object getId() {
+        return id;
+    }
+
+    /**
+     * @return activity performed
+     */
+    public String getActivity() {
+        return activity;
+    }
+
+    /**
+     * @return status id of the record after the change
+     */
+    public Short getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" + "id=" + id + ", activity=" + activity + ", status=" + status + '}';
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.wrappers;
+
+import com.cm.projects.spring.resource.chasis.utils.CountMode;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link PageImpl} returned when fetching records. Serializes like any other
+ * {@link org.springframework.data.domain.Page} with the additional properties:
+ * <ul>
+ * <li><code>nextCursor</code> used to request the next page when using keyset pagination (null on the last page)</li>
+ * <li><code>countMode</code> how <code>totalElements</code> was computed. Anything other than
+ * {@link CountMode#EXACT} means <code>totalElements</code> is a lower bound or an estimate</li>
+ * </ul>
+ * Whether a next page exists is resolved from the fetched records and doesn't depend on the total.
+ *
+ * @param <T> content type
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChasisPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cursor pointing after the last record of this page
+     */
+    private final String nextCursor;
+    /**
+     * True if there are more records after this page
+     */
+    private final boolean next;
+    /**
+     * Strategy used to compute the total
+     */
+    private final CountMode countMode;
+    /**
+     * Number of records of this page
+     */
+    private final int numberOfElements;
+
+    /**
+     * @param content    page content
+     * @param pageable   page request
+     * @param total      total number of records
+     * @param next       true if there are more records after this page
+     * @param nextCursor keyset cursor of the next page or null
+     * @param countMode  strategy used to compute the total
+     */
+    public ChasisPage(List<T> content, Pageable pageable, long total, boolean next, String nextCursor, CountMode countMode) {
+        super(content, pageable, total);
+        this.next = next;
+        this.nextCursor = nextCursor;
+        this.countMode = countMode;
+        this.numberOfElements = content.size();
+    }
+
+    /**
+     * Page whose content isn't held in memory e.g. the properties of a streamed page whose records are written as
+     * they are read. The content is empty while <code>numberOfElements</code> reports the number of records
+     *
+     * @param numberOfElements number of records of the page
+     * @param pageable         page request
+     * @param total            total number of records
+     * @param next             true if there are more records after this page
+     * @param nextCursor       keyset cursor of the next page or null
+     * @param countMode        strategy used to compute the total
+     */
+    public ChasisPage(int numberOfElements, Pageable pageable, long total, boolean next, String nextCursor,
+                      CountMode countMode) {
+        super(Collections.emptyList(), pageable, total);
+        this.next = next;
+        this.nextCursor = nextCursor;
+        this.countMode = countMode;
+        this.numberOfElements = numberOfElements;
+    }
+
+    /**
+     * @return cursor used to fetch the next page or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return strategy used to compute the total
+     */
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next;
+    }
+
+    @Override
+    public int getNumberOfElements() {
+        return numberOfElements;
+    }
+
+    @Override
+    public boolean hasContent() {
+        return numberOfElements > 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return numberOfElements == 0;
+    }
+}
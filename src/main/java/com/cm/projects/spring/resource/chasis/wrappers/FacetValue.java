@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.wrappers;
+
+/**
+ * Number of records having a value of a @{@link com.cm.projects.spring.resource.chasis.annotations.Filter} field
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class FacetValue {
+
+    private final Object value;
+    private final long count;
+
+    /**
+     * @param value field value (id of the related record for relations)
+     * @param count number of records
+     */
+    public FacetValue(Object value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    /**
+     * @return field value (id of the related record for relations)
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return number of records
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "FacetValue{" + "value=" + value + ", count=" + count + '}';
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.wrappers;
+
+/**
+ * Version of a resource representation used for conditional requests (ETag / Last-Modified headers)
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ResourceVersion {
+
+    private final String eTag;
+    private final long lastModified;
+
+    /**
+     * @param eTag         entity tag (without quotes)
+     * @param lastModified last modified time in milliseconds or -1 if unknown
+     */
+    public ResourceVersion(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return entity tag (without quotes)
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return last modified time in milliseconds or -1 if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceVersion{" + "eTag=" + eTag + ", lastModified=" + lastModified + '}';
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+/**
+ * JUnit category of timing tests. Benchmarks assert nothing and are excluded from the test run, run them using the
+ * benchmark profile e.g. <code>mvn test -Pbenchmark</code>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public interface Benchmark {
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+import com.cm.projects.spring.resource.chasis.models.Contact;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import com.cm.projects.spring.resource.chasis.search.SearchProvider;
+import com.cm.projects.spring.resource.chasis.search.SearchProviders;
+import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ChasisAdminResource} against an in memory H2 database: entities are resolved by JPA entity name and
+ * rebuilds of unknown entities or entities without a search provider, shadow fields or read model return status 404
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChasisAdminResourceTest {
+
+    private static TestPersistence persistence;
+    private static ChasisAdminResource resource;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("admin"));
+        resource = new ChasisAdminResource(persistence.getEntityManager());
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test entities are resolved by JPA entity name
+     */
+    @Test
+    public void testResolveEntity() {
+        assertSame(Note.class, resource.resolveEntity("Note"));
+        assertNull(resource.resolveEntity("note"));
+        assertNull(resource.resolveEntity("Unknown"));
+    }
+
+    /**
+     * Test the search index of entities supported by the search provider is rebuilt
+     */
+    @Test
+    public void testRebuildSearchIndex() {
+        SearchProvider provider = new NoteIndex();
+        SearchProviders.set(provider);
+        try {
+            ResponseEntity<ResponseWrapper<Long>> response = persistence.transaction(true)
+                    .execute(status -> resource.rebuildSearchIndex("Note"));
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(Long.valueOf(7), response.getBody().getData());
+            assertEquals(HttpStatus.NOT_FOUND, resource.rebuildSearchIndex(Nerd.class.getSimpleName()).getStatusCode());
+            assertEquals(HttpStatus.NOT_FOUND, resource.rebuildSearchIndex("Unknown").getStatusCode());
+        } finally {
+            SearchProviders.remove(provider);
+        }
+        assertEquals(HttpStatus.NOT_FOUND, resource.rebuildSearchIndex("Note").getStatusCode());
+    }
+
+    /**
+     * Test read models of entities without a read model aren't rebuilt
+     */
+    @Test
+    public void testRebuildReadModel() {
+        ResponseEntity<ResponseWrapper<Long>> response = persistence.transaction(false)
+                .execute(status -> resource.rebuildReadModel("Note"));
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Read model is not configured for Note", response.getBody().getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, resource.rebuildReadModel("Unknown").getStatusCode());
+    }
+
+    /**
+     * Test shadow fields of existing records are populated and entities without shadow fields return status 404
+     */
+    @Test
+    public void testPopulateSearchShadows() {
+        persistence.transaction(false).execute(status -> {
+            EntityManager entityManager = persistence.getEntityManager();
+            entityManager.persist(new Contact("Émile Zola", "ab-1"));
+            entityManager.flush();
+            return entityManager.createQuery("update Contact c set c.nameSearch = null").executeUpdate();
+        });
+        ResponseEntity<ResponseWrapper<Long>> response = persistence.transaction(false)
+                .execute(status -> resource.populateSearchShadows("Contact"));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Long.valueOf(1), response.getBody().getData());
+        assertEquals("EMILE ZOLA", persistence.transaction(true).execute(status -> persistence.getEntityManager()
+                .createQuery("select c.nameSearch from Contact c", String.class).getSingleResult()));
+
+        response = persistence.transaction(false).execute(status -> resource.populateSearchShadows("Note"));
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Search shadow fields are not configured for Note", response.getBody().getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, resource.populateSearchShadows("Unknown").getStatusCode());
+    }
+
+    /**
+     * Search provider supporting {@link Note} whose rebuild indexes 7 records
+     */
+    private static class NoteIndex implements SearchProvider {
+
+        @Override
+        public boolean supports(Class<?> entityClass) {
+            return entityClass == Note.class;
+        }
+
+        @Override
+        public Collection<?> search(EntityManager entityManager, Class<?> entityClass, String needle) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void index(Object entity) {
+        }
+
+        @Override
+        public void remove(Object entity) {
+        }
+
+        @Override
+        public long rebuild(EntityManager entityManager, Class<?> entityClass) {
+            return 7;
+        }
+    }
+}
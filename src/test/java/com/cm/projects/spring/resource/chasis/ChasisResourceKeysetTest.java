@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.models.Gender;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.utils.AppConstants;
+import com.cm.projects.spring.resource.chasis.utils.LoggerService;
+import com.cm.projects.spring.resource.chasis.wrappers.ChasisPage;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests keyset pagination of {@link ChasisResource#findAll} against an in memory H2 database: paging through every
+ * record using the returned cursors must return each record once in sort order, including duplicate and null sort key
+ * values
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChasisResourceKeysetTest {
+
+    private static TestPersistence persistence;
+    private static NerdResource resource;
+    private static final long JOINED = 1_600_000_000_000L;
+    private static List<Nerd> nerds;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("keyset"));
+        resource = new NerdResource(new LoggerService() {
+            @Override
+            public void log(String description, String entity, Object entityId, String activity, Short activityStatus, String notes) {
+            }
+
+            @Override
+            public boolean isInitiator(String entity, Object entityId, Short statusId) {
+                return false;
+            }
+        }, persistence.getEntityManager());
+        resource.setTransactionManager(persistence.getTransactionManager());
+        persistence.transaction(false).executeWithoutResult(status -> {
+            Gender male = new Gender();
+            male.setGender("Male");
+            persistence.getEntityManager().persist(male);
+            Gender female = new Gender();
+            female.setGender("Female");
+            persistence.getEntityManager().persist(female);
+            String[] expertise = {"java", null, "go", "java", null, "rust", "go"};
+            Gender[] genders = {male, female, null};
+            for (int i = 0; i < 23; i++) {
+                Nerd nerd = new Nerd("nerd" + (i % 5) + "-" + i, expertise[i % expertise.length]);
+                nerd.setGender(genders[i % genders.length]);
+                nerd.setIntrash(i % 11 == 10 ? AppConstants.YES : AppConstants.NO);
+                //microseconds apart within the same few milliseconds
+                Timestamp joined = new Timestamp(JOINED + i % 3);
+                joined.setNanos(joined.getNanos() + (i % 4) * 1000);
+                nerd.setJoined(joined);
+                persistence.getEntityManager().persist(nerd);
+            }
+        });
+        nerds = persistence.getEntityManager().createQuery("select n from Nerd n left join fetch n.gender where n.intrash = :no", Nerd.class)
+                .setParameter("no", AppConstants.NO)
+                .getResultList();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test paging by a key with duplicate values uses the id as tie breaker
+     */
+    @Test
+    public void testTieBreaking() throws ParseException {
+        assertEquals(expected(Nerd::getExpertise, true, Nerd::getId),
+                pageAll(Sort.by("expertise").and(Sort.by("id")), 4));
+        assertEquals(expected(Nerd::getExpertise, true, Nerd::getId),
+                pageAll(Sort.by("expertise"), 3));
+    }
+
+    /**
+     * Test null values sort first in ascending order and last in descending order whatever page boundary they fall on
+     */
+    @Test
+    public void testNulls() throws ParseException {
+        for (int size = 1; size <= 6; size++) {
+            assertEquals("size " + size, expected(Nerd::getExpertise, true, Nerd::getId),
+                    pageAll(Sort.by("expertise"), size));
+            assertEquals("size " + size, expected(Nerd::getExpertise, false, Nerd::getId),
+                    pageAll(Sort.by(Sort.Direction.DESC, "expertise"), size));
+        }
+    }
+
+    /**
+     * Test @ManyToOne sort keys are ordered by the related record id (null relations first)
+     */
+    @Test
+    public void testManyToOne() throws ParseException {
+        Function<Nerd, Short> gender = nerd -> (nerd.getGender() == null) ? null : nerd.getGender().getId();
+        assertEquals(expected(gender, true, Nerd::getId), pageAll(Sort.by("gender"), 4));
+        assertEquals(expected(gender, false, Nerd::getId), pageAll(Sort.by(Sort.Direction.DESC, "gender"), 4));
+    }
+
+    /**
+     * Test timestamp sort keys keep their sub-millisecond part in the cursor
+     */
+    @Test
+    public void testSubMillisecondTimestamps() throws ParseException {
+        assertEquals(expected(Nerd::getJoined, true, Nerd::getId), pageAll(Sort.by("joined"), 2));
+        assertEquals(expected(Nerd::getJoined, false, Nerd::getId), pageAll(Sort.by(Sort.Direction.DESC, "joined"), 3));
+    }
+
+    /**
+     * Test a cursor of another sort order is rejected
+     */
+    @Test(expected = RunTimeBadRequest.class)
+    public void testCursorOfAnotherSort() throws ParseException {
+        ChasisPage<?> page = fetch(Sort.by("expertise"), 2, "");
+        fetch(Sort.by("name").and(Sort.by("expertise")), 2, page.getNextCursor());
+    }
+
+    private static List<Long> pageAll(Sort sort, int size) throws ParseException {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        do {
+            ChasisPage<?> page = fetch(sort, size, cursor);
+            assertTrue(page.getContent().size() <= size);
+            for (Object record : page.getContent()) {
+                ids.add(((Nerd) record).getId());
+            }
+            cursor = page.getNextCursor();
+            assertEquals("Next cursor is only set when there is a next page", page.hasNext(), cursor != null);
+        } while (cursor != null && ids.size() <= nerds.size());
+        return ids;
+    }
+
+    private static ChasisPage<?> fetch(Sort sort, int size, String cursor) throws ParseException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/developer");
+        request.setParameter(ChasisResource.AFTER_PARAM, cursor);
+        return (ChasisPage<?>) resource.findAll(PageRequest.of(0, size, sort), request).getBody().getData();
+    }
+
+    private static <K extends Comparable<? super K>> List<Long> expected(Function<Nerd, K> key, boolean ascending,
+                                                                          Function<Nerd, Long> id) {
+        Comparator<K> values = Comparator.nullsFirst(Comparator.<K>naturalOrder());
+        Comparator<Nerd> order = Comparator.comparing(key, ascending ? values : values.reversed());
+        return nerds.stream()
+                .sorted(order.thenComparing(id))
+                .map(Nerd::getId)
+                .collect(Collectors.toList());
+    }
+}
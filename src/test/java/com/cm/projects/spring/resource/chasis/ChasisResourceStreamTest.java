@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.utils.AppConstants;
+import com.cm.projects.spring.resource.chasis.utils.LoggerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.text.ParseException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ChasisResource#streamAll(org.springframework.data.domain.Pageable, javax.servlet.http.HttpServletRequest)}
+ * against an in memory H2 database: the streamed page has the same properties as a page held in memory and invalid
+ * count modes are rejected before anything is written
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChasisResourceStreamTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static TestPersistence persistence;
+    private static NerdResource resource;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("stream"));
+        resource = new NerdResource(new LoggerService() {
+            @Override
+            public void log(String description, String entity, Object entityId, String activity, Short activityStatus, String notes) {
+            }
+
+            @Override
+            public boolean isInitiator(String entity, Object entityId, Short statusId) {
+                return false;
+            }
+        }, persistence.getEntityManager());
+        resource.setTransactionManager(persistence.getTransactionManager());
+        resource.setObjectMapper(MAPPER);
+        persistence.transaction(false).executeWithoutResult(status -> {
+            for (String name : Arrays.asList("ada", "grace", "linus")) {
+                Nerd nerd = new Nerd(name, "java");
+                nerd.setIntrash(AppConstants.NO);
+                persistence.getEntityManager().persist(nerd);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test the page properties reflect the streamed records
+     */
+    @Test
+    public void testStream() throws Exception {
+        JsonNode page = stream(0, new MockHttpServletRequest());
+        assertEquals(2, page.get("content").size());
+        assertEquals(2, page.get("numberOfElements").asInt());
+        assertEquals(3, page.get("totalElements").asInt());
+        assertFalse(page.get("empty").asBoolean());
+        assertFalse(page.get("last").asBoolean());
+        assertEquals("ada", page.get("content").get(0).get("name").asText());
+
+        page = stream(1, new MockHttpServletRequest());
+        assertEquals(1, page.get("content").size());
+        assertEquals(1, page.get("numberOfElements").asInt());
+        assertEquals(3, page.get("totalElements").asInt());
+        assertTrue(page.get("last").asBoolean());
+
+        page = stream(2, new MockHttpServletRequest());
+        assertEquals(0, page.get("numberOfElements").asInt());
+        assertTrue(page.get("empty").asBoolean());
+    }
+
+    /**
+     * Test count modes apply to streamed pages and invalid count modes are rejected before the response is written
+     */
+    @Test
+    public void testCountMode() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("count", "none");
+        JsonNode page = stream(0, request);
+        assertEquals("NONE", page.get("countMode").asText());
+        assertEquals(3, page.get("totalElements").asInt());
+
+        request.setParameter("count", "bogus");
+        try {
+            resource.streamAll(PageRequest.of(0, 2), request);
+            fail("Invalid count mode");
+        } catch (RunTimeBadRequest ex) {
+            //expected
+        }
+    }
+
+    private static JsonNode stream(int page, MockHttpServletRequest request) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.streamAll(PageRequest.of(page, 2, Sort.by("name")), request).getBody().writeTo(out);
+        return MAPPER.readTree(out.toByteArray()).get("data");
+    }
+}
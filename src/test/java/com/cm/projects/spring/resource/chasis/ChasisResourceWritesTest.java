@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.utils.EntityVersions;
+import com.cm.projects.spring.resource.chasis.utils.LoggerService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests writes through {@link ChasisResource} against an in memory H2 database only invalidate cached state
+ * (see {@link ChasisResource#markModified()}) once a record is actually written
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChasisResourceWritesTest {
+
+    private static TestPersistence persistence;
+    private static NerdResource resource;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("writes"));
+        resource = new NerdResource(new LoggerService() {
+            @Override
+            public void log(String description, String entity, Object entityId, String activity, Short activityStatus, String notes) {
+            }
+
+            @Override
+            public boolean isInitiator(String entity, Object entityId, Short statusId) {
+                return false;
+            }
+        }, persistence.getEntityManager());
+        resource.setTransactionManager(persistence.getTransactionManager());
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test rejected creates and updates leave the entity version unchanged and accepted ones increment it
+     */
+    @Test
+    public void testRejectedWritesDontInvalidate() throws Exception {
+        String version = EntityVersions.current(Nerd.class);
+        assertEquals(HttpStatus.CREATED, persistence.transaction(false).execute(status ->
+                resource.create(new Nerd("unique", "java")).getStatusCode()));
+        assertNotEquals("Created", version, EntityVersions.current(Nerd.class));
+
+        version = EntityVersions.current(Nerd.class);
+        assertEquals(HttpStatus.CONFLICT, persistence.transaction(false).execute(status ->
+                resource.create(new Nerd("unique", "go")).getStatusCode()));
+        assertEquals("Duplicate name", version, EntityVersions.current(Nerd.class));
+
+        Nerd missing = new Nerd(Long.MAX_VALUE);
+        missing.setName("missing");
+        assertEquals(HttpStatus.NOT_FOUND, persistence.transaction(false).execute(status -> {
+            try {
+                return resource.updateEntity(missing).getStatusCode();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }));
+        assertEquals("Missing record", version, EntityVersions.current(Nerd.class));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In memory H2 persistence unit of the test models (see <code>com.cm.projects.spring.resource.chasis.models</code>)
+ * used to test resources without starting an application context
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public final class TestPersistence {
+
+    /**
+     * Package of the test models
+     */
+    public static final String MODELS = "com.cm.projects.spring.resource.chasis.models";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final JpaTransactionManager transactionManager;
+
+    /**
+     * @param dataSource database the schema is created in
+     */
+    public TestPersistence(DataSource dataSource) {
+        this(dataSource, Map.of());
+    }
+
+    /**
+     * @param dataSource database the schema is created in
+     * @param properties additional JPA properties
+     */
+    public TestPersistence(DataSource dataSource, Map<String, ?> properties) {
+        this(dataSource, properties, MODELS);
+    }
+
+    /**
+     * @param dataSource database the schema is created in
+     * @param properties additional JPA properties
+     * @param packages   packages scanned for entities
+     */
+    public TestPersistence(DataSource dataSource, Map<String, ?> properties, String... packages) {
+        Map<String, Object> jpaProperties = new HashMap<>(properties);
+        jpaProperties.put("hibernate.hbm2ddl.auto", "create-drop");
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(packages);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(jpaProperties);
+        factory.afterPropertiesSet();
+        this.entityManagerFactory = factory.getObject();
+        this.entityManager = SharedEntityManagerCreator.createSharedEntityManager(this.entityManagerFactory);
+        this.transactionManager = new JpaTransactionManager(this.entityManagerFactory);
+    }
+
+    /**
+     * @param name database name
+     * @return new in memory H2 database kept open until the JVM exits
+     */
+    public static DataSource dataSource(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    /**
+     * @return transactional (shared) entity manager as injected in resources
+     */
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    /**
+     * @return transaction manager of the persistence unit
+     */
+    public JpaTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * @param readOnly true for a read only transaction
+     * @return template running callbacks in a transaction
+     */
+    public TransactionTemplate transaction(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(this.transactionManager);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    /**
+     * @return entity manager factory of the persistence unit
+     */
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    /**
+     * Close the entity manager factory
+     */
+    public void close() {
+        this.entityManagerFactory.close();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.models.Contact;
+import com.cm.projects.spring.resource.chasis.models.EdittedRecord;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link IndexAdvisor} against an in memory H2 database: missing indexes are reported until they are created,
+ * composite indexes serve the edited record lookup in any column order and prefix search without a shadow field
+ * requires an <code>upper(field)</code> expression index
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class IndexAdvisorTest {
+
+    private static final String UPPER_CODE = "create index idx_Contact_code on Contact (upper(code))";
+    private static final String EDITED_RECORD = "create index idx_EdittedRecord_TAX_ENTITY_ENTITY_ID on EdittedRecord (TAX_ENTITY, ENTITY_ID)";
+    private static DataSource dataSource;
+    private static TestPersistence persistence;
+
+    @BeforeClass
+    public static void setUpClass() {
+        dataSource = TestPersistence.dataSource("advisor");
+        persistence = new TestPersistence(dataSource);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test missing indexes are reported until the recommended indexes exist
+     */
+    @Test
+    public void testCheck() throws SQLException {
+        assertEquals(Arrays.asList(
+                "create index idx_Nerd_name on Nerd (name)",
+                "create index idx_Nerd_actionStatus on Nerd (actionStatus)",
+                "create index idx_Nerd_intrash on Nerd (intrash)",
+                "create index idx_Contact_nameSearch on Contact (nameSearch)",
+                UPPER_CODE,
+                EDITED_RECORD), check());
+
+        for (String ddl : check()) {
+            if (!ddl.equals(UPPER_CODE) && !ddl.equals(EDITED_RECORD)) {
+                execute(ddl);
+            }
+        }
+        execute("create index idx_EdittedRecord_TAX_ENTITY on EdittedRecord (TAX_ENTITY)");
+        execute("create index idx_Contact_code on Contact (code)");
+        assertEquals("Single column and plain indexes don't serve", Arrays.asList(UPPER_CODE, EDITED_RECORD), check());
+
+        execute("create index idx_EdittedRecord_ENTITY_ID_TAX_ENTITY on EdittedRecord (ENTITY_ID, TAX_ENTITY, ID)");
+        assertEquals("Composite index serves in any column order (H2 has no expression indexes)",
+                Collections.singletonList(UPPER_CODE), check());
+    }
+
+    /**
+     * Test expression indexes serve prefix search without a shadow field only if upper of the column is the leading
+     * expression
+     */
+    @Test
+    public void testExpressionIndex() {
+        IndexAdvisor.Requirement requirement = new IndexAdvisor.Requirement("Contact",
+                Collections.singletonList("code"), true, "prefix search");
+        assertTrue(requirement.isServedBy(List.of(List.of("upper((code)::text)"))));
+        assertTrue(requirement.isServedBy(List.of(List.of("id"), List.of("upper(code)", "id"))));
+        assertFalse(requirement.isServedBy(List.of(List.of("code"))));
+        assertFalse(requirement.isServedBy(List.of(List.of("upper(name)"))));
+        assertFalse(requirement.isServedBy(List.of(List.of("name", "upper(code)"))));
+        assertFalse(requirement.isServedBy(Collections.emptyList()));
+        assertEquals(UPPER_CODE, requirement.toDdl());
+    }
+
+    /**
+     * Test the edited record entity name and entity id must be the leading columns of an index
+     */
+    @Test
+    public void testCompositeIndex() {
+        IndexAdvisor.Requirement requirement = new IndexAdvisor.Requirement("EdittedRecord",
+                Arrays.asList("TAX_ENTITY", "ENTITY_ID"), false, "edited record lookup");
+        assertTrue(requirement.isServedBy(List.of(List.of("tax_entity", "entity_id"))));
+        assertTrue(requirement.isServedBy(List.of(List.of("entity_id", "tax_entity", "id"))));
+        assertFalse(requirement.isServedBy(List.of(List.of("tax_entity"), List.of("entity_id"))));
+        assertFalse(requirement.isServedBy(List.of(List.of("tax_entity", "id", "entity_id"))));
+        assertEquals(EDITED_RECORD, requirement.toDdl());
+    }
+
+    private static List<String> check() {
+        return new IndexAdvisor(persistence.getEntityManager(), dataSource)
+                .check(Arrays.asList(Nerd.class, Contact.class), Collections.singletonList(EdittedRecord.class));
+    }
+
+    private static void execute(String ddl) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(ddl);
+        }
+    }
+}
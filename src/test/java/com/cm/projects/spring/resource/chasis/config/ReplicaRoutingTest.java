@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.config;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ReplicaRoutingDataSource} against two in memory H2 databases, a primary and a replica holding different
+ * records: read only transactions read from the replica and writes go to the primary, including writes after a read
+ * by an entity manager kept open for the whole request
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ReplicaRoutingTest {
+
+    private static final String HANDLING_MODE = "hibernate.connection.handling_mode";
+    private static TestPersistence primary, replica, routed;
+
+    @BeforeClass
+    public static void setUpClass() {
+        DataSource primaryDataSource = TestPersistence.dataSource("routing-primary");
+        DataSource replicaDataSource = TestPersistence.dataSource("routing-replica");
+        primary = new TestPersistence(primaryDataSource);
+        replica = new TestPersistence(replicaDataSource);
+        routed = new TestPersistence(ReplicaRoutingDataSource.create(primaryDataSource, replicaDataSource, Duration.ZERO),
+                Map.of(HANDLING_MODE, "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION"));
+        save(primary, "primary");
+        save(replica, "replica");
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        routed.close();
+        replica.close();
+        primary.close();
+    }
+
+    /**
+     * Test read only transactions read from the replica and other transactions from the primary
+     */
+    @Test
+    public void testRouting() {
+        assertEquals(Arrays.asList("replica"), texts(routed, true));
+        assertEquals(Arrays.asList("primary"), texts(routed, false));
+        assertEquals("Outside transactions the primary is used", Arrays.asList("primary"),
+                routed.getEntityManager().createQuery("select n.text from Note n", String.class).getResultList());
+    }
+
+    /**
+     * Test a write after a read using the same entity manager (open session in view) goes to the primary
+     */
+    @Test
+    public void testWriteAfterReadInView() {
+        EntityManager entityManager = routed.getEntityManagerFactory().createEntityManager();
+        TransactionSynchronizationManager.bindResource(routed.getEntityManagerFactory(), new EntityManagerHolder(entityManager));
+        try {
+            assertEquals(Arrays.asList("replica"), texts(routed, true));
+            save(routed, "in view");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(routed.getEntityManagerFactory());
+            entityManager.close();
+        }
+        assertTrue(texts(primary, true).contains("in view"));
+        assertFalse(texts(replica, true).contains("in view"));
+        primary.transaction(false).executeWithoutResult(status -> primary.getEntityManager()
+                .createQuery("delete from Note n where n.text = 'in view'").executeUpdate());
+    }
+
+    /**
+     * Test a routing persistence unit holding connections until the entity manager is closed doesn't start
+     */
+    @Test
+    public void testHoldingConnectionsRejected() {
+        try {
+            new TestPersistence(ReplicaRoutingDataSource.create(TestPersistence.dataSource("routing-hold"),
+                    TestPersistence.dataSource("routing-hold-replica"), Duration.ZERO)).close();
+            fail("Persistence unit started");
+        } catch (RuntimeException ex) {
+            Throwable cause = ex;
+            while (!(cause instanceof IllegalStateException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertTrue(cause.getMessage(), cause.getMessage().contains(HANDLING_MODE));
+        }
+    }
+
+    /**
+     * Test a request replica scope ends when the request completes if it isn't closed
+     */
+    @Test
+    public void testRequestScope() {
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        try {
+            ReplicaRouting.replicaForRequest();
+            assertTrue(ReplicaRouting.isReplicaRead());
+            attributes.requestCompleted();
+            assertFalse(ReplicaRouting.isReplicaRead());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static void save(TestPersistence persistence, String text) {
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager().persist(new Note(text)));
+    }
+
+    private static List<String> texts(TestPersistence persistence, boolean readOnly) {
+        return persistence.transaction(readOnly).execute(status -> persistence.getEntityManager()
+                .createQuery("select n.text from Note n order by n.id", String.class).getResultList());
+    }
+}
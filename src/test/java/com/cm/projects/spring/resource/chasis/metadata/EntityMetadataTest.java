@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.metadata;
+
+import com.cm.projects.spring.resource.chasis.models.EdittedRecord;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link EntityMetadata} scans the annotated fields and properties of entities and
+ * {@link EntityMetadataRegistry} builds it once per class
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class EntityMetadataTest {
+
+    /**
+     * Test annotated fields are resolved
+     */
+    @Test
+    public void testFields() {
+        EntityMetadata<Nerd> metadata = EntityMetadataRegistry.forClass(Nerd.class);
+        assertSame(Nerd.class, metadata.getEntityClass());
+        assertEquals("Developer", metadata.getRecordName());
+        assertEquals("id", metadata.getIdFieldName());
+        assertEquals("id", metadata.requireIdFieldName());
+        assertSame(metadata.getIdField(), metadata.getFieldAnnotatedWith(javax.persistence.Id.class));
+        assertTrue(metadata.hasIntrash());
+        assertEquals("intrash", metadata.getIntrashFieldName());
+        assertEquals(List.of("name"), names(metadata.getUniqueFields()));
+        assertEquals(List.of("name", "expertise"), names(metadata.getSearchableFields()));
+        assertEquals(List.of("actionStatus", "gender"), names(metadata.getFilterFields()));
+        assertEquals(List.of("gender"), names(metadata.getManyToOneFields()));
+        assertEquals(List.of("expertise"), names(metadata.getModifiableFields()));
+        assertTrue(metadata.getNonModifiableFieldNames().contains("name"));
+        assertFalse(metadata.getNonModifiableFieldNames().contains("expertise"));
+        assertFalse(metadata.getNonModifiableFieldNames().contains("id"));
+        assertEquals("name", metadata.getField("name").getName());
+        assertNull(metadata.getField("unknown"));
+        assertNull(metadata.getVersionField());
+        assertNull(metadata.getEditEntityField());
+
+        EntityMetadata<Note> note = EntityMetadataRegistry.forClass(Note.class);
+        assertEquals("Record", note.getRecordName());
+        assertFalse(note.hasIntrash());
+        assertEquals("lastModified", note.getLastModifiedField().getName());
+
+        EntityMetadata<EdittedRecord> edited = EntityMetadataRegistry.forClass(EdittedRecord.class);
+        assertEquals("taxEntity", edited.getEditEntityField().getName());
+        assertEquals("entityId", edited.getEditEntityIdField().getName());
+        assertEquals("values", edited.getEditDataWrapperField().getName());
+    }
+
+    /**
+     * Test properties include inherited and getter only properties while fields only include declared fields
+     */
+    @Test
+    public void testInherited() {
+        EntityMetadata<FastBeanWrapperTest.Child> metadata = EntityMetadataRegistry.forClass(FastBeanWrapperTest.Child.class);
+        assertNull(metadata.getField("baseName"));
+        assertNull(metadata.getIdField());
+        assertNotNull(metadata.getProperty("baseName"));
+        assertTrue(metadata.getProperty("label").isReadable());
+        assertFalse(metadata.getProperty("label").isWritable());
+        assertFalse(metadata.getProperty("secret").isReadable());
+        assertTrue(metadata.getProperty("secret").isWritable());
+        assertFalse(metadata.getProperty("class").isWritable());
+        try {
+            metadata.requireIdFieldName();
+            fail("id");
+        } catch (RuntimeException ex) {
+            //expected
+        }
+    }
+
+    /**
+     * Test metadata is built once per class and resolved from instances
+     */
+    @Test
+    public void testRegistry() {
+        EntityMetadata<Nerd> metadata = EntityMetadataRegistry.forClass(Nerd.class);
+        assertSame(metadata, EntityMetadataRegistry.forClass(Nerd.class));
+        assertSame(metadata, EntityMetadataRegistry.forEntity(new Nerd()));
+        assertNotSame(metadata, EntityMetadataRegistry.forClass(Note.class));
+    }
+
+    private static List<String> names(List<Field> fields) {
+        return fields.stream().map(Field::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.metadata;
+
+import org.junit.Test;
+import org.springframework.beans.*;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link FastBeanWrapper} and the generated accessors of {@link PropertyHandle} behave like
+ * {@link BeanWrapperImpl}: values are converted, nulls are rejected for primitives, nested paths are delegated and
+ * properties that can't be read or written throw the bean wrapper exceptions
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class FastBeanWrapperTest {
+
+    /**
+     * Test simple properties are read and written
+     */
+    @Test
+    public void testReadWrite() {
+        Child child = new Child();
+        BeanWrapper wrapper = FastBeanWrapper.forBean(child);
+        wrapper.setPropertyValue("count", 3);
+        wrapper.setPropertyValue("amount", 7L);
+        wrapper.setPropertyValue("status", Status.ACTIVE);
+        assertEquals(3, child.getCount());
+        assertEquals(Long.valueOf(7), wrapper.getPropertyValue("amount"));
+        assertEquals(Status.ACTIVE, wrapper.getPropertyValue("status"));
+        assertEquals(int.class, wrapper.getPropertyType("count"));
+        assertEquals(List.class, wrapper.getPropertyTypeDescriptor("tags").getType());
+        assertEquals(String.class, wrapper.getPropertyTypeDescriptor("tags").getElementTypeDescriptor().getType());
+        assertNull(wrapper.getPropertyType("unknown"));
+        assertSame(child, wrapper.getWrappedInstance());
+        assertSame(Child.class, wrapper.getWrappedClass());
+    }
+
+    /**
+     * Test values are read and written like {@link BeanWrapperImpl}
+     */
+    @Test
+    public void testParity() {
+        Child child = new Child();
+        child.setBaseName("base");
+        child.setCount(4);
+        child.setTags(new ArrayList<>(Arrays.asList("a", "b")));
+        BeanWrapper fast = FastBeanWrapper.forBean(child);
+        BeanWrapper reference = new BeanWrapperImpl(child);
+        for (String property : Arrays.asList("baseName", "count", "amount", "status", "tags", "label", "inner")) {
+            assertEquals(property, reference.isReadableProperty(property), fast.isReadableProperty(property));
+            assertEquals(property, reference.isWritableProperty(property), fast.isWritableProperty(property));
+            assertEquals(property, reference.getPropertyValue(property), fast.getPropertyValue(property));
+            assertEquals(property, reference.getPropertyDescriptor(property), fast.getPropertyDescriptor(property));
+        }
+    }
+
+    /**
+     * Test inherited properties and properties with only a getter or a setter
+     */
+    @Test
+    public void testInheritedAndGetterOnly() {
+        Child child = new Child();
+        BeanWrapper wrapper = FastBeanWrapper.forBean(child);
+        wrapper.setPropertyValue("baseName", "base");
+        assertEquals("base", child.getBaseName());
+        assertEquals("base", wrapper.getPropertyValue("baseName"));
+        assertEquals("label:base", wrapper.getPropertyValue("label"));
+
+        assertTrue(wrapper.isReadableProperty("label"));
+        assertFalse(wrapper.isWritableProperty("label"));
+        try {
+            wrapper.setPropertyValue("label", "x");
+            fail("label");
+        } catch (NotWritablePropertyException ex) {
+            assertEquals("label", ex.getPropertyName());
+        }
+
+        wrapper.setPropertyValue("secret", "s");
+        assertEquals("s", child.secret);
+        assertFalse(wrapper.isReadableProperty("secret"));
+        try {
+            wrapper.getPropertyValue("secret");
+            fail("secret");
+        } catch (NotReadablePropertyException ex) {
+            assertEquals("secret", ex.getPropertyName());
+        }
+    }
+
+    /**
+     * Test unknown properties can't be read or written
+     */
+    @Test
+    public void testUnknown() {
+        BeanWrapper wrapper = FastBeanWrapper.forBean(new Child());
+        assertFalse(wrapper.isReadableProperty("unknown"));
+        assertFalse(wrapper.isWritableProperty("unknown"));
+        try {
+            wrapper.getPropertyValue("unknown");
+            fail("get");
+        } catch (NotReadablePropertyException ex) {
+            //expected
+        }
+        try {
+            wrapper.setPropertyValue("unknown", 1);
+            fail("set");
+        } catch (NotWritablePropertyException ex) {
+            //expected
+        }
+        try {
+            wrapper.getPropertyDescriptor("unknown");
+            fail("descriptor");
+        } catch (InvalidPropertyException ex) {
+            //expected
+        }
+    }
+
+    /**
+     * Test null is rejected for primitive properties and accepted for wrapper types
+     */
+    @Test
+    public void testPrimitiveNull() {
+        Child child = new Child();
+        child.setCount(5);
+        child.setAmount(5L);
+        BeanWrapper wrapper = FastBeanWrapper.forBean(child);
+        try {
+            wrapper.setPropertyValue("count", null);
+            fail("count");
+        } catch (TypeMismatchException ex) {
+            assertEquals("count", ex.getPropertyName());
+            assertEquals(int.class, ex.getRequiredType());
+        }
+        assertEquals(5, child.getCount());
+        wrapper.setPropertyValue("amount", null);
+        assertNull(child.getAmount());
+    }
+
+    /**
+     * Test values are converted using {@link DefaultConversionService} or the configured conversion service
+     */
+    @Test
+    public void testConversion() {
+        Child child = new Child();
+        BeanWrapper wrapper = FastBeanWrapper.forBean(child);
+        wrapper.setPropertyValue("count", "12");
+        wrapper.setPropertyValue("amount", 9);
+        wrapper.setPropertyValue("status", "INACTIVE");
+        wrapper.setPropertyValue("tags", "a,b");
+        assertEquals(12, child.getCount());
+        assertEquals(Long.valueOf(9), child.getAmount());
+        assertEquals(Status.INACTIVE, child.getStatus());
+        assertEquals(Arrays.asList("a", "b"), child.getTags());
+        assertEquals(new BigDecimal("1.5"), wrapper.convertIfNecessary("1.5", BigDecimal.class));
+        try {
+            wrapper.setPropertyValue("count", "x");
+            fail("count");
+        } catch (TypeMismatchException ex) {
+            assertEquals("count", ex.getPropertyName());
+        }
+        try {
+            wrapper.setPropertyValue("date", "2020-01-02");
+            fail("date");
+        } catch (TypeMismatchException ex) {
+            //expected, default conversion service can't parse dates
+        }
+
+        DefaultConversionService conversionService = new DefaultConversionService();
+        conversionService.addConverter(String.class, LocalDate.class, LocalDate::parse);
+        wrapper.setConversionService(conversionService);
+        wrapper.setPropertyValue("date", "2020-01-02");
+        assertEquals(LocalDate.of(2020, 1, 2), child.getDate());
+    }
+
+    /**
+     * Test nested and indexed paths are delegated to {@link BeanWrapperImpl}
+     */
+    @Test
+    public void testNested() {
+        Child child = new Child();
+        child.setTags(new ArrayList<>(Arrays.asList("a", "b")));
+        BeanWrapper wrapper = FastBeanWrapper.forBean(child);
+        wrapper.setAutoGrowNestedPaths(true);
+        wrapper.setPropertyValue("inner.count", "4");
+        assertEquals(4, child.getInner().getCount());
+        assertEquals(4, wrapper.getPropertyValue("inner.count"));
+        assertEquals(int.class, wrapper.getPropertyType("inner.count"));
+        assertTrue(wrapper.isWritableProperty("inner.baseName"));
+        assertFalse(wrapper.isWritableProperty("inner.label"));
+        assertEquals("b", wrapper.getPropertyValue("tags[1]"));
+        wrapper.setPropertyValue("tags[0]", "c");
+        assertEquals(Arrays.asList("c", "b"), child.getTags());
+        try {
+            FastBeanWrapper.forBean(new Child()).setPropertyValue("inner.count", 1);
+            fail("inner");
+        } catch (NullValueInNestedPathException ex) {
+            //expected, auto grow is off
+        }
+    }
+
+    /**
+     * Test exceptions thrown by accessors are wrapped and accessors of non public classes are generated
+     */
+    @Test
+    public void testAccessors() {
+        BeanWrapper wrapper = FastBeanWrapper.forClass(Hidden.class);
+        wrapper.setPropertyValue("value", "ok");
+        assertEquals("ok", wrapper.getPropertyValue("value"));
+        try {
+            wrapper.setPropertyValue("value", "fail");
+            fail("set");
+        } catch (MethodInvocationException ex) {
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        }
+        ((Hidden) wrapper.getWrappedInstance()).value = "fail";
+        try {
+            wrapper.getPropertyValue("value");
+            fail("get");
+        } catch (InvalidPropertyException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        PropertyHandle handle = EntityMetadataRegistry.forClass(Hidden.class).getProperty("value");
+        assertTrue(handle.isReadable() && handle.isWritable());
+        assertEquals(String.class, handle.getType());
+    }
+
+    public enum Status {
+        ACTIVE, INACTIVE
+    }
+
+    public static class Base {
+
+        private String baseName;
+
+        public String getBaseName() {
+            return baseName;
+        }
+
+        public void setBaseName(String baseName) {
+            this.baseName = baseName;
+        }
+
+        public String getLabel() {
+            return "label:" + baseName;
+        }
+    }
+
+    public static class Child extends Base {
+
+        private int count;
+        private Long amount;
+        private Status status;
+        private LocalDate date;
+        private List<String> tags;
+        private Child inner;
+        private String secret;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public Long getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Long amount) {
+            this.amount = amount;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public Child getInner() {
+            return inner;
+        }
+
+        public void setInner(Child inner) {
+            this.inner = inner;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+    }
+
+    private static class Hidden {
+
+        private String value;
+
+        public String getValue() {
+            if ("fail".equals(value)) {
+                throw new IllegalStateException("Failed to read value");
+            }
+            return value;
+        }
+
+        public void setValue(String value) {
+            if ("fail".equals(value)) {
+                throw new IllegalArgumentException("Invalid value");
+            }
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.models;
+
+import com.cm.projects.spring.resource.chasis.annotations.Filter;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Record filtered by half open date ranges on each of the supported temporal types
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+@Entity
+public class Appointment {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    private String name;
+    @Filter(isDateRange = true, rangeMode = Filter.RangeMode.HALF_OPEN)
+    private LocalDate day;
+    @Filter(isDateRange = true, rangeMode = Filter.RangeMode.HALF_OPEN)
+    private LocalDateTime startsAt;
+    @Filter(isDateRange = true, rangeMode = Filter.RangeMode.HALF_OPEN)
+    private Instant createdAt;
+    @Filter(isDateRange = true, rangeMode = Filter.RangeMode.HALF_OPEN)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date scheduled;
+
+    public Appointment() {
+    }
+
+    public Appointment(String name, LocalDateTime time) {
+        this.name = name;
+        this.day = time.toLocalDate();
+        this.startsAt = time;
+        this.createdAt = time.atZone(ZoneId.systemDefault()).toInstant();
+        this.scheduled = Date.from(this.createdAt);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public LocalDateTime getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(LocalDateTime startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getScheduled() {
+        return scheduled;
+    }
+
+    public void setScheduled(Date scheduled) {
+        this.scheduled = scheduled;
+    }
+}
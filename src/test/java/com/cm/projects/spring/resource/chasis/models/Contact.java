@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.models;
+
+import com.cm.projects.spring.resource.chasis.annotations.Searchable;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+/**
+ * Record searched by prefix, name through a shadow field and code through <code>UPPER(code)</code>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+@Entity
+public class Contact {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    @Searchable(mode = Searchable.Mode.PREFIX, shadow = "nameSearch")
+    private String name;
+    @JsonIgnore
+    private String nameSearch;
+    @Searchable(mode = Searchable.Mode.PREFIX)
+    private String code;
+
+    public Contact() {
+    }
+
+    public Contact(String name, String code) {
+        this.name = name;
+        this.code = code;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getNameSearch() {
+        return nameSearch;
+    }
+
+    public void setNameSearch(String nameSearch) {
+        this.nameSearch = nameSearch;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
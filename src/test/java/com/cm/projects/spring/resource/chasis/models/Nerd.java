@@ -11,11 +11,14 @@ import com.cm.projects.spring.resource.chasis.annotations.NickName;
 import com.cm.projects.spring.resource.chasis.annotations.Searchable;
 import com.cm.projects.spring.resource.chasis.annotations.Unique;
 import java.io.Serializable;
+import java.util.Date;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 
 /**
  *
@@ -42,6 +45,8 @@ public class Nerd implements Serializable {
     @ManyToOne
     @JoinColumn(name = "gender_id")
     private Gender gender;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date joined;
 
     public Nerd() {
     }
@@ -111,6 +116,14 @@ public class Nerd implements Serializable {
         this.gender = gender;
     }
 
+    public Date getJoined() {
+        return joined;
+    }
+
+    public void setJoined(Date joined) {
+        this.joined = joined;
+    }
+
     @Override
     public String toString() {
         return "Nerd{" + "id=" + id + ", name=" + name + ", expertise=" + expertise + ", action=" + action + ", actionStatus=" + actionStatus + ", intrash=" + intrash + '}';
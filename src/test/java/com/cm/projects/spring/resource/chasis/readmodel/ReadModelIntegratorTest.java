@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.readmodel;
+
+import com.cm.projects.spring.resource.chasis.ChasisResource;
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.models.EdittedRecord;
+import com.cm.projects.spring.resource.chasis.utils.LoggerService;
+import com.cm.projects.spring.resource.chasis.wrappers.ChasisPage;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.persistence.EntityManager;
+import java.text.ParseException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ReadModelIntegrator} keeps {@link TicketView} in sync with {@link Ticket} (inserts, updates, deletes,
+ * renamed teams and rolled back transactions) and that {@link ChasisResource#findAll} sorts read model pages
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ReadModelIntegratorTest {
+
+    private static TestPersistence persistence;
+    private static TicketResource resource;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("readmodel"), Map.of(), TestPersistence.MODELS,
+                "com.cm.projects.spring.resource.chasis.readmodel");
+        resource = new TicketResource(persistence.getEntityManager());
+        resource.setTransactionManager(persistence.getTransactionManager());
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    @After
+    public void tearDown() {
+        persistence.transaction(false).executeWithoutResult(status -> {
+            persistence.getEntityManager().createQuery("delete from TicketView").executeUpdate();
+            persistence.getEntityManager().createQuery("delete from Ticket").executeUpdate();
+            persistence.getEntityManager().createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    /**
+     * Test inserted, updated and deleted tickets are copied to the read model when the transaction commits
+     */
+    @Test
+    public void testInsertUpdateDelete() {
+        Team team = save(new Team("Ops"));
+        Ticket ticket = save(new Ticket("Disk full", 1, team));
+        TicketView view = view(ticket.getId());
+        assertEquals("Disk full", view.getTitle());
+        assertEquals(team.getId(), view.getTeam());
+        assertEquals("Ops", view.getTeamName());
+
+        persistence.transaction(false).executeWithoutResult(status ->
+                persistence.getEntityManager().find(Ticket.class, ticket.getId()).setTitle("Disk almost full"));
+        assertEquals("Disk almost full", view(ticket.getId()).getTitle());
+
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager()
+                .remove(persistence.getEntityManager().find(Ticket.class, ticket.getId())));
+        assertNull(view(ticket.getId()));
+        assertEquals(0, ReadModelIntegrator.SyncProcess.pending());
+    }
+
+    /**
+     * Test renaming a team updates the label of every read model record of its tickets
+     */
+    @Test
+    public void testRelabel() {
+        Team ops = save(new Team("Ops")), dev = save(new Team("Dev"));
+        Ticket first = save(new Ticket("First", 1, ops)), second = save(new Ticket("Second", 2, ops)),
+                other = save(new Ticket("Other", 3, dev));
+        persistence.transaction(false).executeWithoutResult(status ->
+                persistence.getEntityManager().find(Team.class, ops.getId()).setName("Operations"));
+        assertEquals("Operations", view(first.getId()).getTeamName());
+        assertEquals("Operations", view(second.getId()).getTeamName());
+        assertEquals("Dev", view(other.getId()).getTeamName());
+    }
+
+    /**
+     * Test a rolled back transaction leaves neither read model records nor pending changes behind
+     */
+    @Test
+    public void testRollback() {
+        Team team = save(new Team("Ops"));
+        persistence.transaction(false).executeWithoutResult(status -> {
+            EntityManager entityManager = persistence.getEntityManager();
+            entityManager.persist(new Ticket("Rolled back", 1, entityManager.find(Team.class, team.getId())));
+            entityManager.flush();
+            assertEquals(1, ReadModelIntegrator.SyncProcess.pending());
+            status.setRollbackOnly();
+        });
+        assertEquals(0, ReadModelIntegrator.SyncProcess.pending());
+        assertEquals(Long.valueOf(0), persistence.transaction(true).execute(status -> persistence.getEntityManager()
+                .createQuery("select count(v) from TicketView v", Long.class).getSingleResult()));
+    }
+
+    /**
+     * Test pages sorted by read model fields use the id as tie breaker and pages sorted by a field that isn't a read
+     * model field query the entity
+     */
+    @Test
+    public void testSort() throws ParseException {
+        Team team = save(new Team("Ops"));
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            tickets.add(save(new Ticket((i % 2 == 0) ? "even" : "odd", 7 - i, team)));
+        }
+        Comparator<Ticket> byTitle = Comparator.comparing(Ticket::getTitle);
+        assertEquals(ids(tickets, byTitle.thenComparing(Ticket::getId)), pageAll(Sort.by("title"), 2));
+        assertEquals(ids(tickets, byTitle.reversed().thenComparing(Ticket::getId)),
+                pageAll(Sort.by(Sort.Direction.DESC, "title"), 3));
+        assertEquals("Not a read model field", ids(tickets, Comparator.comparing(Ticket::getPriority)),
+                pageAll(Sort.by("priority"), 3));
+    }
+
+    /**
+     * Test records listed by an out of sync read model but missing from the entity table are left out
+     */
+    @Test
+    public void testMissingRecords() throws ParseException {
+        Team team = save(new Team("Ops"));
+        Ticket kept = save(new Ticket("Kept", 1, team)), removed = save(new Ticket("Removed", 2, team));
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager()
+                .createQuery("delete from Ticket t where t.id = :id").setParameter("id", removed.getId())
+                .executeUpdate());
+        assertNotNull("Bulk deletes bypass the sync", view(removed.getId()));
+        assertEquals(List.of(kept.getId()), pageAll(Sort.by("title"), 5));
+    }
+
+    private static <E> E save(E entity) {
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager().persist(entity));
+        return entity;
+    }
+
+    private static TicketView view(Long id) {
+        return persistence.transaction(true).execute(status ->
+                persistence.getEntityManager().find(TicketView.class, id));
+    }
+
+    private static List<Long> ids(List<Ticket> tickets, Comparator<Ticket> order) {
+        return tickets.stream().sorted(order).map(Ticket::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> pageAll(Sort sort, int size) throws ParseException {
+        List<Long> ids = new ArrayList<>();
+        ChasisPage<?> page;
+        int number = 0;
+        do {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tickets");
+            page = (ChasisPage<?>) resource.findAll(PageRequest.of(number++, size, sort), request).getBody().getData();
+            for (Object record : page.getContent()) {
+                ids.add(((Ticket) record).getId());
+            }
+        } while (page.hasNext());
+        return ids;
+    }
+
+    /**
+     * Resource of the tickets
+     */
+    private static class TicketResource extends ChasisResource<Ticket, Long, EdittedRecord> {
+
+        private TicketResource(EntityManager entityManager) {
+            super(new LoggerService() {
+                @Override
+                public void log(String description, String entity, Object entityId, String activity, Short activityStatus, String notes) {
+                }
+
+                @Override
+                public boolean isInitiator(String entity, Object entityId, Short statusId) {
+                    return false;
+                }
+            }, entityManager);
+        }
+    }
+}
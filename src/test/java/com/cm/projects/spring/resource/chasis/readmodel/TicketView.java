@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.readmodel;
+
+import com.cm.projects.spring.resource.chasis.annotations.ReadModel;
+import com.cm.projects.spring.resource.chasis.annotations.ReadModelLabel;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Read model of {@link Ticket} with the name of its team (priority isn't copied)
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+@Entity
+@ReadModel(Ticket.class)
+public class TicketView {
+
+    @Id
+    private Long id;
+    private String title;
+    private Long team;
+    @ReadModelLabel("team")
+    private String teamName;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Long getTeam() {
+        return team;
+    }
+
+    public void setTeam(Long team) {
+        this.team = team;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public void setTeamName(String teamName) {
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link LocalSearchIndex} against an in memory H2 database: changes made through the application, changes
+ * made by other application instances, rebuilds and needles that can't be searched using the index
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class LocalSearchIndexTest {
+
+    private static TestPersistence persistence;
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private LocalSearchIndex index;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("search"));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    @Before
+    public void setUp() {
+        index = newIndex();
+    }
+
+    @After
+    public void tearDown() {
+        index.destroy();
+        persistence.transaction(false).executeWithoutResult(status -> {
+            persistence.getEntityManager().createQuery("delete from Note").executeUpdate();
+            persistence.getEntityManager().createQuery("delete from Nerd").executeUpdate();
+        });
+    }
+
+    /**
+     * Test the provider registers itself once initialized and is removed when destroyed
+     */
+    @Test
+    public void testRegistration() {
+        index.afterPropertiesSet();
+        assertSame(index, SearchProviders.forClass(Note.class));
+        index.destroy();
+        assertNull(SearchProviders.get());
+    }
+
+    /**
+     * Test needles without trigrams of a single field are searched in the database
+     */
+    @Test
+    public void testNeedleWithoutGrams() {
+        Note note = save("abc");
+        rebuild(Note.class);
+        assertNull(search(Note.class, "\u0001\u0001\u0001"));
+        assertNull(search(Note.class, "ab\u0001c"));
+        assertNull(search(Note.class, "ab"));
+        assertEquals(ids(note), search(Note.class, "abc"));
+    }
+
+    /**
+     * Test committed inserts, updates and deletes are indexed
+     */
+    @Test
+    public void testLocalChanges() {
+        index.afterPropertiesSet();
+        rebuild(Note.class);
+        Note note = save("first note");
+        assertEquals(ids(note), search(Note.class, "FIRST"));
+        persistence.transaction(false).executeWithoutResult(status ->
+                persistence.getEntityManager().find(Note.class, note.getId()).setText("second note"));
+        assertEquals(ids(), search(Note.class, "first"));
+        assertEquals(ids(note), search(Note.class, "second"));
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager()
+                .remove(persistence.getEntityManager().find(Note.class, note.getId())));
+        assertEquals(ids(), search(Note.class, "second"));
+    }
+
+    /**
+     * Test records modified without the index being updated (another application instance or lost in a crash) are
+     * read from the database before searching
+     */
+    @Test
+    public void testChangesOfOtherInstances() throws InterruptedException {
+        index.setCatchUpWindow(0);
+        Note first = save("shared one");
+        rebuild(Note.class);
+        Thread.sleep(5);
+        Note second = save("shared two");
+        assertEquals(ids(first, second), search(Note.class, "shared"));
+        Thread.sleep(5);
+        persistence.transaction(false).executeWithoutResult(status ->
+                persistence.getEntityManager().find(Note.class, first.getId()).setText("changed"));
+        assertEquals(ids(second), search(Note.class, "shared"));
+        assertEquals(ids(first), search(Note.class, "changed"));
+    }
+
+    /**
+     * Test the index is checked against the database at most once every catch up window
+     */
+    @Test
+    public void testCheckThrottled() throws InterruptedException {
+        index.setCatchUpWindow(200);
+        Note first = save("throttled one");
+        rebuild(Note.class);
+        Note second = save("throttled two");
+        assertEquals("Checked by the rebuild", ids(first), search(Note.class, "throttled"));
+        Thread.sleep(250);
+        assertEquals(ids(first, second), search(Note.class, "throttled"));
+    }
+
+    /**
+     * Test the saved index is read by a new instance and files in another format are ignored
+     */
+    @Test
+    public void testSavedIndex() throws Exception {
+        Note note = save("saved note");
+        rebuild(Note.class);
+        index.destroy();
+        index = newIndex();
+        assertEquals(ids(note), search(Note.class, "saved"));
+
+        index.destroy();
+        Path file = folder.getRoot().toPath().resolve(Note.class.getName() + ".idx");
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(2);
+            out.writeLong(0);
+            out.writeObject(new HashMap<>());
+        }
+        index = newIndex();
+        assertNull("Unreadable index isn't used", search(Note.class, "saved"));
+    }
+
+    /**
+     * Test the database is searched while the index is rebuilt if too many records were modified since the last check
+     */
+    @Test
+    public void testCatchUpLimit() throws InterruptedException {
+        index.setCatchUpWindow(0);
+        index.setCatchUpLimit(2);
+        Note first = save("limit 0");
+        rebuild(Note.class);
+        Thread.sleep(5);
+        Note second = save("limit 1"), third = save("limit 2"), fourth = save("limit 3");
+        assertNull(search(Note.class, "limit"));
+        assertEquals(ids(first, second, third, fourth), awaitSearch(Note.class, "limit"));
+    }
+
+    /**
+     * Test changes made while the table is read are kept by a rebuild
+     */
+    @Test
+    public void testRebuildMergesConcurrentChanges() {
+        Note kept = save("merge kept"), removed = save("merge removed"), updated = save("merge updated");
+        EntityManager entityManager = onResultStream(persistence.getEntityManager(), () -> {
+            index.remove(removed);
+            updated.setText("merge changed");
+            index.index(updated);
+        });
+        assertEquals("Removed record isn't indexed", Long.valueOf(2), persistence.transaction(true).execute(status -> index.rebuild(entityManager, Note.class)));
+        assertEquals(ids(kept, updated), search(Note.class, "merge"));
+        assertEquals(ids(updated), search(Note.class, "changed"));
+    }
+
+    /**
+     * Test entities without a last modified field are only searched using the index of a single instance saved on
+     * shutdown
+     */
+    @Test
+    public void testSingleNode() throws InterruptedException {
+        Nerd nerd = new Nerd("single node", "java");
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager().persist(nerd));
+        Set<Object> expected = Set.of(nerd.getId());
+        rebuild(Nerd.class);
+        assertNull(search(Nerd.class, "single"));
+        index.setSingleNode(true);
+        assertEquals(expected, search(Nerd.class, "single"));
+
+        index.destroy();
+        index = newIndex();
+        index.setSingleNode(true);
+        assertEquals("Saved on shutdown", expected, search(Nerd.class, "single"));
+
+        index = newIndex();
+        index.setSingleNode(true);
+        assertNull("Not saved on shutdown", search(Nerd.class, "single"));
+        assertEquals(expected, awaitSearch(Nerd.class, "single"));
+    }
+
+    private LocalSearchIndex newIndex() {
+        return new LocalSearchIndex(folder.getRoot().toPath(), 100, 60);
+    }
+
+    private static Note save(String text) {
+        Note note = new Note(text);
+        persistence.transaction(false).executeWithoutResult(status -> persistence.getEntityManager().persist(note));
+        return note;
+    }
+
+    private void rebuild(Class<?> entityClass) {
+        persistence.transaction(true).executeWithoutResult(status ->
+                index.rebuild(persistence.getEntityManager(), entityClass));
+    }
+
+    private Set<Object> search(Class<?> entityClass, String needle) {
+        Collection<?> ids = persistence.transaction(true).execute(status ->
+                index.search(persistence.getEntityManager(), entityClass, needle));
+        return (ids == null) ? null : new HashSet<>(ids);
+    }
+
+    private Set<Object> awaitSearch(Class<?> entityClass, String needle) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Set<Object> ids = search(entityClass, needle);
+            if (ids != null) {
+                return ids;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Index wasn't rebuilt");
+    }
+
+    private static Set<Object> ids(Note... notes) {
+        return Arrays.stream(notes).map(Note::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * @return entity manager running the action before the records of the index are streamed
+     */
+    private static EntityManager onResultStream(EntityManager entityManager, Runnable action) {
+        return (EntityManager) Proxy.newProxyInstance(LocalSearchIndexTest.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    Object result = invoke(method, entityManager, args);
+                    if (result instanceof TypedQuery && args[0] instanceof CriteriaQuery
+                            && ((CriteriaQuery<?>) args[0]).getResultType() == Object[].class) {
+                        return Proxy.newProxyInstance(LocalSearchIndexTest.class.getClassLoader(),
+                                new Class<?>[]{TypedQuery.class}, (queryProxy, queryMethod, queryArgs) -> {
+                                    if (queryMethod.getName().equals("getResultStream")) {
+                                        action.run();
+                                    }
+                                    return invoke(queryMethod, result, queryArgs);
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.search;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.models.Contact;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests prefix search predicates against an in memory H2 database: needles are matched as prefixes ignoring case and
+ * accents, LIKE wildcards in the needle are matched literally and shadow fields are maintained on insert and update
+ * and populated for existing records
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class SearchFieldsTest {
+
+    private static TestPersistence persistence;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("search-fields"));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    @Before
+    public void setUp() {
+        persistence.transaction(false).execute(status ->
+                persistence.getEntityManager().createQuery("delete from Contact").executeUpdate());
+    }
+
+    /**
+     * Test needles are matched as prefixes ignoring case and, for shadow fields, accents
+     */
+    @Test
+    public void testPrefix() {
+        this.save(new Contact("Émile Zola", "ab-1"), new Contact("Emily Brontë", "AB-2"),
+                new Contact("Zola Budd", "ba-3"));
+        assertEquals(Arrays.asList("Emily Brontë", "Émile Zola"), this.search("name", "emi"));
+        assertEquals(Arrays.asList("Emily Brontë", "Émile Zola"), this.search("name", "ÉMI"));
+        assertEquals(Arrays.asList("Zola Budd"), this.search("name", "zola"));
+        assertEquals(Arrays.asList("Emily Brontë"), this.search("name", "emily bronte"));
+        assertEquals(Arrays.asList("Emily Brontë", "Émile Zola"), this.search("code", "ab"));
+        assertEquals(Arrays.asList("Zola Budd"), this.search("code", "BA-"));
+        assertTrue(this.search("code", "-").isEmpty());
+    }
+
+    /**
+     * Test LIKE wildcards and the escape character are matched literally
+     */
+    @Test
+    public void testEscaping() {
+        this.save(new Contact("50% Off", "a_b"), new Contact("500 Club", "axb"), new Contact("C:\\Temp", "a\\b"),
+                new Contact("C:Temp", "a%b"));
+        assertEquals(Arrays.asList("50% Off"), this.search("name", "50%"));
+        assertEquals(Arrays.asList("50% Off", "500 Club"), this.search("name", "50"));
+        assertEquals(Arrays.asList("C:\\Temp"), this.search("name", "c:\\"));
+        assertEquals(Arrays.asList("50% Off"), this.search("code", "a_"));
+        assertEquals(Arrays.asList("C:Temp"), this.search("code", "a%"));
+        assertEquals(Arrays.asList("C:\\Temp"), this.search("code", "a\\"));
+    }
+
+    /**
+     * Test shadow fields are populated on insert and update
+     */
+    @Test
+    public void testShadowMaintenance() {
+        Contact contact = new Contact("Émile Zola", "ab-1");
+        this.save(contact);
+        assertEquals("EMILE ZOLA", this.load(contact.getId()).getNameSearch());
+
+        persistence.transaction(false).execute(status -> {
+            persistence.getEntityManager().find(Contact.class, contact.getId()).setName("Zoë Wanamaker");
+            return null;
+        });
+        assertEquals("ZOE WANAMAKER", this.load(contact.getId()).getNameSearch());
+        assertEquals(Arrays.asList("Zoë Wanamaker"), this.search("name", "zoe"));
+        assertTrue(this.search("name", "emile").isEmpty());
+
+        persistence.transaction(false).execute(status -> {
+            persistence.getEntityManager().find(Contact.class, contact.getId()).setName(null);
+            return null;
+        });
+        assertNull(this.load(contact.getId()).getNameSearch());
+    }
+
+    /**
+     * Test shadow fields of existing records are populated, records whose shadow fields are current aren't updated
+     * and entities without shadow fields are reported
+     */
+    @Test
+    public void testPopulateShadows() {
+        this.save(new Contact("Émile Zola", "ab-1"), new Contact("Emily Brontë", "AB-2"), new Contact(null, "ba-3"));
+        persistence.transaction(false).execute(status -> persistence.getEntityManager()
+                .createQuery("update Contact c set c.nameSearch = null").executeUpdate());
+        assertTrue(this.search("name", "emi").isEmpty());
+
+        assertEquals(Long.valueOf(2), persistence.transaction(false)
+                .execute(status -> SearchFields.populateShadows(persistence.getEntityManager(), Contact.class)));
+        assertEquals(Arrays.asList("Emily Brontë", "Émile Zola"), this.search("name", "emi"));
+        assertEquals(Long.valueOf(0), persistence.transaction(false)
+                .execute(status -> SearchFields.populateShadows(persistence.getEntityManager(), Contact.class)));
+        assertEquals(Long.valueOf(-1), persistence.transaction(false)
+                .execute(status -> SearchFields.populateShadows(persistence.getEntityManager(), Note.class)));
+    }
+
+    private void save(Contact... contacts) {
+        persistence.transaction(false).execute(status -> {
+            Arrays.stream(contacts).forEach(persistence.getEntityManager()::persist);
+            return null;
+        });
+    }
+
+    private Contact load(Long id) {
+        return persistence.transaction(true).execute(status -> {
+            EntityManager entityManager = persistence.getEntityManager();
+            Contact contact = entityManager.find(Contact.class, id);
+            entityManager.refresh(contact);
+            return contact;
+        });
+    }
+
+    /**
+     * Names of contacts whose field matches the needle ordered by name
+     */
+    private List<String> search(String field, String needle) {
+        return persistence.transaction(true).execute(status -> {
+            CriteriaBuilder criteriaBuilder = persistence.getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<Contact> query = criteriaBuilder.createQuery(Contact.class);
+            Root<Contact> root = query.from(Contact.class);
+            try {
+                query.where(SearchFields.predicate(criteriaBuilder, root, Contact.class.getDeclaredField(field), needle));
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException(e);
+            }
+            return persistence.getEntityManager().createQuery(query).getResultList().stream()
+                    .map(Contact::getName)
+                    .sorted()
+                    .collect(Collectors.toList());
+        });
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+
+import java.text.ParseException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link Aggregation} against an in memory H2 database: metrics with and without group by fields, group
+ * ordering, the group limit and the restriction
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class AggregationTest {
+
+    private static TestPersistence persistence;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("aggregation"));
+        persistence.transaction(false).executeWithoutResult(status -> {
+            for (Object[] values : new Object[][]{{"a", 1}, {"a", 3}, {"b", 5}, {"c", null}}) {
+                Note note = new Note((String) values[0]);
+                note.setPriority((Integer) values[1]);
+                persistence.getEntityManager().persist(note);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test metrics without group by fields return a single row
+     */
+    @Test
+    public void testTotals() {
+        assertEquals(Arrays.asList("{count=4, sum_priority=9, max_priority=5}"),
+                execute(aggregation(null, "count", "sum:priority,max:priority"), Sort.unsorted(), 10));
+    }
+
+    /**
+     * Test groups are ordered by the group by fields unless sorted by one of them and are limited
+     */
+    @Test
+    public void testGroups() {
+        Aggregation<Note> aggregation = aggregation("text", "count");
+        assertEquals(Arrays.asList("{text=a, count=2}", "{text=b, count=1}", "{text=c, count=1}"),
+                execute(aggregation, Sort.by("priority"), 10));
+        assertEquals(Arrays.asList("{text=c, count=1}", "{text=b, count=1}"),
+                execute(aggregation, Sort.by(Sort.Direction.DESC, "text"), 2));
+    }
+
+    /**
+     * Test only records matching the restriction are aggregated
+     */
+    @Test
+    public void testRestriction() {
+        List<Map<String, Object>> rows = persistence.transaction(true).execute(status -> {
+            try {
+                return aggregation("text", "avg:priority").execute(persistence.getEntityManager(),
+                        (criteriaBuilder, root) -> criteriaBuilder.equal(root.get("text"), "a"), Sort.unsorted(), 10, 0);
+            } catch (ParseException ex) {
+                throw new AssertionError(ex);
+            }
+        });
+        assertEquals(1, rows.size());
+        assertEquals(2.0, ((Number) rows.get(0).get("avg_priority")).doubleValue(), 0.001);
+    }
+
+    /**
+     * Test invalid metrics are rejected
+     */
+    @Test
+    public void testInvalid() {
+        for (String metric : Arrays.asList("sum:text", "median:priority", "sum:unknown")) {
+            try {
+                aggregation(null, metric);
+                fail(metric);
+            } catch (RunTimeBadRequest ex) {
+                //expected
+            }
+        }
+    }
+
+    private static Aggregation<Note> aggregation(String groupBy, String... metrics) {
+        return Aggregation.of(EntityMetadataRegistry.forClass(Note.class), metrics, groupBy);
+    }
+
+    private static List<String> execute(Aggregation<Note> aggregation, Sort sort, int limit) {
+        return persistence.transaction(true).execute(status -> {
+            List<String> rows = new ArrayList<>();
+            try {
+                aggregation.execute(persistence.getEntityManager(), (criteriaBuilder, root) -> criteriaBuilder.conjunction(),
+                        sort, limit, 0).forEach(row -> rows.add(row.toString()));
+            } catch (ParseException ex) {
+                throw new AssertionError(ex);
+            }
+            return rows;
+        });
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.wrappers.BatchResult;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link BatchFetch} against an in memory H2 database: records are returned in the order of the ids across
+ * chunks, duplicates are fetched once, records in trash and unknown ids are missing and invalid requests are rejected
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class BatchFetchTest {
+
+    private static TestPersistence persistence;
+    private static final List<Long> IDS = new ArrayList<>();
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("batch"));
+        persistence.transaction(false).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                Nerd nerd = new Nerd("nerd " + i, "java");
+                nerd.setIntrash((i == 4) ? AppConstants.YES : AppConstants.NO);
+                persistence.getEntityManager().persist(nerd);
+                IDS.add(nerd.getId());
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test records are returned in the order of the ids and missing ids are reported
+     */
+    @Test
+    public void testFetch() {
+        BatchResult<Object, String> result = fetch(Arrays.asList(IDS.get(3).toString(), IDS.get(0).toString(),
+                IDS.get(3).toString(), IDS.get(4).toString(), "-1", IDS.get(2).toString()), null);
+        List<Long> ids = new ArrayList<>();
+        result.getContent().forEach(record -> ids.add(((Nerd) record).getId()));
+        assertEquals(Arrays.asList(IDS.get(3), IDS.get(0), IDS.get(2)), ids);
+        assertEquals(Arrays.asList(IDS.get(4).toString(), "-1"), result.getMissing());
+    }
+
+    /**
+     * Test projections return only the id and the selected fields
+     */
+    @Test
+    public void testProjection() {
+        BatchResult<Object, String> result = fetch(Arrays.asList(IDS.get(1).toString()),
+                Projection.of(EntityMetadataRegistry.forClass(Nerd.class), "name"));
+        assertEquals("{id=" + IDS.get(1) + ", name=nerd 1}", result.getContent().get(0).toString());
+    }
+
+    /**
+     * Test empty, too large and invalid id lists are rejected
+     */
+    @Test
+    public void testInvalid() {
+        for (List<String> ids : Arrays.asList(Collections.<String>emptyList(), Collections.nCopies(11, "1"),
+                Arrays.asList("1", "x"))) {
+            try {
+                fetch(ids, null);
+                fail(ids.toString());
+            } catch (RunTimeBadRequest ex) {
+                //expected
+            }
+        }
+    }
+
+    private static BatchResult<Object, String> fetch(List<String> ids, Projection<Nerd> projection) {
+        return persistence.transaction(true).execute(status -> new BatchFetch<>(persistence.getEntityManager(),
+                EntityMetadataRegistry.forClass(Nerd.class), 2, 0).fetch(ids, 10, projection, null));
+    }
+}
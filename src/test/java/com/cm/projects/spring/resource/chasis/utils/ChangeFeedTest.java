@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.models.EdittedRecord;
+import com.cm.projects.spring.resource.chasis.models.Gender;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import com.cm.projects.spring.resource.chasis.wrappers.ChangeEvent;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ChangeFeed}: slow subscribers lose their oldest events and are told how many were dropped, stalled
+ * subscribers are removed, the subscriber limit and relaying events to other application instances
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ChangeFeedTest {
+
+    /**
+     * Test a subscriber that falls behind keeps the newest events and receives a dropped event with the number of
+     * events it lost
+     */
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        ChangeFeed feed = ChangeFeed.forClass(Note.class);
+        feed.setBufferSize(2);
+        RecordingEmitter emitter = new RecordingEmitter(true);
+        feed.subscribe(emitter);
+
+        feed.publish(event(1));
+        assertTrue("Sender didn't start", emitter.blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 5; i++) {
+            feed.publish(event(i));
+        }
+        emitter.release.countDown();
+
+        assertEquals(Arrays.asList("change 1", "dropped 2", "change 4", "change 5"), emitter.await(4));
+    }
+
+    /**
+     * Test subscriptions over the limit are rejected
+     */
+    @Test
+    public void testMaxSubscribers() {
+        ChangeFeed feed = ChangeFeed.forClass(Gender.class);
+        feed.setMaxSubscribers(1);
+        feed.subscribe(new RecordingEmitter(false));
+        try {
+            feed.subscribe(new RecordingEmitter(false));
+            fail("Subscriber over the limit");
+        } catch (ResponseStatusException ex) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        }
+    }
+
+    /**
+     * Test published events are relayed to other instances and delivered events are only sent to local subscribers
+     */
+    @Test
+    public void testRelay() throws InterruptedException {
+        ChangeFeed feed = ChangeFeed.forClass(Nerd.class);
+        List<Object> relayed = new ArrayList<>();
+        ChangeFeed.setRelay((entityClass, event) -> {
+            assertSame(Nerd.class, entityClass);
+            relayed.add(event.getId());
+        });
+        try {
+            assertTrue("Relayed events are published without subscribers", feed.hasSubscribers());
+            RecordingEmitter emitter = new RecordingEmitter(false);
+            feed.subscribe(emitter);
+            feed.publish(event(1));
+            feed.deliver(event(2));
+            assertEquals(Arrays.asList("change 1", "change 2"), emitter.await(2));
+            assertEquals(Arrays.<Object>asList(1L), relayed);
+        } finally {
+            ChangeFeed.setRelay(null);
+        }
+    }
+
+    /**
+     * Test subscribers whose send doesn't return within the send timeout are removed and don't keep other subscribers
+     * from receiving events
+     */
+    @Test
+    public void testStalledSubscribers() throws InterruptedException {
+        ChangeFeed feed = new ChangeFeed(EdittedRecord.class);
+        feed.setSendTimeoutMillis(100);
+        List<StalledEmitter> stalled = new ArrayList<>();
+        for (int i = 0; i < 2 * Runtime.getRuntime().availableProcessors() + 2; i++) {
+            StalledEmitter emitter = new StalledEmitter();
+            feed.subscribe(emitter);
+            stalled.add(emitter);
+        }
+        RecordingEmitter emitter = new RecordingEmitter(false);
+        feed.subscribe(emitter);
+
+        feed.publish(event(1));
+        assertEquals(Arrays.asList("change 1"), emitter.await(1));
+        for (StalledEmitter stalledEmitter : stalled) {
+            assertTrue("Stalled send wasn't interrupted", stalledEmitter.interrupted.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, feed.getSubscriberCount());
+        feed.publish(event(2));
+        assertEquals(Arrays.asList("change 1", "change 2"), emitter.await(2));
+    }
+
+    private static ChangeEvent event(long id) {
+        return new ChangeEvent(id, "Update", AppConstants.STATUS_ID_ACTIVE);
+    }
+
+    /**
+     * Never returns from a send until the sending thread is interrupted
+     */
+    private static class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+                this.interrupted.countDown();
+                throw new IOException("Interrupted", ex);
+            }
+        }
+    }
+
+    /**
+     * Records the name and data (record id or dropped count) of the events sent, optionally blocking the first send
+     * until released
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final boolean block;
+        private final List<String> events = new ArrayList<>();
+
+        private RecordingEmitter(boolean block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (this.block) {
+                this.blocked.countDown();
+                try {
+                    this.release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String name = null;
+            Object data = null;
+            for (DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String) {
+                    String text = (String) part.getData();
+                    int start = text.indexOf("event:");
+                    if (start >= 0) {
+                        name = text.substring(start + 6, text.indexOf('\n', start));
+                    }
+                } else {
+                    data = part.getData();
+                }
+            }
+            synchronized (this) {
+                this.events.add(name + " " + ((data instanceof ChangeEvent) ? ((ChangeEvent) data).getId() : data));
+                this.notifyAll();
+            }
+        }
+
+        private synchronized List<String> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (this.events.size() < count && System.currentTimeMillis() < deadline) {
+                this.wait(100);
+            }
+            return new ArrayList<>(this.events);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.models.Note;
+import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CoalescedReads}: copies of coalesced responses are written the same as the original response and don't
+ * share state with it or with each other, reads without a key or object mapper are executed
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class CoalescedReadsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    /**
+     * Test a copy of a wrapped entity is written the same as the original and each copy is independent
+     */
+    @Test
+    public void testDetachedWrapper() throws Exception {
+        Note note = new Note("note");
+        note.setPriority(2);
+        ResponseWrapper<Note> wrapper = new ResponseWrapper<>();
+        wrapper.setData(note);
+        ResponseEntity<ResponseWrapper<Note>> response = ResponseEntity.ok().eTag("abc").body(wrapper);
+
+        CoalescedReads.DetachedResponse detached = new CoalescedReads.DetachedResponse(response, mapper);
+        note.setText("changed after the read");
+        ResponseEntity<ResponseWrapper<Object>> copy = detached.toResponse();
+        assertEquals(HttpStatus.OK, copy.getStatusCode());
+        assertEquals("\"abc\"", copy.getHeaders().getETag());
+        assertNotSame(wrapper, copy.getBody());
+        assertEquals("note", ((JsonNode) copy.getBody().getData()).get("text").asText());
+        assertEquals(wrapper.getTimestamp(), copy.getBody().getTimestamp());
+
+        copy.getBody().setMessage("changed by a caller");
+        ResponseEntity<ResponseWrapper<Object>> other = detached.toResponse();
+        assertEquals(wrapper.getMessage(), other.getBody().getMessage());
+        assertNotSame(copy.getBody().getData(), other.getBody().getData());
+    }
+
+    /**
+     * Test bodies other than a {@link ResponseWrapper} are copied as JSON
+     */
+    @Test
+    public void testDetachedBody() {
+        ResponseEntity<Map<String, Integer>> response = ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("count", 3));
+        ResponseEntity<JsonNode> copy = new CoalescedReads.DetachedResponse(response, mapper).toResponse();
+        assertEquals(HttpStatus.ACCEPTED, copy.getStatusCode());
+        assertEquals(3, copy.getBody().get("count").asInt());
+    }
+
+    /**
+     * Test reads without a key or object mapper are executed without coalescing
+     */
+    @Test
+    public void testNotCoalesced() {
+        SingleFlight flight = new SingleFlight(Note.class, 5000);
+        AtomicInteger reads = new AtomicInteger();
+        ResponseEntity<String> response = ResponseEntity.ok("read");
+        assertSame(response, new CoalescedReads(flight, mapper, null).execute(null, () -> {
+            reads.incrementAndGet();
+            return response;
+        }));
+        assertSame(response, new CoalescedReads(flight, null, null).execute("key", () -> {
+            reads.incrementAndGet();
+            return response;
+        }));
+        assertEquals(2, reads.get());
+        assertEquals(0, flight.getExecutionCount());
+    }
+}
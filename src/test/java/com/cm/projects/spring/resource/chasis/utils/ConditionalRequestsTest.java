@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import com.cm.projects.spring.resource.chasis.wrappers.ResourceVersion;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ConditionalRequests} against an in memory H2 database: list and record versions change when records
+ * change, differ per parameters and caller and 304 responses are returned for current versions
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ConditionalRequestsTest {
+
+    private static TestPersistence persistence;
+    private static Long noteId;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("conditional"));
+        persistence.transaction(false).executeWithoutResult(status -> {
+            Note note = new Note("note");
+            persistence.getEntityManager().persist(note);
+            noteId = note.getId();
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test record versions follow the last modified field, request parameters and caller
+     */
+    @Test
+    public void testEntityVersion() throws InterruptedException {
+        ResourceVersion version = execute(Note.class, false, versions -> versions.forEntity(noteId, request(), "a"));
+        assertNotNull(version);
+        assertTrue(version.getLastModified() > 0);
+        assertEquals(version.getETag(), execute(Note.class, false, versions -> versions.forEntity(noteId, request(), "a")).getETag());
+        assertNotEquals(version.getETag(), execute(Note.class, false, versions -> versions.forEntity(noteId, request(), "b")).getETag());
+        MockHttpServletRequest fields = request();
+        fields.setParameter("fields", "text");
+        assertNotEquals(version.getETag(), execute(Note.class, false, versions -> versions.forEntity(noteId, fields, "a")).getETag());
+        assertNull("Missing records aren't versioned", execute(Note.class, false, versions -> versions.forEntity(-1L, request(), "a")));
+
+        Thread.sleep(5);
+        persistence.transaction(false).executeWithoutResult(status ->
+                persistence.getEntityManager().find(Note.class, noteId).setText("changed"));
+        assertNotEquals(version.getETag(), execute(Note.class, false, versions -> versions.forEntity(noteId, request(), "a")).getETag());
+    }
+
+    /**
+     * Test lists are only versioned when changes can be detected and follow the modification counter
+     */
+    @Test
+    public void testListVersion() {
+        assertNull("Permanent deletes can't be detected", execute(Note.class, false, versions -> versions.forList(request(), "a")));
+        assertNull(execute(Nerd.class, false, versions -> versions.forList(request(), "a")));
+        ResourceVersion version = execute(Nerd.class, true, versions -> versions.forList(request(), "a"));
+        assertNotNull(version);
+        EntityVersions.increment(Nerd.class);
+        assertNotEquals(version.getETag(), execute(Nerd.class, true, versions -> versions.forList(request(), "a")).getETag());
+    }
+
+    /**
+     * Test a request carrying the current ETag gets a 304 response with the ETag
+     */
+    @Test
+    public void testNotModified() {
+        ResourceVersion version = new ResourceVersion("abc", -1);
+        assertNull(ConditionalRequests.notModified(request(), version));
+        assertNull(ConditionalRequests.notModified(request(), null));
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", "\"abc\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, ConditionalRequests.notModified(request, version).getStatusCode());
+        assertEquals("\"abc\"", ConditionalRequests.notModified(request, version).getHeaders().getETag());
+    }
+
+    private static <T> ResourceVersion execute(Class<T> clazz, boolean counterVersions,
+                                               Function<ConditionalRequests<T>, ResourceVersion> resolve) {
+        return persistence.transaction(true).execute(status -> resolve.apply(new ConditionalRequests<>(
+                persistence.getEntityManager(), EntityMetadataRegistry.forClass(clazz), counterVersions, 0)));
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/");
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.models.EdittedRecord;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CountCache}: counts are cached per restriction, counts started before an invalidation aren't cached
+ * and recorded writes invalidate the cache of the entity (see {@link EntityWrites})
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class CountCacheTest {
+
+    /**
+     * Test counts are cached per key and paging parameters don't change the key
+     */
+    @Test
+    public void testCount() {
+        CountCache cache = new CountCache(Note.class, 10, 60_000);
+        AtomicInteger queries = new AtomicInteger();
+        String key = cache.createKey(Map.of("priority", new String[]{"1"}, "page", new String[]{"2"}), "a");
+        assertEquals(key, cache.createKey(Map.of("priority", new String[]{"1"}), "a"));
+        assertNotEquals(key, cache.createKey(Map.of("priority", new String[]{"1"}), "b"));
+        assertEquals(5, cache.count(key, () -> 5 + queries.getAndIncrement()));
+        assertEquals(5, cache.count(key, () -> 5 + queries.getAndIncrement()));
+        assertEquals(1, queries.get());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Test a count that was running when the cache was invalidated isn't cached
+     */
+    @Test
+    public void testInvalidatedWhileCounting() {
+        CountCache cache = new CountCache(Note.class, 10, 60_000);
+        assertEquals(5, cache.count("key", () -> {
+            cache.invalidate();
+            return 5;
+        }));
+        assertNull(cache.get("key"));
+    }
+
+    /**
+     * Test recording a write invalidates the counts and increments the version of the entity
+     */
+    @Test
+    public void testRecordWrite() {
+        CountCache cache = CountCache.forClass(EdittedRecord.class);
+        cache.put("key", 5, cache.getGeneration());
+        String version = EntityVersions.current(EdittedRecord.class);
+        EntityWrites.record(EdittedRecord.class);
+        assertNull(cache.get("key"));
+        assertNotEquals(version, EntityVersions.current(EdittedRecord.class));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.Benchmark;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the speed of {@link DateParser} with parsing using {@link SimpleDateFormat} patterns in turn (the way
+ * dates were parsed before). Excluded from the test run, run it using <code>mvn test -Pbenchmark</code>
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+@Category(Benchmark.class)
+public class DateParserBenchmark {
+
+    private static final List<String> LEGACY_FORMATS = Arrays.asList("dd/MM/yyyy", "dd/MM/yyyy HH:mm:ss.SSS",
+            "dd/MM/yyyy HH:mm:ss", "dd-MM-yyyy", "dd-MM-yyyy HH:mm:ss.SSS", "dd-MM-yyyy HH:mm:ss", "yyyy-MM-dd",
+            "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd HH:mm:ss");
+    private static final int ITERATIONS = 20_000;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Log the time taken to parse valid and invalid dates. Timings depend on the machine hence nothing is asserted
+     */
+    @Test
+    public void benchmark() {
+        String[] valid = {"05/10/2020", "2020-10-05 13:04:05", "05-10-2020 13:04:05.120"};
+        String[] invalid = {"abc", "05.10.2020"};
+        for (int i = 0; i < 2; i++) {//warm up
+            time(() -> legacyParse(valid));
+            time(() -> parse(valid));
+        }
+        long legacyValid = time(() -> legacyParse(valid));
+        long parserValid = time(() -> parse(valid));
+        long legacyInvalid = time(() -> legacyParse(invalid));
+        long parserInvalid = time(() -> parse(invalid));
+        log.info("Parsing {} valid dates: SimpleDateFormat {} ms, DateParser {} ms", ITERATIONS * valid.length,
+                legacyValid / 1_000_000, parserValid / 1_000_000);
+        log.info("Parsing {} invalid dates: SimpleDateFormat {} ms, DateParser {} ms", ITERATIONS * invalid.length,
+                legacyInvalid / 1_000_000, parserInvalid / 1_000_000);
+    }
+
+    private static void parse(String[] texts) {
+        for (String text : texts) {
+            DateParser.parse(text);
+        }
+    }
+
+    private static void legacyParse(String[] texts) {
+        for (String text : texts) {
+            for (String format : LEGACY_FORMATS) {
+                try {
+                    new SimpleDateFormat(format).parse(text);
+                    break;
+                } catch (ParseException ex) {
+                    //try next format
+                }
+            }
+        }
+    }
+
+    private static long time(Runnable task) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link DateParser} formats (see {@link DateParserBenchmark} for the speed comparison with
+ * {@link SimpleDateFormat})
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class DateParserTest {
+
+    /**
+     * Test every supported format
+     */
+    @Test
+    public void testFormats() throws ParseException {
+        assertEquals(LocalDateTime.of(2020, 10, 5, 0, 0), DateParser.parseLocalDateTime("05/10/2020"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 13, 4, 5), DateParser.parseLocalDateTime("05/10/2020 13:04:05"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 13, 4, 5, 120_000_000),
+                DateParser.parseLocalDateTime("05/10/2020 13:04:05.120"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 0, 0), DateParser.parseLocalDateTime("05-10-2020"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 13, 4, 5), DateParser.parseLocalDateTime("05-10-2020 13:04:05"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 13, 4, 5, 120_000_000),
+                DateParser.parseLocalDateTime("05-10-2020 13:04:05.120"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 0, 0), DateParser.parseLocalDateTime("2020-10-05"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 13, 4, 5), DateParser.parseLocalDateTime("2020-10-05 13:04:05"));
+        assertEquals(LocalDateTime.of(2020, 10, 5, 13, 4, 5, 120_000_000),
+                DateParser.parseLocalDateTime("2020-10-05 13:04:05.120"));
+        assertEquals(LocalDateTime.of(2020, 1, 5, 0, 0), DateParser.parseLocalDateTime(" 5/1/2020 "));
+
+        assertEquals(new SimpleDateFormat("dd/MM/yyyy HH:mm:ss.SSS").parse("05/10/2020 13:04:05.120"),
+                DateParser.parse("05/10/2020 13:04:05.120"));
+    }
+
+    /**
+     * Test invalid dates return null
+     */
+    @Test
+    public void testInvalid() {
+        for (String text : Arrays.asList(null, "", "abc", "31/02/2020", "2020/10/05", "05.10.2020", "05/13/2020",
+                "5/10", "x05/10/2020")) {
+            assertNull(text, DateParser.parse(text));
+        }
+    }
+
+    /**
+     * Test a valid date followed by other text is accepted ignoring the text like
+     * {@link SimpleDateFormat#parse(String)}
+     */
+    @Test
+    public void testPrefix() throws ParseException {
+        LocalDateTime date = LocalDateTime.of(2020, 10, 5, 0, 0);
+        for (String text : Arrays.asList("05/10/2020 13:04", "05/10/2020 25:00:00", "05/10/2020x", "05-10-2020 13:04:05.x",
+                "2020-10-05T13:04:05")) {
+            assertEquals(text, date, DateParser.parseLocalDateTime(text));
+        }
+        assertEquals(new SimpleDateFormat("dd/MM/yyyy").parse("05/10/2020 13:04"), DateParser.parse("05/10/2020 13:04"));
+    }
+}
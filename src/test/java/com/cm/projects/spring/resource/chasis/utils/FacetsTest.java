@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.models.Gender;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.wrappers.FacetValue;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import java.text.ParseException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link Facets} against an in memory H2 database: parsing the facets parameter, counts ordered by frequency,
+ * @{@link javax.persistence.ManyToOne} facets counted by the related id, the value limit and the restriction
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class FacetsTest {
+
+    private static TestPersistence persistence;
+    private static Short male, female;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("facets"));
+        persistence.transaction(false).executeWithoutResult(status -> {
+            EntityManager entityManager = persistence.getEntityManager();
+            Gender maleGender = new Gender(), femaleGender = new Gender();
+            maleGender.setGender("Male");
+            femaleGender.setGender("Female");
+            entityManager.persist(maleGender);
+            entityManager.persist(femaleGender);
+            male = maleGender.getId();
+            female = femaleGender.getId();
+            Object[][] nerds = {{"new", maleGender}, {"new", femaleGender}, {"new", maleGender}, {"approved", maleGender}};
+            for (int i = 0; i < nerds.length; i++) {
+                Nerd nerd = new Nerd("nerd " + i, "java");
+                nerd.setActionStatus((String) nerds[i][0]);
+                nerd.setGender((Gender) nerds[i][1]);
+                entityManager.persist(nerd);
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test the facets parameter selects @Filter fields and defaults to all of them
+     */
+    @Test
+    public void testParse() {
+        assertEquals(Arrays.asList("actionStatus", "gender"), names(facets(null)));
+        assertEquals(Arrays.asList("gender"), names(facets("gender, gender")));
+        try {
+            facets("name");
+            fail("Field isn't a filter");
+        } catch (RunTimeBadRequest ex) {
+            assertEquals("Unknown facet name", ex.getMessage());
+        }
+    }
+
+    /**
+     * Test values are counted most frequent first, relations by the related id
+     */
+    @Test
+    public void testCount() {
+        Map<String, List<FacetValue>> facets = count(facets(null), 100, (criteriaBuilder, root) -> criteriaBuilder.conjunction());
+        assertEquals(Arrays.asList("new=3", "approved=1"), values(facets.get("actionStatus")));
+        assertEquals(Arrays.asList(male + "=3", female + "=1"), values(facets.get("gender")));
+    }
+
+    /**
+     * Test the number of values is limited and only records matching the restriction are counted
+     */
+    @Test
+    public void testLimitAndRestriction() {
+        assertEquals(Arrays.asList("new=3"), values(count(facets("actionStatus"), 1,
+                (criteriaBuilder, root) -> criteriaBuilder.conjunction()).get("actionStatus")));
+        assertEquals(Arrays.asList(male + "=2", female + "=1"), values(count(facets("gender"), 100,
+                (criteriaBuilder, root) -> criteriaBuilder.equal(root.get("actionStatus"), "new")).get("gender")));
+    }
+
+    private static Facets<Nerd> facets(String facets) {
+        return Facets.of(EntityMetadataRegistry.forClass(Nerd.class), facets);
+    }
+
+    private static Map<String, List<FacetValue>> count(Facets<Nerd> facets, int limit, Restriction<Nerd> restriction) {
+        return persistence.transaction(true).execute(status -> {
+            try {
+                return facets.count(persistence.getEntityManager(), restriction, limit, 0);
+            } catch (ParseException ex) {
+                throw new AssertionError(ex);
+            }
+        });
+    }
+
+    private static List<String> names(Facets<?> facets) {
+        List<String> names = new ArrayList<>();
+        facets.getFields().forEach(field -> names.add(field.getName()));
+        return names;
+    }
+
+    private static List<String> values(List<FacetValue> values) {
+        List<String> result = new ArrayList<>();
+        values.forEach(value -> result.add(value.getValue() + "=" + value.getCount()));
+        return result;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.models.Appointment;
+import com.cm.projects.spring.resource.chasis.models.Gender;
+import com.cm.projects.spring.resource.chasis.models.Nerd;
+import com.cm.projects.spring.resource.chasis.models.Note;
+import com.cm.projects.spring.resource.chasis.service.templates.ChasisServiceTemplate;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the filter parameters of {@link FilterPlan} against an in memory H2 database: operators, plain values
+ * (including values containing <code>:</code>), @{@link javax.persistence.ManyToOne} filters on the related id and
+ * half open date ranges
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class FilterPlanTest {
+
+    private static TestPersistence persistence;
+    private static final Map<Object, Long> NOTES = new HashMap<>();
+    private static final Map<String, Long> NERDS = new HashMap<>();
+    private static final Map<String, Long> APPOINTMENTS = new HashMap<>();
+    private static Short male, female;
+
+    @BeforeClass
+    public static void setUpClass() {
+        persistence = new TestPersistence(TestPersistence.dataSource("filter"));
+        persistence.transaction(false).executeWithoutResult(status -> {
+            EntityManager entityManager = persistence.getEntityManager();
+            for (Integer priority : Arrays.asList(1, 2, 3, 4, 5, null)) {
+                Note note = new Note("note " + priority);
+                note.setPriority(priority);
+                entityManager.persist(note);
+                NOTES.put(priority, note.getId());
+            }
+            Gender maleGender = new Gender(), femaleGender = new Gender();
+            maleGender.setGender("Male");
+            femaleGender.setGender("Female");
+            entityManager.persist(maleGender);
+            entityManager.persist(femaleGender);
+            male = maleGender.getId();
+            female = femaleGender.getId();
+            Object[][] nerds = {{"new", maleGender}, {"a:b", femaleGender}, {"approved", null}, {"in:1", maleGender}};
+            for (Object[] values : nerds) {
+                Nerd nerd = new Nerd("nerd " + values[0], "java");
+                nerd.setActionStatus((String) values[0]);
+                nerd.setGender((Gender) values[1]);
+                nerd.setIntrash(AppConstants.NO);
+                entityManager.persist(nerd);
+                NERDS.put((String) values[0], nerd.getId());
+            }
+            LocalDateTime noon = LocalDateTime.of(2020, 1, 2, 12, 0);
+            LocalDateTime after = LocalDateTime.of(2020, 1, 3, 0, 0);
+            List<Appointment> appointments = new ArrayList<>(Arrays.asList(
+                    new Appointment("noon", noon),
+                    new Appointment("first", LocalDateTime.of(2020, 1, 1, 0, 0)),
+                    new Appointment("last", after.minusNanos(1_000_000)),
+                    new Appointment("before", LocalDateTime.of(2019, 12, 31, 23, 59, 59)),
+                    new Appointment("after", after)));
+            Appointment day = new Appointment("day after", noon), startsAt = new Appointment("starts after", noon),
+                    createdAt = new Appointment("created after", noon), scheduled = new Appointment("scheduled after", noon);
+            day.setDay(after.toLocalDate());
+            startsAt.setStartsAt(after);
+            createdAt.setCreatedAt(after.atZone(ZoneId.systemDefault()).toInstant());
+            scheduled.setScheduled(Date.from(after.atZone(ZoneId.systemDefault()).toInstant()));
+            appointments.addAll(Arrays.asList(day, startsAt, createdAt, scheduled));
+            for (Appointment appointment : appointments) {
+                entityManager.persist(appointment);
+                APPOINTMENTS.put(appointment.getName(), appointment.getId());
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+    }
+
+    /**
+     * Test each operator on a numeric field
+     */
+    @Test
+    public void testOperators() {
+        assertEquals(notes(3), find(Note.class, "priority", "eq:3"));
+        assertEquals(notes(1, 2, 4, 5), find(Note.class, "priority", "ne:3"));
+        assertEquals(notes(4, 5), find(Note.class, "priority", "gt:3"));
+        assertEquals(notes(3, 4, 5), find(Note.class, "priority", "ge:3"));
+        assertEquals(notes(1, 2), find(Note.class, "priority", "lt:3"));
+        assertEquals(notes(1, 2, 3), find(Note.class, "priority", "le:3"));
+        assertEquals(notes(2, 3, 4), find(Note.class, "priority", "between:2,4"));
+        assertEquals(notes(1, 5), find(Note.class, "priority", "in:1,5"));
+        assertEquals(notes((Integer) null), find(Note.class, "priority", "isnull:"));
+        assertEquals(notes(1, 2, 3, 4, 5), find(Note.class, "priority", "isnull:false"));
+        assertEquals("Operator names are case insensitive", notes(4, 5), find(Note.class, "priority", "GT:3"));
+        assertEquals("Repeated parameters are combined", notes(2, 3),
+                find(Note.class, "priority", "gt:1", "lt:4"));
+        assertEquals("Several plain values are matched using in", notes(2, 4),
+                find(Note.class, "priority", "2", "4"));
+    }
+
+    /**
+     * Test values that start with a word followed by <code>:</code> that isn't an operator are plain values
+     */
+    @Test
+    public void testPlainValues() {
+        assertEquals(nerds("a:b"), find(Nerd.class, "actionStatus", "a:b"));
+        assertEquals(nerds("approved"), find(Nerd.class, "actionStatus", "app%"));
+        assertEquals(nerds("new", "a:b"), find(Nerd.class, "actionStatus", "new", "a:b"));
+        assertEquals("Only the operator prefix is removed", nerds("a:b"), find(Nerd.class, "actionStatus", "eq:a:b"));
+        assertEquals(nerds("in:1"), find(Nerd.class, "actionStatus", "eq:in:1"));
+        assertEquals("like escapes values starting with an operator", nerds("in:1"),
+                find(Nerd.class, "actionStatus", "like:in:1"));
+        assertEquals(nerds("in:1"), find(Nerd.class, "actionStatus", "like:in:%"));
+        assertEquals(nerds("in:1", "new"), find(Nerd.class, "actionStatus", "in:in:1,new"));
+        assertEquals("Unescaped values are parsed as operators", nerds(), find(Nerd.class, "actionStatus", "in:1"));
+        assertEquals(nerds(), find(Nerd.class, "actionStatus", ":a"));
+    }
+
+    /**
+     * Test @ManyToOne filters compare the id of the related record
+     */
+    @Test
+    public void testManyToOne() {
+        assertEquals(nerds("new", "in:1"), find(Nerd.class, "gender", male.toString()));
+        assertEquals(nerds("new", "a:b", "in:1"), find(Nerd.class, "gender", "in:" + male + "," + female));
+        assertEquals(nerds("a:b"), find(Nerd.class, "gender", "ne:" + male));
+        assertEquals(nerds("approved"), find(Nerd.class, "gender", "isnull:"));
+        assertEquals(nerds("new", "a:b", "in:1"), find(Nerd.class, "gender", "gt:0"));
+    }
+
+    /**
+     * Test half open ranges include from and exclude the day after to for {@link java.time.LocalDate},
+     * {@link LocalDateTime}, {@link java.time.Instant} and {@link Date} fields. Each "after" record has a single
+     * field on the day after to
+     */
+    @Test
+    public void testHalfOpenRange() {
+        assertEquals(appointments("noon", "first", "last"), range("2020-01-01", "2020-01-02"));
+        assertEquals(appointments("noon", "first", "last"), range("01/01/2020", "02/01/2020"));
+        assertEquals("Time of to is ignored", appointments("noon", "first", "last"),
+                range("2020-01-01", "2020-01-02 08:30:00"));
+        assertEquals("From is inclusive", appointments("noon", "last"), range("2020-01-01 00:00:00.001", "2020-01-02"));
+        assertEquals(appointments("noon", "last"), range("2020-01-02", "2020-01-02"));
+        assertEquals(appointments("before"), range("2019-12-31", "2019-12-31"));
+        assertEquals(appointments(), range("2020-01-03", "2020-01-02"));
+        try {
+            range("yesterday", "2020-01-02");
+            fail("Invalid from");
+        } catch (AssertionError ex) {
+            assertTrue(ex.getCause() instanceof ParseException);
+        }
+    }
+
+    /**
+     * Test invalid operands are rejected
+     */
+    @Test
+    public void testInvalid() {
+        for (String value : Arrays.asList("gt:abc", "between:1", "between:1,2,3", "in:1,x")) {
+            try {
+                find(Note.class, "priority", value);
+                fail(value);
+            } catch (RunTimeBadRequest ex) {
+                //expected
+            }
+        }
+        try {
+            find(Nerd.class, "gender", "abc");
+            fail("Related id is not a number");
+        } catch (RunTimeBadRequest ex) {
+            //expected
+        }
+    }
+
+    private static <T> Set<Long> find(Class<T> clazz, String name, String... values) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setParameter(name, values);
+        return find(clazz, request);
+    }
+
+    private static Set<Long> range(String from, String to) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setParameter("from", from);
+        request.setParameter("to", to);
+        return find(Appointment.class, request);
+    }
+
+    private static <T> Set<Long> find(Class<T> clazz, MockHttpServletRequest request) {
+        return persistence.transaction(true).execute(status -> {
+            EntityManager entityManager = persistence.getEntityManager();
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+            Root<T> root = query.from(clazz);
+            try {
+                query.select(root.get("id")).where(FilterPlan.forClass(clazz).toPredicate(criteriaBuilder, root,
+                        request, null, new ChasisServiceTemplate(entityManager)));
+            } catch (ParseException ex) {
+                throw new AssertionError(ex);
+            }
+            return new HashSet<>(entityManager.createQuery(query).getResultList());
+        });
+    }
+
+    private static Set<Long> notes(Integer... priorities) {
+        Set<Long> ids = new HashSet<>();
+        for (Integer priority : priorities) {
+            ids.add(NOTES.get(priority));
+        }
+        return ids;
+    }
+
+    private static Set<Long> appointments(String... names) {
+        Set<Long> ids = new HashSet<>();
+        for (String name : names) {
+            ids.add(APPOINTMENTS.get(name));
+        }
+        return ids;
+    }
+
+    private static Set<Long> nerds(String... statuses) {
+        Set<Long> ids = new HashSet<>();
+        for (String status : statuses) {
+            ids.add(NERDS.get(status));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import org.junit.Test;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link KeysetCursor} encoding, decoding and nullable sort key detection
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class KeysetCursorTest {
+
+    /**
+     * Test values survive a round trip in their sort key types
+     */
+    @Test
+    public void testRoundTrip() {
+        List<Object> values = Arrays.asList("name", 12, new BigDecimal("10.50"), LocalDate.of(2020, 10, 5), 7L);
+        String cursor = KeysetCursor.encode(values);
+        assertTrue(cursor, cursor.matches("[A-Za-z0-9_-]+"));
+        assertEquals(values, KeysetCursor.decode(cursor, Arrays.asList(String.class, Integer.class, BigDecimal.class,
+                LocalDate.class, Long.class)));
+    }
+
+    /**
+     * Test timestamps keep their nanoseconds and cursors holding epoch milliseconds are still read
+     */
+    @Test
+    public void testTimestamps() {
+        Timestamp timestamp = new Timestamp(1_600_000_000_123L);
+        timestamp.setNanos(123_456_789);
+        List<Object> values = Arrays.asList(timestamp, new Date(1_600_000_000_123L), 7L);
+        List<Object> decoded = KeysetCursor.decode(KeysetCursor.encode(values),
+                Arrays.asList(Date.class, Date.class, Long.class));
+        assertEquals(timestamp, decoded.get(0));
+        assertEquals(values.subList(1, 3), decoded.subList(1, 3));
+
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("[1600000000123,7]".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Arrays.asList(new Date(1_600_000_000_123L), 7L),
+                KeysetCursor.decode(legacy, Arrays.asList(Date.class, Long.class)));
+    }
+
+    /**
+     * Test null sort key values are kept
+     */
+    @Test
+    public void testNulls() {
+        String cursor = KeysetCursor.encode(Arrays.asList(null, 7L));
+        assertEquals(Arrays.asList(null, 7L), KeysetCursor.decode(cursor, Arrays.asList(String.class, Long.class)));
+    }
+
+    /**
+     * Test malformed cursors and cursors of a different sort order are rejected
+     */
+    @Test
+    public void testInvalid() {
+        String cursor = KeysetCursor.encode(Arrays.asList("name", 7L));
+        for (String invalid : Arrays.asList("abc", "!!", KeysetCursor.encode(List.of(7L)))) {
+            try {
+                KeysetCursor.decode(invalid, Arrays.asList(String.class, Long.class));
+                fail(invalid);
+            } catch (RunTimeBadRequest ex) {
+                //expected
+            }
+        }
+        try {
+            KeysetCursor.decode(cursor, Arrays.asList(Long.class, Long.class));
+            fail("Values of a different type");
+        } catch (RunTimeBadRequest ex) {
+            //expected
+        }
+    }
+
+    /**
+     * Test sort keys that can't hold null are detected from their mapping
+     */
+    @Test
+    public void testNullable() throws NoSuchFieldException {
+        for (String name : Arrays.asList("id", "count", "code", "name", "owner", "parent")) {
+            assertFalse(name, KeysetCursor.isNullable(Keys.class.getDeclaredField(name)));
+        }
+        for (String name : Arrays.asList("label", "total", "group")) {
+            assertTrue(name, KeysetCursor.isNullable(Keys.class.getDeclaredField(name)));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Keys {
+
+        @Id
+        private Long id;
+        private int count;
+        @Column(nullable = false)
+        private String code;
+        @NotNull
+        private String name;
+        @ManyToOne(optional = false)
+        private Keys owner;
+        @ManyToOne
+        @JoinColumn(nullable = false)
+        private Keys parent;
+        private String label;
+        @Column
+        private Integer total;
+        @ManyToOne
+        private Keys group;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.wrappers.ChasisPage;
+import com.cm.projects.spring.resource.chasis.wrappers.ResponseWrapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link PageStream} writes the same JSON as a {@link ResponseWrapper} of {@link ChasisPage}, reads one record
+ * past the page to find out if there is a next page and closes the records before creating the page
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class PageStreamTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Test the streamed page matches the page written at once
+     */
+    @Test
+    public void testWrite() throws Exception {
+        List<Map<String, Object>> records = Arrays.asList(Map.of("id", 1), Map.of("id", 2), Map.of("id", 3));
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PageStream(mapper).write(out, records.stream().onClose(() -> closed.set(true)), 2, 1,
+                flushes::incrementAndGet, (written, hasNext) -> {
+                    assertTrue("Records are closed before the page is created", closed.get());
+                    assertEquals(2, written);
+                    assertTrue(hasNext);
+                    return new ChasisPage<>(written, PageRequest.of(0, 2), 3, true, null, CountMode.EXACT);
+                });
+
+        ResponseWrapper<ChasisPage<Map<String, Object>>> expected = new ResponseWrapper<>();
+        expected.setData(new ChasisPage<>(records.subList(0, 2), PageRequest.of(0, 2), 3, true, null, CountMode.EXACT));
+        ObjectNode written = (ObjectNode) mapper.readTree(out.toByteArray());
+        written.put("timestamp", expected.getTimestamp());
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(written));
+        assertEquals(2, flushes.get());
+    }
+
+    /**
+     * Test an empty page
+     */
+    @Test
+    public void testEmpty() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PageStream(mapper).write(out, Stream.empty(), 20, 100, () -> fail("Nothing to flush"),
+                (written, hasNext) -> new ChasisPage<>(Collections.emptyList(), PageRequest.of(0, 20), 0, hasNext, null,
+                        CountMode.EXACT));
+        JsonNode data = mapper.readTree(out.toByteArray()).get("data");
+        assertEquals(0, data.get("content").size());
+        assertEquals(0, data.get("totalElements").asInt());
+        assertEquals(0, data.get("numberOfElements").asInt());
+        assertTrue(data.get("empty").asBoolean());
+    }
+}
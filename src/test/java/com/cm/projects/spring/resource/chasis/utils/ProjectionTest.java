@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.exceptions.RunTimeBadRequest;
+import com.cm.projects.spring.resource.chasis.metadata.EntityMetadataRegistry;
+import com.cm.projects.spring.resource.chasis.models.Gender;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import org.junit.Test;
+
+import javax.persistence.*;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link Projection} parsing and rows written using the object mapper: JSON names, formats, custom
+ * serializers and null inclusion of the entity's properties are applied
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class ProjectionTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Test the id is selected first, fields are selected once and fields that can't be selected are rejected
+     */
+    @Test
+    public void testOf() {
+        Projection<Reading> projection = Projection.of(EntityMetadataRegistry.forClass(Reading.class), "name, value,name");
+        assertEquals(Arrays.asList("id", "name", "value"),
+                projection.getFields().stream().map(Field::getName).collect(Collectors.toList()));
+        assertNull(Projection.of(EntityMetadataRegistry.forClass(Reading.class), " "));
+        for (String fields : Arrays.asList("unknown", "secret", "samples", "name,,value")) {
+            try {
+                Projection.of(EntityMetadataRegistry.forClass(Reading.class), fields);
+                fail(fields);
+            } catch (RunTimeBadRequest ex) {
+                //expected
+            }
+        }
+    }
+
+    /**
+     * Test entities without an @Id field are rejected
+     */
+    @Test(expected = RunTimeBadRequest.class)
+    public void testWithoutId() {
+        Projection.of(EntityMetadataRegistry.forClass(Unidentified.class), "name");
+    }
+
+    /**
+     * Test rows are written like the entity: JSON names, @JsonFormat and @JsonSerialize are applied
+     */
+    @Test
+    public void testWrite() throws JsonProcessingException {
+        Projection<Reading> projection = Projection.of(EntityMetadataRegistry.forClass(Reading.class),
+                "name,taken,value,gender");
+        Map<String, Object> row = projection.read(new Row(7L, "pressure", new Date(86_400_000L), 5L, (short) 1));
+        assertEquals(Arrays.asList("id", "name", "taken", "value", "gender"), new ArrayList<>(row.keySet()));
+        assertEquals("{\"id\":7,\"label\":\"pressure\",\"taken\":\"1970-01-02\",\"value\":\"5\",\"gender\":{\"id\":1}}",
+                mapper.writeValueAsString(row));
+        assertEquals(mapper.writeValueAsString(Collections.singletonList(row)), "[" + mapper.writeValueAsString(row) + "]");
+    }
+
+    /**
+     * Test null values are omitted for properties excluding nulls and written otherwise
+     */
+    @Test
+    public void testNulls() throws JsonProcessingException {
+        Projection<Reading> projection = Projection.of(EntityMetadataRegistry.forClass(Reading.class),
+                "name,note,gender");
+        assertEquals("{\"id\":7,\"label\":null,\"gender\":null}",
+                mapper.writeValueAsString(projection.read(new Row(7L, null, null, null))));
+    }
+
+    /**
+     * Test the object mapper writing the row is used
+     */
+    @Test
+    public void testMapper() throws JsonProcessingException {
+        Projection<Reading> projection = Projection.of(EntityMetadataRegistry.forClass(Reading.class), "name");
+        Map<String, Object> row = projection.read(new Row(7L, "pressure"));
+        ObjectMapper upperCamelCase = new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE);
+        assertEquals("{\"Id\":7,\"label\":\"pressure\"}", upperCamelCase.writeValueAsString(row));
+        assertEquals("{\"id\":7,\"label\":\"pressure\"}", mapper.writeValueAsString(row));
+    }
+
+    @Entity
+    static class Reading {
+
+        @Id
+        private Long id;
+        @JsonProperty("label")
+        private String name;
+        @Temporal(TemporalType.DATE)
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "UTC")
+        private Date taken;
+        @JsonSerialize(using = ToStringSerializer.class)
+        private Long value;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String note;
+        @ManyToOne
+        private Gender gender;
+        @JsonIgnore
+        private String secret;
+        @OneToMany
+        private List<Reading> samples;
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Date getTaken() {
+            return taken;
+        }
+
+        public Long getValue() {
+            return value;
+        }
+
+        public String getNote() {
+            return note;
+        }
+
+        public Gender getGender() {
+            return gender;
+        }
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public List<Reading> getSamples() {
+            return samples;
+        }
+    }
+
+    static class Unidentified {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Query row holding the selected values
+     */
+    private static class Row implements Tuple {
+
+        private final List<Object> values;
+
+        private Row(Object... values) {
+            this.values = Arrays.asList(values);
+        }
+
+        @Override
+        public Object get(int i) {
+            return values.get(i);
+        }
+
+        @Override
+        public <X> X get(TupleElement<X> tupleElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <X> X get(String alias, Class<X> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(String alias) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <X> X get(int i, Class<X> type) {
+            return type.cast(values.get(i));
+        }
+
+        @Override
+        public Object[] toArray() {
+            return values.toArray();
+        }
+
+        @Override
+        public List<TupleElement<?>> getElements() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
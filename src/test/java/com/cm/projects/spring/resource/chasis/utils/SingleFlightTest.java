@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.models.Note;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link SingleFlight}: callers arriving while a read is in flight wait for it and get a copy of its result or
+ * its exception, callers waiting too long and callers arriving after {@link SingleFlight#invalidate()} execute the
+ * read themselves
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final SingleFlight flight = new SingleFlight(Note.class, 5000);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test a caller arriving while the read is in flight gets its own result made from the detached copy of the
+     * leader's result and the leader keeps its result
+     */
+    @Test
+    public void testFollowerGetsDetachedCopy() throws Exception {
+        Future<String> leader = executor.submit(() -> execute("key", this::blockingRead));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> follower = new AtomicReference<>();
+        Future<String> result = executor.submit(() -> {
+            follower.set(Thread.currentThread());
+            return execute("key", () -> "not coalesced");
+        });
+        awaitWaiting(follower);
+        release.countDown();
+
+        assertEquals("leader", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("attached detached leader", result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, flight.getExecutionCount());
+        assertEquals(1, flight.getCoalescedCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    /**
+     * Test the result isn't detached if no caller waits for it
+     */
+    @Test
+    public void testLeaderAlone() {
+        AtomicInteger detached = new AtomicInteger();
+        assertEquals("alone", flight.execute("key", () -> "alone", value -> detached.incrementAndGet(), copy -> "copy"));
+        assertEquals(0, detached.get());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    /**
+     * Test callers waiting for a read that fails get its exception
+     */
+    @Test
+    public void testSharedException() throws Exception {
+        Future<String> leader = executor.submit(() -> execute("key", () -> {
+            blockingRead();
+            throw new IllegalArgumentException("failed");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> follower = new AtomicReference<>();
+        Future<String> result = executor.submit(() -> {
+            follower.set(Thread.currentThread());
+            return execute("key", () -> "not coalesced");
+        });
+        awaitWaiting(follower);
+        release.countDown();
+
+        for (Future<String> future : new Future[]{leader, result}) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Exception isn't shared");
+            } catch (ExecutionException ex) {
+                assertEquals("failed", ex.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Test a caller executes the read itself after waiting for the maximum wait
+     */
+    @Test
+    public void testTimeout() throws Exception {
+        flight.setMaxWaitMillis(100);
+        executor.submit(() -> execute("key", this::blockingRead));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals("own", execute("key", () -> "own"));
+        assertEquals(1, flight.getTimeoutCount());
+        assertEquals(0, flight.getCoalescedCount());
+    }
+
+    /**
+     * Test callers arriving after an invalidation don't wait for reads started before it
+     */
+    @Test
+    public void testInvalidate() throws Exception {
+        executor.submit(() -> execute("key", this::blockingRead));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        flight.invalidate();
+        assertEquals("after write", execute("key", () -> "after write"));
+        assertEquals(2, flight.getExecutionCount());
+    }
+
+    private String execute(String key, SingleFlight.Read<String, RuntimeException> read) {
+        return flight.execute(key, read, value -> "detached " + value, copy -> "attached " + copy);
+    }
+
+    private String blockingRead() {
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return "leader";
+    }
+
+    private static void awaitWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (thread.get() != null && thread.get().getState() == Thread.State.TIMED_WAITING) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Caller isn't waiting");
+    }
+}
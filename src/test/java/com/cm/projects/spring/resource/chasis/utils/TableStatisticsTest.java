@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Cornelius M.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.cm.projects.spring.resource.chasis.utils;
+
+import com.cm.projects.spring.resource.chasis.TestPersistence;
+import com.cm.projects.spring.resource.chasis.models.EdittedRecord;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests {@link TableStatistics} against an in memory H2 database using a pool of a single connection
+ *
+ * @author Cornelius M.
+ * @version 1.0.0
+ */
+public class TableStatisticsTest {
+
+    private static HikariDataSource dataSource;
+    private static TestPersistence persistence;
+
+    @BeforeClass
+    public static void setUpClass() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:statistics;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(1);
+        dataSource.setConnectionTimeout(250);
+        persistence = new TestPersistence(dataSource);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        persistence.close();
+        dataSource.close();
+    }
+
+    /**
+     * Test the estimate is read on the connection of the transaction, a second connection can't be taken from the
+     * pool
+     */
+    @Test
+    public void testEstimateInTransaction() {
+        Long estimate = persistence.transaction(true).execute(status ->
+                TableStatistics.estimateRowCount(persistence.getEntityManager(), EdittedRecord.class));
+        assertNotNull(estimate);
+        assertEquals("Connection returned to the pool", 0, dataSource.getHikariPoolMXBean().getActiveConnections());
+    }
+}